@@ -0,0 +1,85 @@
+package net.kubepia.loggen.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Baseline: the original per-line path (generateMessageWithSize, two HashMaps, String.format).
+ * Kept as a copy so encoder numbers can be compared with where we started.
+ * The original builds a template string of targetSize * 1024 chars before cutting it,
+ * so the 1 MB case (a 1 G char string per line) is left out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LegacyLineBenchmark {
+
+	@Param({ "1", "1024", "16384" })
+	public int payloadSize;
+
+	private long id;
+
+	@Benchmark
+	public String legacyLine() {
+		String message = generateMessageWithSize("hello world", payloadSize);
+
+		Map<String, Object> response = new HashMap<>();
+		long currentId = ++id;
+		response.put("id", currentId);
+		response.put("podId", "loggen-bench");
+		response.put("podIdWithId", "loggen-bench" + "-" + currentId);
+		response.put("message", message);
+		response.put("level", "INFO");
+		response.put("source", "scheduler");
+		response.put("timestamp", LocalDateTime.now().toString());
+		response.put("status", "auto-generated");
+		response.put("dataSize", payloadSize);
+		response.put("maxLogCount", Long.MAX_VALUE);
+		response.put("remainingLogs", Long.MAX_VALUE - currentId);
+
+		return String.format(
+				"[logid:%s] TestLog: id=%s, podId=%s, podIdWithId=%s, message=%s, level=%s, source=%s, timestamp=%s, status=%s, dataSize=%s, maxLogCount=%s, remainingLogs=%s",
+				UUID.randomUUID().toString(),
+				response.get("id"),
+				response.get("podId"),
+				response.get("podIdWithId"),
+				response.get("message"),
+				response.get("level"),
+				response.get("source"),
+				response.get("timestamp"),
+				response.get("status"),
+				response.get("dataSize"),
+				response.get("maxLogCount"),
+				response.get("remainingLogs"));
+	}
+
+	private static String generateMessageWithSize(String template, int targetSize) {
+		if (template.length() >= targetSize) {
+			return template.substring(0, targetSize);
+		}
+
+		StringBuilder message = new StringBuilder(template);
+		while (message.length() < targetSize * 1024) {
+			message.append(" ").append(template);
+		}
+
+		return message.substring(0, targetSize);
+	}
+}
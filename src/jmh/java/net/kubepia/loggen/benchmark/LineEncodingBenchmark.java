@@ -0,0 +1,92 @@
+package net.kubepia.loggen.benchmark;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import net.kubepia.loggen.encode.LineEncoder;
+import net.kubepia.loggen.encode.LineFields;
+import net.kubepia.loggen.encode.LineFormat;
+import net.kubepia.loggen.encode.LogLine;
+import net.kubepia.loggen.encode.TimestampFormat;
+import net.kubepia.loggen.payload.ContentSpec;
+import net.kubepia.loggen.payload.Entropy;
+import net.kubepia.loggen.payload.PayloadPool;
+import net.kubepia.loggen.payload.SizeDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lines/s for building one line in each output format, the same way LogGen.emit does.
+ * Run with -prof gc (the jmh profile default) to get gc.alloc.rate.norm, i.e. bytes allocated per line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineEncodingBenchmark {
+
+	@Param({ "text", "logfmt", "json" })
+	public String format;
+
+	@Param({ "1", "1024", "16384", "1048576" })
+	public int payloadSize;
+
+	/** Compare layouts with -p timestampFormat=iso-local,rfc3339,epoch-millis,epoch-nanos */
+	@Param({ "iso-local" })
+	public String timestampFormat;
+
+	/** Cost of cardinality fields, e.g. -p fields=userId:seq:100000:1.1,traceId:uuid,path:path:300 */
+	@Param({ "" })
+	public String fields;
+
+	private final LogLine line = new LogLine();
+	private final LineBuffer buffer = new LineBuffer();
+	private LineEncoder encoder;
+	private byte[] body;
+	private int messageLength;
+	private long id;
+	private ContentSpec content;
+	private LineFields lineFields;
+
+	@Setup
+	public void setUp() {
+		encoder = LineFormat.parse(format).newEncoder(TimestampFormat.parse(timestampFormat));
+		PayloadPool pool = PayloadPool.build("hello world", new SizeDistribution.FixedSize(payloadSize), 1);
+		body = pool.nextBody(ThreadLocalRandom.current());
+		messageLength = PayloadPool.lengthFor(body, payloadSize);
+		content = new ContentSpec(Entropy.TEMPLATE, 5000, 0, 42);
+		lineFields = LineFields.parse(fields, content.dictionary());
+	}
+
+	@Benchmark
+	public int encode() {
+		long currentId = ++id;
+		Instant now = Instant.now();
+		line.id(currentId)
+				.podId("loggen-bench")
+				.message(body, 0, messageLength)
+				.level("INFO")
+				.source("scheduler")
+				.timestamp(now.getEpochSecond(), now.getNano())
+				.status("auto-generated")
+				.dataSize(messageLength)
+				.maxLogCount(Long.MAX_VALUE)
+				.remainingLogs(Long.MAX_VALUE - currentId)
+				.fields(lineFields, content.lineSeed(currentId));
+		encoder.encode(line, buffer);
+		return buffer.length();
+	}
+}
@@ -0,0 +1,52 @@
+package net.kubepia.loggen.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import net.kubepia.loggen.payload.PayloadPool;
+import net.kubepia.loggen.payload.SizeDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of picking the payload for one line: variant, size from the distribution and UTF-8 safe length.
+ * payloadSize is the fixed size, or the upper bound for uniform and zipf.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadBenchmark {
+
+	@Param({ "fixed", "uniform", "zipf" })
+	public String distribution;
+
+	@Param({ "1", "1024", "16384", "1048576" })
+	public int payloadSize;
+
+	private final SplittableRandom random = new SplittableRandom(42);
+	private PayloadPool pool;
+
+	@Setup
+	public void setUp() {
+		SizeDistribution sizes = SizeDistribution.create(distribution, payloadSize, 1, payloadSize, 1.0, "");
+		pool = PayloadPool.build("hello world 안녕하세요", sizes, 4);
+	}
+
+	@Benchmark
+	public int nextPayload() {
+		byte[] body = pool.nextBody(random);
+		return PayloadPool.lengthFor(body, pool.nextSize(random));
+	}
+}
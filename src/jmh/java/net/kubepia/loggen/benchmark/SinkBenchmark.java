@@ -0,0 +1,185 @@
+package net.kubepia.loggen.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import net.kubepia.loggen.encode.LineFormat;
+import net.kubepia.loggen.encode.LogLine;
+import net.kubepia.loggen.payload.PayloadPool;
+import net.kubepia.loggen.payload.SizeDistribution;
+import net.kubepia.loggen.sink.AsyncSink;
+import net.kubepia.loggen.sink.DirectSink;
+import net.kubepia.loggen.sink.LogSink;
+import net.kubepia.loggen.sink.MappedFileSink;
+import net.kubepia.loggen.sink.NetworkEndpoint;
+import net.kubepia.loggen.sink.NetworkSink;
+import net.kubepia.loggen.sink.Slf4jSink;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lines/s and bytes/s for handing a pre-encoded line to each sink.
+ * slf4j and direct write to /dev/null (logback-test.xml in src/jmh/resources) so the numbers
+ * show the sink's own cost rather than the disk; mapped writes to a temporary file with rotation.
+ * network sends over TCP to a loopback stub that reads and discards, so it measures batching and the socket path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SinkBenchmark {
+
+	@Param({ "slf4j", "direct", "mapped", "network", "async" })
+	public String sink;
+
+	@Param({ "text", "logfmt", "json" })
+	public String format;
+
+	@Param({ "1", "1024", "16384", "1048576" })
+	public int payloadSize;
+
+	private final LineBuffer line = new LineBuffer();
+	private LogSink logSink;
+	private Path directory;
+	private DiscardServer server;
+
+	/**
+	 * Reports written bytes next to the op rate
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Bytes {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		PayloadPool pool = PayloadPool.build("hello world", new SizeDistribution.FixedSize(payloadSize), 1);
+		byte[] body = pool.nextBody(java.util.concurrent.ThreadLocalRandom.current());
+		int length = PayloadPool.lengthFor(body, payloadSize);
+		Instant now = Instant.now();
+		LogLine logLine = new LogLine().id(1)
+				.podId("loggen-bench")
+				.message(body, 0, length)
+				.level("INFO")
+				.source("scheduler")
+				.timestamp(now.getEpochSecond(), now.getNano())
+				.status("auto-generated")
+				.dataSize(length)
+				.maxLogCount(Long.MAX_VALUE)
+				.remainingLogs(Long.MAX_VALUE - 1);
+		LineFormat.parse(format).newEncoder().encode(logLine, line);
+
+		directory = Files.createTempDirectory("loggen-jmh");
+		switch (sink) {
+			case "slf4j":
+				logSink = new Slf4jSink();
+				break;
+			case "direct":
+				logSink = new DirectSink("/dev/null", 1 << 20, 100);
+				break;
+			case "mapped":
+				logSink = new MappedFileSink(directory.resolve("loggen.log").toString(), 64 << 20, 512L << 20, 0,
+						MappedFileSink.RotationStyle.RENAME, 1, MappedFileSink.FsyncPolicy.NONE, 1000);
+				break;
+			case "network":
+				server = new DiscardServer();
+				logSink = new NetworkSink(NetworkEndpoint.parse("tcp://127.0.0.1:" + server.port()),
+						new NetworkSink.Options(256 * 1024, 64, 2, 4, "none", "lines", "loggen-bench", 100, 1000, 3));
+				break;
+			case "async":
+				logSink = new AsyncSink(new DirectSink("/dev/null", 1 << 20, 100), 8192, 1,
+						AsyncSink.OverflowPolicy.BLOCK, 1, 1024);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown sink: " + sink);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		logSink.close();
+		if (server != null) {
+			server.close();
+		}
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public void write(Bytes counter) {
+		logSink.write(org.slf4j.event.Level.INFO, line);
+		counter.bytes += line.length() + 1;
+	}
+
+	/**
+	 * Loopback TCP receiver that reads every connection to the end and drops the bytes
+	 */
+	private static final class DiscardServer {
+		private final ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+		DiscardServer() throws IOException {
+			Thread.ofPlatform().daemon().name("jmh-discard-accept").start(this::accept);
+		}
+
+		int port() {
+			return socket.getLocalPort();
+		}
+
+		private void accept() {
+			while (!socket.isClosed()) {
+				try {
+					Socket connection = socket.accept();
+					Thread.ofPlatform().daemon().name("jmh-discard").start(() -> drain(connection));
+				} catch (IOException e) {
+					return;
+				}
+			}
+		}
+
+		private static void drain(Socket connection) {
+			byte[] buffer = new byte[64 * 1024];
+			try (connection; InputStream in = connection.getInputStream()) {
+				while (in.read(buffer) >= 0) {
+					// discard
+				}
+			} catch (IOException e) {
+				// sink closed
+			}
+		}
+
+		void close() throws IOException {
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package net.kubepia.loggen.benchmark;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import net.kubepia.loggen.encode.LogLine;
+import net.kubepia.loggen.encode.TextLineEncoder;
+import net.kubepia.loggen.engine.TenantPool;
+import net.kubepia.loggen.engine.ThreadingMode;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Platform against virtual threads for many mostly sleeping tenants, as run by TenantPool.
+ * {@link Wakeups#wakeups} reports tenant lines per second next to the op rate; with every tenant keeping up
+ * it equals tenants * 1000 / interval, and falls short when the threading mode cannot schedule them all.
+ * Add -prof gc for the allocation per wakeup; startup time of the whole pool is in {@link #start}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadingModeBenchmark {
+
+	@Param({ "platform", "virtual" })
+	public String threading;
+
+	@Param({ "1000", "5000" })
+	public int tenants;
+
+	@Param({ "100" })
+	public long intervalMillis;
+
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	/**
+	 * Pool started once per trial for {@link #run}, so {@link #start} measures a pool of its own
+	 */
+	@State(Scope.Benchmark)
+	public static class RunningPool {
+		private TenantPool pool;
+
+		@Setup(Level.Trial)
+		public void setUp(ThreadingModeBenchmark benchmark) {
+			pool = benchmark.newPool();
+			pool.start();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			pool.stop();
+		}
+	}
+
+	/**
+	 * Tenant lines emitted while the benchmark method waited
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Wakeups {
+		public long wakeups;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			wakeups = 0;
+		}
+	}
+
+	private TenantPool newPool() {
+		return new TenantPool(ThreadingMode.parse(threading).newThreadFactory("bench-" + threading + "-"), tenants,
+				intervalMillis, intervalMillis, "tenant", source -> scratch.get().encode(source));
+	}
+
+	/**
+	 * Let the running pool work for 100 ms and count its wakeups
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	public void run(RunningPool running, Wakeups counter) throws InterruptedException {
+		long before = running.pool.getWakeups();
+		Thread.sleep(100);
+		counter.wakeups += running.pool.getWakeups() - before;
+	}
+
+	/**
+	 * Time to start every tenant thread of a fresh pool
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 2)
+	@Measurement(iterations = 5)
+	public void start() {
+		TenantPool started = newPool();
+		started.start();
+		started.stop();
+	}
+
+	private static final class Scratch {
+		private final LogLine line = new LogLine().podId("bench").message("hello world").level("INFO")
+				.status("auto-generated");
+		private final LineBuffer buffer = new LineBuffer();
+		private final TextLineEncoder encoder = new TextLineEncoder();
+		private long id;
+
+		private boolean encode(String source) {
+			Instant now = Instant.now();
+			encoder.encode(line.id(++id).source(source).timestamp(now.getEpochSecond(), now.getNano()), buffer);
+			return true;
+		}
+	}
+}
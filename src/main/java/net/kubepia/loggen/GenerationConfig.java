@@ -0,0 +1,255 @@
+package net.kubepia.loggen;
+
+import net.kubepia.loggen.encode.LineFields;
+import net.kubepia.loggen.engine.LoadProfile;
+import net.kubepia.loggen.payload.ContentSpec;
+import net.kubepia.loggen.payload.PayloadPool;
+import net.kubepia.loggen.payload.SizeDistribution;
+import net.kubepia.loggen.source.LevelMix;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable snapshot of the generation settings that can change at runtime.
+ * The payload pool and level mix are built when the snapshot is created, so the hot path only
+ * reads one volatile reference per line and never takes a lock. Changes are applied by building
+ * a new snapshot with {@link #apply(Update)} and publishing it in one write.
+ * When a {@link LoadProfile} is set it replaces the constant rate; its clock starts on first use
+ * and carries over to later snapshots until the profile itself changes.
+ * Content settings (entropy, seed, extra fields) are fixed at startup and carried over unchanged.
+ */
+public final class GenerationConfig {
+
+    private final double rate;
+    private final int dataSize;
+    private final String distribution;
+    private final int minSize;
+    private final int maxSize;
+    private final double zipfExponent;
+    private final String histogram;
+    private final int variants;
+    private final String template;
+    private final String levels;
+    private final long maxCount;
+    private final String profile;
+    private final ContentSpec content;
+    private final LineFields fields;
+
+    private final PayloadPool payloadPool;
+    private final LevelMix levelMix;
+    private final LoadProfile loadProfile;
+    private final AtomicLong profileStartNanos;
+
+    /**
+     * @param rate lines per second for the generation engine (0 = scheduled tick)
+     * @param dataSize fixed payload size in bytes
+     * @param distribution fixed, uniform, zipf or histogram
+     * @param minSize lower bound for uniform and zipf
+     * @param maxSize upper bound for uniform and zipf (0 = dataSize)
+     * @param zipfExponent skew of the zipf distribution
+     * @param histogram histogram spec for the histogram distribution
+     * @param variants number of distinct payload bodies
+     * @param template message template
+     * @param levels level or level mix, e.g. "INFO" or "INFO:80,WARN:15,ERROR:5"
+     * @param maxCount maximum number of generated lines
+     * @param profile load profile spec (see {@link LoadProfile#parse(String)}), blank for a constant rate
+     */
+    public GenerationConfig(double rate, int dataSize, String distribution, int minSize, int maxSize,
+                            double zipfExponent, String histogram, int variants, String template,
+                            String levels, long maxCount, String profile) {
+        this(rate, dataSize, distribution, minSize, maxSize, zipfExponent, histogram, variants, template,
+                levels, maxCount, profile, ContentSpec.TEMPLATE, LineFields.EMPTY);
+    }
+
+    /**
+     * @param content entropy and seed of the generated text
+     * @param fields extra fields with controlled cardinality
+     */
+    public GenerationConfig(double rate, int dataSize, String distribution, int minSize, int maxSize,
+                            double zipfExponent, String histogram, int variants, String template,
+                            String levels, long maxCount, String profile, ContentSpec content, LineFields fields) {
+        this(rate, dataSize, distribution, minSize, maxSize, zipfExponent, histogram, variants, template,
+                levels, maxCount, profile, content, fields, null, null, parseProfile(profile), new AtomicLong());
+    }
+
+    private GenerationConfig(double rate, int dataSize, String distribution, int minSize, int maxSize,
+                             double zipfExponent, String histogram, int variants, String template,
+                             String levels, long maxCount, String profile, ContentSpec content, LineFields fields,
+                             GenerationConfig previous, LevelMix previousMix, LoadProfile loadProfile,
+                             AtomicLong profileStartNanos) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("Rate must not be negative: " + rate);
+        }
+        if (maxCount < 0) {
+            throw new IllegalArgumentException("Max count must not be negative: " + maxCount);
+        }
+        this.rate = rate;
+        this.dataSize = dataSize;
+        this.distribution = distribution;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.zipfExponent = zipfExponent;
+        this.histogram = histogram == null ? "" : histogram;
+        this.variants = variants;
+        this.template = template;
+        this.levels = levels;
+        this.maxCount = maxCount;
+        this.profile = profile == null ? "" : profile;
+        this.content = content;
+        this.fields = fields;
+        this.loadProfile = loadProfile;
+        this.profileStartNanos = profileStartNanos;
+
+        // Reuse the previous pool when no payload setting changed; building a large pool is not free
+        this.payloadPool = previous != null && previous.samePayload(this) ? previous.payloadPool : buildPayloadPool();
+        this.levelMix = previousMix != null ? previousMix : LevelMix.parse(levels);
+    }
+
+    private static LoadProfile parseProfile(String spec) {
+        return spec == null || spec.isBlank() ? null : LoadProfile.parse(spec);
+    }
+
+    private PayloadPool buildPayloadPool() {
+        int upper = maxSize > 0 ? maxSize : dataSize;
+        SizeDistribution sizes = SizeDistribution.create(distribution, dataSize, minSize, upper, zipfExponent, histogram);
+        return PayloadPool.build(template, sizes, variants, content);
+    }
+
+    private boolean samePayload(GenerationConfig other) {
+        return dataSize == other.dataSize && distribution.equals(other.distribution)
+                && minSize == other.minSize && maxSize == other.maxSize
+                && zipfExponent == other.zipfExponent && histogram.equals(other.histogram)
+                && variants == other.variants && template.equals(other.template);
+    }
+
+    /**
+     * Partial change; null fields keep their current value.
+     * Setting rate without profile switches back to a constant rate; an empty profile does the same.
+     */
+    public record Update(Double rate, Integer dataSize, String distribution, Integer minSize, Integer maxSize,
+                         Double zipfExponent, String histogram, Integer variants, String template,
+                         String levels, Long maxCount, String profile) {
+    }
+
+    /**
+     * Build the next snapshot; validation errors leave the current snapshot untouched
+     * @throws IllegalArgumentException when the result is not a valid configuration
+     */
+    public GenerationConfig apply(Update update) {
+        String nextLevels = Objects.requireNonNullElse(update.levels(), levels);
+        // A given profile always restarts its clock, even when it is the same spec again
+        String nextProfile = update.profile() != null ? update.profile() : update.rate() != null ? "" : profile;
+        boolean sameProfile = update.profile() == null && nextProfile.equals(profile);
+        return new GenerationConfig(
+                Objects.requireNonNullElse(update.rate(), rate),
+                Objects.requireNonNullElse(update.dataSize(), dataSize),
+                Objects.requireNonNullElse(update.distribution(), distribution),
+                Objects.requireNonNullElse(update.minSize(), minSize),
+                Objects.requireNonNullElse(update.maxSize(), maxSize),
+                Objects.requireNonNullElse(update.zipfExponent(), zipfExponent),
+                Objects.requireNonNullElse(update.histogram(), histogram),
+                Objects.requireNonNullElse(update.variants(), variants),
+                Objects.requireNonNullElse(update.template(), template),
+                nextLevels,
+                Objects.requireNonNullElse(update.maxCount(), maxCount),
+                nextProfile,
+                content,
+                fields,
+                this,
+                nextLevels.equals(levels) ? levelMix : null,
+                sameProfile ? loadProfile : parseProfile(nextProfile),
+                sameProfile ? profileStartNanos : new AtomicLong());
+    }
+
+    /**
+     * Same settings with a profile built elsewhere, e.g. a rate timeline uploaded as CSV
+     * @param description shown as the profile in GET /log/config
+     */
+    public GenerationConfig withProfile(String description, LoadProfile newProfile) {
+        return new GenerationConfig(rate, dataSize, distribution, minSize, maxSize, zipfExponent, histogram,
+                variants, template, levels, maxCount, description, content, fields, this, levelMix, newProfile,
+                new AtomicLong());
+    }
+
+    public double rate() {
+        return rate;
+    }
+
+    /**
+     * Rate right now: the load profile's value, or the constant rate when no profile is set
+     */
+    public double currentRate() {
+        if (loadProfile == null) {
+            return rate;
+        }
+        long now = System.nanoTime();
+        long start = profileStartNanos.get();
+        if (start == 0) {
+            // First use starts the profile clock, so a ramp starts when generation does
+            profileStartNanos.compareAndSet(0, now);
+            start = profileStartNanos.get();
+        }
+        return loadProfile.rateAt(now - start);
+    }
+
+    /**
+     * @return true when a constant rate or a load profile drives the generation engine
+     */
+    public boolean isRateControlled() {
+        return rate > 0 || loadProfile != null;
+    }
+
+    /**
+     * @return the load profile in effect, or null for a constant rate
+     */
+    public LoadProfile loadProfile() {
+        return loadProfile;
+    }
+
+    public long maxCount() {
+        return maxCount;
+    }
+
+    public PayloadPool payloadPool() {
+        return payloadPool;
+    }
+
+    public LevelMix levelMix() {
+        return levelMix;
+    }
+
+    public ContentSpec content() {
+        return content;
+    }
+
+    public LineFields fields() {
+        return fields;
+    }
+
+    /**
+     * Settings as shown by GET /log/config
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("rate", rate);
+        map.put("dataSize", dataSize);
+        map.put("distribution", distribution);
+        map.put("minSize", minSize);
+        map.put("maxSize", maxSize);
+        map.put("zipfExponent", zipfExponent);
+        map.put("histogram", histogram);
+        map.put("variants", payloadPool.variantCount());
+        map.put("template", template);
+        map.put("levels", levels);
+        map.put("maxCount", maxCount);
+        map.put("profile", profile);
+        map.put("entropy", content.entropy().name().toLowerCase(Locale.ROOT));
+        map.put("seed", content.seed());
+        map.put("fields", fields.toString());
+        return map;
+    }
+}
@@ -1,16 +1,39 @@
 package net.kubepia.loggen;
 
+import net.kubepia.loggen.encode.LineBuffer;
+import net.kubepia.loggen.encode.LogLine;
+import net.kubepia.loggen.encode.LineEncoder;
+import net.kubepia.loggen.encode.LineFields;
+import net.kubepia.loggen.encode.LineFormat;
+import net.kubepia.loggen.encode.TimestampFormat;
+import net.kubepia.loggen.engine.LoadProfile;
+import net.kubepia.loggen.id.CheckpointIdAllocator;
+import net.kubepia.loggen.id.IdAllocator;
+import net.kubepia.loggen.id.LocalIdAllocator;
+import net.kubepia.loggen.metrics.GenerationMetrics;
+import net.kubepia.loggen.payload.ContentSpec;
+import net.kubepia.loggen.payload.Entropy;
+import net.kubepia.loggen.payload.PayloadPool;
+import net.kubepia.loggen.payload.SplitMix64;
+import net.kubepia.loggen.source.LevelMix;
+import net.kubepia.loggen.sink.LogSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Component
 public class LogGen {
@@ -23,140 +46,453 @@ public class LogGen {
     @Value("${loggen.data.size:1024}")
     private int dataSize;
 
+    @Value("${loggen.payload.distribution:fixed}")
+    private String payloadDistribution;
+
+    @Value("${loggen.payload.min-size:1}")
+    private int payloadMinSize;
+
+    @Value("${loggen.payload.max-size:0}")
+    private int payloadMaxSize;
+
+    @Value("${loggen.payload.zipf-exponent:1.0}")
+    private double payloadZipfExponent;
+
+    @Value("${loggen.payload.histogram:}")
+    private String payloadHistogram;
+
+    @Value("${loggen.payload.variants:1}")
+    private int payloadVariants;
+
+    @Value("${loggen.payload.entropy:template}")
+    private String payloadEntropy;
+
+    @Value("${loggen.payload.dictionary-size:5000}")
+    private int dictionarySize;
+
+    @Value("${loggen.payload.corpus-size:4194304}")
+    private int corpusSize;
+
+    @Value("${loggen.random.seed:}")
+    private String randomSeed;
+
+    @Value("${loggen.fields:}")
+    private String fieldSpec;
+
     @Value("${loggen.message.template:hello world}")
     private String messageTemplate;
 
     @Value("${loggen.log.level:INFO}")
     private String logLevel;
 
+    @Value("${loggen.rate.lines-per-second:0}")
+    private double ratePerSecond;
+
+    @Value("${loggen.rate.profile:}")
+    private String rateProfile;
+
     @Value("${loggen.log.source:scheduler}")
     private String logSource;
 
+    @Value("${loggen.format:text}")
+    private String format;
+
+    @Value("${loggen.timestamp.format:iso-local}")
+    private String timestampFormatName;
+
     @Value("${POD_ID:PODID}")
     private String podId;
 
     @Value("${loggen.max.count:1000}")
     private long maxLogCount;
 
-    private final AtomicLong sequenceId = new AtomicLong(1);
+    @Value("${loggen.checkpoint.path:}")
+    private String checkpointPath;
+
+    @Value("${loggen.checkpoint.lease-size:100000}")
+    private long checkpointLeaseSize;
+
+    @Autowired
+    private LogSink logSink;
+
+    @Autowired
+    private GenerationMetrics metrics;
+
+    private volatile IdAllocator idAllocator = new LocalIdAllocator();
+    private LineFormat lineFormat = LineFormat.TEXT;
+    private TimestampFormat timestampFormat = TimestampFormat.ISO_LOCAL;
+    private final ThreadLocal<LineScratch> lineScratch = ThreadLocal.withInitial(() -> new LineScratch(newEncoder()));
+    private volatile GenerationConfig config;
     private volatile boolean logGenerationStopped = false;
+    private volatile boolean scheduledTickEnabled = true;
+    private volatile double tickShare = 1.0;
+    /** Only touched by the scheduler thread */
+    private double tickCredit;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!checkpointPath.isBlank()) {
+            // Continue the sequence of the previous run of this pod instead of starting at 1 again
+            idAllocator = CheckpointIdAllocator.open(Path.of(checkpointPath), checkpointLeaseSize);
+        }
+        lineFormat = LineFormat.parse(format);
+        timestampFormat = TimestampFormat.parse(timestampFormatName);
+        // Without a configured seed every run differs; the chosen seed is logged so a run can be repeated
+        long seed = randomSeed == null || randomSeed.isBlank() ? ThreadLocalRandom.current().nextLong()
+                : Long.parseLong(randomSeed.trim());
+        ContentSpec content = new ContentSpec(Entropy.parse(payloadEntropy), dictionarySize, corpusSize, seed);
+        LineFields fields = LineFields.parse(fieldSpec, content.dictionary());
+        config = new GenerationConfig(ratePerSecond, dataSize, payloadDistribution, payloadMinSize, payloadMaxSize,
+                payloadZipfExponent, payloadHistogram, payloadVariants, messageTemplate, levelSpec(logLevel),
+                maxLogCount, rateProfile, content, fields);
+        logger.info("[{}] Payload pool built: distribution={}, maxSize={}, variants={}, entropy={}, seed={}, fields={}",
+                podId, payloadDistribution, config.payloadPool().distribution().maxSize(),
+                config.payloadPool().variantCount(), content.entropy(), seed, fields.isEmpty() ? "none" : fields);
+    }
+
+    /**
+     * Current settings snapshot; read it once and use that instance for a whole operation
+     */
+    public GenerationConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Apply a partial change while generation is running. The new snapshot, including its payload pool,
+     * is built before it is published, so producers switch over between two lines without locking.
+     * Raising the max count above the current id resumes generation that stopped at the old limit.
+     * @return the snapshot now in effect
+     * @throws IllegalArgumentException when the change is invalid; the current settings are kept
+     */
+    public synchronized GenerationConfig updateConfig(GenerationConfig.Update update) {
+        return publish(config.apply(update));
+    }
+
+    /**
+     * Replace the load profile, e.g. with a rate timeline uploaded at runtime
+     * @param description shown as the profile in GET /log/config
+     */
+    public synchronized GenerationConfig updateLoadProfile(String description, LoadProfile profile) {
+        return publish(config.withProfile(description, profile));
+    }
+
+    private GenerationConfig publish(GenerationConfig next) {
+        config = next;
+        if (logGenerationStopped && !idAllocator.isExhausted(next.maxCount())) {
+            logGenerationStopped = false;
+        }
+        logger.info("[{}] Generation config updated: {}", podId, next.toMap());
+        return next;
+    }
 
     /**
      * Scheduled task that runs based on configured interval to create log
      */
     @Scheduled(fixedRateString = "${loggen.schedule.interval:1000}")
     public void generateHelloWorldLog() {
+        // The generation engine takes over when a target rate is configured
+        if (!scheduledTickEnabled) {
+            return;
+        }
+        // In a cluster each pod emits on its share of the ticks, so the interval stays a cluster-wide rate
+        tickCredit = Math.min(1.0, tickCredit + tickShare);
+        if (tickCredit < 1.0) {
+            return;
+        }
+        tickCredit -= 1.0;
+        generateNext();
+    }
+
+    /**
+     * Claim the next sequence id and emit one log line.
+     * Safe to call from several worker threads: ids stay unique and never exceed maxLogCount.
+     * @return false when log generation is stopped or the maximum log count has been reached
+     */
+    public boolean generateNext() {
+        return generateNext(logSource);
+    }
+
+    /**
+     * Emit one log line on behalf of the given source
+     * @param source value written to the source field
+     * @return false when log generation is stopped or the maximum log count has been reached
+     */
+    public boolean generateNext(String source) {
         // Check if log generation has been stopped
         if (logGenerationStopped) {
-            return;
+            return false;
         }
 
-        // Check if maximum log count has been reached
-        long currentId = sequenceId.get();
-        if (currentId > maxLogCount) {
-            if (!logGenerationStopped) {
-                logGenerationStopped = true;
-                logger.warn("[{}] Maximum log count ({}) reached. Log generation stopped.", podId, maxLogCount);
-            }
-            return;
+        GenerationConfig current = config;
+        long maxLogCount = current.maxCount();
+        long currentId = nextSequenceId(maxLogCount);
+        if (currentId < 0) {
+            return false;
         }
 
-        // Generate data based on configured size
-        String message = generateMessageWithSize(messageTemplate, dataSize);
+        generate(lineScratch.get(), current, currentId, source, true);
+        return true;
+    }
 
-        Map<String, Object> logData = new HashMap<>();
-        logData.put("message", message);
-        logData.put("level", logLevel);
-        logData.put("source", logSource);
+    /**
+     * Encode lines with the current settings without claiming ids or writing to the sink,
+     * so the JIT compiles the generation path before real traffic arrives
+     * @return nanoseconds spent
+     */
+    public long warmUp(int lines) {
+        GenerationConfig current = config;
+        LineScratch scratch = new LineScratch(newEncoder());
+        long startNanos = System.nanoTime();
+        for (int i = 1; i <= lines; i++) {
+            generate(scratch, current, i, logSource, false);
+        }
+        return System.nanoTime() - startNanos;
+    }
 
-        // Create the log entry
-        Map<String, Object> response = new HashMap<>();
-        currentId = sequenceId.getAndIncrement();
-        response.put("id", currentId);
-        response.put("podId", podId);
-        response.put("podIdWithId", podId + "-" + currentId);
-        response.put("message", message);
-        response.put("level", logLevel);
-        response.put("source", logSource);
-        response.put("timestamp", LocalDateTime.now().toString());
-        response.put("status", "auto-generated");
-        response.put("dataSize", dataSize);
-        response.put("maxLogCount", maxLogCount);
-        response.put("remainingLogs", maxLogCount - currentId);
+    /**
+     * Pick body, size and level for a claimed id and encode the line, writing it to the sink when send is set
+     */
+    private void generate(LineScratch scratch, GenerationConfig current, long currentId, String source, boolean send) {
+        // Every choice for this line comes from a generator seeded by (seed, id), so a seeded run is reproducible
+        long lineSeed = current.content().lineSeed(currentId);
+        SplitMix64 random = scratch.random;
+        random.reseed(lineSeed);
 
-        // Log using SLF4J/Logback
-        logGeneratedData(response);
+        // Reference a slice of a pre-rendered body instead of building the message
+        PayloadPool pool = current.payloadPool();
+        byte[] body = pool.nextBody(random);
+        int size = pool.nextSize(random);
+        int offset = pool.nextOffset(random, body, Math.min(size, body.length));
+        int messageLength = PayloadPool.lengthFor(body, offset, size);
+        LevelMix levels = current.levelMix();
+        int levelIndex = levels.next(random);
+        if (send) {
+            write(scratch, current, currentId, lineSeed, source, levels.name(levelIndex), levels.level(levelIndex),
+                    body, offset, messageLength);
+        } else {
+            fill(scratch, current, currentId, lineSeed, source, levels.name(levelIndex), body, offset, messageLength);
+            scratch.encoder.encode(scratch.line, scratch.buffer);
+        }
     }
 
     /**
-     * Generate message with specified size
-     * @param template base message template
-     * @param targetSize target size in bytes
-     * @return message with specified size
+     * Emit one log line with caller-supplied source, level and pre-rendered message.
+     * Shares the sequence id and maxLogCount with every other producer.
+     * @param source value written to the source field
+     * @param levelName value written to the level field
+     * @param lineLevel level used by the sink
+     * @param body pre-encoded UTF-8 message; only the first messageLength bytes are used
+     * @param messageLength message size in bytes
+     * @return false when log generation is stopped or the maximum log count has been reached
      */
-    private String generateMessageWithSize(String template, int targetSize) {
-        if (template.length() >= targetSize) {
-            return template.substring(0, targetSize);
+    public boolean emit(String source, String levelName, Level lineLevel, byte[] body, int messageLength) {
+        if (logGenerationStopped) {
+            return false;
         }
 
-        StringBuilder message = new StringBuilder(template);
-        while (message.length() < targetSize*1024) {
-            message.append(" ").append(template);
+        // Claim an id, or stop if maximum log count has been reached
+        GenerationConfig current = config;
+        long currentId = nextSequenceId(current.maxCount());
+        if (currentId < 0) {
+            return false;
         }
 
-        return message.substring(0, targetSize);
+        write(lineScratch.get(), current, currentId, current.content().lineSeed(currentId), source, levelName,
+                lineLevel, body, 0, messageLength);
+        return true;
     }
 
     /**
-     * Log the generated data using appropriate log level
-     * @param logData the log data to be logged
+     * Fill the reusable per-thread line for a claimed id, encode it without intermediate maps and hand it to the sink
      */
-    private void logGeneratedData(Map<String, Object> logData) {
-        // 고유한 logid(UUID) 생성
-        String logId = UUID.randomUUID().toString();
+    private void write(LineScratch scratch, GenerationConfig current, long currentId, long lineSeed, String source,
+                       String levelName, Level lineLevel, byte[] body, int offset, int messageLength) {
+        fill(scratch, current, currentId, lineSeed, source, levelName, body, offset, messageLength);
+        boolean timed = metrics.shouldTime(++scratch.lineNumber);
+        long startNanos = timed ? System.nanoTime() : 0;
+        scratch.encoder.encode(scratch.line, scratch.buffer);
+        int lineBytes = scratch.buffer.length();
+
+        // Hand the encoded line to the configured sink (SLF4J/Logback by default)
+        long encodedNanos = timed ? System.nanoTime() : 0;
+        logSink.write(lineLevel, scratch.buffer);
+        if (timed) {
+            metrics.recordTiming(encodedNanos - startNanos, System.nanoTime() - encodedNanos);
+        }
+        metrics.recordLine(lineLevel, lineBytes);
+    }
 
-        // logid 포함된 로그 메시지 생성
-        String logMessage = String.format(
-                "[logid:%s] TestLog: id=%s, podId=%s, podIdWithId=%s, message=%s, level=%s, source=%s, timestamp=%s, status=%s, dataSize=%s, maxLogCount=%s, remainingLogs=%s",
-                logId,
-                logData.get("id"),
-                logData.get("podId"),
-                logData.get("podIdWithId"),
-                logData.get("message"),
-                logData.get("level"),
-                logData.get("source"),
-                logData.get("timestamp"),
-                logData.get("status"),
-                logData.get("dataSize"),
-                logData.get("maxLogCount"),
-                logData.get("remainingLogs"));
+    private void fill(LineScratch scratch, GenerationConfig current, long currentId, long lineSeed, String source,
+                      String levelName, byte[] body, int offset, int messageLength) {
+        long maxLogCount = current.maxCount();
+        Instant now = Instant.now();
+        scratch.line.id(currentId)
+                .podId(podId)
+                .message(body, offset, messageLength)
+                .level(levelName)
+                .source(source)
+                .timestamp(now.getEpochSecond(), now.getNano())
+                .status("auto-generated")
+                .dataSize(messageLength)
+                .maxLogCount(maxLogCount)
+                .remainingLogs(maxLogCount - currentId)
+                .fields(current.fields(), lineSeed);
+    }
 
-        // 로그 레벨에 따라 출력
-        switch (logLevel.toUpperCase()) {
-            case "ERROR":
-                logger.error(logMessage);
-                break;
-            case "WARN":
-                logger.warn(logMessage);
-                break;
-            case "DEBUG":
-                logger.debug(logMessage);
-                break;
-            case "TRACE":
-                logger.trace(logMessage);
-                break;
-            case "INFO":
-            default:
-                logger.info(logMessage);
-                break;
+    /**
+     * Claim a sequence id for a line the caller encodes itself, e.g. a replayed line.
+     * Shares the id space and maxLogCount with every other producer.
+     * @return claimed id, or -1 when log generation is stopped or the maximum log count has been reached
+     */
+    public long claimId() {
+        if (logGenerationStopped) {
+            return -1;
+        }
+        return nextSequenceId(config.maxCount());
+    }
+
+    /**
+     * Hand a line encoded elsewhere to the sink and count it like a generated line
+     * @param lineLevel level used by the sink
+     * @param line complete line without the trailing newline
+     */
+    public void writeEncoded(Level lineLevel, LineBuffer line) {
+        int lineBytes = line.length();
+        logSink.write(lineLevel, line);
+        metrics.recordLine(lineLevel, lineBytes);
+    }
+
+    /**
+     * Claim the next sequence id without passing maxLogCount
+     * @return claimed id, or -1 when the maximum log count has been reached
+     */
+    private long nextSequenceId(long maxLogCount) {
+        long currentId = idAllocator.next(maxLogCount);
+        if (currentId < 0) {
+            markStopped();
+        }
+        return currentId;
+    }
+
+    private synchronized void markStopped() {
+        // Re-check under the lock: updateConfig may have raised the limit since the caller read it
+        long maxLogCount = config.maxCount();
+        if (!logGenerationStopped && idAllocator.isExhausted(maxLogCount)) {
+            logGenerationStopped = true;
+            logger.warn("[{}] Maximum log count ({}) reached. Log generation stopped.", podId, maxLogCount);
+        }
+    }
+
+    /**
+     * Level mix for loggen.log.level; an unknown level falls back to INFO as before
+     */
+    private static String levelSpec(String value) {
+        try {
+            LevelMix.parse(value);
+            return value;
+        } catch (IllegalArgumentException e) {
+            return Level.INFO.name();
+        }
+    }
+
+    /**
+     * Reusable per-thread state for building lines
+     */
+    private static final class LineScratch {
+        private final LogLine line = new LogLine();
+        private final LineBuffer buffer = new LineBuffer();
+        private final LineEncoder encoder;
+        private final SplitMix64 random = new SplitMix64(0);
+        private int lineNumber;
+
+        private LineScratch(LineEncoder encoder) {
+            this.encoder = encoder;
+        }
+    }
+
+    /**
+     * Enable or disable the legacy single-threaded scheduled tick
+     * @param enabled false when the generation engine drives log creation
+     */
+    public void setScheduledTickEnabled(boolean enabled) {
+        this.scheduledTickEnabled = enabled;
+    }
+
+    public boolean isScheduledTickEnabled() {
+        return scheduledTickEnabled;
+    }
+
+    /**
+     * Fraction of the scheduled ticks this pod emits a line on; set by cluster coordination
+     */
+    public void setTickShare(double tickShare) {
+        this.tickShare = tickShare;
+    }
+
+    /**
+     * Replace the sequence id source, e.g. with cluster-wide id blocks. Call before generation starts.
+     * A replaced checkpoint is closed; cluster ids are tracked by the coordinator instead.
+     */
+    public void setIdAllocator(IdAllocator idAllocator) {
+        IdAllocator previous = this.idAllocator;
+        this.idAllocator = idAllocator;
+        if (previous instanceof CheckpointIdAllocator) {
+            logger.info("[{}] Sequence checkpoint not used: ids come from {}", podId, idAllocator.name());
+            previous.close();
         }
     }
 
+    /**
+     * Record where the sequence stopped, so the next start of this pod continues there.
+     * Producers are stopped first; the beans driving them are destroyed before this one.
+     */
+    @PreDestroy
+    public void close() {
+        logGenerationStopped = true;
+        if (idAllocator instanceof CheckpointIdAllocator checkpoint) {
+            checkpoint.close();
+        }
+    }
+
+    public IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+
+    public String getPodId() {
+        return podId;
+    }
+
+    public LineFormat getLineFormat() {
+        return lineFormat;
+    }
+
+    public TimestampFormat getTimestampFormat() {
+        return timestampFormat;
+    }
+
+    /**
+     * New encoder for the configured line and timestamp format; encoders are not thread-safe
+     */
+    public LineEncoder newEncoder() {
+        return lineFormat.newEncoder(timestampFormat);
+    }
+
+    /**
+     * Total number of lines emitted since startup, across all threads
+     */
+    public long getEmittedCount() {
+        return metrics.getLines();
+    }
+
+    public boolean isLogGenerationStopped() {
+        return logGenerationStopped;
+    }
+
     /**
      * Reset log generation counter and restart log generation
      */
     public void restartLogGeneration() {
-        sequenceId.set(1);
+        idAllocator.reset();
         logGenerationStopped = false;
         logger.info("[{}] Log generation restarted. Counter reset to 1.", podId);
     }
@@ -165,11 +501,18 @@ public class LogGen {
      * Get current log generation status
      */
     public Map<String, Object> getLogGenerationStatus() {
+        long maxLogCount = config.maxCount();
         Map<String, Object> status = new HashMap<>();
         status.put("podId", podId);
-        status.put("currentId", sequenceId.get());
+        long currentId = idAllocator.peek();
+        status.put("currentId", currentId);
         status.put("maxLogCount", maxLogCount);
-        status.put("remainingLogs", Math.max(0, maxLogCount - sequenceId.get()));
+        status.put("remainingLogs", Math.max(0, maxLogCount - currentId));
+        status.put("idAllocator", idAllocator.name());
+        if (idAllocator instanceof CheckpointIdAllocator checkpoint) {
+            status.put("resumedFrom", checkpoint.getResumedFrom());
+            status.put("resumedClean", checkpoint.isResumedClean());
+        }
         status.put("logGenerationStopped", logGenerationStopped);
         status.put("timestamp", LocalDateTime.now().toString());
         return status;
@@ -0,0 +1,68 @@
+package net.kubepia.loggen.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Coordinator endpoints served by the leader pod (loggen.cluster.mode=leader); followers call them
+ * through {@link HttpCoordinator}. The controller is always registered, so an ahead-of-time processed
+ * build does not fix the mode at build time; on pods that are not the leader every endpoint answers 404.
+ */
+@RestController
+@RequestMapping("/cluster")
+public class ClusterController {
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @PostMapping("/heartbeat")
+    public ResponseEntity<ClusterView> heartbeat(@RequestBody MemberReport report) {
+        LocalCoordinator leader = clusterService.getLeaderCoordinator();
+        return leader == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(leader.heartbeat(report));
+    }
+
+    /**
+     * @return the leased block, or 204 when the cluster-wide id space is used up
+     */
+    @PostMapping("/claim")
+    public ResponseEntity<IdBlock> claim(@RequestParam String member, @RequestParam long maxCount,
+                                         @RequestParam long size) {
+        LocalCoordinator leader = clusterService.getLeaderCoordinator();
+        if (leader == null) {
+            return ResponseEntity.notFound().build();
+        }
+        IdBlock block = leader.claim(member, maxCount, size);
+        return block == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(block);
+    }
+
+    @PostMapping("/give-back")
+    public ResponseEntity<Void> giveBack(@RequestParam String member, @RequestBody IdBlock unused) {
+        LocalCoordinator leader = clusterService.getLeaderCoordinator();
+        if (leader == null) {
+            return ResponseEntity.notFound().build();
+        }
+        leader.giveBack(member, unused);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/leave")
+    public ResponseEntity<Void> leave(@RequestParam String member, @RequestBody(required = false) IdBlock unused) {
+        LocalCoordinator leader = clusterService.getLeaderCoordinator();
+        if (leader == null) {
+            return ResponseEntity.notFound().build();
+        }
+        leader.leave(member, unused);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/reset")
+    public ResponseEntity<Void> reset() {
+        LocalCoordinator leader = clusterService.getLeaderCoordinator();
+        if (leader == null) {
+            return ResponseEntity.notFound().build();
+        }
+        leader.reset();
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,41 @@
+package net.kubepia.loggen.cluster;
+
+import java.io.IOException;
+
+/**
+ * Backend that pods use to agree on membership and to lease id blocks.
+ * Called a few times per second per pod, never per line.
+ */
+public interface ClusterCoordinator {
+
+    /**
+     * Renew this member's lease and publish its stats
+     * @return members with a valid lease, including this one
+     */
+    ClusterView heartbeat(MemberReport report) throws IOException;
+
+    /**
+     * Lease the next block of ids
+     * @return the block, or null when every id up to maxCount has been handed out
+     */
+    IdBlock claim(String memberId, long maxCount, long size) throws IOException;
+
+    /**
+     * Give back ids this member leased but will not emit, e.g. the part of its block above a lowered maxCount;
+     * they are handed out again before fresh ids
+     */
+    void giveBack(String memberId, IdBlock unused) throws IOException;
+
+    /**
+     * Drop this member's lease and give back the unused part of its block
+     * @param unused ids not emitted, or null
+     */
+    void leave(String memberId, IdBlock unused) throws IOException;
+
+    /**
+     * Start the cluster-wide id space over from 1
+     */
+    void reset() throws IOException;
+
+    String name();
+}
@@ -0,0 +1,180 @@
+package net.kubepia.loggen.cluster;
+
+import net.kubepia.loggen.id.IdAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids from blocks leased from the {@link ClusterCoordinator}.
+ * Within a block ids come from a local AtomicLong, so the coordinator is only contacted
+ * once per block, not per line. maxCount is the cluster-wide limit: the coordinator never
+ * leases ids above it, so all pods together emit exactly maxCount lines. When maxCount is lowered below
+ * the current block, the part above it goes back to the coordinator, to be emitted if the limit is raised.
+ */
+public class ClusterIdAllocator implements IdAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterIdAllocator.class);
+
+    /** Block with its own cursor; replaced as a whole when used up */
+    private record Lease(IdBlock block, AtomicLong cursor) {
+    }
+
+    private final ClusterCoordinator coordinator;
+    private final String memberId;
+    private final long blockSize;
+    private volatile Lease lease;
+    private volatile boolean closed = false;
+    private long lastFailureLogMillis;
+
+    public ClusterIdAllocator(ClusterCoordinator coordinator, String memberId, long blockSize) {
+        this.coordinator = coordinator;
+        this.memberId = memberId;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    @Override
+    public long next(long maxCount) {
+        while (true) {
+            Lease current = lease;
+            if (current != null) {
+                long id = current.cursor().get();
+                if (id <= current.block().last()) {
+                    if (id > maxCount) {
+                        giveBackAbove(current, maxCount);
+                        return -1;
+                    }
+                    if (current.cursor().compareAndSet(id, id + 1)) {
+                        return id;
+                    }
+                    continue;
+                }
+            }
+            if (!refill(current, maxCount)) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Lease a new block unless another thread already did
+     * @return false when no block could be leased
+     */
+    private synchronized boolean refill(Lease seen, long maxCount) {
+        if (closed) {
+            return false;
+        }
+        if (lease != seen) {
+            return true;
+        }
+        try {
+            IdBlock block = coordinator.claim(memberId, maxCount, blockSize);
+            if (block == null) {
+                return false;
+            }
+            lease = new Lease(block, new AtomicLong(block.first()));
+            return true;
+        } catch (IOException e) {
+            // Coordinator unreachable: stall instead of inventing ids that could collide
+            long now = System.currentTimeMillis();
+            if (now - lastFailureLogMillis > 10_000) {
+                lastFailureLogMillis = now;
+                logger.warn("Cannot lease an id block from {}: {}", coordinator.name(), e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Return the rest of the block once it lies above maxCount, so no id in it is skipped
+     */
+    private synchronized void giveBackAbove(Lease seen, long maxCount) {
+        if (lease != seen) {
+            return;
+        }
+        // Ids at or above the sentinel are never handed out, so the block cannot move after this
+        long from = seen.cursor().getAndSet(Long.MAX_VALUE / 2);
+        IdBlock rest = new IdBlock(from, seen.block().last());
+        if (from <= maxCount || closed) {
+            // The limit was raised meanwhile, or close() gives the rest back
+            lease = new Lease(rest, new AtomicLong(from));
+            return;
+        }
+        try {
+            coordinator.giveBack(memberId, rest);
+            lease = null;
+        } catch (IOException e) {
+            // Keep the ids; close() gives them back, or they are emitted here once the limit is raised
+            lease = new Lease(rest, new AtomicLong(from));
+            logger.warn("Cannot give ids {}..{} back to {}: {}", rest.first(), rest.last(), coordinator.name(),
+                    e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isExhausted(long maxCount) {
+        Lease current = lease;
+        if (hasIdUpTo(current, maxCount)) {
+            return false;
+        }
+        // Ask the coordinator: a raised limit makes new blocks available again
+        return !refill(current, maxCount) || !hasIdUpTo(lease, maxCount);
+    }
+
+    private static boolean hasIdUpTo(Lease lease, long maxCount) {
+        return lease != null && lease.cursor().get() <= Math.min(lease.block().last(), maxCount);
+    }
+
+    @Override
+    public long peek() {
+        Lease current = lease;
+        return current == null ? 0 : Math.min(current.cursor().get(), current.block().last() + 1);
+    }
+
+    @Override
+    public synchronized void reset() {
+        try {
+            coordinator.reset();
+        } catch (IOException e) {
+            logger.warn("Cannot reset the cluster id space on {}: {}", coordinator.name(), e.getMessage());
+        }
+        lease = null;
+    }
+
+    /**
+     * Give the unused part of the current block back so another pod emits it
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        Lease current = lease;
+        lease = null;
+        IdBlock unused = null;
+        if (current != null) {
+            long next = current.cursor().getAndSet(Long.MAX_VALUE / 2);
+            if (next <= current.block().last()) {
+                unused = new IdBlock(next, current.block().last());
+            }
+        }
+        try {
+            coordinator.leave(memberId, unused);
+        } catch (IOException e) {
+            logger.warn("Cannot leave cluster on {}: {}", coordinator.name(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return the block this pod is emitting, or null
+     */
+    public IdBlock currentBlock() {
+        Lease current = lease;
+        return current == null ? null : current.block();
+    }
+
+    @Override
+    public String name() {
+        return "cluster";
+    }
+}
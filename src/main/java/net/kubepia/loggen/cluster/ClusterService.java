@@ -0,0 +1,202 @@
+package net.kubepia.loggen.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.kubepia.loggen.LogGen;
+import net.kubepia.loggen.engine.GenerationEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lets N pods share one cluster-wide target: the configured rate (or load profile) and loggen.max.count
+ * are treated as cluster totals. Every heartbeat renews this pod's lease, publishes its stats and
+ * recomputes its share of the rate from the number of live members, so scaling the Deployment
+ * rebalances within a lease period. Ids come from blocks leased by {@link ClusterIdAllocator}.
+ * Modes (loggen.cluster.mode): off, local (in-process stand-in), leader (serves /cluster),
+ * http (follows loggen.cluster.leader-url) and file (lease file on a shared volume).
+ * The coordinators bind their JSON with the ObjectMapper directly, so the types are registered for
+ * reflection here for native images.
+ */
+@Component
+@RegisterReflectionForBinding({ClusterState.class, ClusterView.class, IdBlock.class, MemberReport.class})
+public class ClusterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterService.class);
+
+    @Value("${loggen.cluster.mode:off}")
+    private String mode;
+
+    @Value("${loggen.cluster.leader-url:}")
+    private String leaderUrl;
+
+    @Value("${loggen.cluster.file:/shared/loggen-cluster.json}")
+    private String leaseFile;
+
+    @Value("${loggen.cluster.block-size:100000}")
+    private long blockSize;
+
+    @Value("${loggen.cluster.lease-ms:6000}")
+    private long leaseMillis;
+
+    @Value("${POD_ID:PODID}")
+    private String podId;
+
+    @Autowired
+    private LogGen logGen;
+
+    @Autowired
+    private GenerationEngine generationEngine;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ClusterCoordinator coordinator;
+    private LocalCoordinator leaderCoordinator;
+    private ClusterIdAllocator idAllocator;
+    private volatile ClusterView lastView;
+    private volatile long lastHeartbeatMillis;
+    private volatile String lastError;
+
+    @PostConstruct
+    public void init() throws IOException {
+        switch (mode.toLowerCase(Locale.ROOT)) {
+            case "off":
+                return;
+            case "local":
+                coordinator = new LocalCoordinator(leaseMillis);
+                break;
+            case "leader":
+                leaderCoordinator = new LocalCoordinator(leaseMillis);
+                coordinator = leaderCoordinator;
+                break;
+            case "http":
+                if (leaderUrl.isBlank()) {
+                    throw new IllegalArgumentException("loggen.cluster.leader-url is required for loggen.cluster.mode=http");
+                }
+                coordinator = new HttpCoordinator(leaderUrl, objectMapper);
+                break;
+            case "file":
+                coordinator = new FileLeaseCoordinator(leaseFile, leaseMillis, objectMapper);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown loggen.cluster.mode: " + mode);
+        }
+        idAllocator = new ClusterIdAllocator(coordinator, podId, blockSize);
+        logGen.setIdAllocator(idAllocator);
+        heartbeat();
+        logger.info("[{}] Joined cluster via {}: blockSize={}, leaseMs={}", podId, coordinator.name(), blockSize,
+                leaseMillis);
+    }
+
+    /**
+     * Renew the lease and rebalance this pod's share of the cluster rate
+     */
+    @Scheduled(fixedRateString = "${loggen.cluster.heartbeat-ms:2000}")
+    public void heartbeat() {
+        if (coordinator == null) {
+            return;
+        }
+        MemberReport report = new MemberReport(podId, logGen.getEmittedCount(), generationEngine.getAchievedRate(),
+                generationEngine.getTargetRate(), 0);
+        try {
+            ClusterView view = coordinator.heartbeat(report);
+            int members = Math.max(1, view.members().size());
+            if (lastView == null || lastView.members().size() != view.members().size()) {
+                logger.info("[{}] Cluster has {} members, rate share is now 1/{}", podId, members, members);
+            }
+            generationEngine.setRateShare(1.0 / members);
+            lastView = view;
+            lastHeartbeatMillis = System.currentTimeMillis();
+            lastError = null;
+        } catch (IOException e) {
+            // Keep the last share; leases of other pods expire on their own if this pod stays cut off
+            lastError = e.getMessage();
+            logger.warn("[{}] Cluster heartbeat to {} failed: {}", podId, coordinator.name(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (coordinator == null) {
+            return;
+        }
+        // Stop producing first so the unused rest of the block can be handed to another pod
+        logGen.setScheduledTickEnabled(false);
+        generationEngine.stop();
+        idAllocator.close();
+        logger.info("[{}] Left cluster", podId);
+    }
+
+    public boolean isEnabled() {
+        return coordinator != null;
+    }
+
+    /**
+     * @return the coordinator served on /cluster in leader mode, otherwise null
+     */
+    public LocalCoordinator getLeaderCoordinator() {
+        return leaderCoordinator;
+    }
+
+    /**
+     * Cluster-wide view: this pod's share plus the totals of all live members
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("mode", mode);
+        if (coordinator == null) {
+            return status;
+        }
+        status.put("coordinator", coordinator.name());
+        status.put("memberId", podId);
+        status.put("rateShare", generationEngine.getRateShare());
+        IdBlock block = idAllocator.currentBlock();
+        status.put("currentBlock", block == null ? null : block.first() + "-" + block.last());
+        status.put("lastHeartbeat", lastHeartbeatMillis);
+        if (lastError != null) {
+            status.put("lastError", lastError);
+        }
+
+        ClusterView view = lastView;
+        if (view != null) {
+            long emitted = 0;
+            double achieved = 0;
+            double target = 0;
+            List<Map<String, Object>> members = new ArrayList<>();
+            for (MemberReport member : view.members()) {
+                emitted += member.emitted();
+                achieved += member.achievedRate();
+                target += member.targetRate();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("memberId", member.memberId());
+                entry.put("emitted", member.emitted());
+                entry.put("achievedRate", Math.round(member.achievedRate() * 100.0) / 100.0);
+                entry.put("targetRate", Math.round(member.targetRate() * 100.0) / 100.0);
+                entry.put("lastSeen", member.lastSeenMillis());
+                members.add(entry);
+            }
+            status.put("memberCount", members.size());
+            status.put("members", members);
+            status.put("clusterEmitted", emitted);
+            status.put("clusterAchievedRate", Math.round(achieved * 100.0) / 100.0);
+            status.put("clusterTargetRate", Math.round(target * 100.0) / 100.0);
+            status.put("clusterNextId", view.nextId());
+            status.put("clusterMaxCount", logGen.getConfig().maxCount());
+        }
+        return status;
+    }
+}
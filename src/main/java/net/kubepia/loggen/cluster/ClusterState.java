@@ -0,0 +1,71 @@
+package net.kubepia.loggen.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Coordinator state shared by all backends: membership leases and the cluster-wide id space.
+ * Not thread-safe; each backend serializes access (a monitor, a file lock, or the leader's monitor).
+ * Public fields so the file backend can store it as JSON.
+ */
+public class ClusterState {
+
+    /** Next id never handed out before */
+    public long nextId = 1;
+    /** Active members by id */
+    public Map<String, MemberReport> members = new TreeMap<>();
+    /** Unused remainders given back by members that left; handed out before fresh ids */
+    public List<IdBlock> returned = new ArrayList<>();
+
+    ClusterView heartbeat(MemberReport report, long nowMillis, long leaseMillis) {
+        members.put(report.memberId(), report.seenAt(nowMillis));
+        members.values().removeIf(member -> nowMillis - member.lastSeenMillis() > leaseMillis);
+        return view();
+    }
+
+    ClusterView view() {
+        return new ClusterView(List.copyOf(new TreeMap<>(members).values()), nextId);
+    }
+
+    /**
+     * @return the next block of at most size ids not above maxCount, or null when the id space is used up
+     */
+    IdBlock claim(long maxCount, long size) {
+        for (int i = 0; i < returned.size(); i++) {
+            IdBlock block = returned.get(i);
+            if (block.first() <= maxCount) {
+                returned.remove(i);
+                // Never lose the part above the limit: it is emitted once the limit is raised again
+                if (block.last() > maxCount) {
+                    returned.add(i, new IdBlock(maxCount + 1, block.last()));
+                    return new IdBlock(block.first(), maxCount);
+                }
+                return block;
+            }
+        }
+        if (nextId > maxCount) {
+            return null;
+        }
+        IdBlock block = new IdBlock(nextId, Math.min(maxCount, nextId + size - 1));
+        nextId = block.last() + 1;
+        return block;
+    }
+
+    void leave(String memberId, IdBlock unused) {
+        members.remove(memberId);
+        giveBack(unused);
+    }
+
+    void giveBack(IdBlock unused) {
+        if (unused != null && unused.size() > 0) {
+            returned.add(unused);
+        }
+    }
+
+    void reset() {
+        nextId = 1;
+        returned.clear();
+    }
+}
@@ -0,0 +1,11 @@
+package net.kubepia.loggen.cluster;
+
+import java.util.List;
+
+/**
+ * Active members and id progress, as returned by a heartbeat
+ * @param members members whose lease has not expired, sorted by id
+ * @param nextId next id the coordinator would hand out
+ */
+public record ClusterView(List<MemberReport> members, long nextId) {
+}
@@ -0,0 +1,156 @@
+package net.kubepia.loggen.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coordinator state kept as JSON in a file on a volume every pod mounts (e.g. a ReadWriteMany PVC).
+ * Each operation takes an exclusive file lock, reads the state, changes it and writes it back,
+ * so pods need no leader. Operations are rare (heartbeats and block claims), so the lock is cheap.
+ * The file is created with its initial state in one rename, so an empty or unreadable file always means
+ * state was lost; operations then fail rather than start the ids over at 1 and repeat them.
+ */
+public class FileLeaseCoordinator implements ClusterCoordinator {
+
+    private static final Map<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final Object jvmLock;
+    private final long leaseMillis;
+    private final ObjectMapper objectMapper;
+
+    public FileLeaseCoordinator(String path, long leaseMillis, ObjectMapper objectMapper) throws IOException {
+        this.path = Path.of(path).toAbsolutePath().normalize();
+        this.jvmLock = JVM_LOCKS.computeIfAbsent(this.path, key -> new Object());
+        this.leaseMillis = leaseMillis;
+        this.objectMapper = objectMapper;
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        createIfMissing();
+    }
+
+    /**
+     * Create the file already holding the initial state; a pod that loses the race keeps the other's file
+     */
+    private void createIfMissing() throws IOException {
+        if (Files.exists(path)) {
+            return;
+        }
+        Path initial = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".new");
+        try {
+            Files.write(initial, objectMapper.writeValueAsBytes(new ClusterState()));
+            Files.move(initial, path);
+        } catch (FileAlreadyExistsException e) {
+            // another pod created it first
+        } finally {
+            Files.deleteIfExists(initial);
+        }
+    }
+
+    private interface StateChange<T> {
+        T apply(ClusterState state);
+    }
+
+    /**
+     * Read-modify-write under the file lock. File locks are held per JVM, so threads in this pod,
+     * including other coordinators on the same file, are serialized by a per-path monitor first.
+     */
+    private <T> T update(StateChange<T> change) throws IOException {
+        synchronized (jvmLock) {
+            try {
+                return updateLocked(change);
+            } catch (NoSuchFileException e) {
+                // Deleted on purpose to start over
+                createIfMissing();
+                return updateLocked(change);
+            }
+        }
+    }
+
+    private <T> T updateLocked(StateChange<T> change) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+                // read the whole file
+            }
+            ClusterState state = read(buffer);
+            T result = change.apply(state);
+            // Write over the old state before cutting it to length, so the file is never empty
+            ByteBuffer json = ByteBuffer.wrap(objectMapper.writeValueAsBytes(state));
+            while (json.hasRemaining()) {
+                channel.write(json, json.position());
+            }
+            channel.truncate(json.limit());
+            channel.force(false);
+            return result;
+        }
+    }
+
+    /**
+     * A longer old state left behind the new one by a crash before the truncate is ignored as trailing data
+     */
+    private ClusterState read(ByteBuffer buffer) throws IOException {
+        if (buffer.position() == 0) {
+            throw new IOException("Lease file " + path + " is empty but held cluster state; refusing to restart ids"
+                    + " at 1. Restore it, or delete it to start the cluster over");
+        }
+        try {
+            return objectMapper.readValue(buffer.array(), 0, buffer.position(), ClusterState.class);
+        } catch (IOException e) {
+            throw new IOException("Lease file " + path + " is unreadable; refusing to restart ids at 1. Restore it,"
+                    + " or delete it to start the cluster over: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ClusterView heartbeat(MemberReport report) throws IOException {
+        return update(state -> state.heartbeat(report, System.currentTimeMillis(), leaseMillis));
+    }
+
+    @Override
+    public IdBlock claim(String memberId, long maxCount, long size) throws IOException {
+        return update(state -> state.claim(maxCount, size));
+    }
+
+    @Override
+    public void giveBack(String memberId, IdBlock unused) throws IOException {
+        update(state -> {
+            state.giveBack(unused);
+            return null;
+        });
+    }
+
+    @Override
+    public void leave(String memberId, IdBlock unused) throws IOException {
+        update(state -> {
+            state.leave(memberId, unused);
+            return null;
+        });
+    }
+
+    @Override
+    public void reset() throws IOException {
+        update(state -> {
+            state.reset();
+            return null;
+        });
+    }
+
+    @Override
+    public String name() {
+        return "file:" + path;
+    }
+}
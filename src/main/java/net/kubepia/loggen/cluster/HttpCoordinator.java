@@ -0,0 +1,87 @@
+package net.kubepia.loggen.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Client side of leader mode: forwards every operation to the leader pod's /cluster endpoints,
+ * where a {@link LocalCoordinator} holds the state.
+ */
+public class HttpCoordinator implements ClusterCoordinator {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+    private final String leaderUrl;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+    /**
+     * @param leaderUrl base URL of the leader, e.g. http://loggen-leader:8080
+     */
+    public HttpCoordinator(String leaderUrl, ObjectMapper objectMapper) {
+        this.leaderUrl = leaderUrl.endsWith("/") ? leaderUrl.substring(0, leaderUrl.length() - 1) : leaderUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ClusterView heartbeat(MemberReport report) throws IOException {
+        return post("/cluster/heartbeat", report, ClusterView.class);
+    }
+
+    @Override
+    public IdBlock claim(String memberId, long maxCount, long size) throws IOException {
+        return post("/cluster/claim?member=" + URLEncoder.encode(memberId, StandardCharsets.UTF_8)
+                + "&maxCount=" + maxCount + "&size=" + size, null, IdBlock.class);
+    }
+
+    @Override
+    public void giveBack(String memberId, IdBlock unused) throws IOException {
+        post("/cluster/give-back?member=" + URLEncoder.encode(memberId, StandardCharsets.UTF_8), unused, Void.class);
+    }
+
+    @Override
+    public void leave(String memberId, IdBlock unused) throws IOException {
+        post("/cluster/leave?member=" + URLEncoder.encode(memberId, StandardCharsets.UTF_8), unused, Void.class);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        post("/cluster/reset", null, Void.class);
+    }
+
+    private <T> T post(String path, Object body, Class<T> type) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(leaderUrl + path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling the cluster leader", e);
+        }
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new IOException("Cluster leader returned " + response.statusCode() + " for " + path);
+        }
+        if (response.statusCode() == 204 || type == Void.class) {
+            return null;
+        }
+        return objectMapper.readValue(response.body(), type);
+    }
+
+    @Override
+    public String name() {
+        return "leader:" + leaderUrl;
+    }
+}
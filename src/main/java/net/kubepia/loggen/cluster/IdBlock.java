@@ -0,0 +1,11 @@
+package net.kubepia.loggen.cluster;
+
+/**
+ * Inclusive range of sequence ids leased to one member
+ */
+public record IdBlock(long first, long last) {
+
+    public long size() {
+        return last - first + 1;
+    }
+}
@@ -0,0 +1,45 @@
+package net.kubepia.loggen.cluster;
+
+/**
+ * In-memory coordinator. Used by the leader pod (and served to the others over HTTP),
+ * and as a single-JVM stand-in in tests.
+ */
+public class LocalCoordinator implements ClusterCoordinator {
+
+    private final ClusterState state = new ClusterState();
+    private final long leaseMillis;
+
+    public LocalCoordinator(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+    }
+
+    @Override
+    public synchronized ClusterView heartbeat(MemberReport report) {
+        return state.heartbeat(report, System.currentTimeMillis(), leaseMillis);
+    }
+
+    @Override
+    public synchronized IdBlock claim(String memberId, long maxCount, long size) {
+        return state.claim(maxCount, size);
+    }
+
+    @Override
+    public synchronized void giveBack(String memberId, IdBlock unused) {
+        state.giveBack(unused);
+    }
+
+    @Override
+    public synchronized void leave(String memberId, IdBlock unused) {
+        state.leave(memberId, unused);
+    }
+
+    @Override
+    public synchronized void reset() {
+        state.reset();
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+}
@@ -0,0 +1,17 @@
+package net.kubepia.loggen.cluster;
+
+/**
+ * What one pod reports on every heartbeat
+ * @param memberId pod name (POD_ID)
+ * @param emitted lines emitted by this pod since startup
+ * @param achievedRate lines per second over the last second
+ * @param targetRate this pod's share of the cluster rate
+ * @param lastSeenMillis wall-clock time of the heartbeat, set by the coordinator
+ */
+public record MemberReport(String memberId, long emitted, double achievedRate, double targetRate,
+                           long lastSeenMillis) {
+
+    MemberReport seenAt(long millis) {
+        return new MemberReport(memberId, emitted, achievedRate, targetRate, millis);
+    }
+}
@@ -0,0 +1,568 @@
+package net.kubepia.loggen.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.kubepia.loggen.controller.ProfileSnapshot.Response;
+import net.kubepia.loggen.controller.ProfileSnapshot.View;
+import net.kubepia.loggen.engine.WarmUp;
+import net.kubepia.loggen.metrics.RuntimeHealth;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
+import org.springframework.boot.actuate.metrics.MetricsEndpoint;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * /api/profile/* 응답을 백그라운드에서 주기적으로 만들어 하나의 불변 스냅샷으로 게시합니다.
+ * Actuator health/metrics 조회와 MXBean 조회는 프로브 횟수와 상관없이 주기마다 한 번만 실행됩니다.
+ * 스케줄러가 밀려 스냅샷이 주기의 3배 이상 오래되면 요청 스레드가 직접 갱신합니다.
+ */
+@Component
+public class ProfileSampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileSampler.class);
+
+    // 주요 메트릭들
+    private static final String[] METRIC_NAMES = {
+        "jvm.memory.used",
+        "jvm.memory.max",
+        "jvm.threads.live",
+        "jvm.threads.peak",
+        "process.cpu.usage",
+        "system.cpu.usage",
+        "http.server.requests",
+        "loggen.lines",
+        "loggen.bytes",
+        "loggen.rate.target",
+        "loggen.rate.achieved",
+        "loggen.line.encode",
+        "loggen.line.write",
+        "loggen.sink.stalls",
+        "loggen.sink.dropped",
+        "loggen.sink.queue.depth"
+    };
+
+    private static final double MIB = 1024 * 1024;
+
+    /**
+     * ETag 계산에서 값의 단위. 샘플마다 바뀌는 측정값은 이 단위로 내림해 반영하고, 0이면 빼서
+     * 상태가 그대로인 동안 ETag가 유지되게 합니다 (응답 본문에는 실제 값이 들어갑니다).
+     */
+    private static final Map<String, Double> ETAG_GRANULARITY = Map.ofEntries(
+            Map.entry("timestamp", 0.0),
+            Map.entry("uptime", 0.0),
+            Map.entry("uptimeSeconds", 0.0),
+            Map.entry("gcCollections", 0.0),
+            Map.entry("gcPauseMillis", 0.0),
+            Map.entry("gcPausePercent", 0.0),
+            Map.entry("totalStartedThreadCount", 0.0),
+            Map.entry("threadCount", 50.0),
+            Map.entry("peakThreadCount", 50.0),
+            Map.entry("daemonThreadCount", 50.0),
+            Map.entry("currentThreads", 50.0),
+            Map.entry("peakThreads", 50.0),
+            Map.entry("used", 64 * MIB),
+            Map.entry("committed", 64 * MIB),
+            Map.entry("free", 64 * MIB),
+            Map.entry("totalMemory", 64 * MIB),
+            Map.entry("freeMemory", 64 * MIB),
+            Map.entry("usedMemory", 64 * MIB),
+            Map.entry("usedMemoryMB", 64.0),
+            Map.entry("memoryUsagePercent", 5.0),
+            Map.entry("oldGenAfterGcPercent", 5.0),
+            Map.entry("backlogPercent", 5.0),
+            Map.entry("systemLoadAverage", 1.0));
+
+    @Value("${loggen.profile.sample-interval-ms:1000}")
+    private long sampleIntervalMs;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private InfoEndpoint infoEndpoint;
+
+    @Autowired
+    private MetricsEndpoint metricsEndpoint;
+
+    @Autowired
+    private HealthEndpoint healthEndpoint;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RuntimeHealth runtimeHealth;
+
+    @Autowired
+    private WarmUp warmUp;
+
+    private volatile ProfileSnapshot snapshot;
+
+    /**
+     * 주기적으로 스냅샷을 갱신합니다.
+     */
+    @Scheduled(fixedDelayString = "${loggen.profile.sample-interval-ms:1000}")
+    public void sample() {
+        refresh();
+    }
+
+    /**
+     * 워밍업이 끝난 직후 다시 샘플링해 readiness가 다음 주기를 기다리지 않고 바로 바뀌게 합니다.
+     * WarmUp 리스너가 먼저 실행되므로 이 시점에는 워밍업이 끝나 있습니다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sampleWhenReady() {
+        refresh();
+    }
+
+    /**
+     * 현재 스냅샷의 응답을 반환합니다. 스냅샷이 없거나 너무 오래되었으면 먼저 갱신합니다.
+     */
+    Response get(View view) {
+        ProfileSnapshot current = snapshot;
+        if (isStale(current)) {
+            current = refreshIfStale();
+        }
+        return current.get(view);
+    }
+
+    private boolean isStale(ProfileSnapshot current) {
+        return current == null
+                || System.nanoTime() - current.sampledAtNanos() > TimeUnit.MILLISECONDS.toNanos(3 * sampleIntervalMs);
+    }
+
+    private synchronized ProfileSnapshot refreshIfStale() {
+        // 다른 요청 스레드가 이미 갱신했으면 그 결과를 사용합니다
+        return isStale(snapshot) ? refresh() : snapshot;
+    }
+
+    private synchronized ProfileSnapshot refresh() {
+        String timestamp = java.time.LocalDateTime.now().toString();
+        Map<View, Response> responses = new EnumMap<>(View.class);
+        for (View view : View.values()) {
+            Map<String, Object> body;
+            try {
+                body = build(view);
+            } catch (RuntimeException e) {
+                // 한 응답이 실패해도 나머지 응답은 갱신합니다
+                body = new HashMap<>();
+                body.put("status", "DOWN");
+                body.put("message", "Profile sampling failed: " + e.getMessage());
+                body.put("_httpStatus", 503);
+            }
+            responses.put(view, serialize(body, timestamp));
+        }
+        ProfileSnapshot next = new ProfileSnapshot(responses, System.nanoTime());
+        snapshot = next;
+        return next;
+    }
+
+    /**
+     * 응답을 한 번 직렬화합니다. ETag는 JSON 트리에서 {@link #ETAG_GRANULARITY} 기준으로 계산한 weak ETag라
+     * uptime이나 힙 사용량처럼 매번 바뀌는 값만 달라진 응답은 같은 ETag를 가집니다.
+     */
+    private Response serialize(Map<String, Object> body, String timestamp) {
+        Object code = body.remove("_httpStatus");
+        HttpStatus status = code == null ? HttpStatus.OK : HttpStatus.valueOf((Integer) code);
+        try {
+            ObjectNode tree = objectMapper.valueToTree(body);
+            CRC32C crc = new CRC32C();
+            digest(tree, crc);
+            String eTag = "W/\"" + Long.toHexString(crc.getValue()) + "-" + status.value() + "\"";
+            tree.put("timestamp", timestamp);
+            return new Response(objectMapper.writeValueAsBytes(tree), eTag, status);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            logger.warn("Cannot serialize profile response: {}", e.getMessage());
+            String message = "{\"status\":\"DOWN\",\"message\":\"Profile snapshot failed\",\"timestamp\":\"" + timestamp + "\"}";
+            return new Response(message.getBytes(StandardCharsets.UTF_8), "\"error-" + timestamp + "\"",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * ETag용 CRC에 JSON 트리를 반영합니다. 필드 이름별 단위는 {@link #ETAG_GRANULARITY}를 따릅니다.
+     */
+    private static void digest(JsonNode node, CRC32C crc) {
+        if (node.isObject()) {
+            crc.update('{');
+            for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Double granularity = ETAG_GRANULARITY.get(field.getKey());
+                if (granularity != null && granularity == 0) {
+                    continue;
+                }
+                crc.update(field.getKey().getBytes(StandardCharsets.UTF_8));
+                crc.update(':');
+                if (granularity != null && field.getValue().isNumber()) {
+                    long bucket = (long) Math.floor(field.getValue().asDouble() / granularity);
+                    crc.update(Long.toString(bucket).getBytes(StandardCharsets.US_ASCII));
+                } else {
+                    digest(field.getValue(), crc);
+                }
+                crc.update(',');
+            }
+            crc.update('}');
+        } else if (node.isArray()) {
+            crc.update('[');
+            for (JsonNode element : node) {
+                digest(element, crc);
+                crc.update(',');
+            }
+            crc.update(']');
+        } else {
+            crc.update(node.asText().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private Map<String, Object> build(View view) {
+        switch (view) {
+            case PROFILE:
+                return activeProfile();
+            case INFO:
+                return applicationInfo();
+            case JVM:
+                return jvmStatus();
+            case HEALTH:
+                return healthStatus();
+            case METRICS:
+                return metrics();
+            case SUMMARY:
+                return summary();
+            case LIVENESS:
+                return liveness();
+            case READINESS:
+                return readiness();
+            default:
+                throw new IllegalArgumentException("Unknown view: " + view);
+        }
+    }
+
+    /**
+     * 현재 활성화된 프로필 정보와 적용된 properties
+     */
+    private Map<String, Object> activeProfile() {
+        Map<String, Object> response = new HashMap<>();
+
+        String[] activeProfiles = environment.getActiveProfiles();
+        String[] defaultProfiles = environment.getDefaultProfiles();
+
+        response.put("activeProfiles", activeProfiles);
+        response.put("defaultProfiles", defaultProfiles);
+
+        // 현재 적용된 주요 properties 정보 추가
+        Map<String, Object> properties = new HashMap<>();
+
+        // 애플리케이션 기본 정보
+        properties.put("spring.application.name", environment.getProperty("spring.application.name"));
+        properties.put("server.port", environment.getProperty("server.port"));
+
+        // LogGen 관련 설정
+        properties.put("loggen.schedule.interval", environment.getProperty("loggen.schedule.interval"));
+        properties.put("loggen.data.size", environment.getProperty("loggen.data.size"));
+        properties.put("loggen.message.template", environment.getProperty("loggen.message.template"));
+        properties.put("loggen.log.level", environment.getProperty("loggen.log.level"));
+        properties.put("loggen.log.source", environment.getProperty("loggen.log.source"));
+
+        // Actuator 설정
+        properties.put("management.endpoints.web.exposure.include", environment.getProperty("management.endpoints.web.exposure.include"));
+        properties.put("management.endpoint.health.show-details", environment.getProperty("management.endpoint.health.show-details"));
+
+        // 로깅 설정
+        properties.put("logging.level.net.kubepia.loggen", environment.getProperty("logging.level.net.kubepia.loggen"));
+        properties.put("logging.pattern.console", environment.getProperty("logging.pattern.console"));
+
+        response.put("appliedProperties", properties);
+
+        return response;
+    }
+
+    /**
+     * 애플리케이션 정보
+     */
+    private Map<String, Object> applicationInfo() {
+        Map<String, Object> response = new HashMap<>();
+
+        // Actuator Info Endpoint 사용
+        response.put("applicationInfo", infoEndpoint.info());
+
+        return response;
+    }
+
+    /**
+     * JVM 상태 정보
+     */
+    private Map<String, Object> jvmStatus() {
+        Map<String, Object> response = new HashMap<>();
+
+        // JVM 메모리 정보
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        Map<String, Object> memoryInfo = new HashMap<>();
+        memoryInfo.put("heapMemoryUsage", memoryBean.getHeapMemoryUsage());
+        memoryInfo.put("nonHeapMemoryUsage", memoryBean.getNonHeapMemoryUsage());
+
+        // 운영체제 정보
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        Map<String, Object> osInfo = new HashMap<>();
+        osInfo.put("osName", osBean.getName());
+        osInfo.put("osVersion", osBean.getVersion());
+        osInfo.put("osArch", osBean.getArch());
+        osInfo.put("availableProcessors", osBean.getAvailableProcessors());
+        osInfo.put("systemLoadAverage", osBean.getSystemLoadAverage());
+
+        // 스레드 정보
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Map<String, Object> threadInfo = new HashMap<>();
+        threadInfo.put("threadCount", threadBean.getThreadCount());
+        threadInfo.put("peakThreadCount", threadBean.getPeakThreadCount());
+        threadInfo.put("totalStartedThreadCount", threadBean.getTotalStartedThreadCount());
+        threadInfo.put("daemonThreadCount", threadBean.getDaemonThreadCount());
+
+        // JVM 정보
+        Runtime runtime = Runtime.getRuntime();
+        Map<String, Object> runtimeInfo = new HashMap<>();
+        runtimeInfo.put("totalMemory", runtime.totalMemory());
+        runtimeInfo.put("freeMemory", runtime.freeMemory());
+        runtimeInfo.put("usedMemory", runtime.totalMemory() - runtime.freeMemory());
+        runtimeInfo.put("maxMemory", runtime.maxMemory());
+
+        response.put("memory", memoryInfo);
+        response.put("operatingSystem", osInfo);
+        response.put("threads", threadInfo);
+        response.put("runtime", runtimeInfo);
+
+        return response;
+    }
+
+    /**
+     * 애플리케이션 상태 정보
+     */
+    private Map<String, Object> healthStatus() {
+        Map<String, Object> response = new HashMap<>();
+
+        // Actuator Health Endpoint 사용
+        response.put("health", healthEndpoint.health());
+
+        return response;
+    }
+
+    /**
+     * 주요 메트릭 정보
+     */
+    private Map<String, Object> metrics() {
+        Map<String, Object> response = new HashMap<>();
+
+        Map<String, Object> metrics = new HashMap<>();
+        for (String metricName : METRIC_NAMES) {
+            try {
+                var metric = metricsEndpoint.metric(metricName, null);
+                if (metric != null) {
+                    metrics.put(metricName, metric);
+                }
+            } catch (Exception e) {
+                metrics.put(metricName, "Not available");
+            }
+        }
+
+        response.put("metrics", metrics);
+
+        return response;
+    }
+
+    /**
+     * 전체 프로필 및 시스템 상태 요약
+     */
+    private Map<String, Object> summary() {
+        Map<String, Object> response = new HashMap<>();
+
+        // 활성 프로필
+        String[] activeProfiles = environment.getActiveProfiles();
+        response.put("activeProfiles", activeProfiles.length > 0 ? activeProfiles : new String[]{"default"});
+
+        // JVM 메모리 사용량
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+        long maxMemory = runtime.maxMemory();
+        double memoryUsagePercent = (double) usedMemory / maxMemory * 100;
+
+        Map<String, Object> memorySummary = new HashMap<>();
+        memorySummary.put("usedMemoryMB", usedMemory / (1024 * 1024));
+        memorySummary.put("maxMemoryMB", maxMemory / (1024 * 1024));
+        memorySummary.put("memoryUsagePercent", Math.round(memoryUsagePercent * 100.0) / 100.0);
+
+        // 스레드 정보
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Map<String, Object> threadSummary = new HashMap<>();
+        threadSummary.put("currentThreads", threadBean.getThreadCount());
+        threadSummary.put("peakThreads", threadBean.getPeakThreadCount());
+
+        // 시스템 정보
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        Map<String, Object> systemSummary = new HashMap<>();
+        systemSummary.put("availableProcessors", osBean.getAvailableProcessors());
+        systemSummary.put("systemLoadAverage", osBean.getSystemLoadAverage());
+
+        response.put("memory", memorySummary);
+        response.put("threads", threadSummary);
+        response.put("system", systemSummary);
+        response.put("gc", runtimeHealth.assess().toMap());
+
+        return response;
+    }
+
+    /**
+     * Kubernetes Liveness Probe 응답
+     */
+    private Map<String, Object> liveness() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            // 기본적인 애플리케이션 상태 확인
+            boolean isHealthy = true;
+            String status = "UP";
+            String message = "Application is alive and running";
+
+            // GC 이후 old gen 점유율과 GC pause 비율 체크 (짧게 사는 garbage는 무시)
+            RuntimeHealth.Assessment gc = runtimeHealth.assess();
+            String gcFailure = runtimeHealth.livenessFailure(gc);
+            if (gcFailure != null) {
+                isHealthy = false;
+                status = "DOWN";
+                message = gcFailure;
+            }
+
+            // 스레드 상태 체크
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            int threadCount = threadBean.getThreadCount();
+            int peakThreadCount = threadBean.getPeakThreadCount();
+
+            // 스레드가 너무 많으면 위험 (1000개 이상)
+            if (threadCount > 1000) {
+                isHealthy = false;
+                status = "DOWN";
+                message = "Too many threads: " + threadCount;
+            }
+
+            response.put("status", status);
+            response.put("healthy", isHealthy);
+            response.put("message", message);
+
+            // 상세 정보
+            Map<String, Object> details = new HashMap<>();
+            details.putAll(gc.toMap());
+            details.put("threadCount", threadCount);
+            details.put("peakThreadCount", peakThreadCount);
+            details.put("uptime", ManagementFactory.getRuntimeMXBean().getUptime());
+            response.put("details", details);
+
+            if (!isHealthy) {
+                response.put("_httpStatus", 503); // Service Unavailable
+            }
+
+        } catch (Exception e) {
+            response.put("status", "DOWN");
+            response.put("healthy", false);
+            response.put("message", "Liveness check failed: " + e.getMessage());
+            response.put("_httpStatus", 503);
+        }
+
+        return response;
+    }
+
+    /**
+     * Kubernetes Readiness Probe 응답
+     */
+    private Map<String, Object> readiness() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            boolean isReady = true;
+            String status = "UP";
+            String message = "Application is ready to serve requests";
+
+            // 1. Spring Boot Actuator Health 체크
+            var health = healthEndpoint.health();
+            if (!"UP".equals(health.getStatus().getCode())) {
+                isReady = false;
+                status = "DOWN";
+                message = "Spring Boot health check failed";
+            }
+
+            // 2. GC 이후 old gen 점유율, GC pause 비율, sink backlog 체크
+            RuntimeHealth.Assessment gc = runtimeHealth.assess();
+            String gcFailure = runtimeHealth.readinessFailure(gc);
+            if (gcFailure != null) {
+                isReady = false;
+                status = "DOWN";
+                message = gcFailure;
+            }
+
+            // 3. 스레드 풀 상태 체크
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            int threadCount = threadBean.getThreadCount();
+
+            // 스레드가 너무 많으면 준비되지 않음 (500개 이상)
+            if (threadCount > 500) {
+                isReady = false;
+                status = "DOWN";
+                message = "Too many threads for readiness: " + threadCount;
+            }
+
+            // 4. 고정 대기 시간 대신 실제 워밍업 상태 체크 (생성 경로가 JIT 컴파일될 때까지)
+            if (!warmUp.isWarm()) {
+                isReady = false;
+                status = "DOWN";
+                message = "Application is still warming up";
+            }
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+
+            response.put("status", status);
+            response.put("ready", isReady);
+            response.put("message", message);
+
+            // 상세 정보
+            Map<String, Object> details = new HashMap<>();
+            details.put("springBootHealth", health.getStatus().getCode());
+            details.putAll(gc.toMap());
+            details.put("threadCount", threadCount);
+            details.put("uptimeSeconds", uptime / 1000);
+            details.put("warmUp", warmUp.toMap());
+            details.put("activeProfiles", environment.getActiveProfiles());
+            response.put("details", details);
+
+            if (!isReady) {
+                response.put("_httpStatus", 503); // Service Unavailable
+            }
+
+        } catch (Exception e) {
+            response.put("status", "DOWN");
+            response.put("ready", false);
+            response.put("message", "Readiness check failed: " + e.getMessage());
+            response.put("_httpStatus", 503);
+        }
+
+        return response;
+    }
+}
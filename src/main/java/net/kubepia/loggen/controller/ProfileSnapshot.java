@@ -0,0 +1,54 @@
+package net.kubepia.loggen.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 한 번의 샘플링으로 만든 /api/profile/* 응답 묶음입니다 (불변).
+ * 응답은 JSON 바이트로 미리 직렬화되어 있어 요청마다 MXBean 조회나 직렬화를 하지 않습니다.
+ */
+final class ProfileSnapshot {
+
+    /**
+     * 스냅샷이 제공하는 응답 종류
+     */
+    enum View {
+        PROFILE, INFO, JVM, HEALTH, METRICS, SUMMARY, LIVENESS, READINESS
+    }
+
+    /**
+     * 직렬화된 응답 하나. ETag는 timestamp와 샘플마다 바뀌는 측정값을 빼거나 거칠게 반영한 weak ETag입니다.
+     */
+    record Response(byte[] body, String eTag, HttpStatus status) {
+
+        ResponseEntity<byte[]> toEntity() {
+            // 200 응답에 ETag가 있으면 Spring MVC가 If-None-Match를 비교해 304를 돌려줍니다
+            return ResponseEntity.status(status)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(eTag)
+                    .body(body);
+        }
+    }
+
+    private final Map<View, Response> responses;
+    private final long sampledAtNanos;
+
+    ProfileSnapshot(Map<View, Response> responses, long sampledAtNanos) {
+        this.responses = new EnumMap<>(responses);
+        this.sampledAtNanos = sampledAtNanos;
+    }
+
+    Response get(View view) {
+        return responses.get(view);
+    }
+
+    long sampledAtNanos() {
+        return sampledAtNanos;
+    }
+}
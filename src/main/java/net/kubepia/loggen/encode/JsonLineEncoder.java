@@ -0,0 +1,164 @@
+package net.kubepia.loggen.encode;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hand-written streaming JSON encoder for the generated fields.
+ * Escapes and writes directly into the line buffer; no ObjectMapper or Map is involved.
+ */
+public final class JsonLineEncoder implements LineEncoder {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = ascii("null");
+
+    private static final byte[] LOGID = ascii("{\"logid\":\"");
+    private static final byte[] ID = ascii("\",\"id\":");
+    private static final byte[] POD_ID = ascii(",\"podId\":");
+    private static final byte[] POD_ID_WITH_ID = ascii(",\"podIdWithId\":\"");
+    private static final byte[] MESSAGE = ascii("\",\"message\":");
+    private static final byte[] LEVEL = ascii(",\"level\":");
+    private static final byte[] SOURCE = ascii(",\"source\":");
+    private static final byte[] TIMESTAMP = ascii(",\"timestamp\":");
+    private static final byte[] STATUS = ascii(",\"status\":");
+    private static final byte[] DATA_SIZE = ascii(",\"dataSize\":");
+    private static final byte[] MAX_LOG_COUNT = ascii(",\"maxLogCount\":");
+    private static final byte[] REMAINING_LOGS = ascii(",\"remainingLogs\":");
+
+    private final TimestampWriter timestampWriter;
+    private final boolean numericTimestamp;
+
+    public JsonLineEncoder() {
+        this(TimestampFormat.ISO_LOCAL);
+    }
+
+    public JsonLineEncoder(TimestampFormat timestampFormat) {
+        this.timestampWriter = timestampFormat.newWriter();
+        this.numericTimestamp = timestampFormat.isNumeric();
+    }
+
+    @Override
+    public void encode(LogLine line, LineBuffer out) {
+        out.reset();
+        out.append(LOGID);
+        LogIdGenerator.appendLogId(out);
+        out.append(ID).append(line.getId());
+        out.append(POD_ID);
+        appendString(out, line.getPodId());
+        out.append(POD_ID_WITH_ID);
+        appendEscaped(out, line.getPodId());
+        out.append((byte) '-').append(line.getId());
+        out.append(MESSAGE);
+        appendString(out, line.getMessage(), line.getMessageOffset(), line.getMessageLength());
+        out.append(LEVEL);
+        appendString(out, line.getLevel());
+        out.append(SOURCE);
+        appendString(out, line.getSource());
+        out.append(TIMESTAMP);
+        if (numericTimestamp) {
+            timestampWriter.write(line.getEpochSecond(), line.getNanoOfSecond(), out);
+        } else {
+            out.append((byte) '"');
+            timestampWriter.write(line.getEpochSecond(), line.getNanoOfSecond(), out);
+            out.append((byte) '"');
+        }
+        out.append(STATUS);
+        appendString(out, line.getStatus());
+        LineFields fields = line.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            // Field names and values never need escaping
+            out.append((byte) ',').append((byte) '"').append(fields.name(i)).append((byte) '"')
+                    .append((byte) ':').append((byte) '"');
+            fields.appendValue(i, line.getFieldSeed(), out);
+            out.append((byte) '"');
+        }
+        out.append(DATA_SIZE).append(line.getDataSize());
+        out.append(MAX_LOG_COUNT).append(line.getMaxLogCount());
+        out.append(REMAINING_LOGS).append(line.getRemainingLogs());
+        out.append((byte) '}');
+    }
+
+    /**
+     * Append a quoted, escaped JSON string (null becomes JSON null)
+     */
+    public static void appendString(LineBuffer out, CharSequence value) {
+        if (value == null) {
+            out.append(NULL);
+            return;
+        }
+        out.append((byte) '"');
+        appendEscaped(out, value);
+        out.append((byte) '"');
+    }
+
+    /**
+     * Append a quoted, escaped JSON string from UTF-8 bytes
+     */
+    public static void appendString(LineBuffer out, byte[] value, int offset, int length) {
+        out.append((byte) '"');
+        int runStart = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            int b = value[i] & 0xFF;
+            if (b < 0x20 || b == '"' || b == '\\') {
+                out.append(value, runStart, i - runStart);
+                appendEscape(out, b);
+                runStart = i + 1;
+            }
+        }
+        out.append(value, runStart, end - runStart);
+        out.append((byte) '"');
+    }
+
+    /**
+     * Append the escaped contents of a JSON string without quotes
+     */
+    public static void appendEscaped(LineBuffer out, CharSequence value) {
+        int runStart = 0;
+        int end = value.length();
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\') {
+                out.append(value, runStart, i);
+                appendEscape(out, c);
+                runStart = i + 1;
+            }
+        }
+        out.append(value, runStart, end);
+    }
+
+    private static void appendEscape(LineBuffer out, int c) {
+        out.append((byte) '\\');
+        switch (c) {
+            case '"':
+                out.append((byte) '"');
+                break;
+            case '\\':
+                out.append((byte) '\\');
+                break;
+            case '\n':
+                out.append((byte) 'n');
+                break;
+            case '\r':
+                out.append((byte) 'r');
+                break;
+            case '\t':
+                out.append((byte) 't');
+                break;
+            case '\b':
+                out.append((byte) 'b');
+                break;
+            case '\f':
+                out.append((byte) 'f');
+                break;
+            default:
+                out.append((byte) 'u').append((byte) '0').append((byte) '0')
+                        .append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                break;
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
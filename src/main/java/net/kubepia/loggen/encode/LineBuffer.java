@@ -0,0 +1,195 @@
+package net.kubepia.loggen.encode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable UTF-8 byte buffer reused for every line a thread produces.
+ * Numbers and ASCII text are written directly into the backing array, so steady-state appends do not allocate.
+ */
+public final class LineBuffer {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] bytes;
+    private int length;
+
+    public LineBuffer() {
+        this(512);
+    }
+
+    public LineBuffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public LineBuffer append(byte b) {
+        ensureCapacity(length + 1);
+        bytes[length++] = b;
+        return this;
+    }
+
+    /**
+     * Append a single ASCII character
+     */
+    public LineBuffer append(char c) {
+        if (c < 0x80) {
+            return append((byte) c);
+        }
+        return append(String.valueOf(c));
+    }
+
+    public LineBuffer append(byte[] src) {
+        return append(src, 0, src.length);
+    }
+
+    public LineBuffer append(byte[] src, int offset, int len) {
+        ensureCapacity(length + len);
+        System.arraycopy(src, offset, bytes, length, len);
+        length += len;
+        return this;
+    }
+
+    public LineBuffer append(LineBuffer other) {
+        return append(other.bytes, 0, other.length);
+    }
+
+    /**
+     * Append text as UTF-8, with a fast path for ASCII
+     */
+    public LineBuffer append(CharSequence text) {
+        return append(text, 0, text.length());
+    }
+
+    /**
+     * Append the characters [start, end) of text as UTF-8
+     */
+    public LineBuffer append(CharSequence text, int start, int end) {
+        ensureCapacity(length + end - start);
+        int i = start;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            bytes[length++] = (byte) c;
+        }
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                append((byte) c);
+            } else if (c < 0x800) {
+                ensureCapacity(length + 2);
+                bytes[length++] = (byte) (0xC0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                ensureCapacity(length + 4);
+                bytes[length++] = (byte) (0xF0 | (cp >> 18));
+                bytes[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                append((byte) '?');
+            } else {
+                ensureCapacity(length + 3);
+                bytes[length++] = (byte) (0xE0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Append a decimal number without going through {@link Long#toString(long)}
+     */
+    public LineBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(MIN_LONG);
+        }
+        if (value < 0) {
+            append((byte) '-');
+            value = -value;
+        }
+        int digits = digitCount(value);
+        ensureCapacity(length + digits);
+        int pos = length + digits;
+        do {
+            bytes[--pos] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Append a non-negative number left-padded with zeros to the given width
+     */
+    public LineBuffer appendPadded(long value, int width) {
+        int digits = digitCount(value);
+        for (int i = digits; i < width; i++) {
+            append((byte) '0');
+        }
+        return append(value);
+    }
+
+    /**
+     * Append the lowest {@code digits} nibbles of value as lower-case hex
+     */
+    public LineBuffer appendHex(long value, int digits) {
+        ensureCapacity(length + digits);
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            bytes[length++] = HEX[(int) (value >>> shift) & 0xF];
+        }
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Backing array; only the first {@link #length()} bytes are valid
+     */
+    public byte[] array() {
+        return bytes;
+    }
+
+    public int capacity() {
+        return bytes.length;
+    }
+
+    public byte byteAt(int index) {
+        return bytes[index];
+    }
+
+    public void setLength(int newLength) {
+        ensureCapacity(newLength);
+        this.length = newLength;
+    }
+
+    public void reset() {
+        length = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+        }
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,12 @@
+package net.kubepia.loggen.encode;
+
+/**
+ * Turns a {@link LogLine} into bytes. Implementations keep per-thread caches and are not thread-safe.
+ */
+public interface LineEncoder {
+
+    /**
+     * Encode one line, replacing the buffer contents. No trailing newline is written.
+     */
+    void encode(LogLine line, LineBuffer out);
+}
@@ -0,0 +1,214 @@
+package net.kubepia.loggen.encode;
+
+import net.kubepia.loggen.payload.Dictionary;
+import net.kubepia.loggen.payload.SplitMix64;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Extra fields with a controlled number of distinct values, e.g. user id, trace id and path, to reproduce
+ * the index and label cardinality of real traffic. Values are derived from a per-line seed when the line is
+ * encoded: the value index comes from the seed, the text from the index, so nothing is stored per value
+ * and the same (seed, line id) always gives the same values.
+ * <p>Spec: comma separated {@code name:type[:cardinality[:skew]]}, e.g.
+ * {@code userId:seq:100000:1.1,traceId:uuid,path:path:300}
+ * <ul>
+ *   <li>type: seq (1..n), hex (32 hex digits), uuid, path (/word/word), word (word-word) or ip (10.x.y.z)</li>
+ *   <li>cardinality: number of distinct values; omitted or "unique" draws a new value for every line</li>
+ *   <li>skew: Zipf-like exponent for how often the popular values repeat; 0 (default) is uniform</li>
+ * </ul>
+ * All values are ASCII letters, digits and '-', '/', '.', so no format needs to quote or escape them.
+ */
+public final class LineFields {
+
+    public static final LineFields EMPTY = new LineFields(new Field[0], "");
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_.-]+");
+    private static final long IP_SPACE = 1L << 24;
+
+    enum Type {
+        SEQ, HEX, UUID, PATH, WORD, IP
+    }
+
+    private final Field[] fields;
+    private final String spec;
+
+    private LineFields(Field[] fields, String spec) {
+        this.fields = fields;
+        this.spec = spec;
+    }
+
+    /**
+     * @param spec field spec, blank for none
+     * @param dictionary words for path and word values
+     */
+    public static LineFields parse(String spec, Dictionary dictionary) {
+        if (spec == null || spec.isBlank()) {
+            return EMPTY;
+        }
+        List<Field> fields = new ArrayList<>();
+        Set<String> names = new LinkedHashSet<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            if (parts.length < 2 || parts.length > 4) {
+                throw new IllegalArgumentException("Field must be name:type[:cardinality[:skew]] but was: " + entry);
+            }
+            String name = parts[0].trim();
+            if (!NAME.matcher(name).matches() || !names.add(name)) {
+                throw new IllegalArgumentException("Invalid or duplicate field name: " + name);
+            }
+            Type type;
+            try {
+                type = Type.valueOf(parts[1].trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown field type: " + parts[1]
+                        + " (expected seq, hex, uuid, path, word or ip)");
+            }
+            String cardinalityText = parts.length > 2 ? parts[2].trim() : "unique";
+            long cardinality = cardinalityText.equalsIgnoreCase("unique") ? 0 : Long.parseLong(cardinalityText);
+            double skew = parts.length > 3 ? Double.parseDouble(parts[3].trim()) : 0;
+            if (cardinality < 0 || skew < 0) {
+                throw new IllegalArgumentException("Cardinality and skew must not be negative: " + entry);
+            }
+            if ((type == Type.PATH || type == Type.WORD) && dictionary.size() < 2) {
+                throw new IllegalArgumentException("path and word fields need a dictionary of at least 2 words");
+            }
+            if (type == Type.IP && cardinality > IP_SPACE) {
+                throw new IllegalArgumentException("ip fields have at most " + IP_SPACE + " values: " + entry);
+            }
+            fields.add(new Field(name, type, cardinality, skew, dictionary));
+        }
+        return new LineFields(fields.toArray(new Field[0]), spec.trim());
+    }
+
+    public int size() {
+        return fields.length;
+    }
+
+    /**
+     * Field name as ASCII bytes
+     */
+    public byte[] name(int index) {
+        return fields[index].name;
+    }
+
+    /**
+     * Append the value of field {@code index} for the line with this seed
+     */
+    public void appendValue(int index, long lineSeed, LineBuffer out) {
+        fields[index].append(SplitMix64.seedFor(lineSeed, index + 1), out);
+    }
+
+    public boolean isEmpty() {
+        return fields.length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static final class Field {
+
+        private final byte[] name;
+        private final Type type;
+        private final long cardinality;
+        private final double skew;
+        private final long salt;
+        private final Dictionary dictionary;
+        // Bounded power-law inverse CDF: x = (1 + u * (n^(1-s) - 1))^(1/(1-s)), or n^u when s = 1
+        private final double span;
+        private final double inverse;
+
+        Field(String name, Type type, long cardinality, double skew, Dictionary dictionary) {
+            this.name = name.getBytes(StandardCharsets.US_ASCII);
+            this.type = type;
+            this.cardinality = cardinality;
+            this.skew = skew;
+            this.salt = SplitMix64.mix(name.hashCode());
+            this.dictionary = dictionary;
+            if (skew == 1.0) {
+                this.span = Math.log(cardinality);
+                this.inverse = 0;
+            } else {
+                this.span = Math.pow(cardinality, 1 - skew) - 1;
+                this.inverse = 1 / (1 - skew);
+            }
+        }
+
+        /**
+         * Value index in [0, cardinality), most popular first when skewed; -1 when every line is unique
+         */
+        private long index(long bits) {
+            if (cardinality == 0) {
+                return -1;
+            }
+            double u = (bits >>> 11) * 0x1.0p-53;
+            if (skew == 0) {
+                return (long) (u * cardinality);
+            }
+            double x = skew == 1.0 ? Math.exp(u * span) : Math.pow(1 + u * span, inverse);
+            return Math.min(cardinality - 1, Math.max(0, (long) x - 1));
+        }
+
+        void append(long bits, LineBuffer out) {
+            long index = index(bits);
+            // Unique values use the line's own bits; bounded ones are a function of the index only
+            long value = index < 0 ? bits : SplitMix64.seedFor(salt, index);
+            switch (type) {
+                case SEQ:
+                    out.append(index < 0 ? bits >>> 1 : index + 1);
+                    break;
+                case HEX:
+                    out.appendHex(value, 16).appendHex(SplitMix64.mix(value ^ salt), 16);
+                    break;
+                case UUID:
+                    long low = SplitMix64.mix(value ^ salt);
+                    long high = (value & ~0xF000L) | 0x4000L;
+                    low = (low & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+                    out.appendHex(high >>> 32, 8).append((byte) '-').appendHex(high >>> 16, 4).append((byte) '-')
+                            .appendHex(high, 4).append((byte) '-').appendHex(low >>> 48, 4).append((byte) '-')
+                            .appendHex(low, 12);
+                    break;
+                case PATH:
+                    out.append((byte) '/');
+                    appendWords(index < 0 ? bits >>> 1 : index, (byte) '/', out);
+                    break;
+                case WORD:
+                    appendWords(index < 0 ? bits >>> 1 : index, (byte) '-', out);
+                    break;
+                case IP:
+                    long address = index < 0 ? bits & (IP_SPACE - 1) : index;
+                    out.append((byte) '1').append((byte) '0').append((byte) '.').append(address >>> 16 & 0xFF)
+                            .append((byte) '.').append(address >>> 8 & 0xFF).append((byte) '.').append(address & 0xFF);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown field type: " + type);
+            }
+        }
+
+        /**
+         * The index written in base dictionary-size with words as digits, so distinct indexes give distinct values
+         */
+        private void appendWords(long index, byte separator, LineBuffer out) {
+            int base = dictionary.size();
+            long rest = index;
+            do {
+                out.append(dictionary.word((int) (rest % base)));
+                rest /= base;
+                if (rest > 0) {
+                    out.append(separator);
+                }
+            } while (rest > 0);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package net.kubepia.loggen.encode;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Output formats selectable with loggen.format
+ */
+public enum LineFormat {
+
+    /** [logid:...] TestLog: id=..., podId=..., ... (original layout) */
+    TEXT(TextLineEncoder::new),
+    /** logid=... id=... podId=... message="..." */
+    LOGFMT(LogfmtLineEncoder::new),
+    /** {"logid":"...","id":...} */
+    JSON(JsonLineEncoder::new);
+
+    private final Function<TimestampFormat, LineEncoder> factory;
+
+    LineFormat(Function<TimestampFormat, LineEncoder> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Create a new encoder; callers keep one per thread
+     */
+    public LineEncoder newEncoder() {
+        return newEncoder(TimestampFormat.ISO_LOCAL);
+    }
+
+    /**
+     * Create a new encoder writing timestamps in the given layout; callers keep one per thread
+     */
+    public LineEncoder newEncoder(TimestampFormat timestampFormat) {
+        return factory.apply(timestampFormat);
+    }
+
+    public static LineFormat parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown loggen.format: " + value + " (expected text, logfmt or json)");
+        }
+    }
+}
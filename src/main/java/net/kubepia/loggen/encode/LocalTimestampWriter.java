@@ -0,0 +1,50 @@
+package net.kubepia.loggen.encode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Renders timestamps exactly like {@link LocalDateTime#toString()} in the system zone,
+ * caching the "yyyy-MM-ddTHH:mm" prefix so only seconds and fraction are written per line.
+ * Not thread-safe; each encoder owns one.
+ */
+final class LocalTimestampWriter implements TimestampWriter {
+
+    private static final DateTimeFormatter PREFIX = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long cachedEpochSecond = Long.MIN_VALUE;
+    private byte[] cachedPrefix;
+    private int cachedSecond;
+
+    @Override
+    public void write(long epochSecond, int nano, LineBuffer out) {
+        if (epochSecond != cachedEpochSecond) {
+            ZoneOffset offset = zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+            LocalDateTime time = LocalDateTime.ofEpochSecond(epochSecond, 0, offset);
+            cachedPrefix = PREFIX.format(time).getBytes(StandardCharsets.US_ASCII);
+            cachedSecond = time.getSecond();
+            cachedEpochSecond = epochSecond;
+        }
+        out.append(cachedPrefix);
+
+        // Same shape as LocalTime.toString(): seconds only when non-zero, fraction in 3/6/9 digits
+        if (cachedSecond > 0 || nano > 0) {
+            out.append((byte) ':').appendPadded(cachedSecond, 2);
+            if (nano > 0) {
+                out.append((byte) '.');
+                if (nano % 1_000_000 == 0) {
+                    out.appendPadded(nano / 1_000_000, 3);
+                } else if (nano % 1000 == 0) {
+                    out.appendPadded(nano / 1000, 6);
+                } else {
+                    out.appendPadded(nano, 9);
+                }
+            }
+        }
+    }
+}
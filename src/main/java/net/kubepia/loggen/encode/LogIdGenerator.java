@@ -0,0 +1,28 @@
+package net.kubepia.loggen.encode;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes random version-4 UUID strings for the [logid:...] prefix.
+ * Uses {@link ThreadLocalRandom} instead of {@link java.util.UUID#randomUUID()}, which goes through
+ * SecureRandom and may block on entropy. The ids only need to be unique, not unpredictable.
+ */
+public final class LogIdGenerator {
+
+    private LogIdGenerator() {
+    }
+
+    /**
+     * Append a random UUID in canonical 8-4-4-4-12 form
+     */
+    public static void appendLogId(LineBuffer out) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        out.appendHex(msb >>> 32, 8).append((byte) '-')
+                .appendHex(msb >>> 16, 4).append((byte) '-')
+                .appendHex(msb, 4).append((byte) '-')
+                .appendHex(lsb >>> 48, 4).append((byte) '-')
+                .appendHex(lsb, 12);
+    }
+}
@@ -0,0 +1,159 @@
+package net.kubepia.loggen.encode;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mutable, per-thread description of one generated line.
+ * The producer fills it in place and hands it to an encoder, so no map or boxed values are created per line.
+ */
+public final class LogLine {
+
+    private long id;
+    private String podId;
+    private byte[] message = new byte[0];
+    private int messageOffset;
+    private int messageLength;
+    private String level;
+    private String source;
+    private long epochSecond;
+    private int nanoOfSecond;
+    private String status;
+    private long dataSize;
+    private long maxLogCount;
+    private long remainingLogs;
+    private LineFields fields = LineFields.EMPTY;
+    private long fieldSeed;
+
+    public LogLine id(long id) {
+        this.id = id;
+        return this;
+    }
+
+    public LogLine podId(String podId) {
+        this.podId = podId;
+        return this;
+    }
+
+    /**
+     * Reference a slice of pre-encoded UTF-8 bytes as the message; the bytes are not copied
+     */
+    public LogLine message(byte[] message, int offset, int length) {
+        this.message = message;
+        this.messageOffset = offset;
+        this.messageLength = length;
+        return this;
+    }
+
+    /**
+     * Convenience for callers outside the hot path; encodes the text once
+     */
+    public LogLine message(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return message(bytes, 0, bytes.length);
+    }
+
+    public LogLine level(String level) {
+        this.level = level;
+        return this;
+    }
+
+    public LogLine source(String source) {
+        this.source = source;
+        return this;
+    }
+
+    public LogLine timestamp(long epochSecond, int nanoOfSecond) {
+        this.epochSecond = epochSecond;
+        this.nanoOfSecond = nanoOfSecond;
+        return this;
+    }
+
+    public LogLine status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    public LogLine dataSize(long dataSize) {
+        this.dataSize = dataSize;
+        return this;
+    }
+
+    public LogLine maxLogCount(long maxLogCount) {
+        this.maxLogCount = maxLogCount;
+        return this;
+    }
+
+    public LogLine remainingLogs(long remainingLogs) {
+        this.remainingLogs = remainingLogs;
+        return this;
+    }
+
+    /**
+     * Extra fields and the seed their values are derived from
+     */
+    public LogLine fields(LineFields fields, long fieldSeed) {
+        this.fields = fields;
+        this.fieldSeed = fieldSeed;
+        return this;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getPodId() {
+        return podId;
+    }
+
+    public byte[] getMessage() {
+        return message;
+    }
+
+    public int getMessageOffset() {
+        return messageOffset;
+    }
+
+    public int getMessageLength() {
+        return messageLength;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getEpochSecond() {
+        return epochSecond;
+    }
+
+    public int getNanoOfSecond() {
+        return nanoOfSecond;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    public long getMaxLogCount() {
+        return maxLogCount;
+    }
+
+    public long getRemainingLogs() {
+        return remainingLogs;
+    }
+
+    public LineFields getFields() {
+        return fields;
+    }
+
+    public long getFieldSeed() {
+        return fieldSeed;
+    }
+}
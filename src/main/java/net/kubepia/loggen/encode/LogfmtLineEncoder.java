@@ -0,0 +1,167 @@
+package net.kubepia.loggen.encode;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * logfmt encoder: space separated key=value pairs, values quoted only when they contain spaces, quotes or '='.
+ */
+public final class LogfmtLineEncoder implements LineEncoder {
+
+    private static final byte[] LOGID = ascii("logid=");
+    private static final byte[] ID = ascii(" id=");
+    private static final byte[] POD_ID = ascii(" podId=");
+    private static final byte[] POD_ID_WITH_ID = ascii(" podIdWithId=");
+    private static final byte[] MESSAGE = ascii(" message=");
+    private static final byte[] LEVEL = ascii(" level=");
+    private static final byte[] SOURCE = ascii(" source=");
+    private static final byte[] TIMESTAMP = ascii(" timestamp=");
+    private static final byte[] STATUS = ascii(" status=");
+    private static final byte[] DATA_SIZE = ascii(" dataSize=");
+    private static final byte[] MAX_LOG_COUNT = ascii(" maxLogCount=");
+    private static final byte[] REMAINING_LOGS = ascii(" remainingLogs=");
+
+    private final TimestampWriter timestampWriter;
+
+    public LogfmtLineEncoder() {
+        this(TimestampFormat.ISO_LOCAL);
+    }
+
+    public LogfmtLineEncoder(TimestampFormat timestampFormat) {
+        this.timestampWriter = timestampFormat.newWriter();
+    }
+
+    @Override
+    public void encode(LogLine line, LineBuffer out) {
+        out.reset();
+        out.append(LOGID);
+        LogIdGenerator.appendLogId(out);
+        out.append(ID).append(line.getId());
+        out.append(POD_ID);
+        appendValue(out, line.getPodId());
+        out.append(POD_ID_WITH_ID);
+        appendPodIdWithId(out, line.getPodId(), line.getId());
+        out.append(MESSAGE);
+        appendValue(out, line.getMessage(), line.getMessageOffset(), line.getMessageLength());
+        out.append(LEVEL);
+        appendValue(out, line.getLevel());
+        out.append(SOURCE);
+        appendValue(out, line.getSource());
+        out.append(TIMESTAMP);
+        timestampWriter.write(line.getEpochSecond(), line.getNanoOfSecond(), out);
+        out.append(STATUS);
+        appendValue(out, line.getStatus());
+        LineFields fields = line.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            // Field values never need quoting
+            out.append((byte) ' ').append(fields.name(i)).append((byte) '=');
+            fields.appendValue(i, line.getFieldSeed(), out);
+        }
+        out.append(DATA_SIZE).append(line.getDataSize());
+        out.append(MAX_LOG_COUNT).append(line.getMaxLogCount());
+        out.append(REMAINING_LOGS).append(line.getRemainingLogs());
+    }
+
+    /**
+     * Append a logfmt value, quoting and escaping it when needed
+     */
+    public static void appendValue(LineBuffer out, CharSequence value) {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuoting(value)) {
+            out.append(value);
+            return;
+        }
+        out.append((byte) '"');
+        appendEscaped(out, value);
+        out.append((byte) '"');
+    }
+
+    /**
+     * podIdWithId as one value, quoted as a whole when the pod id needs it: "pod x-42", never "pod x"-42
+     */
+    private static void appendPodIdWithId(LineBuffer out, CharSequence podId, long id) {
+        if (podId != null && !needsQuoting(podId)) {
+            out.append(podId).append((byte) '-').append(id);
+            return;
+        }
+        out.append((byte) '"');
+        if (podId != null) {
+            appendEscaped(out, podId);
+        }
+        out.append((byte) '-').append(id).append((byte) '"');
+    }
+
+    private static void appendEscaped(LineBuffer out, CharSequence value) {
+        int runStart = 0;
+        int end = value.length();
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c == '\n' || c == '\r') {
+                out.append(value, runStart, i);
+                appendEscape(out, c);
+                runStart = i + 1;
+            }
+        }
+        out.append(value, runStart, end);
+    }
+
+    /**
+     * Append a logfmt value from UTF-8 bytes, quoting and escaping it when needed
+     */
+    public static void appendValue(LineBuffer out, byte[] value, int offset, int length) {
+        int end = offset + length;
+        boolean quote = length == 0;
+        for (int i = offset; i < end && !quote; i++) {
+            quote = needsQuoting(value[i]);
+        }
+        if (!quote) {
+            out.append(value, offset, length);
+            return;
+        }
+        out.append((byte) '"');
+        int runStart = offset;
+        for (int i = offset; i < end; i++) {
+            byte b = value[i];
+            if (b == '"' || b == '\\' || b == '\n' || b == '\r') {
+                out.append(value, runStart, i - runStart);
+                appendEscape(out, b);
+                runStart = i + 1;
+            }
+        }
+        out.append(value, runStart, end - runStart);
+        out.append((byte) '"');
+    }
+
+    private static boolean needsQuoting(CharSequence value) {
+        if (value.length() == 0) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80 && needsQuoting((byte) c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean needsQuoting(byte b) {
+        return b <= ' ' && b >= 0 || b == '"' || b == '=' || b == '\\';
+    }
+
+    private static void appendEscape(LineBuffer out, int c) {
+        out.append((byte) '\\');
+        if (c == '\n') {
+            out.append((byte) 'n');
+        } else if (c == '\r') {
+            out.append((byte) 'r');
+        } else {
+            out.append((byte) c);
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,35 @@
+package net.kubepia.loggen.encode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Renders RFC 3339 timestamps with nanoseconds and the system zone's offset, e.g.
+ * 2026-10-18T19:30:17.829201217+09:00. The "yyyy-MM-ddTHH:mm:ss" prefix and the offset are
+ * cached per second, so each line only writes the nine fraction digits.
+ */
+final class Rfc3339TimestampWriter implements TimestampWriter {
+
+    private static final DateTimeFormatter PREFIX = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long cachedEpochSecond = Long.MIN_VALUE;
+    private byte[] cachedPrefix;
+    private byte[] cachedOffset;
+
+    @Override
+    public void write(long epochSecond, int nano, LineBuffer out) {
+        if (epochSecond != cachedEpochSecond) {
+            ZoneOffset offset = zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+            cachedPrefix = PREFIX.format(LocalDateTime.ofEpochSecond(epochSecond, 0, offset))
+                    .getBytes(StandardCharsets.US_ASCII);
+            cachedOffset = offset.getId().getBytes(StandardCharsets.US_ASCII);
+            cachedEpochSecond = epochSecond;
+        }
+        out.append(cachedPrefix).append((byte) '.').appendPadded(nano, 9).append(cachedOffset);
+    }
+}
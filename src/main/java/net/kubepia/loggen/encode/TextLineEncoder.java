@@ -0,0 +1,61 @@
+package net.kubepia.loggen.encode;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes the fixed "[logid:...] TestLog: id=..., ..." layout straight into a {@link LineBuffer}.
+ * Replaces the per-line String.format call; one instance is kept per thread.
+ */
+public final class TextLineEncoder implements LineEncoder {
+
+    private static final byte[] LOGID = ascii("[logid:");
+    private static final byte[] TEST_LOG_ID = ascii("] TestLog: id=");
+    private static final byte[] POD_ID = ascii(", podId=");
+    private static final byte[] POD_ID_WITH_ID = ascii(", podIdWithId=");
+    private static final byte[] MESSAGE = ascii(", message=");
+    private static final byte[] LEVEL = ascii(", level=");
+    private static final byte[] SOURCE = ascii(", source=");
+    private static final byte[] TIMESTAMP = ascii(", timestamp=");
+    private static final byte[] STATUS = ascii(", status=");
+    private static final byte[] DATA_SIZE = ascii(", dataSize=");
+    private static final byte[] MAX_LOG_COUNT = ascii(", maxLogCount=");
+    private static final byte[] REMAINING_LOGS = ascii(", remainingLogs=");
+
+    private final TimestampWriter timestampWriter;
+
+    public TextLineEncoder() {
+        this(TimestampFormat.ISO_LOCAL);
+    }
+
+    public TextLineEncoder(TimestampFormat timestampFormat) {
+        this.timestampWriter = timestampFormat.newWriter();
+    }
+
+    @Override
+    public void encode(LogLine line, LineBuffer out) {
+        out.reset();
+        out.append(LOGID);
+        LogIdGenerator.appendLogId(out);
+        out.append(TEST_LOG_ID).append(line.getId());
+        out.append(POD_ID).append(line.getPodId());
+        out.append(POD_ID_WITH_ID).append(line.getPodId()).append((byte) '-').append(line.getId());
+        out.append(MESSAGE).append(line.getMessage(), line.getMessageOffset(), line.getMessageLength());
+        out.append(LEVEL).append(line.getLevel());
+        out.append(SOURCE).append(line.getSource());
+        out.append(TIMESTAMP);
+        timestampWriter.write(line.getEpochSecond(), line.getNanoOfSecond(), out);
+        out.append(STATUS).append(line.getStatus());
+        LineFields fields = line.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            out.append((byte) ',').append((byte) ' ').append(fields.name(i)).append((byte) '=');
+            fields.appendValue(i, line.getFieldSeed(), out);
+        }
+        out.append(DATA_SIZE).append(line.getDataSize());
+        out.append(MAX_LOG_COUNT).append(line.getMaxLogCount());
+        out.append(REMAINING_LOGS).append(line.getRemainingLogs());
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,53 @@
+package net.kubepia.loggen.encode;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Timestamp layouts selectable with loggen.timestamp.format
+ */
+public enum TimestampFormat {
+
+    /** 2026-10-18T19:30:17.829201217 in the system zone, as LocalDateTime.toString() (original layout) */
+    ISO_LOCAL(LocalTimestampWriter::new, false),
+    /** 2026-10-18T19:30:17.829201217+09:00 */
+    RFC3339(Rfc3339TimestampWriter::new, false),
+    /** 1792319417829 */
+    EPOCH_MILLIS(() -> (epochSecond, nano, out) -> out.append(epochSecond * 1000 + nano / 1_000_000), true),
+    /** 1792319417829201217 */
+    EPOCH_NANOS(() -> (epochSecond, nano, out) -> out.append(epochSecond * 1_000_000_000L + nano), true);
+
+    private final Supplier<TimestampWriter> factory;
+    private final boolean numeric;
+
+    TimestampFormat(Supplier<TimestampWriter> factory, boolean numeric) {
+        this.factory = factory;
+        this.numeric = numeric;
+    }
+
+    /**
+     * Create a new writer; writers cache per second and are not thread-safe
+     */
+    public TimestampWriter newWriter() {
+        return factory.get();
+    }
+
+    /**
+     * @return true when the value is a plain number, written unquoted in JSON
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * @param value iso-local, rfc3339, epoch-millis or epoch-nanos (case and '-'/'_' insensitive)
+     */
+    public static TimestampFormat parse(String value) {
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown loggen.timestamp.format: " + value
+                    + " (expected iso-local, rfc3339, epoch-millis or epoch-nanos)");
+        }
+    }
+}
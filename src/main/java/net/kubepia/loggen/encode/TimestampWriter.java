@@ -0,0 +1,10 @@
+package net.kubepia.loggen.encode;
+
+/**
+ * Renders a line's timestamp straight into the line buffer.
+ * Implementations cache whatever stays the same within a second; not thread-safe, each encoder owns one.
+ */
+public interface TimestampWriter {
+
+    void write(long epochSecond, int nano, LineBuffer out);
+}
@@ -0,0 +1,288 @@
+package net.kubepia.loggen.engine;
+
+import net.kubepia.loggen.metrics.SinkFeedback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load profile that finds the highest rate the sink and the pipeline behind it sustain without backpressure.
+ * Unlike the other profiles it is driven by feedback rather than time: once per interval the engine hands it
+ * a {@link SinkFeedback.Reading}, and the rate moves AIMD-style, like TCP congestion control.
+ * <ul>
+ *   <li>slow start: the rate doubles every clean interval until the first sign of backpressure</li>
+ *   <li>probing: +step per clean interval, times decrease on backpressure; after a cut the rate waits at
+ *       least one interval, and as long as the queue is still draining, before it moves again</li>
+ *   <li>holding: once the last few cuts happened within 25% of each other, the rate settles on the lowest
+ *       of the rates that ran clean just before them and stays there; new backpressure resumes probing</li>
+ * </ul>
+ * Backpressure is any of: lost lines, network retries, queue fill above the backlog limit or growing by a fifth
+ * of it within one interval, producers
+ * waiting for the sink, sampled write latency or batch acknowledgement latency above their limits, or
+ * emitting less than 90% of the rate.
+ */
+public final class AdaptiveRate implements LoadProfile {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveRate.class);
+
+    /** Emitting less than this share of the rate means producers are held back */
+    private static final double SHORTFALL = 0.9;
+    /** Step when none is configured, as a share of the last rate that saw backpressure */
+    private static final double AUTO_STEP = 0.05;
+    private static final double CONVERGED_SPREAD = 0.25;
+    /** Queue growth within one interval that counts as backpressure, as a share of the backlog limit */
+    private static final double BACKLOG_RISE = 0.2;
+    /** Smaller queue growth is taken for sampling noise */
+    private static final double BACKLOG_NOISE = 0.01;
+    private static final double MIN_RATE = 1;
+
+    public enum Phase { SLOW_START, PROBING, HOLDING }
+
+    private final double configuredStep;
+    private final double decrease;
+    private final double maxRate;
+    private final long intervalNanos;
+    private final double backlogLimit;
+    private final long latencyLimitNanos;
+    private final long ackLimitNanos;
+    private final int cycles;
+
+    private volatile double rate;
+    private double step;
+    private Phase phase = Phase.SLOW_START;
+    private boolean recovering;
+    private double lastCleanRate;
+    private int cleanAtMax;
+    private double sustainableRate;
+    private String limitedBy = "none";
+    private long decreases;
+    private final ArrayDeque<Double> peaks = new ArrayDeque<>();
+    private final ArrayDeque<Double> cleanRates = new ArrayDeque<>();
+    private SinkFeedback.Reading last;
+    private final Map<String, Object> lastInterval = new LinkedHashMap<>();
+
+    /**
+     * @param startRate rate of the first interval
+     * @param step additive increase per clean interval after slow start, 0 for 5% of the last congested rate
+     * @param decrease factor applied on backpressure, between 0 and 1
+     * @param maxRate never go above this rate, 0 for no limit
+     * @param intervalNanos time between two adjustments; the engine samples once per second
+     * @param backlogLimit queue fill from 0 to 1 that counts as backpressure
+     * @param latencyLimitNanos mean sink write latency that counts as backpressure, 0 to ignore
+     * @param ackLimitNanos mean network acknowledgement latency that counts as backpressure, 0 to ignore
+     * @param cycles cuts within 25% of each other needed before holding
+     */
+    public AdaptiveRate(double startRate, double step, double decrease, double maxRate, long intervalNanos,
+                        double backlogLimit, long latencyLimitNanos, long ackLimitNanos, int cycles) {
+        if (startRate <= 0) {
+            throw new IllegalArgumentException("Adaptive start rate must be positive");
+        }
+        if (decrease <= 0 || decrease >= 1) {
+            throw new IllegalArgumentException("Adaptive decrease must be between 0 and 1: " + decrease);
+        }
+        if (backlogLimit <= 0 || backlogLimit > 1) {
+            throw new IllegalArgumentException("Adaptive backlog must be between 0 and 100 percent");
+        }
+        if (cycles < 1) {
+            throw new IllegalArgumentException("Adaptive cycles must be at least 1");
+        }
+        this.configuredStep = step;
+        this.step = step;
+        this.decrease = decrease;
+        this.maxRate = maxRate;
+        this.intervalNanos = intervalNanos;
+        this.backlogLimit = backlogLimit;
+        this.latencyLimitNanos = latencyLimitNanos;
+        this.ackLimitNanos = ackLimitNanos;
+        this.cycles = cycles;
+        this.rate = maxRate > 0 ? Math.min(startRate, maxRate) : startRate;
+    }
+
+    @Override
+    public double rateAt(long elapsedNanos) {
+        return rate;
+    }
+
+    /**
+     * Adjust the rate once a full interval has passed since the previous adjustment
+     * @param reading sink signals right now
+     * @param share fraction of the rate this pod produces
+     */
+    public synchronized void update(SinkFeedback.Reading reading, double share) {
+        if (last == null) {
+            last = reading;
+            return;
+        }
+        long elapsed = reading.nanos() - last.nanos();
+        // Samples arrive about once per second; allow for scheduling jitter
+        if (elapsed < intervalNanos * 0.9) {
+            return;
+        }
+        SinkFeedback.Reading previous = last;
+        last = reading;
+        double achieved = (reading.lines() - previous.lines()) * 1_000_000_000.0 / elapsed;
+        String signal = backpressure(previous, reading, achieved, rate * share);
+        if (recovering) {
+            // After a cut, wait while the queue drains what the higher rate left behind instead of cutting again
+            recovering = signal != null && reading.backlog() < previous.backlog();
+            return;
+        }
+        if (signal != null) {
+            decrease(signal);
+        } else if (reading.backlog() - previous.backlog() > BACKLOG_NOISE) {
+            // Queue slowly filling: not clean enough to go higher or to count as sustained
+            cleanAtMax = 0;
+        } else {
+            increase();
+        }
+    }
+
+    /**
+     * Forget the last reading, e.g. while generation is paused, so the pause is not taken for backpressure
+     */
+    public synchronized void resetInterval() {
+        last = null;
+    }
+
+    /**
+     * @return what held the rate back in this interval, or null when it ran clean
+     */
+    private String backpressure(SinkFeedback.Reading previous, SinkFeedback.Reading current, double achieved,
+                                double expected) {
+        long writes = current.writes() - previous.writes();
+        long writeNanos = writes > 0 ? (current.writeNanos() - previous.writeNanos()) / writes : 0;
+        long acks = current.acks() - previous.acks();
+        long ackNanos = acks > 0 ? (current.ackNanos() - previous.ackNanos()) / acks : 0;
+        lastInterval.put("targetRate", Math.round(expected));
+        lastInterval.put("achievedRate", Math.round(achieved));
+        lastInterval.put("backlogPercent", Math.round(current.backlog() * 1000) / 10.0);
+        lastInterval.put("lost", current.lost() - previous.lost());
+        lastInterval.put("stalls", current.stalls() - previous.stalls());
+        lastInterval.put("retries", current.retries() - previous.retries());
+        lastInterval.put("writeMicros", writeNanos / 1000);
+        lastInterval.put("ackMillis", ackNanos / 1_000_000);
+
+        if (current.lost() > previous.lost()) {
+            return "loss";
+        }
+        if (current.retries() > previous.retries()) {
+            return "retries";
+        }
+        if (current.backlog() >= backlogLimit) {
+            return "backlog";
+        }
+        if (current.backlog() - previous.backlog() >= backlogLimit * BACKLOG_RISE) {
+            // A queue that keeps growing means the sink drains less than the rate, long before it is full
+            return "backlog-rising";
+        }
+        if (current.stalls() > previous.stalls()) {
+            return "stalls";
+        }
+        if (latencyLimitNanos > 0 && writeNanos > latencyLimitNanos) {
+            return "write-latency";
+        }
+        if (ackLimitNanos > 0 && ackNanos > ackLimitNanos) {
+            return "ack-latency";
+        }
+        if (achieved < expected * SHORTFALL) {
+            return "shortfall";
+        }
+        return null;
+    }
+
+    private void decrease(String signal) {
+        if (phase == Phase.HOLDING) {
+            // Downstream got slower than when the rate converged: measure again from here
+            peaks.clear();
+            cleanRates.clear();
+        }
+        if (configuredStep <= 0) {
+            // Scale the step with the level the search is at, so it is fine near the limit
+            step = Math.max(MIN_RATE, rate * AUTO_STEP);
+        }
+        limitedBy = signal;
+        decreases++;
+        remember(peaks, rate);
+        remember(cleanRates, lastCleanRate);
+        logger.debug("Adaptive rate: backpressure ({}) at {} lines/s", signal, Math.round(rate));
+        lastCleanRate = 0;
+        cleanAtMax = 0;
+        recovering = true;
+        if (converged()) {
+            phase = Phase.HOLDING;
+            sustainableRate = Collections.min(cleanRates);
+            rate = sustainableRate;
+            logger.info("Adaptive rate converged: {} lines/s sustained, backpressure ({}) from about {} lines/s",
+                    Math.round(sustainableRate), signal, Math.round(Collections.min(peaks)));
+        } else {
+            phase = Phase.PROBING;
+            rate = Math.max(MIN_RATE, rate * decrease);
+        }
+    }
+
+    private void increase() {
+        lastCleanRate = rate;
+        if (phase == Phase.HOLDING) {
+            return;
+        }
+        if (maxRate > 0 && rate >= maxRate) {
+            if (++cleanAtMax >= cycles) {
+                phase = Phase.HOLDING;
+                sustainableRate = maxRate;
+                limitedBy = "max";
+                logger.info("Adaptive rate holding at the configured maximum of {} lines/s", Math.round(maxRate));
+            }
+            return;
+        }
+        double next = phase == Phase.SLOW_START ? rate * 2 : rate + step;
+        rate = maxRate > 0 ? Math.min(maxRate, next) : next;
+    }
+
+    private void remember(ArrayDeque<Double> values, double value) {
+        values.addLast(value);
+        while (values.size() > cycles) {
+            values.removeFirst();
+        }
+    }
+
+    private boolean converged() {
+        if (peaks.size() < cycles || Collections.min(cleanRates) <= 0) {
+            return false;
+        }
+        double highest = Collections.max(peaks);
+        return highest - Collections.min(peaks) <= highest * CONVERGED_SPREAD;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return the rate the search settled on, 0 until it holds
+     */
+    public double getSustainableRate() {
+        return phase == Phase.HOLDING ? sustainableRate : 0;
+    }
+
+    /**
+     * Search state for /log/status
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("phase", phase.name().toLowerCase(Locale.ROOT));
+        map.put("rate", Math.round(rate));
+        map.put("sustainableRate", Math.round(getSustainableRate()));
+        map.put("limitedBy", limitedBy);
+        map.put("step", Math.round(step));
+        map.put("decreases", decreases);
+        map.put("recentPeaks", new ArrayList<>(peaks.stream().map(Math::round).toList()));
+        map.put("lastInterval", new LinkedHashMap<>(lastInterval));
+        return map;
+    }
+}
@@ -0,0 +1,220 @@
+package net.kubepia.loggen.engine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.kubepia.loggen.LogGen;
+import net.kubepia.loggen.metrics.SinkFeedback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-threaded, rate-controlled log generation.
+ * When loggen.rate.lines-per-second is set, worker threads replace the single scheduled tick of {@link LogGen}
+ * and split the target rate between them. Each worker paces itself with its own {@link TokenBucket},
+ * so workers never contend on a shared limiter; only the sequence id is shared.
+ * The rate is read from the current {@link net.kubepia.loggen.GenerationConfig} snapshot on every batch,
+ * so PATCH /log/config takes effect within one batch; see {@link #reconfigure()}.
+ * An {@link AdaptiveRate} profile is fed the sink's backpressure signals once per second.
+ */
+@Component
+public class GenerationEngine implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationEngine.class);
+
+    private static final int MAX_BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+
+    @Value("${loggen.rate.workers:0}")
+    private int workerCount;
+
+    @Value("${loggen.threading:platform}")
+    private String threading;
+
+    @Autowired
+    private LogGen logGen;
+
+    @Autowired
+    private SinkFeedback sinkFeedback;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = false;
+    private volatile int epoch = 0;
+    private volatile double rateShare = 1.0;
+    private boolean ready = false;
+
+    private long lastSampleNanos = System.nanoTime();
+    private long lastSampleCount = 0;
+    private volatile double achievedRate = 0;
+
+    @PostConstruct
+    public void init() {
+        if (workerCount <= 0) {
+            workerCount = Runtime.getRuntime().availableProcessors();
+        }
+        if (isEnabled()) {
+            // Hand generation over to the workers before the scheduler starts ticking
+            logGen.setScheduledTickEnabled(false);
+        }
+    }
+
+    /**
+     * Start worker threads once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        ready = true;
+        if (!isEnabled() || running) {
+            return;
+        }
+        running = true;
+        int workerEpoch = epoch;
+        ThreadFactory threadFactory = ThreadingMode.parse(threading).newThreadFactory("loggen-worker-");
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = threadFactory.newThread(() -> runWorker(workerEpoch));
+            workers.add(worker);
+            worker.start();
+        }
+        logger.info("Generation engine started: targetRate={} lines/s, workers={}, threading={}",
+                getTargetRate(), workerCount, threading);
+    }
+
+    /**
+     * Follow a rate change: start the workers when a rate is set, hand back to the scheduled tick at rate 0.
+     * Rate changes between two non-zero values need no action; the workers pick them up on their next batch.
+     */
+    public synchronized void reconfigure() {
+        if (isEnabled()) {
+            logGen.setScheduledTickEnabled(false);
+            if (ready) {
+                start();
+            }
+        } else if (running) {
+            // Let the workers finish their current batch instead of interrupting them mid-write
+            running = false;
+            epoch++;
+            workers.clear();
+            logGen.setScheduledTickEnabled(true);
+            logger.info("Generation engine stopped: rate set to 0, scheduled tick resumed");
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        workers.clear();
+    }
+
+    private void runWorker(int workerEpoch) {
+        TokenBucket bucket = new TokenBucket();
+        while (running && epoch == workerEpoch && !Thread.currentThread().isInterrupted()) {
+            int permits = bucket.acquire(getTargetRate() / workerCount, MAX_BATCH);
+            for (int i = 0; i < permits; i++) {
+                if (!logGen.generateNext()) {
+                    // Stopped or max count reached: idle until /log/restart
+                    bucket.reset();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("loggen.rate.target", this, GenerationEngine::getTargetRate)
+                .description("Configured lines per second (0 = scheduled tick)")
+                .register(registry);
+        Gauge.builder("loggen.rate.achieved", this, GenerationEngine::getAchievedRate)
+                .description("Lines per second emitted over the last second")
+                .register(registry);
+    }
+
+    /**
+     * Sample the achieved rate once per second, and let an adaptive profile react to the sink
+     */
+    @Scheduled(fixedRate = 1000)
+    public void sampleRate() {
+        long now = System.nanoTime();
+        long count = logGen.getEmittedCount();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed > 0) {
+            achievedRate = (count - lastSampleCount) * 1_000_000_000.0 / elapsed;
+        }
+        lastSampleNanos = now;
+        lastSampleCount = count;
+
+        if (logGen.getConfig().loadProfile() instanceof AdaptiveRate adaptive) {
+            if (running && !logGen.isLogGenerationStopped()) {
+                adaptive.update(sinkFeedback.read(), rateShare);
+            } else {
+                adaptive.resetInterval();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return logGen.getConfig().isRateControlled();
+    }
+
+    /**
+     * Target rate right now for this pod, following the load profile when one is set
+     */
+    public double getTargetRate() {
+        return logGen.getConfig().currentRate() * rateShare;
+    }
+
+    /**
+     * Fraction of the configured rate this pod produces; set by cluster coordination.
+     * Applies to the scheduled tick as well, so the rate is cluster-wide whichever drives generation.
+     */
+    public void setRateShare(double rateShare) {
+        this.rateShare = rateShare;
+        logGen.setTickShare(rateShare);
+    }
+
+    public double getRateShare() {
+        return rateShare;
+    }
+
+    public double getAchievedRate() {
+        return achievedRate;
+    }
+
+    /**
+     * Get engine status: target vs. achieved rate
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("mode", isEnabled() ? "engine" : "scheduled");
+        status.put("targetRate", Math.round(getTargetRate() * 100.0) / 100.0);
+        status.put("profile", logGen.getConfig().toMap().get("profile"));
+        status.put("achievedRate", Math.round(achievedRate * 100.0) / 100.0);
+        status.put("workers", isEnabled() ? workerCount : 1);
+        status.put("running", running);
+        status.put("threading", threading);
+        status.put("emittedLines", logGen.getEmittedCount());
+        if (logGen.getConfig().loadProfile() instanceof AdaptiveRate adaptive) {
+            status.put("adaptive", adaptive.toMap());
+        }
+        return status;
+    }
+}
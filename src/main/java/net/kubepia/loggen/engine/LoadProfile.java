@@ -0,0 +1,234 @@
+package net.kubepia.loggen.engine;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Target rate as a function of time since the profile started.
+ * Workers evaluate it once per batch and feed the result to their token bucket, which integrates the
+ * changing rate, so the emitted count follows the shape even at 100k+ lines/s.
+ * Specs have the form {@code type:key=value,...}; durations accept 500ms, 30s, 5m, 24h or ISO-8601.
+ */
+public interface LoadProfile {
+
+    /**
+     * @param elapsedNanos time since the profile started
+     * @return lines per second at that moment
+     */
+    double rateAt(long elapsedNanos);
+
+    /**
+     * Parse a profile spec
+     * <ul>
+     *   <li>{@code constant:rate=100000}</li>
+     *   <li>{@code ramp:from=10000,to=500000,duration=10m} (holds {@code to} afterwards)</li>
+     *   <li>{@code step:rates=10000|100000|500000,step=2m} (holds the last rate)</li>
+     *   <li>{@code spike:base=10000,peak=200000,every=1m,length=5s}</li>
+     *   <li>{@code sine:mean=50000,amplitude=40000,period=24h} (diurnal pattern)</li>
+     *   <li>{@code replay:file=rates.csv,speed=1,scale=1,loop=true} (per-second counts)</li>
+     *   <li>{@code adaptive:start=1000,step=0,decrease=0.7,max=0,interval=1s,backlog=50,latency=1ms,ack=500ms,cycles=4}
+     *       (closed loop on sink feedback, see {@link AdaptiveRate}; every argument is optional)</li>
+     * </ul>
+     */
+    static LoadProfile parse(String spec) {
+        int colon = spec.indexOf(':');
+        String type = (colon < 0 ? spec : spec.substring(0, colon)).trim().toLowerCase(Locale.ROOT);
+        Map<String, String> args = new HashMap<>();
+        if (colon >= 0) {
+            for (String entry : spec.substring(colon + 1).split(",")) {
+                if (entry.isBlank()) {
+                    continue;
+                }
+                int eq = entry.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("Load profile argument must be key=value but was: " + entry);
+                }
+                args.put(entry.substring(0, eq).trim(), entry.substring(eq + 1).trim());
+            }
+        }
+
+        switch (type) {
+            case "constant":
+                return new Constant(number(args, "rate"));
+            case "ramp":
+                return new Ramp(number(args, "from"), number(args, "to"), nanos(args, "duration"));
+            case "step":
+                String[] parts = required(args, "rates").split("\\|");
+                double[] rates = new double[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    rates[i] = Double.parseDouble(parts[i].trim());
+                }
+                return new Step(rates, nanos(args, "step"));
+            case "spike":
+                return new Spike(number(args, "base"), number(args, "peak"), nanos(args, "every"),
+                        nanos(args, "length"));
+            case "sine":
+                return new Sine(number(args, "mean"), number(args, "amplitude"), nanos(args, "period"));
+            case "replay":
+                Path file = Path.of(required(args, "file"));
+                try (Reader reader = Files.newBufferedReader(file)) {
+                    return Replay.read(reader, Double.parseDouble(args.getOrDefault("speed", "1")),
+                            Double.parseDouble(args.getOrDefault("scale", "1")),
+                            Boolean.parseBoolean(args.getOrDefault("loop", "true")));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Cannot read rate timeline: " + file, e);
+                }
+            case "adaptive":
+                return new AdaptiveRate(number(args, "start", 1000), number(args, "step", 0),
+                        number(args, "decrease", 0.7), number(args, "max", 0), nanos(args, "interval", "1s"),
+                        number(args, "backlog", 50) / 100, nanos(args, "latency", "1ms"),
+                        nanos(args, "ack", "500ms"), (int) number(args, "cycles", 4));
+            default:
+                throw new IllegalArgumentException("Unknown load profile: " + type);
+        }
+    }
+
+    private static String required(Map<String, String> args, String key) {
+        String value = args.get(key);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Load profile argument '" + key + "' is required");
+        }
+        return value;
+    }
+
+    private static double number(Map<String, String> args, String key) {
+        double value = Double.parseDouble(required(args, key));
+        if (value < 0) {
+            throw new IllegalArgumentException("Load profile argument '" + key + "' must not be negative");
+        }
+        return value;
+    }
+
+    private static double number(Map<String, String> args, String key, double defaultValue) {
+        return args.containsKey(key) ? number(args, key) : defaultValue;
+    }
+
+    /**
+     * Optional duration; 0 is allowed and switches the check it configures off
+     */
+    private static long nanos(Map<String, String> args, String key, String defaultValue) {
+        long value = DurationStyle.detectAndParse(args.getOrDefault(key, defaultValue), ChronoUnit.SECONDS).toNanos();
+        if (value < 0) {
+            throw new IllegalArgumentException("Load profile argument '" + key + "' must not be negative");
+        }
+        return value;
+    }
+
+    private static long nanos(Map<String, String> args, String key) {
+        long value = DurationStyle.detectAndParse(required(args, key), ChronoUnit.SECONDS).toNanos();
+        if (value <= 0) {
+            throw new IllegalArgumentException("Load profile argument '" + key + "' must be positive");
+        }
+        return value;
+    }
+
+    record Constant(double rate) implements LoadProfile {
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            return rate;
+        }
+    }
+
+    record Ramp(double from, double to, long durationNanos) implements LoadProfile {
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            if (elapsedNanos >= durationNanos) {
+                return to;
+            }
+            return from + (to - from) * elapsedNanos / durationNanos;
+        }
+    }
+
+    record Step(double[] rates, long stepNanos) implements LoadProfile {
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            return rates[(int) Math.min(rates.length - 1, elapsedNanos / stepNanos)];
+        }
+    }
+
+    /**
+     * Base rate with a burst of {@code peak} for {@code length} at the start of every period
+     */
+    record Spike(double base, double peak, long everyNanos, long lengthNanos) implements LoadProfile {
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            return elapsedNanos % everyNanos < lengthNanos ? peak : base;
+        }
+    }
+
+    record Sine(double mean, double amplitude, long periodNanos) implements LoadProfile {
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            double phase = 2 * Math.PI * (elapsedNanos % periodNanos) / periodNanos;
+            return Math.max(0, mean + amplitude * Math.sin(phase));
+        }
+    }
+
+    /**
+     * Recorded per-second line counts, played back {@code speed} times faster and scaled by {@code scale}
+     */
+    record Replay(double[] counts, double speed, double scale, boolean loop) implements LoadProfile {
+
+        public Replay {
+            if (counts.length == 0) {
+                throw new IllegalArgumentException("Rate timeline is empty");
+            }
+            if (speed <= 0 || scale < 0) {
+                throw new IllegalArgumentException("Replay speed must be positive and scale not negative");
+            }
+        }
+
+        /**
+         * Read one count per line; the last column is used, so "timestamp,count" exports work as they are.
+         * Blank lines, comments and a non-numeric header are skipped.
+         */
+        public static Replay read(Reader csv, double speed, double scale, boolean loop) throws IOException {
+            List<Double> counts = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(csv);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String last = line.substring(line.lastIndexOf(',') + 1).trim();
+                try {
+                    counts.add(Double.parseDouble(last));
+                } catch (NumberFormatException e) {
+                    if (!counts.isEmpty()) {
+                        throw new IllegalArgumentException("Invalid count in rate timeline: " + line);
+                    }
+                }
+            }
+            double[] values = new double[counts.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = counts.get(i);
+            }
+            return new Replay(values, speed, scale, loop);
+        }
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            long second = (long) (elapsedNanos * speed / 1_000_000_000L);
+            int index = loop ? (int) (second % counts.length) : (int) Math.min(counts.length - 1, second);
+            // Each recorded second lasts 1/speed seconds, so its lines are emitted speed times faster
+            return counts[index] * speed * scale;
+        }
+    }
+}
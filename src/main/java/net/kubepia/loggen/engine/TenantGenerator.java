@@ -0,0 +1,73 @@
+package net.kubepia.loggen.engine;
+
+import net.kubepia.loggen.LogGen;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simulates loggen.tenants.count independent log sources, each on its own thread with its own source name and interval.
+ * Runs on virtual threads when loggen.threading=virtual.
+ */
+@Component
+public class TenantGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantGenerator.class);
+
+    @Value("${loggen.threading:platform}")
+    private String threading;
+
+    @Value("${loggen.tenants.count:0}")
+    private int tenantCount;
+
+    @Value("${loggen.tenants.min-interval-ms:1000}")
+    private long minIntervalMillis;
+
+    @Value("${loggen.tenants.max-interval-ms:1000}")
+    private long maxIntervalMillis;
+
+    @Value("${loggen.tenants.source-prefix:tenant}")
+    private String sourcePrefix;
+
+    @Autowired
+    private LogGen logGen;
+
+    private TenantPool pool;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (tenantCount <= 0 || pool != null) {
+            return;
+        }
+        ThreadingMode mode = ThreadingMode.parse(threading);
+        pool = new TenantPool(mode.newThreadFactory("loggen-tenant-"), tenantCount, minIntervalMillis,
+                maxIntervalMillis, sourcePrefix, logGen::generateNext);
+        pool.start();
+        logger.info("Started {} tenants on {} threads (interval {}-{} ms)", tenantCount, mode, minIntervalMillis,
+                maxIntervalMillis);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (pool != null) {
+            pool.stop();
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("threading", threading);
+        status.put("tenants", tenantCount);
+        status.put("wakeups", pool != null ? pool.getWakeups() : 0);
+        status.put("running", pool != null && pool.isRunning());
+        return status;
+    }
+}
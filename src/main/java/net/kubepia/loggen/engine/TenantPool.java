@@ -0,0 +1,103 @@
+package net.kubepia.loggen.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A set of independent, mostly sleeping log sources, one thread each.
+ * Tenant i is named "{prefix}-i" and wakes up every interval(i), spread evenly between the minimum and maximum interval.
+ * With virtual threads the sleeping tenants cost a few hundred bytes each instead of an OS thread.
+ */
+public class TenantPool {
+
+    private final ThreadFactory threadFactory;
+    private final int tenantCount;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final String sourcePrefix;
+    private final Predicate<String> emitter;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private final LongAdder wakeups = new LongAdder();
+    private volatile boolean running = false;
+
+    /**
+     * @param threadFactory platform or virtual thread factory
+     * @param tenantCount number of tenants
+     * @param minIntervalMillis interval of the first tenant
+     * @param maxIntervalMillis interval of the last tenant
+     * @param sourcePrefix source name prefix
+     * @param emitter emits one line for the given source; returns false when generation is stopped
+     */
+    public TenantPool(ThreadFactory threadFactory, int tenantCount, long minIntervalMillis, long maxIntervalMillis,
+                      String sourcePrefix, Predicate<String> emitter) {
+        this.threadFactory = threadFactory;
+        this.tenantCount = tenantCount;
+        this.minIntervalMillis = Math.max(1, minIntervalMillis);
+        this.maxIntervalMillis = Math.max(this.minIntervalMillis, maxIntervalMillis);
+        this.sourcePrefix = sourcePrefix;
+        this.emitter = emitter;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < tenantCount; i++) {
+            String source = sourcePrefix + "-" + i;
+            long interval = intervalOf(i);
+            Thread thread = threadFactory.newThread(() -> runTenant(source, interval));
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    public synchronized void stop() {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        threads.clear();
+    }
+
+    long intervalOf(int tenant) {
+        if (tenantCount <= 1) {
+            return minIntervalMillis;
+        }
+        return minIntervalMillis + (maxIntervalMillis - minIntervalMillis) * tenant / (tenantCount - 1);
+    }
+
+    private void runTenant(String source, long intervalMillis) {
+        // Stagger the first wake-up so tenants do not fire in lockstep
+        long next = System.currentTimeMillis() + (long) (Math.random() * intervalMillis);
+        while (running) {
+            long sleep = next - System.currentTimeMillis();
+            try {
+                if (sleep > 0) {
+                    Thread.sleep(sleep);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            next += intervalMillis;
+            wakeups.increment();
+            emitter.test(source);
+        }
+    }
+
+    public int getTenantCount() {
+        return tenantCount;
+    }
+
+    public long getWakeups() {
+        return wakeups.sum();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,33 @@
+package net.kubepia.loggen.engine;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread flavour used for generator tasks, selected with loggen.threading
+ */
+public enum ThreadingMode {
+
+    /** Daemon platform threads: one OS thread per task */
+    PLATFORM,
+    /** Virtual threads: thousands of mostly sleeping tasks share a few carrier threads */
+    VIRTUAL;
+
+    public static ThreadingMode parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown loggen.threading: " + value + " (expected platform or virtual)");
+        }
+    }
+
+    /**
+     * @param prefix thread name prefix; threads are numbered from 0
+     */
+    public ThreadFactory newThreadFactory(String prefix) {
+        if (this == VIRTUAL) {
+            return Thread.ofVirtual().name(prefix, 0).factory();
+        }
+        return Thread.ofPlatform().name(prefix, 0).daemon(true).factory();
+    }
+}
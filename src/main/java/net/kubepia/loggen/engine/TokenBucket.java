@@ -0,0 +1,57 @@
+package net.kubepia.loggen.engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Nanosecond-paced token bucket owned by a single worker thread.
+ * The rate is passed on every call so it can change while generation is running.
+ */
+final class TokenBucket {
+
+    private static final long MAX_PARK_NANOS = 100_000_000L;
+    private static final double BURST_SECONDS = 0.05;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * Wait until at least one token is available and take as many as possible
+     * @param ratePerSecond current rate for this worker
+     * @param maxPermits upper bound of permits returned at once
+     * @return number of permits granted, or 0 if the rate is zero or the thread was interrupted
+     */
+    int acquire(double ratePerSecond, int maxPermits) {
+        if (ratePerSecond <= 0) {
+            reset();
+            LockSupport.parkNanos(MAX_PARK_NANOS);
+            return 0;
+        }
+
+        while (true) {
+            long now = System.nanoTime();
+            double burst = Math.max(1.0, ratePerSecond * BURST_SECONDS);
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * ratePerSecond / 1_000_000_000.0);
+            lastRefillNanos = now;
+
+            if (tokens >= 1.0) {
+                int permits = (int) Math.min(tokens, maxPermits);
+                tokens -= permits;
+                return permits;
+            }
+
+            long waitNanos = (long) ((1.0 - tokens) * 1_000_000_000.0 / ratePerSecond);
+            LockSupport.parkNanos(Math.min(waitNanos, MAX_PARK_NANOS));
+            if (Thread.currentThread().isInterrupted()) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop accumulated tokens, e.g. after generation was paused
+     */
+    void reset() {
+        tokens = 0;
+        lastRefillNanos = System.nanoTime();
+    }
+}
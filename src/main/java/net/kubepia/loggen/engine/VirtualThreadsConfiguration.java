@@ -0,0 +1,47 @@
+package net.kubepia.loggen.engine;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Refuses to start with loggen.threading=virtual on a context that was built for platform threads.
+ * Spring AOT evaluates {@code @ConditionalOnThreading} at build time, so a jar processed without
+ * spring.threads.virtual.enabled keeps Tomcat and the task scheduler on platform threads whatever the
+ * runtime properties say; the marker bean below is fixed the same way and exposes the mismatch.
+ */
+@Configuration(proxyBeanMethods = false)
+public class VirtualThreadsConfiguration implements InitializingBean {
+
+    /**
+     * Present when the context was built with virtual threads enabled
+     */
+    public static final class VirtualThreadsBuild {
+    }
+
+    @Value("${loggen.threading:platform}")
+    private String threading;
+
+    @Autowired
+    private ObjectProvider<VirtualThreadsBuild> virtualThreadsBuild;
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    static VirtualThreadsBuild virtualThreadsBuild() {
+        return new VirtualThreadsBuild();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (ThreadingMode.parse(threading) == ThreadingMode.VIRTUAL && virtualThreadsBuild.getIfAvailable() == null) {
+            throw new IllegalStateException("loggen.threading=virtual, but this AOT-processed build fixed Tomcat and "
+                    + "the scheduler to platform threads. Build the image with --build-arg LOGGEN_THREADING=virtual "
+                    + "(./mvnw -Paot -Dloggen.aot.threading=virtual package) or run with -Dspring.aot.enabled=false");
+        }
+    }
+}
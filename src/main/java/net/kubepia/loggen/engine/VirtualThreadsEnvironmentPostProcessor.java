@@ -0,0 +1,25 @@
+package net.kubepia.loggen.engine;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Maps loggen.threading=virtual onto spring.threads.virtual.enabled,
+ * so Tomcat request handling and the task scheduler also run on virtual threads.
+ */
+public class VirtualThreadsEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String threading = environment.getProperty("loggen.threading", "platform");
+        if (ThreadingMode.parse(threading) == ThreadingMode.VIRTUAL
+                && !environment.containsProperty("spring.threads.virtual.enabled")) {
+            environment.getPropertySources().addLast(
+                    new MapPropertySource("loggenThreading", Map.of("spring.threads.virtual.enabled", "true")));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package net.kubepia.loggen.engine;
+
+import net.kubepia.loggen.LogGen;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs the line generation path in batches before any producer starts, until the cost per line stops
+ * improving while the JIT compiler is idle: the hot path has reached its final tier and the pod can emit
+ * at full rate from its first line. A plateau alone is not enough, since C1 code plateaus before C2 takes over.
+ * Readiness follows this state instead of a fixed delay after startup. Warm-up encodes into a throwaway
+ * buffer; it claims no ids and writes nothing to the sink.
+ */
+@Component
+public class WarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+
+    private static final int BATCH_LINES = 10_000;
+    /** A batch at least this much faster than the best so far counts as still warming up */
+    private static final double IMPROVEMENT = 0.9;
+    private static final int STABLE_BATCHES = 3;
+    /** The JIT counts as idle when it compiled for less than this share of a batch */
+    private static final double IDLE_COMPILER_SHARE = 0.1;
+
+    public enum State { PENDING, RUNNING, DONE, DISABLED }
+
+    @Value("${loggen.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${loggen.warmup.max-lines:2000000}")
+    private int maxLines;
+
+    @Value("${loggen.warmup.max-millis:2000}")
+    private long maxMillis;
+
+    @Autowired
+    private LogGen logGen;
+
+    private volatile State state = State.PENDING;
+    private volatile long lines;
+    private volatile long elapsedNanos;
+    private volatile double firstNanosPerLine;
+    private volatile double bestNanosPerLine;
+
+    /**
+     * Runs on the main thread ahead of the other ready listeners, so generation starts warm
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void run() {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        state = State.RUNNING;
+        long deadline = System.nanoTime() + maxMillis * 1_000_000L;
+        int stable = 0;
+        double best = Double.MAX_VALUE;
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean compilerTimed = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        while (stable < STABLE_BATCHES && lines < maxLines && System.nanoTime() < deadline) {
+            long compiledMillis = compilerTimed ? compiler.getTotalCompilationTime() : 0;
+            long nanos = logGen.warmUp(BATCH_LINES);
+            double perLine = (double) nanos / BATCH_LINES;
+            if (lines == 0) {
+                firstNanosPerLine = perLine;
+            }
+            boolean compilerIdle = !compilerTimed
+                    || (compiler.getTotalCompilationTime() - compiledMillis) * 1_000_000L < nanos * IDLE_COMPILER_SHARE;
+            stable = perLine < best * IMPROVEMENT || !compilerIdle ? 0 : stable + 1;
+            best = Math.min(best, perLine);
+            bestNanosPerLine = best;
+            lines += BATCH_LINES;
+            elapsedNanos += nanos;
+        }
+        state = State.DONE;
+        logger.info("Warm-up done in {} ms: {} lines, {} -> {} ns/line{}", elapsedNanos / 1_000_000, lines,
+                Math.round(firstNanosPerLine), Math.round(bestNanosPerLine),
+                stable < STABLE_BATCHES ? " (stopped before the cost settled)" : "");
+    }
+
+    /**
+     * @return true once warm-up finished or when it is disabled
+     */
+    public boolean isWarm() {
+        return state == State.DONE || state == State.DISABLED;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("state", state.name());
+        map.put("lines", lines);
+        map.put("millis", elapsedNanos / 1_000_000);
+        map.put("firstNanosPerLine", Math.round(firstNanosPerLine));
+        map.put("bestNanosPerLine", Math.round(bestNanosPerLine));
+        return map;
+    }
+}
@@ -0,0 +1,237 @@
+package net.kubepia.loggen.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Pod-local sequence that survives restarts: ids are leased in ranges recorded in a small memory-mapped
+ * checkpoint file, so a restarted container continues after the last leased id instead of at 1.
+ * Within a lease ids come from a local AtomicLong; the file is written and forced once per lease, never per line.
+ * A crash skips at most the unused rest of the last lease (a gap, never a duplicate); a clean close records
+ * the exact next id. The file holds two slots written alternately, each with a sequence number and a CRC,
+ * so a write torn by a crash leaves the previous slot intact.
+ */
+public class CheckpointIdAllocator implements IdAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointIdAllocator.class);
+
+    private static final long MAGIC = 0x4C47534551303031L; // "LGSEQ001"
+    private static final int FILE_SIZE = 128;
+    private static final int SLOT_OFFSET = 8;
+    /** seq, leased up to, clean flag, crc */
+    private static final int SLOT_SIZE = 32;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long leaseSize;
+    private final AtomicLong cursor;
+    private final boolean resumedClean;
+    private final long resumedFrom;
+    private volatile long leasedUpTo;
+    private long seq;
+    private int slot;
+    private boolean closed;
+
+    private CheckpointIdAllocator(Path path, FileChannel channel, long leaseSize) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.leaseSize = leaseSize;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+
+        int valid = -1;
+        long validSeq = -1;
+        if (buffer.getLong(0) == MAGIC) {
+            for (int i = 0; i < 2; i++) {
+                int offset = SLOT_OFFSET + i * SLOT_SIZE;
+                long slotSeq = buffer.getLong(offset);
+                if (checksum(slotSeq, buffer.getLong(offset + 8), buffer.getLong(offset + 16))
+                        == buffer.getLong(offset + 24) && slotSeq > validSeq) {
+                    valid = i;
+                    validSeq = slotSeq;
+                }
+            }
+        }
+        if (valid < 0) {
+            this.seq = 0;
+            this.slot = 1;
+            this.leasedUpTo = 0;
+            this.resumedClean = true;
+            buffer.putLong(0, MAGIC);
+        } else {
+            int offset = SLOT_OFFSET + valid * SLOT_SIZE;
+            this.seq = validSeq;
+            this.slot = valid;
+            this.leasedUpTo = buffer.getLong(offset + 8);
+            this.resumedClean = buffer.getLong(offset + 16) != 0;
+        }
+        this.resumedFrom = leasedUpTo + 1;
+        this.cursor = new AtomicLong(resumedFrom);
+        // Mark the run as in progress, so a crash before the first lease is not mistaken for a clean stop
+        write(leasedUpTo, false);
+    }
+
+    /**
+     * Open or create the checkpoint and continue after the last leased id
+     * @param leaseSize ids reserved per checkpoint write
+     */
+    public static CheckpointIdAllocator open(Path path, long leaseSize) throws IOException {
+        if (leaseSize <= 0) {
+            throw new IllegalArgumentException("Checkpoint lease size must be positive: " + leaseSize);
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            CheckpointIdAllocator allocator = new CheckpointIdAllocator(path, channel, leaseSize);
+            if (allocator.resumedFrom > 1) {
+                logger.info("Resuming sequence at id {} from checkpoint {}{}", allocator.resumedFrom, path,
+                        allocator.resumedClean ? ""
+                                : " after an unclean stop; up to " + leaseSize + " ids before it may never have been emitted");
+            }
+            return allocator;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long next(long maxCount) {
+        while (true) {
+            long id = cursor.get();
+            if (id > maxCount) {
+                return -1;
+            }
+            if (id > leasedUpTo && !lease(id, maxCount)) {
+                return -1;
+            }
+            if (cursor.compareAndSet(id, id + 1)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Record a new range in the checkpoint before any id in it is handed out
+     * @return false when the checkpoint is closed or cannot be written
+     */
+    private synchronized boolean lease(long id, long maxCount) {
+        if (closed) {
+            return false;
+        }
+        if (id <= leasedUpTo) {
+            return true;
+        }
+        // Never lease past maxCount, so a finished run resumes as finished
+        long end = Math.max(id, Math.min(maxCount, id - 1 + leaseSize));
+        try {
+            write(end, false);
+        } catch (UncheckedIOException e) {
+            // Stall instead of handing out ids a restart would hand out again
+            logger.warn("Cannot write sequence checkpoint {}: {}", path, e.getMessage());
+            return false;
+        }
+        leasedUpTo = end;
+        return true;
+    }
+
+    @Override
+    public boolean isExhausted(long maxCount) {
+        return cursor.get() > maxCount;
+    }
+
+    @Override
+    public long peek() {
+        // The cursor never passes the end of the lease, except for the sentinel set by close()
+        return Math.min(cursor.get(), leasedUpTo + 1);
+    }
+
+    @Override
+    public synchronized void reset() {
+        if (closed) {
+            return;
+        }
+        write(0, false);
+        leasedUpTo = 0;
+        cursor.set(1);
+    }
+
+    /**
+     * Record the exact next id, so the next start continues without a gap
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // Ids at or above the sentinel are never handed out, so the cursor cannot move after this
+        long next = cursor.getAndSet(Long.MAX_VALUE / 2);
+        try {
+            write(next - 1, true);
+            channel.close();
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Cannot close sequence checkpoint {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Write the slot not holding the latest state and force it to the device
+     */
+    private void write(long upTo, boolean clean) {
+        long nextSeq = seq + 1;
+        int nextSlot = 1 - slot;
+        int offset = SLOT_OFFSET + nextSlot * SLOT_SIZE;
+        long flag = clean ? 1 : 0;
+        buffer.putLong(offset + 8, upTo);
+        buffer.putLong(offset + 16, flag);
+        buffer.putLong(offset, nextSeq);
+        buffer.putLong(offset + 24, checksum(nextSeq, upTo, flag));
+        buffer.force();
+        seq = nextSeq;
+        slot = nextSlot;
+    }
+
+    private static long checksum(long seq, long upTo, long flag) {
+        CRC32 crc = new CRC32();
+        for (long value : new long[] {MAGIC, seq, upTo, flag}) {
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                crc.update((int) (value >>> shift));
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * @return first id of this run
+     */
+    public long getResumedFrom() {
+        return resumedFrom;
+    }
+
+    /**
+     * @return false when the previous run ended without closing the checkpoint
+     */
+    public boolean isResumedClean() {
+        return resumedClean;
+    }
+
+    @Override
+    public String name() {
+        return "checkpoint";
+    }
+}
@@ -0,0 +1,41 @@
+package net.kubepia.loggen.id;
+
+/**
+ * Hands out sequence ids to log lines. Implementations are called by every producer thread,
+ * so {@link #next(long)} must be lock-free on the common path.
+ */
+public interface IdAllocator {
+
+    /**
+     * Claim the next id
+     * @param maxCount highest id that may be handed out
+     * @return claimed id, or -1 when no id is available
+     */
+    long next(long maxCount);
+
+    /**
+     * @return true when no further id up to maxCount can be handed out
+     */
+    boolean isExhausted(long maxCount);
+
+    /**
+     * @return the id the next line would get (for status only)
+     */
+    long peek();
+
+    /**
+     * Start over from id 1
+     */
+    void reset();
+
+    /**
+     * Release resources and give back ids that were claimed but not used
+     */
+    default void close() {
+    }
+
+    /**
+     * Short name shown in the status
+     */
+    String name();
+}
@@ -0,0 +1,44 @@
+package net.kubepia.loggen.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pod-local sequence 1..maxCount on a single AtomicLong (the default)
+ */
+public class LocalIdAllocator implements IdAllocator {
+
+    private final AtomicLong sequenceId = new AtomicLong(1);
+
+    @Override
+    public long next(long maxCount) {
+        while (true) {
+            long currentId = sequenceId.get();
+            if (currentId > maxCount) {
+                return -1;
+            }
+            if (sequenceId.compareAndSet(currentId, currentId + 1)) {
+                return currentId;
+            }
+        }
+    }
+
+    @Override
+    public boolean isExhausted(long maxCount) {
+        return sequenceId.get() > maxCount;
+    }
+
+    @Override
+    public long peek() {
+        return sequenceId.get();
+    }
+
+    @Override
+    public void reset() {
+        sequenceId.set(1);
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+}
@@ -0,0 +1,164 @@
+package net.kubepia.loggen.logmanager;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.kubepia.loggen.encode.LineBuffer;
+import net.kubepia.loggen.encode.LineEncoder;
+import net.kubepia.loggen.encode.LogLine;
+import net.kubepia.loggen.sink.LogSink;
+import org.slf4j.event.Level;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Streams a bulk request body (NDJSON or a JSON array of objects) straight into the sink.
+ * Entries are read token by token with the Jackson streaming parser, so the payload is never materialized;
+ * each accepted entry is encoded into a reused line buffer and written, and the sink is flushed once at the end.
+ * Lines go out through the writer (LogGen.writeEncoded), so they are counted like generated lines.
+ */
+class BatchIngest {
+
+    private final JsonFactory jsonFactory;
+    private final LogSink sink;
+    private final BiConsumer<Level, LineBuffer> writer;
+    private final LongSupplier idSupplier;
+    private final String podId;
+    private final LineEncoder encoder;
+    private final LogLine line = new LogLine();
+    private final LineBuffer buffer = new LineBuffer();
+
+    private long accepted;
+    private long rejected;
+    private long firstId = -1;
+    private long lastId = -1;
+
+    /**
+     * @param sink flushed once the body is consumed
+     * @param writer hands an encoded line to the sink and records it in the metrics
+     */
+    BatchIngest(JsonFactory jsonFactory, LogSink sink, BiConsumer<Level, LineBuffer> writer, LineEncoder encoder,
+                LongSupplier idSupplier, String podId) {
+        this.jsonFactory = jsonFactory;
+        this.sink = sink;
+        this.writer = writer;
+        this.idSupplier = idSupplier;
+        this.podId = podId;
+        this.encoder = encoder;
+    }
+
+    /**
+     * Consume the whole body. Entries before a syntax error are kept; the error is rethrown.
+     */
+    void ingest(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT) {
+                    readEntry(parser);
+                } else {
+                    // Not an object: skip the value and count it as rejected
+                    parser.skipChildren();
+                    rejected++;
+                }
+                token = parser.nextToken();
+            }
+        } finally {
+            sink.flush();
+        }
+    }
+
+    private void readEntry(JsonParser parser) throws IOException {
+        String message = null;
+        String level = "INFO";
+        String source = "unknown";
+        boolean valid = true;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+            String field = parser.currentName();
+            token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                if ("message".equals(field)) {
+                    valid = false;
+                }
+                continue;
+            }
+            switch (field) {
+                case "message":
+                    message = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                    break;
+                case "level":
+                    level = parser.getText();
+                    break;
+                case "source":
+                    source = parser.getText();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (!valid || message == null) {
+            rejected++;
+            return;
+        }
+
+        long id = idSupplier.getAsLong();
+        Instant now = Instant.now();
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+        line.id(id)
+                .podId(podId)
+                .message(messageBytes, 0, messageBytes.length)
+                .level(level)
+                .source(source)
+                .timestamp(now.getEpochSecond(), now.getNano())
+                .status("created")
+                .dataSize(messageBytes.length)
+                .maxLogCount(0)
+                .remainingLogs(0);
+        encoder.encode(line, buffer);
+        writer.accept(parseLevel(level), buffer);
+
+        if (firstId < 0) {
+            firstId = id;
+        }
+        lastId = id;
+        accepted++;
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    long getAccepted() {
+        return accepted;
+    }
+
+    long getRejected() {
+        return rejected;
+    }
+
+    long getFirstId() {
+        return firstId;
+    }
+
+    long getLastId() {
+        return lastId;
+    }
+}
@@ -0,0 +1,88 @@
+package net.kubepia.loggen.logmanager;
+
+import net.kubepia.loggen.GenerationConfig;
+import net.kubepia.loggen.LogGen;
+import net.kubepia.loggen.engine.GenerationEngine;
+import net.kubepia.loggen.engine.LoadProfile;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/log/config")
+@CrossOrigin(origins = "*")
+public class ConfigController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigController.class);
+
+    @Autowired
+    private LogGen logGen;
+
+    @Autowired
+    private GenerationEngine generationEngine;
+
+    /**
+     * GET /log/config - Current generation settings
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getConfig() {
+        Map<String, Object> response = logGen.getConfig().toMap();
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * PATCH /log/config - Change rate, payload, level mix and max count while running.
+     * Fields left out keep their value; all given fields take effect together.
+     * @param update e.g. {"rate": 100000, "dataSize": 512, "levels": "INFO:90,ERROR:10"}
+     *               or {"profile": "ramp:from=10000,to=500000,duration=10m"}
+     * @return settings now in effect
+     */
+    @PatchMapping
+    public ResponseEntity<Map<String, Object>> updateConfig(@RequestBody GenerationConfig.Update update) {
+        logger.info("PATCH /log/config endpoint called with {}", update);
+        GenerationConfig config = logGen.updateConfig(update);
+        generationEngine.reconfigure();
+        Map<String, Object> response = config.toMap();
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /log/config/profile - Replay a recorded rate timeline (CSV, one per-second count per line)
+     * @param speed play the timeline this many times faster
+     * @param scale multiply every count
+     * @param loop start over at the end instead of holding the last rate
+     */
+    @PostMapping(path = "/profile", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<Map<String, Object>> replayProfile(HttpServletRequest request,
+                                                             @RequestParam(defaultValue = "1") double speed,
+                                                             @RequestParam(defaultValue = "1") double scale,
+                                                             @RequestParam(defaultValue = "true") boolean loop)
+            throws IOException {
+        LoadProfile.Replay replay = LoadProfile.Replay.read(request.getReader(), speed, scale, loop);
+        String description = "replay:upload(" + replay.counts().length + "s),speed=" + speed + ",scale=" + scale
+                + ",loop=" + loop;
+        logger.info("POST /log/config/profile endpoint called: {}", description);
+        GenerationConfig config = logGen.updateLoadProfile(description, replay);
+        generationEngine.reconfigure();
+        Map<String, Object> response = config.toMap();
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidConfig(IllegalArgumentException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+}
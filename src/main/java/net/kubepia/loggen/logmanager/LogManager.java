@@ -1,5 +1,7 @@
 package net.kubepia.loggen.logmanager;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,9 +10,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
 @RequestMapping("/log")
@@ -24,6 +28,27 @@ public class LogManager {
 
     @Autowired
     private net.kubepia.loggen.LogGen logGen;
+
+    @Autowired
+    private net.kubepia.loggen.engine.GenerationEngine generationEngine;
+
+    @Autowired
+    private net.kubepia.loggen.engine.TenantGenerator tenantGenerator;
+
+    @Autowired
+    private net.kubepia.loggen.source.MultiSourceGenerator multiSourceGenerator;
+
+    @Autowired
+    private net.kubepia.loggen.cluster.ClusterService clusterService;
+
+    @Autowired
+    private net.kubepia.loggen.sink.LogSink logSink;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Last id handed out by POST /log; ids are millisecond timestamps bumped to stay unique and increasing
+    private final AtomicLong lastIngestId = new AtomicLong();
     
     
     /**
@@ -60,7 +85,7 @@ public class LogManager {
         String source = logData.containsKey("source") ? (String) logData.get("source") : "unknown";
         
         // Create response with log data
-        long currentId = System.currentTimeMillis();
+        long currentId = nextIngestId();
         response.put("id", currentId);
         response.put("podId", podId);
         response.put("podIdWithId", podId + "-" + currentId);
@@ -74,6 +99,44 @@ public class LogManager {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * POST /log/batch - Ingest many log entries in one request
+     * Body is NDJSON (one object per line) or a JSON array of objects with message, level and source.
+     * @return accepted/rejected counts and the id range assigned
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> createLogBatch(HttpServletRequest request) {
+        BatchIngest ingest = new BatchIngest(objectMapper.getFactory(), logSink, logGen::writeEncoded,
+                logGen.newEncoder(), this::nextIngestId, podId);
+
+        Map<String, Object> response = new HashMap<>();
+        HttpStatus status = HttpStatus.OK;
+        try {
+            ingest.ingest(request.getInputStream());
+        } catch (IOException e) {
+            logger.warn("Batch ingest stopped after {} entries: {}", ingest.getAccepted(), e.getMessage());
+            response.put("error", "Malformed batch body: " + e.getMessage());
+            status = HttpStatus.BAD_REQUEST;
+        }
+
+        response.put("accepted", ingest.getAccepted());
+        response.put("rejected", ingest.getRejected());
+        if (ingest.getAccepted() > 0) {
+            response.put("firstId", ingest.getFirstId());
+            response.put("lastId", ingest.getLastId());
+        }
+        response.put("podId", podId);
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * Next collision-free id: the current time in milliseconds, or the previous id + 1 if that is not larger
+     */
+    private long nextIngestId() {
+        return lastIngestId.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis()));
+    }
+
     /**
      * GET /log/status - Get log generation status
      * @return current log generation status
@@ -82,6 +145,11 @@ public class LogManager {
     public ResponseEntity<Map<String, Object>> getLogGenerationStatus() {
         logger.info("GET /log/status endpoint called");
         Map<String, Object> status = logGen.getLogGenerationStatus();
+        status.put("engine", generationEngine.getStatus());
+        status.put("sink", logSink.getStatus());
+        status.put("tenants", tenantGenerator.getStatus());
+        status.put("sources", multiSourceGenerator.getStatus());
+        status.put("cluster", clusterService.getStatus());
         return ResponseEntity.ok(status);
     }
 
@@ -0,0 +1,74 @@
+package net.kubepia.loggen.logmanager;
+
+import net.kubepia.loggen.replay.LogReplayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/log/replay")
+@CrossOrigin(origins = "*")
+public class ReplayController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayController.class);
+
+    @Autowired
+    private LogReplayer logReplayer;
+
+    /**
+     * GET /log/replay - Progress of the current or last replay
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getReplay() {
+        return ResponseEntity.ok(logReplayer.getStatus());
+    }
+
+    /**
+     * POST /log/replay - Start replaying a recorded log file; omitted parameters come from loggen.replay.*
+     * @param file path of the file on the pod
+     * @param speed 1, 10 (or 10x), or max
+     * @param workers worker threads, 0 for one per core
+     * @param loop start over at the end of the file
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> startReplay(@RequestParam String file,
+                                                           @RequestParam(required = false) String speed,
+                                                           @RequestParam(required = false) Integer workers,
+                                                           @RequestParam(required = false) Boolean loop)
+            throws IOException {
+        logger.info("POST /log/replay endpoint called for {} at speed {}", file, speed);
+        Map<String, Object> response = logReplayer.start(file, speed, workers, loop);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * DELETE /log/replay - Stop the running replay
+     */
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> stopReplay() {
+        logger.info("DELETE /log/replay endpoint called");
+        logReplayer.stop();
+        return ResponseEntity.ok(logReplayer.getStatus());
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, IOException.class})
+    public ResponseEntity<Map<String, Object>> handleInvalidReplay(Exception e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> handleReplayRunning(IllegalStateException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+}
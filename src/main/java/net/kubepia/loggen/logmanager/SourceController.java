@@ -0,0 +1,73 @@
+package net.kubepia.loggen.logmanager;
+
+import net.kubepia.loggen.source.MultiSourceGenerator;
+import net.kubepia.loggen.source.SourceDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/log/sources")
+@CrossOrigin(origins = "*")
+public class SourceController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceController.class);
+
+    @Autowired
+    private MultiSourceGenerator multiSourceGenerator;
+
+    /**
+     * GET /log/sources - List simulated sources
+     * @return sources with their rate and emitted line count
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getSources() {
+        Map<String, Object> response = multiSourceGenerator.getStatus();
+        response.put("sourceList", multiSourceGenerator.listSources());
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /log/sources - Add or replace sources
+     * @param definitions JSON array of source definitions
+     * @return number of sources created
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> addSources(@RequestBody List<SourceDefinition> definitions) {
+        logger.info("POST /log/sources endpoint called with {} definitions", definitions.size());
+        Map<String, Object> response = new HashMap<>();
+        int created = multiSourceGenerator.addSources(definitions);
+        response.put("created", created);
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * DELETE /log/sources - Remove all sources, or one with ?name=
+     */
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> removeSources(@RequestParam(required = false) String name) {
+        logger.info("DELETE /log/sources endpoint called for {}", name == null ? "all sources" : name);
+        multiSourceGenerator.removeSources(name);
+        Map<String, Object> response = new HashMap<>();
+        response.put("removed", name == null ? "all" : name);
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidDefinition(IllegalArgumentException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+}
@@ -0,0 +1,147 @@
+package net.kubepia.loggen.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.kubepia.loggen.sink.AsyncSink;
+import net.kubepia.loggen.sink.LogSink;
+import net.kubepia.loggen.sink.NetworkSink;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Micrometer meters for what the generator actually emitted.
+ * The hot path only touches striped LongAdders; Micrometer reads them through FunctionCounters when scraped.
+ * Encode/write latency is timed for 1 of every loggen.metrics.timing-sample-rate lines into percentile histograms;
+ * with a rate of 0 the timers are not registered at all.
+ */
+@Component
+public class GenerationMetrics implements MeterBinder {
+
+    private static final Level[] LEVELS = Level.values();
+
+    @Value("${loggen.metrics.timing-sample-rate:64}")
+    private int timingSampleRate;
+
+    @Autowired
+    private LogSink logSink;
+
+    private final LongAdder[] linesByLevel = new LongAdder[LEVELS.length];
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder writeSamples = new LongAdder();
+    private volatile Timer encodeTimer;
+    private volatile Timer writeTimer;
+
+    public GenerationMetrics() {
+        for (int i = 0; i < linesByLevel.length; i++) {
+            linesByLevel[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Level level : LEVELS) {
+            FunctionCounter.builder("loggen.lines", linesByLevel[level.ordinal()], LongAdder::sum)
+                    .description("Lines emitted by the generator")
+                    .tag("level", level.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        FunctionCounter.builder("loggen.bytes", bytes, LongAdder::sum)
+                .description("Bytes emitted by the generator, including the line separator")
+                .baseUnit("bytes")
+                .register(registry);
+        if (timingSampleRate > 0) {
+            encodeTimer = Timer.builder("loggen.line.encode")
+                    .description("Time to encode one line (sampled)")
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            writeTimer = Timer.builder("loggen.line.write")
+                    .description("Time to hand one line to the sink (sampled)")
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        if (logSink instanceof AsyncSink async) {
+            FunctionCounter.builder("loggen.sink.stalls", async, AsyncSink::getBlockedStalls)
+                    .description("Times a producer waited for space in the sink queue")
+                    .register(registry);
+            FunctionCounter.builder("loggen.sink.dropped", async, AsyncSink::getDropped)
+                    .description("Lines dropped or sampled out because the sink queue was full")
+                    .register(registry);
+            Gauge.builder("loggen.sink.queue.depth", async, AsyncSink::getQueueDepth)
+                    .description("Lines waiting in the sink queue")
+                    .register(registry);
+        }
+        LogSink target = logSink instanceof AsyncSink async ? async.getDelegate() : logSink;
+        if (target instanceof NetworkSink network) {
+            FunctionCounter.builder("loggen.sink.network.sent", network, NetworkSink::getLinesSent)
+                    .description("Lines delivered to the network endpoint")
+                    .register(registry);
+            FunctionCounter.builder("loggen.sink.network.failed", network, NetworkSink::getLinesFailed)
+                    .description("Lines given up after the last send attempt")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Count one emitted line
+     * @param level level of the line
+     * @param lineBytes encoded length without the line separator
+     */
+    public void recordLine(Level level, int lineBytes) {
+        linesByLevel[level.ordinal()].increment();
+        bytes.add(lineBytes + 1);
+    }
+
+    /**
+     * @param lineNumber per-thread line counter
+     * @return true when this line should be timed
+     */
+    public boolean shouldTime(int lineNumber) {
+        return timingSampleRate > 0 && lineNumber % timingSampleRate == 0 && encodeTimer != null;
+    }
+
+    public void recordTiming(long encodeNanos, long writeNanos) {
+        encodeTimer.record(encodeNanos, TimeUnit.NANOSECONDS);
+        writeTimer.record(writeNanos, TimeUnit.NANOSECONDS);
+        this.writeNanos.add(writeNanos);
+        writeSamples.increment();
+    }
+
+    /**
+     * Total lines emitted since startup, across all levels
+     */
+    public long getLines() {
+        long total = 0;
+        for (LongAdder adder : linesByLevel) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Total time of the sampled sink writes; divided by {@link #getWriteSamples()} it is the mean write latency
+     */
+    public long getWriteNanos() {
+        return writeNanos.sum();
+    }
+
+    public long getWriteSamples() {
+        return writeSamples.sum();
+    }
+}
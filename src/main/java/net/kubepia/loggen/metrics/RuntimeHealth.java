@@ -0,0 +1,303 @@
+package net.kubepia.loggen.metrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.kubepia.loggen.sink.LogSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Health model for the liveness and readiness probes that ignores short-lived garbage.
+ * Instead of comparing used heap with the maximum at probe time, which a fast generator trips between
+ * young collections, it is fed by GC notifications:
+ * <ul>
+ *   <li>old-gen occupancy right after a collection, the lowest value over the window, so only a heap that
+ *       stays full after collecting counts</li>
+ *   <li>share of wall-clock time spent in GC pauses over the window</li>
+ *   <li>generator backlog: how full the sink queue and pending network batches are, averaged over ~10s</li>
+ * </ul>
+ * Notifications arrive on the JMX notification thread and update per-second buckets; probes only read them.
+ */
+@Component
+public class RuntimeHealth implements NotificationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuntimeHealth.class);
+    private static final double BACKLOG_SMOOTHING = 0.1;
+
+    @Value("${loggen.health.window-seconds:60}")
+    private int windowSeconds;
+
+    @Value("${loggen.health.liveness.old-gen-percent:90}")
+    private double livenessOldGenPercent;
+
+    @Value("${loggen.health.readiness.old-gen-percent:80}")
+    private double readinessOldGenPercent;
+
+    @Value("${loggen.health.liveness.gc-pause-percent:50}")
+    private double livenessPausePercent;
+
+    @Value("${loggen.health.readiness.gc-pause-percent:20}")
+    private double readinessPausePercent;
+
+    @Value("${loggen.health.readiness.backlog-percent:90}")
+    private double readinessBacklogPercent;
+
+    @Autowired
+    private LogSink logSink;
+
+    private final Set<String> heapPools = new HashSet<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final long startNanos = System.nanoTime();
+
+    // Per-second buckets over the window, indexed by second % windowSeconds
+    private long[] bucketSecond;
+    private long[] bucketPauseMillis;
+    private double[] bucketMinOldGen;
+    private double lastOldGen = Double.NaN;
+    private long collections;
+    private long pauseMillisTotal;
+    private volatile double backlog;
+
+    @PostConstruct
+    public void init() {
+        windowSeconds = Math.max(1, windowSeconds);
+        bucketSecond = new long[windowSeconds];
+        Arrays.fill(bucketSecond, -1);
+        bucketPauseMillis = new long[windowSeconds];
+        bucketMinOldGen = new double[windowSeconds];
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+        if (emitters.isEmpty()) {
+            logger.warn("No GC notifications available; probes only see the backlog");
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                // already removed
+            }
+        }
+        emitters.clear();
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        recordCollection(info.getGcName(), info.getGcInfo().getDuration(),
+                info.getGcInfo().getMemoryUsageAfterGc(), System.nanoTime());
+    }
+
+    /**
+     * Account one finished collection
+     * @param gcName collector bean name; concurrent cycles ("Cycles", "Concurrent") do not count as pause time
+     * @param durationMillis collection time reported by the JVM
+     * @param afterGc pool usage right after the collection
+     */
+    synchronized void recordCollection(String gcName, long durationMillis, Map<String, MemoryUsage> afterGc,
+                                       long nowNanos) {
+        int index = bucketFor(nowNanos);
+        collections++;
+        if (!isConcurrent(gcName)) {
+            bucketPauseMillis[index] += durationMillis;
+            pauseMillisTotal += durationMillis;
+        }
+        // ZGC and Shenandoah report heap usage on their "Cycles" beans; the "Pauses" beans are not post-GC states
+        if (gcName.contains("Pauses")) {
+            return;
+        }
+        double oldGen = oldGenFraction(afterGc);
+        if (!Double.isNaN(oldGen)) {
+            lastOldGen = oldGen;
+            bucketMinOldGen[index] = Double.isNaN(bucketMinOldGen[index]) ? oldGen
+                    : Math.min(bucketMinOldGen[index], oldGen);
+        }
+    }
+
+    private static boolean isConcurrent(String gcName) {
+        return gcName.contains("Cycles") || gcName.contains("Concurrent");
+    }
+
+    /**
+     * Bucket for this second, cleared when it is reused after a full turn of the window
+     */
+    private int bucketFor(long nowNanos) {
+        long second = (nowNanos - startNanos) / 1_000_000_000L;
+        int index = (int) (second % windowSeconds);
+        if (bucketSecond[index] != second) {
+            bucketSecond[index] = second;
+            bucketPauseMillis[index] = 0;
+            bucketMinOldGen[index] = Double.NaN;
+        }
+        return index;
+    }
+
+    /**
+     * Old generation used / max after a collection. Collectors without generations (ZGC, Shenandoah)
+     * report the whole heap instead.
+     */
+    private double oldGenFraction(Map<String, MemoryUsage> afterGc) {
+        long used = 0;
+        long max = 0;
+        boolean found = false;
+        for (Map.Entry<String, MemoryUsage> pool : afterGc.entrySet()) {
+            if (isOldPool(pool.getKey())) {
+                found = true;
+                used += pool.getValue().getUsed();
+                max += Math.max(0, pool.getValue().getMax());
+            }
+        }
+        if (!found) {
+            for (Map.Entry<String, MemoryUsage> pool : afterGc.entrySet()) {
+                if (heapPools.contains(pool.getKey())) {
+                    found = true;
+                    used += pool.getValue().getUsed();
+                    max += Math.max(0, pool.getValue().getMax());
+                }
+            }
+        }
+        if (!found) {
+            return Double.NaN;
+        }
+        if (max <= 0) {
+            max = Runtime.getRuntime().maxMemory();
+        }
+        return (double) used / max;
+    }
+
+    private static boolean isOldPool(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.contains("old") || lower.contains("tenured");
+    }
+
+    /**
+     * Smooth the sink backlog once per second, so one full queue moment does not flip readiness
+     */
+    @Scheduled(fixedRate = 1000)
+    public void sampleBacklog() {
+        backlog += (SinkFeedback.backlog(logSink) - backlog) * BACKLOG_SMOOTHING;
+    }
+
+    /**
+     * Current view of the window
+     */
+    public Assessment assess() {
+        return assess(System.nanoTime());
+    }
+
+    synchronized Assessment assess(long nowNanos) {
+        long second = (nowNanos - startNanos) / 1_000_000_000L;
+        long pauseMillis = 0;
+        double minOldGen = Double.NaN;
+        for (int i = 0; i < windowSeconds; i++) {
+            if (bucketSecond[i] < 0 || second - bucketSecond[i] >= windowSeconds) {
+                continue;
+            }
+            pauseMillis += bucketPauseMillis[i];
+            if (!Double.isNaN(bucketMinOldGen[i])) {
+                minOldGen = Double.isNaN(minOldGen) ? bucketMinOldGen[i] : Math.min(minOldGen, bucketMinOldGen[i]);
+            }
+        }
+        // Without a collection in the window the heap is not under pressure; keep the last known value
+        double oldGen = Double.isNaN(minOldGen) ? lastOldGen : minOldGen;
+        long spanMillis = Math.max(1000, Math.min(windowSeconds * 1000L, (nowNanos - startNanos) / 1_000_000L));
+        return new Assessment(Double.isNaN(oldGen) ? 0 : oldGen * 100, (double) pauseMillis / spanMillis * 100,
+                backlog * 100, collections, pauseMillisTotal, windowSeconds);
+    }
+
+    /**
+     * @return why the process should be restarted, or null when it is alive
+     */
+    public String livenessFailure(Assessment assessment) {
+        if (assessment.oldGenAfterGcPercent() > livenessOldGenPercent) {
+            return "Old generation stays full after GC: " + round(assessment.oldGenAfterGcPercent()) + "%";
+        }
+        if (assessment.gcPausePercent() > livenessPausePercent) {
+            return "GC pauses take " + round(assessment.gcPausePercent()) + "% of the time";
+        }
+        return null;
+    }
+
+    /**
+     * @return why the pod should not take traffic, or null when it is ready
+     */
+    public String readinessFailure(Assessment assessment) {
+        if (assessment.oldGenAfterGcPercent() > readinessOldGenPercent) {
+            return "Old generation too full for readiness: " + round(assessment.oldGenAfterGcPercent()) + "%";
+        }
+        if (assessment.gcPausePercent() > readinessPausePercent) {
+            return "GC pauses too long for readiness: " + round(assessment.gcPausePercent()) + "%";
+        }
+        if (assessment.backlogPercent() >= readinessBacklogPercent) {
+            return "Sink backlog too high for readiness: " + round(assessment.backlogPercent()) + "%";
+        }
+        return null;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * @param oldGenAfterGcPercent lowest old-gen occupancy after GC in the window
+     * @param gcPausePercent time spent in GC pauses in the window
+     * @param backlogPercent smoothed fill of the sink queue or pending network batches
+     * @param collections collections since startup
+     * @param pauseMillis pause time since startup
+     * @param windowSeconds length of the window
+     */
+    public record Assessment(double oldGenAfterGcPercent, double gcPausePercent, double backlogPercent,
+                             long collections, long pauseMillis, int windowSeconds) {
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("oldGenAfterGcPercent", round(oldGenAfterGcPercent));
+            map.put("gcPausePercent", round(gcPausePercent));
+            map.put("backlogPercent", round(backlogPercent));
+            map.put("gcCollections", collections);
+            map.put("gcPauseMillis", pauseMillis);
+            map.put("windowSeconds", windowSeconds);
+            return map;
+        }
+    }
+}
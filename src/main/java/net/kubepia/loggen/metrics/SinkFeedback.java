@@ -0,0 +1,76 @@
+package net.kubepia.loggen.metrics;
+
+import net.kubepia.loggen.sink.AsyncSink;
+import net.kubepia.loggen.sink.LogSink;
+import net.kubepia.loggen.sink.NetworkSink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cumulative backpressure signals from the configured sink, read by closed-loop rate control.
+ * Counters only grow; callers keep the previous reading and look at the difference.
+ */
+@Component
+public class SinkFeedback {
+
+    @Autowired
+    private LogSink logSink;
+
+    @Autowired
+    private GenerationMetrics metrics;
+
+    /**
+     * @param nanos when the reading was taken
+     * @param lines lines emitted by the generator
+     * @param backlog fill of the sink queue or pending network batches right now, 0 to 1
+     * @param lost lines dropped, sampled out or given up by the sink
+     * @param stalls times a producer had to wait for room in the sink
+     * @param retries network sends repeated after a disconnect, throttling or a server error
+     * @param writeNanos sampled time producers spent handing lines to the sink
+     * @param writes number of sampled writes
+     * @param ackNanos time from sealing a network batch until it was acknowledged
+     * @param acks acknowledged network batches
+     */
+    public record Reading(long nanos, long lines, double backlog, long lost, long stalls, long retries,
+                          long writeNanos, long writes, long ackNanos, long acks) {
+    }
+
+    public Reading read() {
+        long lost = 0;
+        long stalls = 0;
+        long retries = 0;
+        long ackNanos = 0;
+        long acks = 0;
+        LogSink target = logSink;
+        if (target instanceof AsyncSink async) {
+            lost += async.getDropped();
+            stalls += async.getBlockedStalls();
+            target = async.getDelegate();
+        }
+        if (target instanceof NetworkSink network) {
+            lost += network.getLinesFailed();
+            stalls += network.getQueueStalls();
+            retries = network.getRetries();
+            ackNanos = network.getAckNanos();
+            acks = network.getBatchesSent();
+        }
+        return new Reading(System.nanoTime(), metrics.getLines(), backlog(logSink), lost, stalls, retries,
+                metrics.getWriteNanos(), metrics.getWriteSamples(), ackNanos, acks);
+    }
+
+    /**
+     * How full the sink queue and pending network batches are right now, the fuller of the two
+     */
+    public static double backlog(LogSink sink) {
+        double fill = 0;
+        LogSink target = sink;
+        if (target instanceof AsyncSink async) {
+            fill = (double) async.getQueueDepth() / Math.max(1, async.getQueueCapacity());
+            target = async.getDelegate();
+        }
+        if (target instanceof NetworkSink network) {
+            fill = Math.max(fill, network.getBacklog());
+        }
+        return fill;
+    }
+}
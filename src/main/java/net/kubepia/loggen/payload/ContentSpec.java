@@ -0,0 +1,57 @@
+package net.kubepia.loggen.payload;
+
+/**
+ * Seeded content settings shared by the payload pool and the line fields.
+ * The dictionary is built once here; the same seed always gives the same words, corpus and per-line choices.
+ */
+public final class ContentSpec {
+
+    /**
+     * The original behaviour: repeated template, random seed
+     */
+    public static final ContentSpec TEMPLATE = new ContentSpec(Entropy.TEMPLATE, 64, 0, System.nanoTime());
+
+    private final Entropy entropy;
+    private final int corpusSize;
+    private final long seed;
+    private final Dictionary dictionary;
+
+    /**
+     * @param entropy how the message text is rendered
+     * @param dictionarySize distinct words for words entropy and for path/word fields
+     * @param corpusSize bytes of text rendered for non-template entropy; lines are random slices of it
+     * @param seed seed for the dictionary, the corpus and every per-line choice
+     */
+    public ContentSpec(Entropy entropy, int dictionarySize, int corpusSize, long seed) {
+        if (corpusSize < 0) {
+            throw new IllegalArgumentException("Corpus size must not be negative: " + corpusSize);
+        }
+        this.entropy = entropy;
+        this.corpusSize = corpusSize;
+        this.seed = seed;
+        this.dictionary = Dictionary.build(seed, dictionarySize);
+    }
+
+    /**
+     * Seed for every choice made for one line: size, slice, level and field values
+     */
+    public long lineSeed(long id) {
+        return SplitMix64.seedFor(seed, id);
+    }
+
+    public Entropy entropy() {
+        return entropy;
+    }
+
+    public int corpusSize() {
+        return corpusSize;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public Dictionary dictionary() {
+        return dictionary;
+    }
+}
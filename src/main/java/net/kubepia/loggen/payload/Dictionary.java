@@ -0,0 +1,95 @@
+package net.kubepia.loggen.payload;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+/**
+ * Seeded list of distinct, pronounceable lowercase words, ranked by frequency.
+ * Built once from syllables; low ranks are short like the most common words of natural text.
+ * Word choice follows Zipf's law, so text drawn from it compresses like prose rather than like a repeated phrase.
+ */
+public final class Dictionary {
+
+    private static final String[] ONSETS = {
+        "b", "c", "d", "f", "g", "h", "j", "k", "l", "m", "n", "p", "r", "s", "t", "v", "w", "z",
+        "br", "ch", "cl", "dr", "fl", "gr", "pl", "pr", "sh", "st", "th", "tr", ""
+    };
+    private static final String[] VOWELS = {"a", "e", "i", "o", "u", "ai", "ea", "ee", "io", "ou", "y"};
+    private static final String[] CODAS = {"", "", "", "n", "r", "s", "t", "l", "m", "ck", "nd", "ng", "st", "x"};
+
+    private final byte[][] words;
+    private final double[] cumulative;
+
+    private Dictionary(byte[][] words, double exponent) {
+        this.words = words;
+        this.cumulative = new double[words.length];
+        double total = 0;
+        for (int rank = 0; rank < words.length; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < words.length; rank++) {
+            cumulative[rank] /= total;
+        }
+    }
+
+    /**
+     * @param seed same seed, same words
+     * @param size number of distinct words
+     */
+    public static Dictionary build(long seed, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Dictionary size must be positive: " + size);
+        }
+        SplitMix64 random = new SplitMix64(seed);
+        Set<String> seen = new HashSet<>();
+        byte[][] words = new byte[size][];
+        StringBuilder word = new StringBuilder();
+        for (int rank = 0; rank < size; rank++) {
+            // Frequent words get one syllable, rare ones up to four; retry until the word is new
+            int syllables = 1 + Math.min(3, (int) (Math.log(rank + 2) / Math.log(8)));
+            int attempts = 0;
+            do {
+                word.setLength(0);
+                for (int s = 0; s < syllables; s++) {
+                    word.append(ONSETS[random.nextInt(ONSETS.length)]).append(VOWELS[random.nextInt(VOWELS.length)]);
+                }
+                word.append(CODAS[random.nextInt(CODAS.length)]);
+                if (++attempts % 16 == 0) {
+                    // Short words are used up; a longer one is always available
+                    syllables++;
+                }
+            } while (!seen.add(word.toString()));
+            words[rank] = word.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+        return new Dictionary(words, 1.0);
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public byte[] word(int rank) {
+        return words[rank];
+    }
+
+    /**
+     * Draw a rank with Zipf (s = 1) frequency
+     */
+    public int nextRank(RandomGenerator random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
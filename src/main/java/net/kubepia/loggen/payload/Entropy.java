@@ -0,0 +1,111 @@
+package net.kubepia.loggen.payload;
+
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * How much information the generated message text carries, from a repeated phrase to random characters.
+ * Everything except {@link #TEMPLATE} renders one seeded corpus up front; lines are slices of it.
+ */
+public enum Entropy {
+
+    /**
+     * The message template repeated, e.g. "hello world hello world"; compresses by orders of magnitude
+     */
+    TEMPLATE,
+
+    /**
+     * Dictionary words with Zipf frequency, numbers and punctuation; compresses like English prose.
+     * A smaller loggen.payload.dictionary-size lowers the entropy.
+     */
+    WORDS,
+
+    /**
+     * Random lowercase letters and digits in word-sized tokens
+     */
+    ALNUM,
+
+    /**
+     * Random printable ASCII; close to incompressible
+     */
+    RANDOM;
+
+    private static final byte[] ALNUM_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789".getBytes();
+
+    public static Entropy parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown payload entropy: " + value
+                    + " (expected template, words, alnum or random)");
+        }
+    }
+
+    /**
+     * Fill the corpus with text of this entropy
+     */
+    void render(byte[] corpus, Dictionary dictionary, RandomGenerator random) {
+        switch (this) {
+            case WORDS:
+                renderWords(corpus, dictionary, random);
+                break;
+            case ALNUM:
+                int i = 0;
+                while (i < corpus.length) {
+                    int token = random.nextInt(3, 13);
+                    for (int end = Math.min(corpus.length, i + token); i < end; i++) {
+                        corpus[i] = ALNUM_CHARS[random.nextInt(ALNUM_CHARS.length)];
+                    }
+                    if (i < corpus.length) {
+                        corpus[i++] = ' ';
+                    }
+                }
+                break;
+            case RANDOM:
+                for (int j = 0; j < corpus.length; j++) {
+                    // Printable ASCII without '"' and '\', so formats never need to escape it
+                    byte b;
+                    do {
+                        b = (byte) random.nextInt(0x20, 0x7F);
+                    } while (b == '"' || b == '\\');
+                    corpus[j] = b;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Template payloads are rendered by PayloadPool");
+        }
+    }
+
+    private static void renderWords(byte[] corpus, Dictionary dictionary, RandomGenerator random) {
+        int i = 0;
+        int sentence = 0;
+        boolean capitalize = true;
+        while (i < corpus.length) {
+            if (random.nextInt(20) == 0) {
+                // About one token in twenty is a number, like ids and counts in real messages
+                byte[] digits = Long.toString(random.nextLong(100_000)).getBytes();
+                i = copy(digits, corpus, i, false);
+            } else {
+                i = copy(dictionary.word(dictionary.nextRank(random)), corpus, i, capitalize);
+            }
+            capitalize = false;
+            if (++sentence >= 6 && random.nextInt(8) == 0 && i < corpus.length) {
+                corpus[i++] = (byte) (random.nextInt(4) == 0 ? ',' : '.');
+                capitalize = corpus[i - 1] == '.';
+                sentence = 0;
+            }
+            if (i < corpus.length) {
+                corpus[i++] = ' ';
+            }
+        }
+    }
+
+    private static int copy(byte[] word, byte[] corpus, int at, boolean capitalize) {
+        int length = Math.min(word.length, corpus.length - at);
+        System.arraycopy(word, 0, corpus, at, length);
+        if (capitalize && length > 0 && word[0] >= 'a' && word[0] <= 'z') {
+            corpus[at] = (byte) (word[0] - 32);
+        }
+        return at + length;
+    }
+}
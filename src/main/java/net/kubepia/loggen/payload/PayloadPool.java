@@ -0,0 +1,127 @@
+package net.kubepia.loggen.payload;
+
+import java.nio.charset.StandardCharsets;
+import java.util.random.RandomGenerator;
+
+/**
+ * Immutable set of pre-rendered message bodies.
+ * Each variant is rendered once at the largest size the distribution can ask for;
+ * a line of size n simply references the first n bytes of a variant, so nothing is built per line.
+ * With an {@link Entropy} other than template the pool is one seeded corpus instead, and a line
+ * of size n references n bytes at a random offset, which gives millions of distinct messages for free.
+ */
+public final class PayloadPool {
+
+    private static final long MAX_POOL_BYTES = 64L * 1024 * 1024;
+
+    private static final int MIN_CORPUS_SLICES = 2;
+
+    private final byte[][] variants;
+    private final SizeDistribution distribution;
+    private final boolean corpus;
+
+    private PayloadPool(byte[][] variants, SizeDistribution distribution, boolean corpus) {
+        this.variants = variants;
+        this.distribution = distribution;
+        this.corpus = corpus;
+    }
+
+    /**
+     * Render the pool by repeating the template, e.g. "hello world hello world ..."
+     * @param template message template
+     * @param distribution payload size distribution
+     * @param variantCount number of distinct bodies; reduced if the pool would exceed 64 MB
+     */
+    public static PayloadPool build(String template, SizeDistribution distribution, int variantCount) {
+        int maxSize = distribution.maxSize();
+        int count = (int) Math.max(1, Math.min(variantCount, MAX_POOL_BYTES / Math.max(1, maxSize)));
+        byte[] unit = (template + " ").getBytes(StandardCharsets.UTF_8);
+        byte[][] variants = new byte[count][];
+        for (int v = 0; v < count; v++) {
+            // Variant 0 starts at the template itself; the others start at a rotated offset
+            variants[v] = repeat(unit, v == 0 ? 0 : (v * 7) % unit.length, maxSize);
+        }
+        return new PayloadPool(variants, distribution, false);
+    }
+
+    /**
+     * Render the pool for the given content settings
+     * @param template message template, used by template entropy
+     * @param variantCount number of distinct bodies for template entropy; other entropies render one corpus
+     */
+    public static PayloadPool build(String template, SizeDistribution distribution, int variantCount,
+                                    ContentSpec content) {
+        if (content.entropy() == Entropy.TEMPLATE) {
+            return build(template, distribution, variantCount);
+        }
+        // At least two maximum-size slices fit, so even the largest line has a choice of offsets
+        long size = Math.max(content.corpusSize(), (long) distribution.maxSize() * MIN_CORPUS_SLICES);
+        byte[] text = new byte[(int) Math.min(MAX_POOL_BYTES, Math.max(1, size))];
+        content.entropy().render(text, content.dictionary(), new SplitMix64(content.seed()));
+        return new PayloadPool(new byte[][] {text}, distribution, true);
+    }
+
+    private static byte[] repeat(byte[] unit, int offset, int size) {
+        byte[] body = new byte[size];
+        for (int i = 0; i < size; i++) {
+            body[i] = unit[(offset + i) % unit.length];
+        }
+        return body;
+    }
+
+    /**
+     * Pick a variant for the next line
+     */
+    public byte[] nextBody(RandomGenerator random) {
+        return variants.length == 1 ? variants[0] : variants[random.nextInt(variants.length)];
+    }
+
+    /**
+     * Where the next line's message starts in its body; always 0 for template bodies
+     * @param length message length that has to fit after the offset
+     */
+    public int nextOffset(RandomGenerator random, byte[] body, int length) {
+        int room = body.length - length;
+        return corpus && room > 0 ? random.nextInt(room + 1) : 0;
+    }
+
+    /**
+     * Pick the size of the next line's body
+     */
+    public int nextSize(RandomGenerator random) {
+        return distribution.nextSize(random);
+    }
+
+    /**
+     * Usable length of a body for the requested size, backed off so a multi-byte character is never split
+     */
+    public static int lengthFor(byte[] body, int size) {
+        return lengthFor(body, 0, size);
+    }
+
+    /**
+     * Usable length of a body slice starting at offset, backed off so a multi-byte character is never split
+     */
+    public static int lengthFor(byte[] body, int offset, int size) {
+        int length = Math.min(size, body.length - offset);
+        while (length > 0 && offset + length < body.length && (body[offset + length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * @return true when lines are slices of one corpus rather than prefixes of variants
+     */
+    public boolean isCorpus() {
+        return corpus;
+    }
+
+    public int variantCount() {
+        return variants.length;
+    }
+
+    public SizeDistribution distribution() {
+        return distribution;
+    }
+}
@@ -0,0 +1,222 @@
+package net.kubepia.loggen.payload;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks the payload size of each generated line.
+ * Implementations precompute their tables up front so sampling is allocation-free.
+ */
+public interface SizeDistribution {
+
+    /**
+     * @return payload size in bytes for the next line
+     */
+    int nextSize(RandomGenerator random);
+
+    /**
+     * @return largest size this distribution can return
+     */
+    int maxSize();
+
+    /**
+     * Build a distribution from configuration
+     * @param type fixed, uniform, zipf or histogram
+     * @param fixedSize size used by the fixed distribution (loggen.data.size)
+     * @param minSize lower bound for uniform and zipf
+     * @param maxSize upper bound for uniform and zipf
+     * @param zipfExponent skew of the zipf distribution
+     * @param histogram "size:weight,..." pairs, or "file:path" with one "size,count" pair per line
+     */
+    static SizeDistribution create(String type, int fixedSize, int minSize, int maxSize,
+                                   double zipfExponent, String histogram) {
+        switch (type.toLowerCase(Locale.ROOT)) {
+            case "uniform":
+                return new UniformSize(minSize, maxSize);
+            case "zipf":
+                return new ZipfSize(minSize, maxSize, zipfExponent);
+            case "histogram":
+                return HistogramSize.parse(histogram);
+            case "fixed":
+                return new FixedSize(fixedSize);
+            default:
+                throw new IllegalArgumentException("Unknown payload distribution: " + type);
+        }
+    }
+
+    record FixedSize(int size) implements SizeDistribution {
+
+        public FixedSize {
+            if (size < 0) {
+                throw new IllegalArgumentException("Payload size must not be negative: " + size);
+            }
+        }
+
+        @Override
+        public int nextSize(RandomGenerator random) {
+            return size;
+        }
+
+        @Override
+        public int maxSize() {
+            return size;
+        }
+    }
+
+    record UniformSize(int min, int max) implements SizeDistribution {
+
+        public UniformSize {
+            if (min < 0 || max < min) {
+                throw new IllegalArgumentException("Invalid uniform payload range: " + min + ".." + max);
+            }
+        }
+
+        @Override
+        public int nextSize(RandomGenerator random) {
+            return min == max ? min : random.nextInt(min, max + 1);
+        }
+
+        @Override
+        public int maxSize() {
+            return max;
+        }
+    }
+
+    /**
+     * Zipf over log-spaced size buckets between min and max: small payloads are the most frequent.
+     */
+    final class ZipfSize implements SizeDistribution {
+
+        private static final int BUCKETS = 64;
+
+        private final int[] sizes;
+        private final double[] cumulative;
+
+        public ZipfSize(int min, int max, double exponent) {
+            if (min < 1 || max < min) {
+                throw new IllegalArgumentException("Invalid zipf payload range: " + min + ".." + max);
+            }
+            int buckets = Math.min(BUCKETS, max - min + 1);
+            sizes = new int[buckets];
+            cumulative = new double[buckets];
+            double ratio = buckets == 1 ? 1 : Math.pow((double) max / min, 1.0 / (buckets - 1));
+            double total = 0;
+            for (int rank = 0; rank < buckets; rank++) {
+                sizes[rank] = rank == buckets - 1 ? max : (int) Math.round(min * Math.pow(ratio, rank));
+                total += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < buckets; rank++) {
+                cumulative[rank] /= total;
+            }
+        }
+
+        @Override
+        public int nextSize(RandomGenerator random) {
+            return sizes[search(cumulative, random.nextDouble())];
+        }
+
+        @Override
+        public int maxSize() {
+            return sizes[sizes.length - 1];
+        }
+    }
+
+    /**
+     * Empirical distribution, e.g. a size histogram exported from real traffic.
+     */
+    final class HistogramSize implements SizeDistribution {
+
+        private final int[] sizes;
+        private final double[] cumulative;
+        private final int maxSize;
+
+        HistogramSize(int[] sizes, double[] weights) {
+            if (sizes.length == 0) {
+                throw new IllegalArgumentException("Payload histogram is empty");
+            }
+            this.sizes = sizes.clone();
+            this.cumulative = new double[weights.length];
+            double total = 0;
+            int max = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (sizes[i] < 0 || weights[i] < 0) {
+                    throw new IllegalArgumentException("Invalid histogram entry: " + sizes[i] + ":" + weights[i]);
+                }
+                total += weights[i];
+                cumulative[i] = total;
+                max = Math.max(max, sizes[i]);
+            }
+            if (total <= 0) {
+                throw new IllegalArgumentException("Payload histogram has no weight");
+            }
+            for (int i = 0; i < cumulative.length; i++) {
+                cumulative[i] /= total;
+            }
+            this.maxSize = max;
+        }
+
+        static HistogramSize parse(String spec) {
+            if (spec == null || spec.isBlank()) {
+                throw new IllegalArgumentException("loggen.payload.histogram is required for the histogram distribution");
+            }
+            List<String> entries = new ArrayList<>();
+            if (spec.startsWith("file:")) {
+                try {
+                    for (String line : Files.readAllLines(Path.of(spec.substring(5)))) {
+                        if (!line.isBlank() && !line.startsWith("#")) {
+                            entries.add(line.trim().replace(',', ':'));
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Cannot read payload histogram: " + spec, e);
+                }
+            } else {
+                for (String entry : spec.split(",")) {
+                    entries.add(entry.trim());
+                }
+            }
+
+            int[] sizes = new int[entries.size()];
+            double[] weights = new double[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                String[] pair = entries.get(i).split(":");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Histogram entry must be size:weight but was: " + entries.get(i));
+                }
+                sizes[i] = Integer.parseInt(pair[0].trim());
+                weights[i] = Double.parseDouble(pair[1].trim());
+            }
+            return new HistogramSize(sizes, weights);
+        }
+
+        @Override
+        public int nextSize(RandomGenerator random) {
+            return sizes[search(cumulative, random.nextDouble())];
+        }
+
+        @Override
+        public int maxSize() {
+            return maxSize;
+        }
+    }
+
+    private static int search(double[] cumulative, double value) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,56 @@
+package net.kubepia.loggen.payload;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * SplitMix64 (Steele, Lea and Flood), the generator behind {@link java.util.SplittableRandom}, as a mutable
+ * instance that can be reseeded. A producer reseeds one instance per line from (seed, line id), so every
+ * choice for a line is a pure function of the two and a seeded run is reproducible across any number of threads.
+ * Not thread-safe; keep one per thread.
+ */
+public final class SplitMix64 implements RandomGenerator {
+
+    static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Restart the sequence from a new seed
+     */
+    public void reseed(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * SplitMix64 finalizer: a bijective mix of all 64 bits
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Independent seed for element {@code index} of a stream, e.g. one line of a run
+     */
+    public static long seedFor(long seed, long index) {
+        return mix(seed + index * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Uniform double in [0, 1) from the top 53 bits of a mixed value
+     */
+    static double toUnit(long bits) {
+        return (bits >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,426 @@
+package net.kubepia.loggen.replay;
+
+import jakarta.annotation.PreDestroy;
+import net.kubepia.loggen.LogGen;
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Re-emits a recorded log file through the configured sink at 1x, Nx or maximum speed.
+ * Workers take line-aligned chunks of the mapped file from a shared counter and pace each line by its
+ * original timestamp: a line is due {@code (timestamp - first timestamp) / speed} after the start.
+ * While one worker waits for its chunk's time, an idle one takes the next chunk, so the replay spreads
+ * over cores exactly when a single worker cannot keep up; at maximum speed every worker runs flat out.
+ * Lines without a timestamp go out with the line before them. Every line gets the emit time and a
+ * sequence id from the shared allocator, so maxLogCount and the verifier work as for generated lines.
+ */
+@Component
+public class LogReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogReplayer.class);
+
+    /** Waits shorter than this are not worth a park */
+    private static final long MIN_PARK_NANOS = 50_000L;
+    /** Wait before asking again when no id is available for now, e.g. the cluster coordinator is unreachable */
+    private static final long CLAIM_RETRY_NANOS = 100_000_000L;
+    /** Pause between the last and first line of a looped file */
+    private static final long LOOP_GAP_NANOS = 1_000_000L;
+
+    @Value("${loggen.replay.file:}")
+    private String replayFile;
+
+    @Value("${loggen.replay.speed:1}")
+    private String replaySpeed;
+
+    @Value("${loggen.replay.workers:0}")
+    private int replayWorkers;
+
+    @Value("${loggen.replay.loop:false}")
+    private boolean replayLoop;
+
+    @Value("${loggen.replay.chunk-size:1048576}")
+    private int chunkSize;
+
+    @Value("${loggen.replay.max-line-length:1048576}")
+    private int maxLineLength;
+
+    @Value("${loggen.replay.zone:}")
+    private String zoneId;
+
+    @Autowired
+    private LogGen logGen;
+
+    private Session session;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startConfigured() throws IOException {
+        if (replayFile != null && !replayFile.isBlank()) {
+            start(replayFile, null, null, null);
+        }
+    }
+
+    /**
+     * Start replaying a file; settings left null come from loggen.replay.*
+     * @param speed "1", "10x" or "max"
+     */
+    public Map<String, Object> start(String file, String speed, Integer workers, Boolean loop) throws IOException {
+        return start(file, parseSpeed(speed != null ? speed : replaySpeed), workers != null ? workers : replayWorkers,
+                loop != null ? loop : replayLoop);
+    }
+
+    /**
+     * Start replaying a file; only one replay runs at a time
+     * @param speed multiple of the recorded rate, 0 for as fast as possible
+     * @param workers worker threads, 0 for one per core
+     * @throws IllegalStateException when a replay is already running
+     */
+    public synchronized Map<String, Object> start(String file, double speed, int workers, boolean loop)
+            throws IOException {
+        if (session != null && session.isRunning()) {
+            throw new IllegalStateException("A replay of " + session.file.path() + " is already running");
+        }
+        if (speed < 0 || Double.isNaN(speed)) {
+            throw new IllegalArgumentException("Replay speed must be positive, or 0 / max for unpaced");
+        }
+        ReplayFile mapped = ReplayFile.open(Path.of(file), chunkSize, maxLineLength);
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        ZoneId zone = zoneId == null || zoneId.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zoneId);
+        session = new Session(mapped, speed, loop, workerCount, zone);
+        session.start();
+        return getStatus();
+    }
+
+    /**
+     * Stop the running replay, if any, and wait briefly for the workers to finish their line
+     */
+    @PreDestroy
+    public void stop() {
+        Session current;
+        synchronized (this) {
+            current = session;
+        }
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        if (session == null) {
+            status.put("running", false);
+        } else {
+            session.describe(status);
+        }
+        status.put("timestamp", LocalDateTime.now().toString());
+        return status;
+    }
+
+    /**
+     * @param value "1", "10", "10x", or "max" / "0" for unpaced
+     */
+    public static double parseSpeed(String value) {
+        String speed = value.trim().toLowerCase(Locale.ROOT);
+        if (speed.equals("max")) {
+            return 0;
+        }
+        if (speed.endsWith("x")) {
+            speed = speed.substring(0, speed.length() - 1);
+        }
+        try {
+            return Double.parseDouble(speed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid replay speed: " + value + " (expected a number or max)");
+        }
+    }
+
+    /**
+     * One replay run: the mapped file, its timing base and the workers
+     */
+    private final class Session {
+
+        private final ReplayFile file;
+        private final double speed;
+        private final boolean loop;
+        private final int workerCount;
+        private final ZoneId zone;
+        private final AtomicLong nextChunk = new AtomicLong();
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private final LongAdder lines = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder untimedLines = new LongAdder();
+        private final LongAdder idWaits = new LongAdder();
+        private final List<Thread> threads = new ArrayList<>();
+        private final List<Worker> workers = new ArrayList<>();
+        private final boolean tickWasEnabled;
+        private long baseNanos = ReplayLine.NO_TIMESTAMP;
+        private long durationNanos;
+        private long startNanos;
+        private volatile long finishedNanos;
+        private volatile boolean running;
+        private volatile String endReason;
+
+        private Session(ReplayFile file, double speed, boolean loop, int workerCount, ZoneId zone) {
+            this.file = file;
+            this.speed = speed;
+            this.loop = loop;
+            this.workerCount = workerCount;
+            this.zone = zone;
+            this.tickWasEnabled = logGen.isScheduledTickEnabled();
+        }
+
+        private void start() {
+            findTimeRange();
+            if (speed > 0 && baseNanos == ReplayLine.NO_TIMESTAMP) {
+                logger.warn("No timestamps found in {}; replaying without pacing", file.path());
+            }
+            // Replayed lines replace the synthetic ones of the scheduled tick while the replay runs
+            logGen.setScheduledTickEnabled(false);
+            running = true;
+            startNanos = System.nanoTime();
+            activeWorkers.set(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                Worker worker = new Worker(new ReplayLine(zone, logGen.getPodId()));
+                Thread thread = new Thread(worker, "loggen-replay-" + i);
+                thread.setDaemon(true);
+                workers.add(worker);
+                threads.add(thread);
+            }
+            threads.forEach(Thread::start);
+            logger.info("Replaying {} ({} bytes, {} chunks) at {} with {} workers{}", file.path(), file.size(),
+                    file.chunkCount(), speed > 0 ? speed + "x" : "max speed", workerCount, loop ? ", looping" : "");
+        }
+
+        /**
+         * First timestamp of the file and the span to the last one; the tail is scanned from the last chunk back
+         */
+        private void findTimeRange() {
+            ReplayLine parser = new ReplayLine(zone, "");
+            long[] found = {ReplayLine.NO_TIMESTAMP, ReplayLine.NO_TIMESTAMP};
+            for (long chunk = 0; chunk < file.chunkCount() && found[0] == ReplayLine.NO_TIMESTAMP; chunk++) {
+                file.forEachLine(chunk, (buffer, start, end) -> {
+                    parser.parse(buffer, start, end);
+                    found[0] = parser.epochNanos();
+                    return found[0] == ReplayLine.NO_TIMESTAMP;
+                });
+            }
+            for (long chunk = file.chunkCount() - 1; chunk >= 0 && found[1] == ReplayLine.NO_TIMESTAMP; chunk--) {
+                file.forEachLine(chunk, (buffer, start, end) -> {
+                    parser.parse(buffer, start, end);
+                    if (parser.epochNanos() != ReplayLine.NO_TIMESTAMP) {
+                        found[1] = Math.max(found[1], parser.epochNanos());
+                    }
+                    return true;
+                });
+            }
+            baseNanos = found[0];
+            durationNanos = found[0] == ReplayLine.NO_TIMESTAMP ? 0 : Math.max(0, found[1] - found[0]);
+        }
+
+        private boolean isRunning() {
+            return running;
+        }
+
+        private void stop() {
+            finish("stopped");
+            for (Thread thread : threads) {
+                LockSupport.unpark(thread);
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join(TimeUnit.SECONDS.toMillis(5));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private synchronized void finish(String reason) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            endReason = reason;
+            finishedNanos = System.nanoTime();
+            if (tickWasEnabled) {
+                logGen.setScheduledTickEnabled(true);
+            }
+        }
+
+        private void workerDone() {
+            if (activeWorkers.decrementAndGet() == 0) {
+                finish("completed");
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close {}: {}", file.path(), e.getMessage());
+                }
+                logger.info("Replay of {} ended ({}): {} lines, {} bytes", file.path(), endReason, lines.sum(),
+                        bytes.sum());
+            }
+        }
+
+        private void describe(Map<String, Object> status) {
+            long elapsedNanos = (running ? System.nanoTime() : finishedNanos) - startNanos;
+            long lineCount = lines.sum();
+            long maxLagNanos = 0;
+            for (Worker worker : workers) {
+                maxLagNanos = Math.max(maxLagNanos, worker.lagNanos);
+            }
+            status.put("running", running);
+            status.put("file", file.path().toString());
+            status.put("fileBytes", file.size());
+            status.put("speed", speed > 0 ? speed : "max");
+            status.put("loop", loop);
+            status.put("workers", workerCount);
+            status.put("chunks", file.chunkCount());
+            status.put("chunksStarted", nextChunk.get());
+            status.put("recordedSeconds", durationNanos / 1e9);
+            status.put("lines", lineCount);
+            status.put("bytes", bytes.sum());
+            status.put("untimedLines", untimedLines.sum());
+            status.put("idWaits", idWaits.sum());
+            status.put("elapsedSeconds", elapsedNanos / 1e9);
+            status.put("linesPerSecond", elapsedNanos > 0 ? lineCount * 1e9 / elapsedNanos : 0);
+            // How far the slowest worker is behind the recorded timing
+            status.put("lagMillis", maxLagNanos / 1e6);
+            if (!running) {
+                status.put("endReason", endReason);
+            }
+        }
+
+        /**
+         * Replays whole chunks; the visitor state (current pass and the last due time) lives here
+         */
+        private final class Worker implements Runnable, ReplayFile.LineVisitor {
+
+            private final ReplayLine line;
+            private final LineBuffer out = new LineBuffer(4096);
+            private long passOffsetNanos;
+            private long lastDueNanos;
+            private volatile long lagNanos;
+
+            private Worker(ReplayLine line) {
+                this.line = line;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    long chunkCount = file.chunkCount();
+                    while (running) {
+                        long next = nextChunk.getAndIncrement();
+                        long pass = next / chunkCount;
+                        if (pass > 0 && !loop) {
+                            return;
+                        }
+                        passOffsetNanos = pass * (durationNanos + LOOP_GAP_NANOS);
+                        lastDueNanos = Long.MIN_VALUE;
+                        if (!file.forEachLine(next % chunkCount, this)) {
+                            return;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Replay worker failed: {}", e.getMessage(), e);
+                    finish("failed: " + e.getMessage());
+                } finally {
+                    workerDone();
+                }
+            }
+
+            @Override
+            public boolean line(ByteBuffer buffer, int start, int end) {
+                if (!running) {
+                    return false;
+                }
+                line.parse(buffer, start, end);
+                if (speed > 0) {
+                    long recorded = line.epochNanos();
+                    if (recorded == ReplayLine.NO_TIMESTAMP) {
+                        untimedLines.increment();
+                    } else if (baseNanos != ReplayLine.NO_TIMESTAMP) {
+                        lastDueNanos = startNanos + (long) ((recorded - baseNanos + passOffsetNanos) / speed);
+                    }
+                    if (lastDueNanos != Long.MIN_VALUE && !awaitDue(lastDueNanos)) {
+                        return false;
+                    }
+                }
+
+                long id = claimId();
+                if (id < 0) {
+                    return false;
+                }
+                Instant now = Instant.now();
+                out.reset();
+                line.rewrite(now.getEpochSecond(), now.getNano(), id, out);
+                logGen.writeEncoded(line.level(), out);
+                lines.increment();
+                bytes.add(out.length());
+                return true;
+            }
+
+            /**
+             * Claim an id for the current line, waiting while none can be claimed for the moment
+             * @return the id, or -1 once generation is stopped, the maximum count is reached or the replay stops
+             */
+            private long claimId() {
+                long id;
+                while ((id = logGen.claimId()) < 0) {
+                    if (logGen.isLogGenerationStopped()) {
+                        boolean exhausted = logGen.getIdAllocator().isExhausted(logGen.getConfig().maxCount());
+                        finish(exhausted ? "max count reached" : "stopped");
+                        return -1;
+                    }
+                    // A failed cluster block claim or checkpoint write does not stop generation: retry this line
+                    idWaits.increment();
+                    LockSupport.parkNanos(CLAIM_RETRY_NANOS);
+                    if (!running) {
+                        return -1;
+                    }
+                }
+                return id;
+            }
+
+            /**
+             * Park until the line is due, or record how late it already is
+             * @return false when the replay was stopped while waiting
+             */
+            private boolean awaitDue(long dueNanos) {
+                long wait = dueNanos - System.nanoTime();
+                if (wait <= 0) {
+                    lagNanos = -wait;
+                    return true;
+                }
+                lagNanos = 0;
+                while (wait > MIN_PARK_NANOS && running) {
+                    LockSupport.parkNanos(wait);
+                    wait = dueNanos - System.nanoTime();
+                }
+                return running;
+            }
+        }
+    }
+}
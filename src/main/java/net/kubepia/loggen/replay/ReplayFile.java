@@ -0,0 +1,179 @@
+package net.kubepia.loggen.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A recorded log file mapped read-only and split into line-aligned chunks.
+ * A MappedByteBuffer is int-indexed, so the file is mapped once in segments of up to 1GB, each overlapping
+ * the next by the maximum line length: a line that starts in a segment also ends in it. Chunks divide
+ * segments evenly and own every line that starts inside them, so workers can take chunks in any order.
+ * Lines are found with a word-at-a-time newline search and handed out as positions in the mapping; nothing
+ * is copied until the caller writes the line. Thread-safe: the buffers are only read with absolute gets.
+ */
+final class ReplayFile implements Closeable {
+
+    private static final long MAX_SEGMENT = 1L << 30;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * Receives one line as bytes [start, end) of buffer, without the line terminator
+     */
+    interface LineVisitor {
+
+        /**
+         * @return false to stop reading the chunk
+         */
+        boolean line(ByteBuffer buffer, int start, int end);
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkSize;
+    private final int maxLineLength;
+    private final long segmentLength;
+    private final MappedByteBuffer[] segments;
+
+    private ReplayFile(Path path, FileChannel channel, int chunkSize, int maxLineLength) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+        this.chunkSize = chunkSize;
+        this.maxLineLength = maxLineLength;
+        this.segmentLength = Math.max(1, MAX_SEGMENT / chunkSize) * chunkSize;
+        int segmentCount = (int) Math.max(1, (size + segmentLength - 1) / segmentLength);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long start = i * segmentLength;
+            long length = Math.min(size - start, segmentLength + maxLineLength);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, length));
+            // The newline search reads whole words; set the order once before the buffer is shared
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segments[i] = segment;
+        }
+    }
+
+    /**
+     * @param chunkSize bytes per chunk, the unit of work handed to one worker
+     * @param maxLineLength longer lines are cut at this length
+     */
+    static ReplayFile open(Path path, int chunkSize, int maxLineLength) throws IOException {
+        if (chunkSize <= 0 || maxLineLength <= 0) {
+            throw new IllegalArgumentException("Chunk size and max line length must be positive");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ReplayFile(path, channel, chunkSize, maxLineLength);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long size() {
+        return size;
+    }
+
+    long chunkCount() {
+        return Math.max(1, (size + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * Visit every line that starts inside the chunk, in file order
+     * @return false when the visitor stopped early
+     */
+    boolean forEachLine(long chunk, LineVisitor visitor) {
+        long chunkStart = chunk * chunkSize;
+        if (chunkStart >= size) {
+            return true;
+        }
+        int segmentIndex = (int) (chunkStart / segmentLength);
+        MappedByteBuffer buffer = segments[segmentIndex];
+        long base = segmentIndex * segmentLength;
+        int limit = buffer.limit();
+        int pos = (int) (chunkStart - base);
+        int to = (int) Math.min(pos + (long) chunkSize, size - base);
+
+        // A line running into the chunk belongs to the chunk it started in
+        if (chunkStart > 0 && byteAt(chunkStart - 1) != '\n') {
+            int newline = indexOfNewline(buffer, pos, limit);
+            if (newline < 0) {
+                return true;
+            }
+            pos = newline + 1;
+        }
+        while (pos < to) {
+            int newline = indexOfNewline(buffer, pos, (int) Math.min(limit, pos + (long) maxLineLength));
+            int end;
+            int next;
+            if (newline >= 0) {
+                end = newline;
+                next = newline + 1;
+            } else {
+                // Over-long line, or the last one without a newline: cut it and skip the rest
+                end = (int) Math.min(limit, pos + (long) maxLineLength);
+                int rest = indexOfNewline(buffer, end, limit);
+                next = rest < 0 ? limit : rest + 1;
+            }
+            if (end > pos && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end > pos && !visitor.line(buffer, pos, end)) {
+                return false;
+            }
+            pos = next;
+        }
+        return true;
+    }
+
+    private byte byteAt(long position) {
+        // The previous segment's overlap also covers the first bytes of the next one
+        int segmentIndex = (int) Math.min(segments.length - 1, position / segmentLength);
+        long base = segmentIndex * segmentLength;
+        if (position - base >= segments[segmentIndex].limit()) {
+            segmentIndex++;
+            base = segmentIndex * segmentLength;
+        }
+        return segments[segmentIndex].get((int) (position - base));
+    }
+
+    /**
+     * First '\n' in [from, to), testing eight bytes per step
+     * @return -1 when there is none
+     */
+    static int indexOfNewline(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = buffer.getLong(i) ^ NEWLINES;
+            long found = (word - LOW_BITS) & ~word & HIGH_BITS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mappings stay valid until they are garbage collected; closing only releases the descriptor
+        channel.close();
+    }
+}
@@ -0,0 +1,475 @@
+package net.kubepia.loggen.replay;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.event.Level;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Locates the timestamp, podIdWithId and level of a recorded line and writes the line again with the
+ * emit time and a freshly claimed sequence id, keeping every other byte as it was. The line is copied
+ * once into a reusable array; no String or per-line object is created.
+ * <ul>
+ *   <li>Timestamp: the first {@code yyyy-MM-dd[T ]HH:mm:ss[.fraction][Z|+HH:MM]} anywhere in the line, or
+ *       else an epoch number (10, 13, 16 or 19 digits for s, ms, µs, ns) after a {@code timestamp} key.
+ *       The new value keeps the layout: separator, fraction digits, zone suffix or epoch unit.</li>
+ *   <li>podIdWithId: the value is replaced; lines without one get it appended ({@code key=value}), or
+ *       inserted before the closing brace of a JSON object, so the verifier can check the replay for loss.</li>
+ *   <li>Level: the value of a {@code level} key, or else the first ERROR/WARN/INFO/DEBUG/TRACE/FATAL word
+ *       near the start, any case; INFO otherwise.</li>
+ * </ul>
+ * Not thread-safe; each replay worker owns one.
+ */
+final class ReplayLine {
+
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final byte[] POD_ID_WITH_ID = ascii("podIdWithId");
+    private static final byte[] TIMESTAMP = ascii("timestamp");
+    private static final byte[] APPENDED_POD_ID = ascii(" podIdWithId=");
+    private static final byte[] INSERTED_POD_ID = ascii(",\"podIdWithId\":\"");
+    private static final byte[] LEVEL = ascii("level");
+    private static final int LEVEL_SCAN_BYTES = 128;
+    private static final int[] POWERS = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000,
+            1_000_000_000};
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private enum TimestampKind { NONE, ISO, EPOCH }
+
+    private final ZoneId zone;
+    private final byte[] podPrefix;
+
+    // The current line, copied once out of the mapping, and its spans
+    private byte[] bytes = new byte[4096];
+    private int start;
+    private int end;
+    private TimestampKind kind;
+    private int timestampStart;
+    private int timestampEnd;
+    private byte separator;
+    private int fractionDigits;
+    private boolean explicitOffset;
+    private int offsetSeconds;
+    private int suffixStart;
+    private int epochDigits;
+    private long epochNanos;
+    private int podStart;
+    private int podEnd;
+    private Level level;
+
+    // "yyyy-MM-ddTHH:mm:ss" of the last rendered second
+    private final byte[] cachedPrefix = new byte[19];
+    private long cachedSecond = Long.MIN_VALUE;
+    private int cachedOffset;
+    private boolean cachedLocal;
+
+    /**
+     * @param zone zone for rendering timestamps that carry no Z or offset
+     * @param podId pod written in front of the new sequence id
+     */
+    ReplayLine(ZoneId zone, String podId) {
+        this.zone = zone;
+        this.podPrefix = (podId + "-").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copy bytes [start, end) of buffer and locate their fields
+     */
+    void parse(ByteBuffer buffer, int start, int end) {
+        // One bulk copy is far cheaper than the per-byte bounds and scope checks of a mapped buffer
+        int length = end - start;
+        if (length > bytes.length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+        }
+        buffer.get(start, bytes, 0, length);
+        this.start = 0;
+        this.end = length;
+        kind = TimestampKind.NONE;
+        epochNanos = NO_TIMESTAMP;
+        if (!findIsoTimestamp()) {
+            findEpochTimestamp();
+        }
+        podStart = valueOf(POD_ID_WITH_ID);
+        podEnd = podStart;
+        while (podStart >= 0 && podEnd < end && !isTerminator(bytes[podEnd])) {
+            podEnd++;
+        }
+        level = findLevel();
+    }
+
+    /**
+     * Original time of the line in epoch nanos, for pacing only; a timestamp without zone is read as UTC
+     * since only the distance between lines matters
+     * @return {@link #NO_TIMESTAMP} when the line has none
+     */
+    long epochNanos() {
+        return epochNanos;
+    }
+
+    Level level() {
+        return level;
+    }
+
+    /**
+     * Write the line with the given emit time and sequence id
+     */
+    void rewrite(long epochSecond, int nano, long id, LineBuffer out) {
+        int pos = start;
+        boolean podFirst = podStart >= 0 && (kind == TimestampKind.NONE || podStart < timestampStart);
+        if (podFirst) {
+            pos = writePod(pos, id, out);
+        }
+        if (kind != TimestampKind.NONE) {
+            out.append(bytes, pos, timestampStart - pos);
+            writeTimestamp(epochSecond, nano, out);
+            pos = timestampEnd;
+        }
+        if (podStart >= 0 && !podFirst) {
+            pos = writePod(pos, id, out);
+        }
+        if (podStart >= 0) {
+            out.append(bytes, pos, end - pos);
+        } else if (end - pos >= 2 && bytes[start] == '{' && bytes[end - 1] == '}') {
+            out.append(bytes, pos, end - 1 - pos).append(INSERTED_POD_ID).append(podPrefix).append(id)
+                    .append((byte) '"').append((byte) '}');
+        } else {
+            out.append(bytes, pos, end - pos).append(APPENDED_POD_ID).append(podPrefix).append(id);
+        }
+    }
+
+    private int writePod(int pos, long id, LineBuffer out) {
+        out.append(bytes, pos, podStart - pos).append(podPrefix).append(id);
+        return podEnd;
+    }
+
+    private void writeTimestamp(long epochSecond, int nano, LineBuffer out) {
+        if (kind == TimestampKind.EPOCH) {
+            switch (epochDigits) {
+                case 10 -> out.append(epochSecond);
+                case 13 -> out.append(epochSecond * 1_000 + nano / 1_000_000);
+                case 16 -> out.append(epochSecond * 1_000_000 + nano / 1_000);
+                default -> out.append(epochSecond * 1_000_000_000L + nano);
+            }
+            return;
+        }
+        renderPrefix(epochSecond);
+        out.append(cachedPrefix, 0, 10).append(separator).append(cachedPrefix, 11, 8);
+        if (fractionDigits > 0) {
+            int digits = Math.min(9, fractionDigits);
+            out.append(bytes[suffixStart - fractionDigits - 1])
+                    .appendPadded(nano / POWERS[9 - digits], digits);
+            for (int i = digits; i < fractionDigits; i++) {
+                out.append((byte) '0');
+            }
+        }
+        out.append(bytes, suffixStart, timestampEnd - suffixStart);
+    }
+
+    /**
+     * Date and time of day for the second, in the line's own offset or else the replay zone; cached per second
+     */
+    private void renderPrefix(long epochSecond) {
+        boolean local = !explicitOffset;
+        if (epochSecond == cachedSecond && local == cachedLocal && (local || offsetSeconds == cachedOffset)) {
+            return;
+        }
+        int offset = local ? zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds()
+                : offsetSeconds;
+        long localSecond = epochSecond + offset;
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(localSecond, 86_400));
+        int secondOfDay = (int) Math.floorMod(localSecond, 86_400);
+        digits(date.getYear(), 0, 4);
+        cachedPrefix[4] = '-';
+        digits(date.getMonthValue(), 5, 2);
+        cachedPrefix[7] = '-';
+        digits(date.getDayOfMonth(), 8, 2);
+        cachedPrefix[10] = 'T';
+        digits(secondOfDay / 3600, 11, 2);
+        cachedPrefix[13] = ':';
+        digits(secondOfDay / 60 % 60, 14, 2);
+        cachedPrefix[16] = ':';
+        digits(secondOfDay % 60, 17, 2);
+        cachedSecond = epochSecond;
+        cachedLocal = local;
+        cachedOffset = offsetSeconds;
+    }
+
+    private void digits(int value, int at, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            cachedPrefix[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private boolean findIsoTimestamp() {
+        // Every candidate has a '-' after the year; jump between dashes a word at a time
+        for (int dash = indexOf(bytes, (byte) '-', start + 4, end); dash >= 0 && dash + 15 <= end;
+             dash = indexOf(bytes, (byte) '-', dash + 1, end)) {
+            int i = dash - 4;
+            if (!isIsoAt(i)) {
+                continue;
+            }
+            if (i > start && isDigit(bytes[i - 1])) {
+                continue;
+            }
+            long epochSecond = epochDay(number(i, 4), number(i + 5, 2), number(i + 8, 2)) * 86_400
+                    + number(i + 11, 2) * 3600L + number(i + 14, 2) * 60L + number(i + 17, 2);
+            int p = i + 19;
+            long nanos = 0;
+            fractionDigits = 0;
+            if (p + 1 < end && (bytes[p] == '.' || bytes[p] == ',') && isDigit(bytes[p + 1])) {
+                p++;
+                while (p < end && isDigit(bytes[p])) {
+                    if (fractionDigits < 9) {
+                        nanos = nanos * 10 + (bytes[p] - '0');
+                    }
+                    fractionDigits++;
+                    p++;
+                }
+                nanos *= POWERS[9 - Math.min(9, fractionDigits)];
+            }
+            suffixStart = p;
+            explicitOffset = false;
+            offsetSeconds = 0;
+            if (p < end && bytes[p] == 'Z') {
+                explicitOffset = true;
+                p++;
+            } else if (p + 5 < end && (bytes[p] == '+' || bytes[p] == '-') && isDigit(bytes[p + 1])
+                    && isDigit(bytes[p + 2])) {
+                int minutesAt = bytes[p + 3] == ':' ? p + 4 : p + 3;
+                if (isDigit(bytes[minutesAt]) && isDigit(bytes[minutesAt + 1])) {
+                    explicitOffset = true;
+                    offsetSeconds = number(p + 1, 2) * 3600 + number(minutesAt, 2) * 60;
+                    if (bytes[p] == '-') {
+                        offsetSeconds = -offsetSeconds;
+                    }
+                    p = minutesAt + 2;
+                }
+            }
+            kind = TimestampKind.ISO;
+            timestampStart = i;
+            timestampEnd = p;
+            separator = bytes[i + 10];
+            epochNanos = (epochSecond - offsetSeconds) * 1_000_000_000L + nanos;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * First occurrence of target in bytes [from, to), testing eight bytes per step
+     * @return -1 when there is none
+     */
+    static int indexOf(byte[] bytes, byte target, int from, int to) {
+        long pattern = (target & 0xFFL) * LOW_BITS;
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = (long) LONGS.get(bytes, i) ^ pattern;
+            long found = (word - LOW_BITS) & ~word & HIGH_BITS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (bytes[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isIsoAt(int i) {
+        byte t = bytes[i + 10];
+        return bytes[i + 7] == '-' && (t == 'T' || t == ' ') && bytes[i + 13] == ':'
+                && bytes[i + 16] == ':'
+                && allDigits(i, 4) && allDigits(i + 5, 2) && allDigits(i + 8, 2)
+                && allDigits(i + 11, 2) && allDigits(i + 14, 2) && allDigits(i + 17, 2);
+    }
+
+    private void findEpochTimestamp() {
+        int value = valueOf(TIMESTAMP);
+        if (value < 0) {
+            return;
+        }
+        int p = value;
+        long number = 0;
+        while (p < end && isDigit(bytes[p]) && p - value < 19) {
+            number = number * 10 + (bytes[p] - '0');
+            p++;
+        }
+        int digits = p - value;
+        if ((p < end && isDigit(bytes[p])) || (digits != 10 && digits != 13 && digits != 16 && digits != 19)) {
+            return;
+        }
+        kind = TimestampKind.EPOCH;
+        timestampStart = value;
+        timestampEnd = p;
+        epochDigits = digits;
+        epochNanos = switch (digits) {
+            case 10 -> number * 1_000_000_000L;
+            case 13 -> number * 1_000_000L;
+            case 16 -> number * 1_000L;
+            default -> number;
+        };
+    }
+
+    /**
+     * Position of the value after key followed by '=' or ':', as in the verifier's parser
+     * @return -1 when the key does not occur as a field name
+     */
+    private int valueOf(byte[] key) {
+        int last = end - key.length;
+        outer:
+        for (int i = indexOf(bytes, key[0], start, last + 1); i >= 0; i = indexOf(bytes, key[0], i + 1, last + 1)) {
+            for (int k = 1; k < key.length; k++) {
+                if (bytes[i + k] != key[k]) {
+                    continue outer;
+                }
+            }
+            if (i > start && !isSeparator(bytes[i - 1])) {
+                continue;
+            }
+            int p = i + key.length;
+            while (p < end && bytes[p] == '"') {
+                p++;
+            }
+            if (p >= end || (bytes[p] != '=' && bytes[p] != ':')) {
+                continue;
+            }
+            p++;
+            while (p < end && (bytes[p] == '"' || bytes[p] == ' ')) {
+                p++;
+            }
+            return p;
+        }
+        return -1;
+    }
+
+    /**
+     * Value of a level key (level=, "level":) if there is one, else the first level word near the start
+     */
+    private Level findLevel() {
+        int value = valueOf(LEVEL);
+        if (value >= 0) {
+            int wordEnd = value;
+            while (wordEnd < end && isLetter(bytes[wordEnd])) {
+                wordEnd++;
+            }
+            Level found = levelOf(value, wordEnd - value);
+            if (found != null) {
+                return found;
+            }
+        }
+        int limit = Math.min(end, start + LEVEL_SCAN_BYTES);
+        for (int i = start; i < limit; i++) {
+            // Cheap first-letter filter before looking at word boundaries
+            int first = bytes[i] | 0x20;
+            if (first != 'e' && first != 'w' && first != 'i' && first != 'd' && first != 't' && first != 'f') {
+                continue;
+            }
+            if (i > start && isLetter(bytes[i - 1])) {
+                continue;
+            }
+            int wordEnd = i + 1;
+            while (wordEnd < limit && isLetter(bytes[wordEnd])) {
+                wordEnd++;
+            }
+            Level found = levelOf(i, wordEnd - i);
+            if (found != null) {
+                return found;
+            }
+            i = wordEnd;
+        }
+        return Level.INFO;
+    }
+
+    private Level levelOf(int at, int length) {
+        if (matches(at, length, "ERROR") || matches(at, length, "FATAL")) {
+            return Level.ERROR;
+        }
+        if (matches(at, length, "WARN") || matches(at, length, "WARNING")) {
+            return Level.WARN;
+        }
+        if (matches(at, length, "INFO")) {
+            return Level.INFO;
+        }
+        if (matches(at, length, "DEBUG")) {
+            return Level.DEBUG;
+        }
+        if (matches(at, length, "TRACE")) {
+            return Level.TRACE;
+        }
+        return null;
+    }
+
+    private boolean matches(int at, int length, String word) {
+        if (length != word.length()) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if ((bytes[at + k] & ~0x20) != word.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean allDigits(int at, int length) {
+        for (int i = at; i < at + length; i++) {
+            if (!isDigit(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int number(int at, int length) {
+        int value = 0;
+        for (int i = at; i < at + length; i++) {
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date, without allocating a LocalDate per line
+     */
+    static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z');
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == ',' || b == '"' || b == '{' || b == '\t';
+    }
+
+    private static boolean isTerminator(byte b) {
+        return b == ',' || b == ' ' || b == '"' || b == '}' || b == '\t';
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,253 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decouples line producers from sink I/O.
+ * Producers copy encoded lines into one of several {@link MpscRingBuffer} shards (chosen by thread id) and return
+ * immediately; each shard has its own writer thread that drains it in batches into the delegate sink.
+ * When a shard is full the overflow policy decides whether producers wait, drop, or sample,
+ * and the counters make it visible whether the generator or the sink is the bottleneck.
+ */
+public class AsyncSink implements LogSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncSink.class);
+
+    private static final long WRITER_IDLE_PARK_NANOS = 50_000L;
+    private static final long PRODUCER_BLOCK_PARK_NANOS = 10_000L;
+    private static final long FAILURE_LOG_INTERVAL_MILLIS = 10_000L;
+
+    public enum OverflowPolicy {
+        /** Producers wait for space: no loss, generation slows down to the sink's speed */
+        BLOCK,
+        /** Lines that do not fit are dropped and counted */
+        DROP,
+        /** Above the high watermark only every Nth line is kept; the rest are dropped and counted */
+        SAMPLE
+    }
+
+    private final LogSink delegate;
+    private final Shard[] shards;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int batchSize;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder blockedStalls = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * @param delegate sink the writer threads write to
+     * @param capacity slots per shard (rounded up to a power of two)
+     * @param writers number of shards and writer threads
+     * @param overflowPolicy what producers do when their shard is full
+     * @param sampleRate keep 1 of every sampleRate lines under the SAMPLE policy
+     * @param batchSize maximum lines drained per batch
+     */
+    public AsyncSink(LogSink delegate, int capacity, int writers, OverflowPolicy overflowPolicy,
+                     int sampleRate, int batchSize) {
+        this.delegate = delegate;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.batchSize = Math.max(1, batchSize);
+        this.shards = new Shard[Math.max(1, writers)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(new MpscRingBuffer(capacity), "loggen-sink-writer-" + i);
+        }
+        for (Shard shard : shards) {
+            shard.writer.start();
+        }
+    }
+
+    public static OverflowPolicy parseOverflowPolicy(String value) {
+        return OverflowPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public void write(Level level, LineBuffer line) {
+        Shard shard = shards[(int) (Thread.currentThread().threadId() % shards.length)];
+        MpscRingBuffer ring = shard.ring;
+
+        if (overflowPolicy == OverflowPolicy.SAMPLE && ring.size() >= shard.highWatermark
+                && shard.sampleCounter.getAndIncrement() % sampleRate != 0) {
+            sampledOut.increment();
+            return;
+        }
+        if (ring.offer(level, line)) {
+            return;
+        }
+
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            blockedStalls.increment();
+            while (running && !ring.offer(level, line)) {
+                LockSupport.parkNanos(PRODUCER_BLOCK_PARK_NANOS);
+            }
+        } else {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Writers flush the delegate whenever their shard runs empty
+        delegate.flush();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.writer);
+            try {
+                shard.writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        delegate.close();
+    }
+
+    @Override
+    public String name() {
+        return "async(" + delegate.name() + ")";
+    }
+
+    public LogSink getDelegate() {
+        return delegate;
+    }
+
+    public long getQueueDepth() {
+        long depth = 0;
+        for (Shard shard : shards) {
+            depth += shard.ring.size();
+        }
+        return depth;
+    }
+
+    public long getQueueCapacity() {
+        return (long) shards.length * shards[0].ring.capacity();
+    }
+
+    public long getDropped() {
+        return dropped.sum() + sampledOut.sum() + failed.sum();
+    }
+
+    public long getBlockedStalls() {
+        return blockedStalls.sum();
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("type", name());
+        status.put("overflowPolicy", overflowPolicy.name().toLowerCase(Locale.ROOT));
+        status.put("writers", shards.length);
+        status.put("queueDepth", getQueueDepth());
+        status.put("queueCapacity", getQueueCapacity());
+        status.put("written", written.sum());
+        status.put("dropped", dropped.sum());
+        status.put("sampledOut", sampledOut.sum());
+        status.put("blockedStalls", blockedStalls.sum());
+        status.put("failed", failed.sum());
+        status.put("delegate", delegate.getStatus());
+        return status;
+    }
+
+    private void drainLoop(Shard shard) {
+        MpscRingBuffer ring = shard.ring;
+        boolean dirty = false;
+        while (true) {
+            long failedBefore = shard.failures;
+            int drained;
+            try {
+                drained = ring.drain(shard.consumer, batchSize);
+            } catch (RuntimeException e) {
+                // Not thrown by the delegate; the ring has still moved past every line handed out
+                reportFailure(shard, "Async sink writer failed", e);
+                drained = 0;
+            }
+            if (shard.lastFailure != null) {
+                shard.unreportedFailures += shard.failures - failedBefore;
+                reportFailure(shard, "Async sink delegate failed", shard.lastFailure);
+                shard.lastFailure = null;
+            }
+            if (drained > 0) {
+                written.add(drained - (shard.failures - failedBefore));
+                dirty = true;
+                continue;
+            }
+            if (dirty) {
+                try {
+                    delegate.flush();
+                } catch (RuntimeException e) {
+                    reportFailure(shard, "Async sink delegate flush failed", e);
+                }
+                dirty = false;
+            }
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(WRITER_IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Log the first failure of a writer, then at most one per interval with the lines lost meanwhile,
+     * so a delegate that keeps failing (e.g. a full disk) does not flood the log it may be feeding
+     */
+    private void reportFailure(Shard shard, String what, RuntimeException e) {
+        long now = System.currentTimeMillis();
+        if (shard.lastFailureLogMillis != 0 && now - shard.lastFailureLogMillis < FAILURE_LOG_INTERVAL_MILLIS) {
+            return;
+        }
+        shard.lastFailureLogMillis = now;
+        logger.error("{}, {} line(s) lost since the last report: {}", what, shard.unreportedFailures, e.getMessage());
+        shard.unreportedFailures = 0;
+    }
+
+    private final class Shard {
+        private final MpscRingBuffer ring;
+        private final int highWatermark;
+        private final AtomicLong sampleCounter = new AtomicLong();
+        private final Thread writer;
+        private final MpscRingBuffer.LineConsumer consumer = this::write;
+        /** Only touched by the writer thread */
+        private long failures;
+        private RuntimeException lastFailure;
+        private long unreportedFailures;
+        private long lastFailureLogMillis;
+
+        private Shard(MpscRingBuffer ring, String threadName) {
+            this.ring = ring;
+            this.highWatermark = ring.capacity() * 3 / 4;
+            this.writer = new Thread(() -> drainLoop(this), threadName);
+            this.writer.setDaemon(true);
+        }
+
+        /**
+         * A line the delegate fails on counts as lost; the writer moves on to the next one
+         */
+        private void write(Level level, LineBuffer line) {
+            try {
+                delegate.write(level, line);
+            } catch (RuntimeException e) {
+                failed.increment();
+                failures++;
+                lastFailure = e;
+            }
+        }
+    }
+}
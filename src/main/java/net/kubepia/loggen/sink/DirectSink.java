@@ -0,0 +1,183 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes pre-encoded UTF-8 lines straight to stdout or a file through a {@link FileChannel},
+ * bypassing level checks, pattern layout and appenders.
+ * Each producer thread fills its own large ByteBuffer and hands it to the channel under one lock,
+ * so lines from different threads never interleave; a line larger than the buffer goes out together
+ * with its newline in one gathering write.
+ * Virtual threads share a few striped buffers instead (see {@link ThreadSlots}), and the buffer of an ended
+ * platform thread is flushed and released.
+ * A background thread flushes partially filled buffers every flush interval.
+ */
+public class DirectSink implements LogSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectSink.class);
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final FileChannel channel;
+    private final int bufferSize;
+    private final ThreadSlots<ThreadBuffer> buffers;
+    private final ReentrantLock channelLock = new ReentrantLock();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private final Thread flusher;
+    private volatile boolean closed = false;
+
+    /**
+     * @param path target file, or null/empty for stdout
+     * @param bufferSize size of each per-thread or per-stripe buffer in bytes
+     * @param flushIntervalMillis how often idle buffers are flushed
+     */
+    public DirectSink(String path, int bufferSize, long flushIntervalMillis) throws IOException {
+        if (path == null || path.isBlank()) {
+            this.channel = new FileOutputStream(FileDescriptor.out).getChannel();
+        } else {
+            Path file = Path.of(path);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        this.bufferSize = Math.max(4096, bufferSize);
+        this.buffers = new ThreadSlots<>(() -> new ThreadBuffer(ByteBuffer.allocateDirect(this.bufferSize)));
+        this.flusher = new Thread(() -> flushPeriodically(flushIntervalMillis), "loggen-direct-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public void write(Level level, LineBuffer line) {
+        ThreadBuffer target = buffers.get();
+        int needed = line.length() + 1;
+        target.lock.lock();
+        try {
+            ByteBuffer buffer = target.buffer;
+            if (buffer.remaining() < needed) {
+                drain(buffer);
+            }
+            if (needed > buffer.capacity()) {
+                // Oversized line: write it on its own
+                writeFully(ByteBuffer.wrap(line.array(), 0, line.length()), ByteBuffer.wrap(NEWLINE));
+                return;
+            }
+            buffer.put(line.array(), 0, line.length()).put((byte) '\n');
+        } finally {
+            target.lock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() {
+        buffers.forEach(this::drain);
+        buffers.releaseEnded(this::drain);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flusher.interrupt();
+        flush();
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            // stdout and pipes cannot be forced
+        }
+    }
+
+    @Override
+    public String name() {
+        return "direct";
+    }
+
+    public long getWriteErrors() {
+        return writeErrors.get();
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("type", name());
+        status.put("threadBuffers", buffers.size());
+        status.put("writeErrors", writeErrors.get());
+        return status;
+    }
+
+    private void drain(ThreadBuffer target) {
+        target.lock.lock();
+        try {
+            drain(target.buffer);
+        } finally {
+            target.lock.unlock();
+        }
+    }
+
+    private void drain(ByteBuffer buffer) {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Write the buffers back to back; the lock keeps a partial write from letting another thread's bytes in
+     */
+    private void writeFully(ByteBuffer... data) {
+        ByteBuffer last = data[data.length - 1];
+        channelLock.lock();
+        try {
+            while (last.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            if (writeErrors.getAndIncrement() == 0) {
+                logger.error("Direct sink write failed: {}", e.getMessage());
+            }
+            for (ByteBuffer buffer : data) {
+                buffer.position(buffer.limit());
+            }
+        } finally {
+            channelLock.unlock();
+        }
+    }
+
+    private void flushPeriodically(long intervalMillis) {
+        while (!closed) {
+            try {
+                Thread.sleep(Math.max(1, intervalMillis));
+            } catch (InterruptedException e) {
+                return;
+            }
+            flush();
+        }
+    }
+
+    private static final class ThreadBuffer {
+        private final ByteBuffer buffer;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private ThreadBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
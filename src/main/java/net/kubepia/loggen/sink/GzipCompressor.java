@@ -0,0 +1,50 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip (RFC 1952) with a reusable {@link Deflater}, so compressing a batch allocates nothing.
+ * GZIPOutputStream would create and free a native deflater for every batch. Not thread-safe.
+ */
+final class GzipCompressor {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] chunk = new byte[64 * 1024];
+
+    GzipCompressor(int level) {
+        this.deflater = new Deflater(level, true);
+    }
+
+    /**
+     * Replace the contents of out with the gzip-compressed bytes of src
+     */
+    void compress(LineBuffer src, LineBuffer out) {
+        out.reset();
+        out.append(HEADER);
+        crc.reset();
+        crc.update(src.array(), 0, src.length());
+        deflater.reset();
+        deflater.setInput(src.array(), 0, src.length());
+        deflater.finish();
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            out.append(chunk, 0, n);
+        }
+        appendIntLe(out, (int) crc.getValue());
+        appendIntLe(out, src.length());
+    }
+
+    private static void appendIntLe(LineBuffer out, int value) {
+        out.append((byte) value).append((byte) (value >>> 8)).append((byte) (value >>> 16)).append((byte) (value >>> 24));
+    }
+
+    void close() {
+        deflater.end();
+    }
+}
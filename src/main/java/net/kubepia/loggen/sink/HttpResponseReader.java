@@ -0,0 +1,164 @@
+package net.kubepia.loggen.sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Incremental HTTP/1.1 response parser for pipelined requests: it only needs the status code and
+ * where each response ends, so bodies (Content-Length or chunked) are skipped, never buffered.
+ * Responses are reported in order, which matches the order the requests were written.
+ */
+final class HttpResponseReader {
+
+    private static final int MAX_LINE = 16 * 1024;
+
+    interface Listener {
+        /**
+         * @param status HTTP status code
+         * @param close true when the server closes the connection after this response
+         */
+        void onResponse(int status, boolean close) throws IOException;
+    }
+
+    private enum State { HEAD, BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILER }
+
+    private final StringBuilder line = new StringBuilder();
+    private State state = State.HEAD;
+    private boolean statusLine = true;
+    private int status;
+    private long contentLength;
+    private boolean chunked;
+    private boolean close;
+    private long remaining;
+
+    void feed(ByteBuffer in, Listener listener) throws IOException {
+        while (in.hasRemaining()) {
+            if (state == State.BODY || state == State.CHUNK_DATA) {
+                int skip = (int) Math.min(remaining, in.remaining());
+                in.position(in.position() + skip);
+                remaining -= skip;
+                if (remaining == 0) {
+                    if (state == State.BODY) {
+                        complete(listener);
+                    } else {
+                        state = State.CHUNK_END;
+                    }
+                }
+                continue;
+            }
+            byte b = in.get();
+            if (b == '\n') {
+                int end = line.length();
+                if (end > 0 && line.charAt(end - 1) == '\r') {
+                    line.setLength(end - 1);
+                }
+                processLine(listener);
+                line.setLength(0);
+            } else {
+                if (line.length() >= MAX_LINE) {
+                    throw new IOException("HTTP response line too long");
+                }
+                line.append((char) (b & 0xFF));
+            }
+        }
+    }
+
+    private void processLine(Listener listener) throws IOException {
+        switch (state) {
+            case HEAD:
+                if (statusLine) {
+                    parseStatusLine();
+                } else if (line.length() == 0) {
+                    endOfHeaders(listener);
+                } else {
+                    parseHeader();
+                }
+                break;
+            case CHUNK_SIZE:
+                int semicolon = line.indexOf(";");
+                String size = (semicolon < 0 ? line : line.subSequence(0, semicolon)).toString().trim();
+                try {
+                    remaining = Long.parseLong(size, 16);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid chunk size: " + size);
+                }
+                state = remaining == 0 ? State.TRAILER : State.CHUNK_DATA;
+                break;
+            case CHUNK_END:
+                state = State.CHUNK_SIZE;
+                break;
+            case TRAILER:
+                if (line.length() == 0) {
+                    complete(listener);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void parseStatusLine() throws IOException {
+        // HTTP/1.1 200 OK
+        if (line.length() < 12 || !line.toString().startsWith("HTTP/")) {
+            throw new IOException("Invalid HTTP status line: " + line);
+        }
+        try {
+            status = Integer.parseInt(line.substring(9, 12));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid HTTP status line: " + line);
+        }
+        statusLine = false;
+        contentLength = -1;
+        chunked = false;
+        close = line.toString().startsWith("HTTP/1.0");
+    }
+
+    private void parseHeader() {
+        int colon = line.indexOf(":");
+        if (colon < 0) {
+            return;
+        }
+        String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+        String value = line.substring(colon + 1).trim().toLowerCase(Locale.ROOT);
+        switch (name) {
+            case "content-length":
+                contentLength = Long.parseLong(value);
+                break;
+            case "transfer-encoding":
+                chunked = value.contains("chunked");
+                break;
+            case "connection":
+                close = value.contains("close");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void endOfHeaders(Listener listener) throws IOException {
+        if (status >= 100 && status < 200) {
+            // Interim response; the real one follows
+            statusLine = true;
+            return;
+        }
+        if (chunked) {
+            state = State.CHUNK_SIZE;
+        } else if (status == 204 || status == 304 || contentLength == 0) {
+            complete(listener);
+        } else if (contentLength > 0) {
+            remaining = contentLength;
+            state = State.BODY;
+        } else {
+            // Body delimited by connection close: nothing after it can be parsed
+            close = true;
+            complete(listener);
+        }
+    }
+
+    private void complete(Listener listener) throws IOException {
+        state = State.HEAD;
+        statusLine = true;
+        listener.onResponse(status, close);
+    }
+}
@@ -0,0 +1,185 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.JsonLineEncoder;
+import net.kubepia.loggen.encode.LineBuffer;
+import net.kubepia.loggen.encode.TimestampFormat;
+import net.kubepia.loggen.encode.TimestampWriter;
+import org.slf4j.event.Level;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * How encoded lines are laid out inside one network batch.
+ * Datagram protocols store each message with an RFC 6587 octet count ("LEN SP MSG") so the sender
+ * can split the batch again; syslog over TCP sends that framing as it is.
+ * Instances keep per-thread scratch state; each producer thread owns one.
+ */
+abstract class LineFraming {
+
+    /**
+     * @param httpFormat body layout for HTTP: lines, es-bulk or loki
+     * @param hostname HOSTNAME field of syslog messages and pod label of Loki streams
+     */
+    static LineFraming create(NetworkEndpoint.Protocol protocol, String httpFormat, String hostname) {
+        switch (protocol) {
+            case TCP:
+                return new NewlineFraming(null);
+            case UDP:
+                return new OctetCountedFraming(false, hostname);
+            case SYSLOG_TCP:
+            case SYSLOG_UDP:
+                return new OctetCountedFraming(true, hostname);
+            case HTTP:
+                switch (httpFormat.trim().toLowerCase(Locale.ROOT)) {
+                    case "lines":
+                        return new NewlineFraming(null);
+                    case "es-bulk":
+                        return new NewlineFraming("{\"create\":{}}\n");
+                    case "loki":
+                        return new LokiFraming(hostname);
+                    default:
+                        throw new IllegalArgumentException("Unknown loggen.sink.network.http.format: " + httpFormat
+                                + " (expected lines, es-bulk or loki)");
+                }
+            default:
+                throw new IllegalArgumentException("Unsupported protocol: " + protocol);
+        }
+    }
+
+    /**
+     * Called once on an empty batch before the first line
+     */
+    void begin(LineBuffer batch) {
+    }
+
+    abstract void append(LineBuffer batch, Level level, LineBuffer line);
+
+    /**
+     * Called once before the batch is sent
+     */
+    void end(LineBuffer batch) {
+    }
+
+    /**
+     * Content-Type of an HTTP body built with this framing
+     */
+    String contentType() {
+        return "text/plain; charset=utf-8";
+    }
+
+    /**
+     * Newline after every line, optionally preceded by a fixed line (the Elasticsearch bulk action)
+     */
+    private static final class NewlineFraming extends LineFraming {
+
+        private final byte[] prefix;
+
+        private NewlineFraming(String prefix) {
+            this.prefix = prefix == null ? null : prefix.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        void append(LineBuffer batch, Level level, LineBuffer line) {
+            if (prefix != null) {
+                batch.append(prefix);
+            }
+            batch.append(line).append((byte) '\n');
+        }
+
+        @Override
+        String contentType() {
+            return prefix != null ? "application/x-ndjson" : "text/plain; charset=utf-8";
+        }
+    }
+
+    /**
+     * "LEN SP MSG" records; for syslog the message is an RFC 5424 syslog message
+     * {@code <PRI>1 TIMESTAMP HOSTNAME loggen - - - LINE}
+     */
+    private static final class OctetCountedFraming extends LineFraming {
+
+        private static final byte[] SYSLOG_FIELDS = " loggen - - - ".getBytes(StandardCharsets.US_ASCII);
+
+        private final TimestampWriter timestampWriter;
+        private final String hostname;
+        private final LineBuffer header = new LineBuffer(128);
+
+        private OctetCountedFraming(boolean syslog, String hostname) {
+            this.timestampWriter = syslog ? TimestampFormat.RFC3339.newWriter() : null;
+            this.hostname = hostname == null || hostname.isBlank() ? "-" : hostname.replace(' ', '_');
+        }
+
+        @Override
+        void append(LineBuffer batch, Level level, LineBuffer line) {
+            header.reset();
+            if (timestampWriter != null) {
+                // Facility user (1), severity from the level
+                header.append((byte) '<').append(8 + severity(level)).append((byte) '>').append((byte) '1')
+                        .append((byte) ' ');
+                Instant now = Instant.now();
+                timestampWriter.write(now.getEpochSecond(), now.getNano(), header);
+                header.append((byte) ' ').append(hostname).append(SYSLOG_FIELDS);
+            }
+            batch.append(header.length() + line.length()).append((byte) ' ').append(header).append(line);
+        }
+
+        private static int severity(Level level) {
+            switch (level) {
+                case ERROR:
+                    return 3;
+                case WARN:
+                    return 4;
+                case INFO:
+                    return 6;
+                default:
+                    return 7;
+            }
+        }
+    }
+
+    /**
+     * Loki push API body: one stream labelled job=loggen and pod=hostname, one value per line
+     */
+    private static final class LokiFraming extends LineFraming {
+
+        private final String header;
+        private int headerLength;
+
+        private LokiFraming(String hostname) {
+            LineBuffer labels = new LineBuffer(128);
+            labels.append("{\"streams\":[{\"stream\":{\"job\":\"loggen\",\"pod\":");
+            JsonLineEncoder.appendString(labels, hostname);
+            labels.append("},\"values\":[");
+            this.header = labels.toString();
+        }
+
+        @Override
+        void begin(LineBuffer batch) {
+            batch.append(header);
+            headerLength = batch.length();
+        }
+
+        @Override
+        void append(LineBuffer batch, Level level, LineBuffer line) {
+            if (batch.length() > headerLength) {
+                batch.append((byte) ',');
+            }
+            Instant now = Instant.now();
+            batch.append("[\"").append(now.getEpochSecond()).appendPadded(now.getNano(), 9).append("\",");
+            JsonLineEncoder.appendString(batch, line.array(), 0, line.length());
+            batch.append((byte) ']');
+        }
+
+        @Override
+        void end(LineBuffer batch) {
+            batch.append("]}]}");
+        }
+
+        @Override
+        String contentType() {
+            return "application/json";
+        }
+    }
+}
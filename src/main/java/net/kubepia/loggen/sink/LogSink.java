@@ -0,0 +1,50 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.event.Level;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Destination for encoded log lines.
+ * Implementations must be safe to call from several generator threads at once.
+ */
+public interface LogSink extends AutoCloseable {
+
+    /**
+     * Write one encoded line. The buffer is reused by the caller once this returns,
+     * so implementations must copy anything they keep.
+     * @param level log level of the line
+     * @param line encoded line without trailing newline
+     */
+    void write(Level level, LineBuffer line);
+
+    /**
+     * Push buffered lines to the underlying destination
+     */
+    default void flush() {
+    }
+
+    /**
+     * Flush and release resources
+     */
+    @Override
+    default void close() {
+        flush();
+    }
+
+    /**
+     * Short name shown in status endpoints
+     */
+    String name();
+
+    /**
+     * Sink counters for /log/status
+     */
+    default Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("type", name());
+        return status;
+    }
+}
@@ -0,0 +1,308 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rolling file sink that writes through {@link MappedByteBuffer} segments.
+ * The file is extended one segment at a time and lines are copied straight into the mapping,
+ * so writing costs a memcpy and the kernel flushes pages in the background.
+ *
+ * Rotation happens on size (checked per line) and on time (checked by the maintenance thread), using either
+ * rename (loggen.log -> loggen.log.1, new file) or copytruncate (copy to loggen.log.1, truncate in place),
+ * the two styles used by kubelet and logrotate.
+ *
+ * Note that the mapped segment extends the file past the last written line, so a tailing reader sees
+ * zero padding at the end of the current segment until the file is rotated or the sink is closed.
+ * If the process died before that, the next open cuts the padding (and any torn last line) off again.
+ *
+ * A failed rotation or mapping drops the line and is counted in writeErrors (logged once), so producers
+ * keep running and the failure shows in /log/status.
+ */
+public class MappedFileSink implements LogSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedFileSink.class);
+
+    private static final int RECOVERY_CHUNK = 64 * 1024;
+
+    public enum RotationStyle { RENAME, COPYTRUNCATE }
+
+    public enum FsyncPolicy { NONE, ROTATE, INTERVAL }
+
+    private final Path path;
+    private final int segmentSize;
+    private final long maxFileSize;
+    private final long rotateIntervalMillis;
+    private final RotationStyle rotationStyle;
+    private final int maxFiles;
+    private final FsyncPolicy fsyncPolicy;
+    private final AtomicLong writeErrors = new AtomicLong();
+    private final Thread maintenance;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private long written;
+    private long openedAtMillis;
+    private long rotations;
+    private volatile boolean closed = false;
+
+    /**
+     * @param path file to write
+     * @param segmentSize bytes mapped at a time
+     * @param maxFileSize rotate once the file would exceed this size (0 = never)
+     * @param rotateIntervalMillis rotate after this much time (0 = never)
+     * @param rotationStyle rename or copytruncate
+     * @param maxFiles rotated files kept (loggen.log.1 .. loggen.log.N)
+     * @param fsyncPolicy when mapped pages are forced to disk
+     * @param fsyncIntervalMillis force period for the interval policy
+     */
+    public MappedFileSink(String path, int segmentSize, long maxFileSize, long rotateIntervalMillis,
+                          RotationStyle rotationStyle, int maxFiles, FsyncPolicy fsyncPolicy,
+                          long fsyncIntervalMillis) throws IOException {
+        this.path = Path.of(path);
+        this.segmentSize = Math.max(4096, segmentSize);
+        this.maxFileSize = maxFileSize;
+        this.rotateIntervalMillis = rotateIntervalMillis;
+        this.rotationStyle = rotationStyle;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.fsyncPolicy = fsyncPolicy;
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        open();
+
+        long tick = fsyncPolicy == FsyncPolicy.INTERVAL ? fsyncIntervalMillis : 1000;
+        this.maintenance = new Thread(() -> maintain(Math.max(10, tick)), "loggen-mapped-file");
+        this.maintenance.setDaemon(true);
+        this.maintenance.start();
+    }
+
+    public static RotationStyle parseRotationStyle(String value) {
+        return RotationStyle.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public static FsyncPolicy parseFsyncPolicy(String value) {
+        return FsyncPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public synchronized void write(Level level, LineBuffer line) {
+        if (closed) {
+            return;
+        }
+        int needed = line.length() + 1;
+        try {
+            if (maxFileSize > 0 && written > 0 && written + needed > maxFileSize) {
+                rotate();
+            }
+            if (segment == null || segment.remaining() < needed) {
+                mapNextSegment(needed);
+            }
+        } catch (IOException e) {
+            if (writeErrors.getAndIncrement() == 0) {
+                logger.error("Mapped file sink failed on {}: {}", path, e.getMessage());
+            }
+            return;
+        }
+        segment.put(line.array(), 0, line.length()).put((byte) '\n');
+        written += needed;
+    }
+
+    /**
+     * Lines are visible in the page cache as soon as they are copied; only the fsync policy forces them to disk.
+     * Runs under the lock so rotate() and close() cannot truncate the mapping while it is forced.
+     */
+    private synchronized void forceSegment() {
+        if (!closed && segment != null) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        maintenance.interrupt();
+        try {
+            closeFile(fsyncPolicy != FsyncPolicy.NONE);
+        } catch (IOException e) {
+            logger.error("Failed to close mapped file sink {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "mapped";
+    }
+
+    public synchronized long getRotations() {
+        return rotations;
+    }
+
+    public long getWriteErrors() {
+        return writeErrors.get();
+    }
+
+    @Override
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("type", name());
+        status.put("path", path.toString());
+        status.put("currentFileSize", written);
+        status.put("rotations", rotations);
+        status.put("writeErrors", writeErrors.get());
+        return status;
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        written = endOfLines(channel, size);
+        if (written < size) {
+            logger.warn("Truncating {} from {} to {} bytes: zero padding left by a run that did not close the file",
+                    path, size, written);
+            channel.truncate(written);
+        }
+        segment = null;
+        segmentStart = written;
+        openedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * End of the data when the file ends in zero padding: just past the last newline before it,
+     * so a line torn by the crash goes too. A file that does not end in zeros is kept whole.
+     */
+    private static long endOfLines(FileChannel channel, long size) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(RECOVERY_CHUNK);
+        long end = size;
+        boolean padded = false;
+        while (end > 0) {
+            int length = (int) Math.min(RECOVERY_CHUNK, end);
+            long start = end - length;
+            chunk.clear().limit(length);
+            while (chunk.hasRemaining() && channel.read(chunk, start + chunk.position()) >= 0) {
+                // until the chunk is full
+            }
+            if (!padded && chunk.get(length - 1) != 0) {
+                return size;
+            }
+            padded = true;
+            for (int i = length - 1; i >= 0; i--) {
+                if (chunk.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    private void mapNextSegment(int needed) throws IOException {
+        segmentStart = written;
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentStart, Math.max(segmentSize, needed));
+    }
+
+    /**
+     * Truncate the zero padding of the mapped segment and close the channel
+     */
+    private void closeFile(boolean force) throws IOException {
+        if (segment != null && force) {
+            segment.force();
+        }
+        // The mapping itself is released by the GC; it no longer covers written data after truncation
+        segment = null;
+        channel.truncate(written);
+        if (force) {
+            channel.force(true);
+        }
+        channel.close();
+    }
+
+    private void rotate() throws IOException {
+        boolean force = fsyncPolicy != FsyncPolicy.NONE;
+        if (rotationStyle == RotationStyle.COPYTRUNCATE) {
+            if (segment != null && force) {
+                segment.force();
+            }
+            segment = null;
+            channel.truncate(written);
+            shiftRotatedFiles();
+            try (FileChannel copy = FileChannel.open(rotatedPath(1), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                while (position < written) {
+                    position += channel.transferTo(position, written - position, copy);
+                }
+                if (force) {
+                    copy.force(true);
+                }
+            }
+            channel.truncate(0);
+            written = 0;
+            segmentStart = 0;
+            openedAtMillis = System.currentTimeMillis();
+        } else {
+            closeFile(force);
+            shiftRotatedFiles();
+            Files.move(path, rotatedPath(1), StandardCopyOption.REPLACE_EXISTING);
+            open();
+        }
+        rotations++;
+    }
+
+    private void shiftRotatedFiles() throws IOException {
+        Files.deleteIfExists(rotatedPath(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rotatedPath(i);
+            if (Files.exists(source)) {
+                Files.move(source, rotatedPath(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private Path rotatedPath(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    private void maintain(long tickMillis) {
+        while (!closed) {
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                forceSegment();
+            }
+            if (rotateIntervalMillis > 0) {
+                synchronized (this) {
+                    if (!closed && written > 0 && System.currentTimeMillis() - openedAtMillis >= rotateIntervalMillis) {
+                        try {
+                            rotate();
+                        } catch (IOException e) {
+                            logger.error("Time-based rotation of {} failed: {}", path, e.getMessage());
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
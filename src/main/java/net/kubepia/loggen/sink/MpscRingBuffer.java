@@ -0,0 +1,109 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.event.Level;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free multi-producer/single-consumer queue of encoded lines.
+ * Slots own preallocated {@link LineBuffer}s that producers copy into, so a steady stream of lines allocates nothing.
+ * Each slot carries a sequence number (Vyukov's bounded queue): producers claim a position with one CAS on the tail
+ * and publish it by advancing the slot sequence; the single consumer reads without any CAS.
+ */
+final class MpscRingBuffer {
+
+    /**
+     * Slots that grew past this after a very large line are replaced so the ring does not pin memory
+     */
+    private static final int MAX_RETAINED_SLOT_BYTES = 64 * 1024;
+    private static final int INITIAL_SLOT_BYTES = 256;
+
+    interface LineConsumer {
+        void accept(Level level, LineBuffer line);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final LineBuffer[] lines;
+    private final Level[] levels;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    MpscRingBuffer(int requestedCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.lines = new LineBuffer[capacity];
+        this.levels = new Level[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            lines[i] = new LineBuffer(INITIAL_SLOT_BYTES);
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Copy a line into the next free slot
+     * @return false if the ring is full
+     */
+    boolean offer(Level level, LineBuffer line) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    LineBuffer slot = lines[index];
+                    slot.reset();
+                    slot.append(line);
+                    levels[index] = level;
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hand up to maxLines published lines to the consumer. Must only be called from the consumer thread.
+     * A line the consumer throws on is consumed all the same, so a failing sink never wedges the ring.
+     * @return number of lines drained
+     */
+    int drain(LineConsumer consumer, int maxLines) {
+        long position = head;
+        int drained = 0;
+        while (drained < maxLines) {
+            int index = (int) (position & mask);
+            if (sequences.getAcquire(index) != position + 1) {
+                break;
+            }
+            try {
+                consumer.accept(levels[index], lines[index]);
+            } finally {
+                if (lines[index].capacity() > MAX_RETAINED_SLOT_BYTES) {
+                    lines[index] = new LineBuffer(INITIAL_SLOT_BYTES);
+                }
+                sequences.setRelease(index, position + capacity);
+                position++;
+                head = position;
+            }
+            drained++;
+        }
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,97 @@
+package net.kubepia.loggen.sink;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Target of a {@link NetworkSink}, parsed from loggen.sink.network.url:
+ * {@code tcp://host:port}, {@code udp://host:port}, {@code syslog+tcp://host:port},
+ * {@code syslog+udp://host:port} (or {@code syslog://}) and {@code http://host:port/path}.
+ */
+public record NetworkEndpoint(Protocol protocol, String host, int port, String path) {
+
+    public enum Protocol {
+        /** Newline-delimited lines over a TCP stream (Fluent Bit/Vector tcp input, netcat) */
+        TCP(true, 0),
+        /** One line per datagram */
+        UDP(false, 0),
+        /** RFC 5424 messages with RFC 6587 octet-counting framing */
+        SYSLOG_TCP(true, 601),
+        /** RFC 5424 messages, one per datagram */
+        SYSLOG_UDP(false, 514),
+        /** HTTP/1.1 POST of each batch on keep-alive, optionally pipelined connections */
+        HTTP(true, 80);
+
+        private final boolean stream;
+        private final int defaultPort;
+
+        Protocol(boolean stream, int defaultPort) {
+            this.stream = stream;
+            this.defaultPort = defaultPort;
+        }
+
+        public boolean isStream() {
+            return stream;
+        }
+
+        public boolean isSyslog() {
+            return this == SYSLOG_TCP || this == SYSLOG_UDP;
+        }
+    }
+
+    public static NetworkEndpoint parse(String url) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("loggen.sink.network.url is required for the network sink");
+        }
+        URI uri = URI.create(url.trim());
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        Protocol protocol;
+        switch (scheme) {
+            case "tcp":
+                protocol = Protocol.TCP;
+                break;
+            case "udp":
+                protocol = Protocol.UDP;
+                break;
+            case "syslog+tcp":
+                protocol = Protocol.SYSLOG_TCP;
+                break;
+            case "syslog":
+            case "syslog+udp":
+                protocol = Protocol.SYSLOG_UDP;
+                break;
+            case "http":
+                protocol = Protocol.HTTP;
+                break;
+            case "https":
+                throw new IllegalArgumentException("https is not supported by the network sink; "
+                        + "send to a local TLS-terminating proxy instead: " + url);
+            default:
+                throw new IllegalArgumentException("Unknown network sink scheme: " + url
+                        + " (expected tcp, udp, syslog+tcp, syslog+udp or http)");
+        }
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("Network sink URL has no host: " + url);
+        }
+        int port = uri.getPort() > 0 ? uri.getPort() : protocol.defaultPort;
+        if (port <= 0) {
+            throw new IllegalArgumentException("Network sink URL needs a port: " + url);
+        }
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            path += "?" + uri.getRawQuery();
+        }
+        return new NetworkEndpoint(protocol, uri.getHost(), port, path);
+    }
+
+    public InetSocketAddress address() {
+        return new InetSocketAddress(host, port);
+    }
+
+    @Override
+    public String toString() {
+        String scheme = protocol.name().toLowerCase(Locale.ROOT).replace('_', '+');
+        return scheme + "://" + host + ":" + port + (protocol == Protocol.HTTP ? path : "");
+    }
+}
@@ -0,0 +1,483 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Selector loop that moves sealed batches from the queue onto the network without blocking.
+ * Stream protocols use a pool of connections, each with up to pipelineDepth batches in flight;
+ * for HTTP that means pipelined requests whose responses are matched in order. A failed connection
+ * is closed and reconnected after a delay, and its unacknowledged batches are sent again until
+ * they reach maxAttempts. Datagram protocols send each framed record as one datagram.
+ * All channel state is owned by the sender thread.
+ */
+final class NetworkSender implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NetworkSender.class);
+    private static final long SELECT_TIMEOUT_MILLIS = 10;
+    private static final long CONNECT_TIMEOUT_MILLIS = 3000;
+
+    private final NetworkSink sink;
+    private final NetworkEndpoint endpoint;
+    private final BlockingQueue<NetworkSink.Batch> ready;
+    private final int pipelineDepth;
+    private final long reconnectDelayMillis;
+    private final int maxAttempts;
+    private final Connection[] connections;
+    private final ArrayDeque<NetworkSink.Batch> retry = new ArrayDeque<>();
+    private final byte[] requestHead;
+    private final Selector selector;
+    private volatile long stopDeadline = Long.MAX_VALUE;
+    private volatile int openConnections;
+
+    private DatagramChannel datagram;
+    private SelectionKey datagramKey;
+    private NetworkSink.Batch datagramBatch;
+    private int datagramOffset;
+
+    NetworkSender(NetworkSink sink, NetworkEndpoint endpoint, BlockingQueue<NetworkSink.Batch> ready,
+                  int connectionCount, int pipelineDepth, long reconnectDelayMillis, int maxAttempts) throws IOException {
+        this.sink = sink;
+        this.endpoint = endpoint;
+        this.ready = ready;
+        this.pipelineDepth = pipelineDepth;
+        this.reconnectDelayMillis = Math.max(0, reconnectDelayMillis);
+        this.maxAttempts = maxAttempts;
+        this.selector = Selector.open();
+        this.connections = new Connection[endpoint.protocol().isStream() ? connectionCount : 0];
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = new Connection();
+        }
+        String head = "POST " + endpoint.path() + " HTTP/1.1\r\n"
+                + "Host: " + endpoint.host() + ":" + endpoint.port() + "\r\n"
+                + "User-Agent: loggen\r\n"
+                + "Content-Type: " + sink.contentType() + "\r\n"
+                + (sink.isGzip() ? "Content-Encoding: gzip\r\n" : "")
+                + "Content-Length: ";
+        this.requestHead = head.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Send what is queued, then exit; whatever is left at the deadline is counted as failed
+     */
+    void stop(long deadlineMillis) {
+        stopDeadline = deadlineMillis;
+        selector.wakeup();
+    }
+
+    int openConnections() {
+        return openConnections;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                boolean stopping = stopDeadline != Long.MAX_VALUE;
+                if (stopping && (!hasWork() || now >= stopDeadline)) {
+                    break;
+                }
+                if (endpoint.protocol().isStream()) {
+                    maintainConnections(now);
+                    dispatch();
+                } else {
+                    sendDatagrams();
+                }
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.attachment() instanceof Connection connection) {
+                        handle(connection, key);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Network sender stopped: {}", e.toString());
+        } finally {
+            shutdown();
+        }
+    }
+
+    private boolean hasWork() {
+        if (!ready.isEmpty() || !retry.isEmpty() || datagramBatch != null) {
+            return true;
+        }
+        for (Connection connection : connections) {
+            if (connection.inFlight() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private NetworkSink.Batch nextBatch() {
+        NetworkSink.Batch batch = retry.poll();
+        return batch != null ? batch : ready.poll();
+    }
+
+    // ---- stream protocols ----
+
+    private void maintainConnections(long now) {
+        int open = 0;
+        for (Connection connection : connections) {
+            if (connection.channel == null && now >= connection.reconnectAt) {
+                connect(connection, now);
+            } else if (connection.channel != null && !connection.connected
+                    && now - connection.connectStartedAt > CONNECT_TIMEOUT_MILLIS) {
+                disconnect(connection, new IOException("connect timed out"));
+            }
+            if (connection.connected) {
+                open++;
+            }
+        }
+        openConnections = open;
+    }
+
+    private void connect(Connection connection, long now) {
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            connection.channel = channel;
+            connection.connectStartedAt = now;
+            if (channel.connect(endpoint.address())) {
+                connected(connection);
+            } else {
+                connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+            }
+        } catch (IOException | RuntimeException e) {
+            disconnect(connection, e instanceof IOException io ? io : new IOException(e));
+        }
+    }
+
+    private void connected(Connection connection) throws IOException {
+        connection.connected = true;
+        connection.reader = new HttpResponseReader();
+        if (connection.key == null) {
+            connection.key = connection.channel.register(selector, SelectionKey.OP_READ, connection);
+        } else {
+            connection.key.interestOps(SelectionKey.OP_READ);
+        }
+        if (connection.everConnected && !connection.graceful) {
+            sink.reconnects.increment();
+            logger.info("Network sink reconnected to {}", endpoint);
+        }
+        connection.everConnected = true;
+        connection.loggedFailure = false;
+    }
+
+    /**
+     * Hand queued batches to the least loaded connected connection until every one is at pipeline depth
+     */
+    private void dispatch() {
+        while (true) {
+            Connection target = null;
+            for (Connection connection : connections) {
+                if (connection.connected && connection.inFlight() < pipelineDepth
+                        && (target == null || connection.inFlight() < target.inFlight())) {
+                    target = connection;
+                }
+            }
+            if (target == null) {
+                return;
+            }
+            NetworkSink.Batch batch = nextBatch();
+            if (batch == null) {
+                return;
+            }
+            batch.attempts++;
+            target.writing.add(new Outgoing(batch, wireBuffers(batch)));
+            target.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private ByteBuffer[] wireBuffers(NetworkSink.Batch batch) {
+        LineBuffer payload = batch.payload();
+        ByteBuffer body = ByteBuffer.wrap(payload.array(), 0, payload.length());
+        if (endpoint.protocol() != NetworkEndpoint.Protocol.HTTP) {
+            return new ByteBuffer[]{body};
+        }
+        byte[] length = Integer.toString(payload.length()).getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer head = ByteBuffer.allocate(requestHead.length + length.length + 4);
+        head.put(requestHead).put(length).put((byte) '\r').put((byte) '\n').put((byte) '\r').put((byte) '\n').flip();
+        return new ByteBuffer[]{head, body};
+    }
+
+    private void handle(Connection connection, SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isConnectable()) {
+                if (connection.channel.finishConnect()) {
+                    connected(connection);
+                }
+                return;
+            }
+            if (key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(connection);
+            }
+        } catch (IOException e) {
+            disconnect(connection, e);
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        while (!connection.writing.isEmpty()) {
+            Outgoing head = connection.writing.peek();
+            long written = connection.channel.write(head.buffers);
+            sink.wireBytes.add(written);
+            if (head.buffers[head.buffers.length - 1].hasRemaining()) {
+                return;
+            }
+            connection.writing.poll();
+            if (endpoint.protocol() == NetworkEndpoint.Protocol.HTTP) {
+                connection.awaiting.add(head.batch);
+            } else {
+                completed(head.batch);
+            }
+        }
+        connection.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void read(Connection connection) throws IOException {
+        ByteBuffer in = connection.readBuffer;
+        in.clear();
+        int read = connection.channel.read(in);
+        if (read < 0) {
+            if (connection.inFlight() == 0) {
+                // Idle keep-alive timeout on the server side
+                disconnect(connection, null);
+                return;
+            }
+            throw new IOException("connection closed by peer");
+        }
+        if (endpoint.protocol() != NetworkEndpoint.Protocol.HTTP) {
+            // Nothing is expected back on a plain stream; discard it
+            return;
+        }
+        in.flip();
+        connection.reader.feed(in, (status, close) -> {
+            NetworkSink.Batch batch = connection.awaiting.poll();
+            if (batch == null) {
+                throw new IOException("HTTP response without a request");
+            }
+            sink.lastHttpStatus = status;
+            if (status >= 200 && status < 300) {
+                completed(batch);
+            } else {
+                sink.httpErrors.increment();
+                // Throttling and server errors are worth another try; client errors are not
+                if (status == 408 || status == 429 || status >= 500) {
+                    retryOrFail(batch);
+                } else {
+                    failed(batch);
+                }
+            }
+            if (close) {
+                connection.closeRequested = true;
+            }
+        });
+        if (connection.closeRequested) {
+            // Keep-alive limit reached (e.g. Tomcat after 100 requests): reconnect at once;
+            // pipelined requests behind this response were not processed and go out again
+            disconnect(connection, null);
+        }
+    }
+
+    /**
+     * Close the connection and queue its unfinished batches again
+     * @param cause null when the server ended the connection in an orderly way
+     */
+    private void disconnect(Connection connection, IOException cause) {
+        boolean graceful = cause == null;
+        if (!graceful && !connection.loggedFailure) {
+            logger.warn("Network sink connection to {} failed: {}", endpoint, cause.getMessage());
+            connection.loggedFailure = true;
+        }
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        try {
+            if (connection.channel != null) {
+                connection.channel.close();
+            }
+        } catch (IOException e) {
+            // already failing
+        }
+        // Requests awaiting a response were delivered at most partially acknowledged; send them again in order
+        ArrayDeque<NetworkSink.Batch> unfinished = new ArrayDeque<>(connection.awaiting);
+        for (Outgoing outgoing : connection.writing) {
+            unfinished.add(outgoing.batch);
+        }
+        connection.awaiting.clear();
+        connection.writing.clear();
+        while (!unfinished.isEmpty()) {
+            NetworkSink.Batch batch = unfinished.pollLast();
+            if (graceful) {
+                // Not a failed attempt: the server never looked at it
+                batch.attempts--;
+                retry.addFirst(batch);
+            } else {
+                retryOrFail(batch);
+            }
+        }
+        connection.channel = null;
+        connection.key = null;
+        connection.connected = false;
+        connection.closeRequested = false;
+        connection.graceful = graceful;
+        connection.reconnectAt = System.currentTimeMillis() + (graceful ? 0 : reconnectDelayMillis);
+    }
+
+    private void retryOrFail(NetworkSink.Batch batch) {
+        if (batch.attempts < maxAttempts && stopDeadline == Long.MAX_VALUE) {
+            sink.retries.increment();
+            retry.addFirst(batch);
+        } else {
+            failed(batch);
+        }
+    }
+
+    // ---- datagram protocols ----
+
+    private void sendDatagrams() throws IOException {
+        if (datagram == null) {
+            datagram = DatagramChannel.open();
+            datagram.configureBlocking(false);
+            datagram.connect(endpoint.address());
+            datagramKey = datagram.register(selector, 0);
+            openConnections = 1;
+        }
+        while (true) {
+            if (datagramBatch == null) {
+                datagramBatch = nextBatch();
+                datagramOffset = 0;
+                if (datagramBatch == null) {
+                    datagramKey.interestOps(0);
+                    return;
+                }
+            }
+            // Records are "LEN SP MSG"; send MSG
+            LineBuffer body = datagramBatch.body;
+            byte[] bytes = body.array();
+            while (datagramOffset < body.length()) {
+                int p = datagramOffset;
+                int length = 0;
+                while (bytes[p] != ' ') {
+                    length = length * 10 + (bytes[p++] - '0');
+                }
+                ByteBuffer message = ByteBuffer.wrap(bytes, p + 1, length);
+                try {
+                    if (datagram.write(message) == 0) {
+                        // Socket buffer full: continue when writable
+                        datagramKey.interestOps(SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    sink.wireBytes.add(length);
+                    sink.linesSent.increment();
+                } catch (IOException e) {
+                    // Unreachable port or oversized message; UDP gives no delivery guarantee anyway
+                    sink.linesFailed.increment();
+                }
+                datagramOffset = p + 1 + length;
+            }
+            // UDP has no acknowledgement; the batch counts as accepted once the socket took all of it
+            sink.ackNanos.add(System.nanoTime() - datagramBatch.sealedNanos);
+            sink.batchesSent.increment();
+            sink.recycle(datagramBatch);
+            datagramBatch = null;
+        }
+    }
+
+    // ---- completion ----
+
+    private void completed(NetworkSink.Batch batch) {
+        sink.ackNanos.add(System.nanoTime() - batch.sealedNanos);
+        sink.linesSent.add(batch.lines);
+        sink.batchesSent.increment();
+        sink.recycle(batch);
+    }
+
+    private void failed(NetworkSink.Batch batch) {
+        sink.linesFailed.add(batch.lines);
+        sink.batchesFailed.increment();
+        sink.recycle(batch);
+    }
+
+    private void shutdown() {
+        for (Connection connection : connections) {
+            for (Outgoing outgoing : connection.writing) {
+                failed(outgoing.batch);
+            }
+            for (NetworkSink.Batch batch : connection.awaiting) {
+                failed(batch);
+            }
+            try {
+                if (connection.channel != null) {
+                    connection.channel.close();
+                }
+            } catch (IOException e) {
+                // closing anyway
+            }
+        }
+        if (datagramBatch != null) {
+            failed(datagramBatch);
+        }
+        NetworkSink.Batch batch;
+        while ((batch = nextBatch()) != null) {
+            failed(batch);
+        }
+        try {
+            if (datagram != null) {
+                datagram.close();
+            }
+            selector.close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+        openConnections = 0;
+    }
+
+    private record Outgoing(NetworkSink.Batch batch, ByteBuffer[] buffers) {
+    }
+
+    private static final class Connection {
+        private final ArrayDeque<Outgoing> writing = new ArrayDeque<>();
+        private final ArrayDeque<NetworkSink.Batch> awaiting = new ArrayDeque<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(16 * 1024);
+        private SocketChannel channel;
+        private SelectionKey key;
+        private HttpResponseReader reader;
+        private boolean connected;
+        private boolean everConnected;
+        private boolean loggedFailure;
+        private boolean closeRequested;
+        private boolean graceful;
+        private long connectStartedAt;
+        private long reconnectAt;
+
+        private int inFlight() {
+            return writing.size() + awaiting.size();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+
+/**
+ * Sends lines straight to a remote collector over TCP, UDP, syslog or HTTP, so no tailing agent sits
+ * between the generator and the system under test.
+ * Each producer thread (or stripe of virtual threads, see {@link ThreadSlots}) frames lines into its own batch;
+ * a batch is sealed when it reaches the batch size
+ * or at the flush interval, gzip-compressed on the producer thread if enabled, and queued for
+ * {@link NetworkSender}, whose single selector thread writes batches to a pool of non-blocking
+ * connections (HTTP requests are pipelined up to the configured depth per connection).
+ * When the queue is full producers wait, so generation slows to what the network accepts.
+ */
+public class NetworkSink implements LogSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(NetworkSink.class);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * @param batchBytes a batch is sealed once its uncompressed size reaches this many bytes
+     * @param maxPendingBatches sealed batches queued for the sender before producers wait
+     * @param connections connections in the pool (stream protocols)
+     * @param pipelineDepth batches in flight per connection; for HTTP the number of pipelined requests
+     * @param compression none or gzip (HTTP only)
+     * @param httpFormat HTTP body layout: lines, es-bulk or loki
+     * @param hostname syslog HOSTNAME and Loki pod label
+     * @param flushIntervalMillis partially filled batches are sealed at this interval
+     * @param reconnectDelayMillis wait before reconnecting a failed connection
+     * @param maxAttempts sends per batch before it is dropped
+     */
+    public record Options(int batchBytes, int maxPendingBatches, int connections, int pipelineDepth,
+                          String compression, String httpFormat, String hostname, long flushIntervalMillis,
+                          long reconnectDelayMillis, int maxAttempts) {
+    }
+
+    private final NetworkEndpoint endpoint;
+    private final Options options;
+    private final boolean gzip;
+    private final String contentType;
+    private final BlockingQueue<Batch> ready;
+    private final BlockingQueue<Batch> free;
+    private final ThreadSlots<Slot> slots = new ThreadSlots<>(this::newSlot);
+    private final NetworkSender sender;
+    private final Thread senderThread;
+    private final Thread flusher;
+    private volatile boolean closed = false;
+
+    final LongAdder linesSent = new LongAdder();
+    final LongAdder batchesSent = new LongAdder();
+    final LongAdder wireBytes = new LongAdder();
+    final LongAdder rawBytes = new LongAdder();
+    final LongAdder linesFailed = new LongAdder();
+    final LongAdder batchesFailed = new LongAdder();
+    final LongAdder retries = new LongAdder();
+    final LongAdder httpErrors = new LongAdder();
+    final LongAdder reconnects = new LongAdder();
+    final LongAdder ackNanos = new LongAdder();
+    private final LongAdder queueStalls = new LongAdder();
+    volatile int lastHttpStatus;
+
+    public NetworkSink(NetworkEndpoint endpoint, Options options) throws IOException {
+        this.endpoint = endpoint;
+        this.options = options;
+        this.gzip = parseCompression(options.compression());
+        if (gzip && endpoint.protocol() != NetworkEndpoint.Protocol.HTTP) {
+            throw new IllegalArgumentException("loggen.sink.network.compression=gzip needs an http:// URL");
+        }
+        // Validates the HTTP format up front and provides the Content-Type
+        this.contentType = LineFraming.create(endpoint.protocol(), options.httpFormat(), options.hostname())
+                .contentType();
+        this.ready = new ArrayBlockingQueue<>(Math.max(1, options.maxPendingBatches()));
+        this.free = new ArrayBlockingQueue<>(Math.max(1, options.maxPendingBatches()) * 2);
+        this.sender = new NetworkSender(this, endpoint, ready, Math.max(1, options.connections()),
+                Math.max(1, options.pipelineDepth()), options.reconnectDelayMillis(), Math.max(1, options.maxAttempts()));
+        this.senderThread = new Thread(sender, "loggen-network-sender");
+        this.senderThread.setDaemon(true);
+        this.senderThread.start();
+        this.flusher = new Thread(() -> flushPeriodically(options.flushIntervalMillis()), "loggen-network-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        logger.info("Network sink sending to {} (batch {} bytes, {} connections, depth {}, compression {})",
+                endpoint, options.batchBytes(), options.connections(), options.pipelineDepth(), gzip ? "gzip" : "none");
+    }
+
+    private static boolean parseCompression(String value) {
+        switch (value == null ? "none" : value.trim().toLowerCase(Locale.ROOT)) {
+            case "":
+            case "none":
+                return false;
+            case "gzip":
+                return true;
+            case "zstd":
+                throw new IllegalArgumentException("zstd compression is not available without a native library; "
+                        + "use loggen.sink.network.compression=gzip");
+            default:
+                throw new IllegalArgumentException("Unknown loggen.sink.network.compression: " + value);
+        }
+    }
+
+    @Override
+    public void write(Level level, LineBuffer line) {
+        Slot slot = slots.get();
+        slot.lock.lock();
+        try {
+            if (slot.batch == null) {
+                slot.batch = acquire();
+                slot.framing.begin(slot.batch.body);
+            }
+            slot.framing.append(slot.batch.body, level, line);
+            slot.batch.lines++;
+            if (slot.batch.body.length() >= options.batchBytes()) {
+                seal(slot);
+            }
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() {
+        slots.forEach(this::sealOpen);
+        slots.releaseEnded(slot -> {
+            sealOpen(slot);
+            release(slot);
+        });
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        flusher.interrupt();
+        sender.stop(System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS);
+        try {
+            senderThread.join(CLOSE_TIMEOUT_MILLIS + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        slots.forEach(NetworkSink::release);
+    }
+
+    @Override
+    public String name() {
+        return "network";
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("type", name());
+        status.put("url", endpoint.toString());
+        status.put("linesSent", linesSent.sum());
+        status.put("batchesSent", batchesSent.sum());
+        status.put("wireBytes", wireBytes.sum());
+        status.put("rawBytes", rawBytes.sum());
+        status.put("linesFailed", linesFailed.sum());
+        status.put("batchesFailed", batchesFailed.sum());
+        status.put("retries", retries.sum());
+        status.put("reconnects", reconnects.sum());
+        status.put("queueStalls", queueStalls.sum());
+        status.put("pendingBatches", ready.size());
+        status.put("producerSlots", slots.size());
+        status.put("openConnections", sender.openConnections());
+        if (endpoint.protocol() == NetworkEndpoint.Protocol.HTTP) {
+            status.put("httpErrors", httpErrors.sum());
+            status.put("lastHttpStatus", lastHttpStatus);
+        }
+        return status;
+    }
+
+    /**
+     * Sealed batches waiting for the sender as a fraction of maxPendingBatches; 1 means producers wait
+     */
+    public double getBacklog() {
+        return (double) ready.size() / Math.max(1, options.maxPendingBatches());
+    }
+
+    public long getLinesSent() {
+        return linesSent.sum();
+    }
+
+    public long getLinesFailed() {
+        return linesFailed.sum();
+    }
+
+    public long getBatchesSent() {
+        return batchesSent.sum();
+    }
+
+    /**
+     * Total time from sealing a batch until the endpoint accepted it (HTTP response, or fully written on
+     * a plain stream); divided by {@link #getBatchesSent()} it is the mean acknowledgement latency
+     */
+    public long getAckNanos() {
+        return ackNanos.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getQueueStalls() {
+        return queueStalls.sum();
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * Return a finished batch for reuse by producers
+     */
+    void recycle(Batch batch) {
+        batch.body.reset();
+        batch.lines = 0;
+        batch.attempts = 0;
+        batch.compressed = false;
+        free.offer(batch);
+    }
+
+    private Batch acquire() {
+        Batch batch = free.poll();
+        return batch != null ? batch : new Batch(options.batchBytes());
+    }
+
+    private void seal(Slot slot) {
+        Batch batch = slot.batch;
+        slot.batch = null;
+        slot.framing.end(batch.body);
+        batch.sealedNanos = System.nanoTime();
+        rawBytes.add(batch.body.length());
+        if (slot.compressor != null) {
+            slot.compressor.compress(batch.body, batch.gzipped);
+            batch.compressed = true;
+        }
+        try {
+            if (!ready.offer(batch)) {
+                // Sender is behind: wait for room so nothing is dropped
+                queueStalls.increment();
+                while (!ready.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                    if (closed) {
+                        discard(batch);
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(batch);
+        }
+    }
+
+    private void discard(Batch batch) {
+        linesFailed.add(batch.lines);
+        batchesFailed.increment();
+    }
+
+    private Slot newSlot() {
+        return new Slot(LineFraming.create(endpoint.protocol(), options.httpFormat(), options.hostname()),
+                gzip ? new GzipCompressor(Deflater.BEST_SPEED) : null);
+    }
+
+    private void sealOpen(Slot slot) {
+        slot.lock.lock();
+        try {
+            if (slot.batch != null) {
+                seal(slot);
+            }
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    private static void release(Slot slot) {
+        if (slot.compressor != null) {
+            slot.compressor.close();
+        }
+    }
+
+    private void flushPeriodically(long intervalMillis) {
+        while (!closed) {
+            try {
+                Thread.sleep(Math.max(1, intervalMillis));
+            } catch (InterruptedException e) {
+                return;
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Lines framed for one send; reused through the free list
+     */
+    static final class Batch {
+        final LineBuffer body;
+        final LineBuffer gzipped = new LineBuffer(1024);
+        int lines;
+        int attempts;
+        boolean compressed;
+        long sealedNanos;
+
+        private Batch(int batchBytes) {
+            this.body = new LineBuffer(batchBytes + batchBytes / 4);
+        }
+
+        /**
+         * Bytes that go on the wire
+         */
+        LineBuffer payload() {
+            return compressed ? gzipped : body;
+        }
+    }
+
+    private static final class Slot {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LineFraming framing;
+        private final GzipCompressor compressor;
+        private Batch batch;
+
+        private Slot(LineFraming framing, GzipCompressor compressor) {
+            this.framing = framing;
+            this.compressor = compressor;
+        }
+    }
+}
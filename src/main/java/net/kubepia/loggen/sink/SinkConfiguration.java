@@ -0,0 +1,128 @@
+package net.kubepia.loggen.sink;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Selects the output sink from loggen.sink.type
+ */
+@Configuration
+public class SinkConfiguration {
+
+    @Value("${loggen.sink.type:slf4j}")
+    private String sinkType;
+
+    @Value("${loggen.sink.direct.path:}")
+    private String directPath;
+
+    @Value("${loggen.sink.direct.buffer-size:1048576}")
+    private int directBufferSize;
+
+    @Value("${loggen.sink.file.path:logs/loggen.log}")
+    private String filePath;
+
+    @Value("${loggen.sink.file.segment-size:67108864}")
+    private int fileSegmentSize;
+
+    @Value("${loggen.sink.file.max-size:1073741824}")
+    private long fileMaxSize;
+
+    @Value("${loggen.sink.file.rotate-interval-seconds:0}")
+    private long fileRotateIntervalSeconds;
+
+    @Value("${loggen.sink.file.rotation:rename}")
+    private String fileRotation;
+
+    @Value("${loggen.sink.file.max-files:5}")
+    private int fileMaxFiles;
+
+    @Value("${loggen.sink.file.fsync:none}")
+    private String fileFsync;
+
+    @Value("${loggen.sink.file.fsync-interval-ms:1000}")
+    private long fileFsyncIntervalMillis;
+
+    @Value("${loggen.sink.network.url:}")
+    private String networkUrl;
+
+    @Value("${loggen.sink.network.batch-size:262144}")
+    private int networkBatchSize;
+
+    @Value("${loggen.sink.network.max-pending:64}")
+    private int networkMaxPending;
+
+    @Value("${loggen.sink.network.connections:2}")
+    private int networkConnections;
+
+    @Value("${loggen.sink.network.pipeline-depth:4}")
+    private int networkPipelineDepth;
+
+    @Value("${loggen.sink.network.compression:none}")
+    private String networkCompression;
+
+    @Value("${loggen.sink.network.http.format:lines}")
+    private String networkHttpFormat;
+
+    @Value("${loggen.sink.network.reconnect-delay-ms:1000}")
+    private long networkReconnectDelayMillis;
+
+    @Value("${loggen.sink.network.max-attempts:3}")
+    private int networkMaxAttempts;
+
+    @Value("${POD_ID:PODID}")
+    private String podId;
+
+    @Value("${loggen.sink.flush-interval-ms:100}")
+    private long flushIntervalMillis;
+
+    @Value("${loggen.sink.async.enabled:false}")
+    private boolean asyncEnabled;
+
+    @Value("${loggen.sink.async.capacity:8192}")
+    private int asyncCapacity;
+
+    @Value("${loggen.sink.async.writers:1}")
+    private int asyncWriters;
+
+    @Value("${loggen.sink.async.overflow:block}")
+    private String asyncOverflow;
+
+    @Value("${loggen.sink.async.sample-rate:10}")
+    private int asyncSampleRate;
+
+    @Value("${loggen.sink.async.batch-size:1024}")
+    private int asyncBatchSize;
+
+    @Bean(destroyMethod = "close")
+    public LogSink logSink() throws IOException {
+        LogSink sink = createSink();
+        if (!asyncEnabled) {
+            return sink;
+        }
+        return new AsyncSink(sink, asyncCapacity, asyncWriters, AsyncSink.parseOverflowPolicy(asyncOverflow),
+                asyncSampleRate, asyncBatchSize);
+    }
+
+    private LogSink createSink() throws IOException {
+        switch (sinkType.toLowerCase(Locale.ROOT)) {
+            case "direct":
+                return new DirectSink(directPath, directBufferSize, flushIntervalMillis);
+            case "mapped":
+                return new MappedFileSink(filePath, fileSegmentSize, fileMaxSize, fileRotateIntervalSeconds * 1000,
+                        MappedFileSink.parseRotationStyle(fileRotation), fileMaxFiles,
+                        MappedFileSink.parseFsyncPolicy(fileFsync), fileFsyncIntervalMillis);
+            case "network":
+                return new NetworkSink(NetworkEndpoint.parse(networkUrl), new NetworkSink.Options(networkBatchSize,
+                        networkMaxPending, networkConnections, networkPipelineDepth, networkCompression,
+                        networkHttpFormat, podId, flushIntervalMillis, networkReconnectDelayMillis, networkMaxAttempts));
+            case "slf4j":
+                return new Slf4jSink();
+            default:
+                throw new IllegalArgumentException("Unknown loggen.sink.type: " + sinkType);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.LogGen;
+import net.kubepia.loggen.encode.LineBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+/**
+ * Default sink: hands every line to SLF4J/Logback under the LogGen logger,
+ * so the console pattern and appenders behave exactly as before.
+ */
+public class Slf4jSink implements LogSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogGen.class);
+
+    @Override
+    public void write(Level level, LineBuffer line) {
+        // 로그 레벨에 따라 출력 (비활성 레벨이면 문자열을 만들지 않음)
+        switch (level) {
+            case ERROR:
+                if (logger.isErrorEnabled()) {
+                    logger.error(line.toString());
+                }
+                break;
+            case WARN:
+                if (logger.isWarnEnabled()) {
+                    logger.warn(line.toString());
+                }
+                break;
+            case DEBUG:
+                if (logger.isDebugEnabled()) {
+                    logger.debug(line.toString());
+                }
+                break;
+            case TRACE:
+                if (logger.isTraceEnabled()) {
+                    logger.trace(line.toString());
+                }
+                break;
+            case INFO:
+            default:
+                if (logger.isInfoEnabled()) {
+                    logger.info(line.toString());
+                }
+                break;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "slf4j";
+    }
+}
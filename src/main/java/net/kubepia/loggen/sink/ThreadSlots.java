@@ -0,0 +1,91 @@
+package net.kubepia.loggen.sink;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Per-producer state for the sinks (write buffers, open batches), bounded no matter how many threads write.
+ * A platform thread gets its own slot, so engine workers never contend; the slot is released once the
+ * thread has ended. Virtual threads share a fixed set of stripes chosen by thread id, so thousands of
+ * mostly sleeping tenant threads cost a few slots rather than one each.
+ * Callers guard a slot with its own lock, since a stripe is shared.
+ */
+final class ThreadSlots<T> {
+
+    private final Supplier<T> factory;
+    private final List<Entry<T>> entries = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<T> local = ThreadLocal.withInitial(this::registerOwned);
+    private final AtomicReferenceArray<T> stripes;
+
+    private record Entry<T>(Thread owner, T slot) {
+    }
+
+    /**
+     * @param factory creates a slot on first use by a platform thread or a stripe
+     */
+    ThreadSlots(Supplier<T> factory) {
+        this.factory = factory;
+        this.stripes = new AtomicReferenceArray<>(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    /**
+     * @return the slot of the calling thread
+     */
+    T get() {
+        Thread thread = Thread.currentThread();
+        if (!thread.isVirtual()) {
+            return local.get();
+        }
+        int index = (int) (thread.threadId() % stripes.length());
+        T slot = stripes.get(index);
+        return slot != null ? slot : registerStripe(index);
+    }
+
+    /**
+     * Visit every slot, e.g. to flush it
+     */
+    void forEach(Consumer<T> action) {
+        for (Entry<T> entry : entries) {
+            action.accept(entry.slot());
+        }
+    }
+
+    /**
+     * Drop slots whose platform thread has ended, after the last visit has emptied them
+     * @param release flushes and frees a slot
+     */
+    void releaseEnded(Consumer<T> release) {
+        for (Entry<T> entry : entries) {
+            if (entry.owner() != null && !entry.owner().isAlive() && entries.remove(entry)) {
+                release.accept(entry.slot());
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int stripeCount() {
+        return stripes.length();
+    }
+
+    private T registerOwned() {
+        T slot = factory.get();
+        entries.add(new Entry<>(Thread.currentThread(), slot));
+        return slot;
+    }
+
+    private synchronized T registerStripe(int index) {
+        T slot = stripes.get(index);
+        if (slot == null) {
+            slot = factory.get();
+            entries.add(new Entry<>(null, slot));
+            stripes.set(index, slot);
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,143 @@
+package net.kubepia.loggen.source;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel (4 levels x 64 slots) with intrusive, allocation-free timer nodes.
+ * Level n covers 64^(n+1) ticks; timers further out are parked on the top level and re-placed as the wheel turns.
+ * Scheduling, cancelling and firing are O(1) per timer regardless of how many timers exist, and cascading
+ * a higher-level slot moves each timer at most once per level. Not thread-safe: owned by a single driver thread.
+ */
+final class HierarchicalTimerWheel {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    /**
+     * Timer entry; subclasses carry the payload. A node is in at most one slot at a time.
+     */
+    static class Node {
+        private Node prev;
+        private Node next;
+        private long deadline;
+
+        boolean isScheduled() {
+            return prev != null;
+        }
+
+        long deadline() {
+            return deadline;
+        }
+    }
+
+    private final Node[][] slots = new Node[LEVELS][SLOTS];
+    private long currentTick;
+    private int size;
+
+    HierarchicalTimerWheel(long startTick) {
+        this.currentTick = startTick;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Node sentinel = new Node();
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                slots[level][slot] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Schedule a node to fire at the given tick; deadlines in the past fire on the next tick
+     */
+    void schedule(Node node, long deadlineTick) {
+        if (node.isScheduled()) {
+            cancel(node);
+        }
+        node.deadline = Math.max(deadlineTick, currentTick + 1);
+        place(node);
+        size++;
+    }
+
+    void cancel(Node node) {
+        if (!node.isScheduled()) {
+            return;
+        }
+        unlink(node);
+        size--;
+    }
+
+    /**
+     * Advance to the given tick, firing every timer whose deadline has been reached
+     * @param toTick tick to advance to (inclusive)
+     * @param expired receives each fired node; it may reschedule the node
+     */
+    void advance(long toTick, Consumer<Node> expired) {
+        while (currentTick < toTick) {
+            currentTick++;
+            cascade();
+            Node sentinel = slots[0][(int) (currentTick & SLOT_MASK)];
+            while (sentinel.next != sentinel) {
+                Node node = sentinel.next;
+                unlink(node);
+                size--;
+                expired.accept(node);
+            }
+        }
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * At a slot boundary, move timers from the higher levels down; highest level first so they can fall through
+     */
+    private void cascade() {
+        int highest = 0;
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                break;
+            }
+            highest = level;
+        }
+        for (int level = highest; level >= 1; level--) {
+            Node sentinel = slots[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+            Node node = sentinel.next;
+            sentinel.next = sentinel;
+            sentinel.prev = sentinel;
+            while (node != sentinel) {
+                Node next = node.next;
+                place(node);
+                node = next;
+            }
+        }
+    }
+
+    private void place(Node node) {
+        long delay = Math.min(node.deadline - currentTick, MAX_DELAY);
+        long slotTick = currentTick + delay;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        Node sentinel = slots[level][(int) ((slotTick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+}
@@ -0,0 +1,77 @@
+package net.kubepia.loggen.source;
+
+import org.slf4j.event.Level;
+
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted choice of log level, parsed once from "INFO:80,WARN:15,ERROR:5" (a bare "WARN" means 100%).
+ */
+public final class LevelMix {
+
+    private final Level[] levels;
+    private final String[] names;
+    private final double[] cumulative;
+
+    private LevelMix(Level[] levels, double[] cumulative) {
+        this.levels = levels;
+        this.cumulative = cumulative;
+        this.names = new String[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            names[i] = levels[i].name();
+        }
+    }
+
+    public static LevelMix parse(String spec) {
+        String[] entries = spec.split(",");
+        Level[] levels = new Level[entries.length];
+        double[] cumulative = new double[entries.length];
+        double total = 0;
+        for (int i = 0; i < entries.length; i++) {
+            String[] pair = entries[i].trim().split(":");
+            try {
+                levels[i] = Level.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown log level in level mix: " + pair[0]);
+            }
+            double weight = pair.length > 1 ? Double.parseDouble(pair[1].trim()) : 1.0;
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in level mix: " + entries[i]);
+            }
+            total += weight;
+            cumulative[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Level mix has no weight: " + spec);
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= total;
+        }
+        return new LevelMix(levels, cumulative);
+    }
+
+    /**
+     * @return index of the next level; use {@link #level(int)} and {@link #name(int)}
+     */
+    public int next(RandomGenerator random) {
+        if (levels.length == 1) {
+            return 0;
+        }
+        double value = random.nextDouble();
+        for (int i = 0; i < cumulative.length - 1; i++) {
+            if (value < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    public Level level(int index) {
+        return levels[index];
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+}
@@ -0,0 +1,260 @@
+package net.kubepia.loggen.source;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.kubepia.loggen.LogGen;
+import net.kubepia.loggen.payload.PayloadPool;
+import net.kubepia.loggen.payload.SizeDistribution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives many independent log sources from a single thread using a {@link HierarchicalTimerWheel}.
+ * Each source has its own rate, level mix, template and payload size; scheduling cost per tick stays O(1)
+ * in the number of sources, so 10k+ sources need one thread and no per-source ScheduledFuture.
+ * Sources come from loggen.sources.file (a JSON array of {@link SourceDefinition}) and /log/sources.
+ * Changes are queued and applied by the driver thread, which owns the wheel.
+ */
+@Component
+@RegisterReflectionForBinding(SourceDefinition.class)
+public class MultiSourceGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiSourceGenerator.class);
+
+    private static final long TICK_NANOS = 1_000_000L;
+    /** Never emit more than this many seconds of backlog in one fire, e.g. after a long GC pause */
+    private static final double MAX_CATCH_UP_SECONDS = 0.1;
+
+    @Value("${loggen.sources.file:}")
+    private String sourcesFile;
+
+    @Autowired
+    private LogGen logGen;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final Map<String, SourceTimer> sources = new HashMap<>();
+    private final AtomicInteger sourceCount = new AtomicInteger();
+    private final LongAdder fires = new LongAdder();
+    private final LongAdder lines = new LongAdder();
+
+    private HierarchicalTimerWheel wheel;
+    private Thread driver;
+    private long startNanos;
+    private volatile boolean running = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (sourcesFile != null && !sourcesFile.isBlank()) {
+            List<SourceDefinition> definitions = objectMapper.readValue(Path.of(sourcesFile).toFile(),
+                    new TypeReference<List<SourceDefinition>>() { });
+            addSources(definitions);
+            logger.info("Loaded {} source definitions from {}", definitions.size(), sourcesFile);
+        }
+    }
+
+    /**
+     * Add or replace sources; the driver thread is started on first use
+     * @return number of sources created
+     */
+    public int addSources(List<SourceDefinition> definitions) {
+        List<SourceTimer> timers = new ArrayList<>();
+        for (SourceDefinition definition : definitions) {
+            LevelMix levelMix = LevelMix.parse(definition.levels());
+            PayloadPool payload = PayloadPool.build(definition.template(),
+                    new SizeDistribution.FixedSize(definition.payloadSize()), 1);
+            byte[] body = payload.nextBody(ThreadLocalRandom.current());
+            int length = PayloadPool.lengthFor(body, definition.payloadSize());
+            for (int i = 0; i < definition.count(); i++) {
+                String name = definition.count() == 1 ? definition.name() : definition.name() + "-" + i;
+                timers.add(new SourceTimer(name, definition, levelMix, body, length));
+            }
+        }
+        ensureStarted();
+        commands.add(() -> {
+            for (SourceTimer timer : timers) {
+                SourceTimer previous = sources.put(timer.name, timer);
+                if (previous != null) {
+                    wheel.cancel(previous);
+                }
+                // Stagger the first line within one period so sources do not fire in lockstep
+                timer.nextDueMillis = wheel.currentTick() + ThreadLocalRandom.current().nextDouble(timer.periodMillis);
+                wheel.schedule(timer, (long) Math.ceil(timer.nextDueMillis));
+            }
+            sourceCount.set(sources.size());
+        });
+        return timers.size();
+    }
+
+    /**
+     * Remove a source by name, or all sources when name is null
+     */
+    public void removeSources(String name) {
+        commands.add(() -> {
+            if (name == null) {
+                sources.values().forEach(wheel::cancel);
+                sources.clear();
+            } else {
+                SourceTimer timer = sources.remove(name);
+                if (timer != null) {
+                    wheel.cancel(timer);
+                }
+            }
+            sourceCount.set(sources.size());
+        });
+    }
+
+    /**
+     * Describe the current sources; the list is copied by the driver thread, which owns it
+     */
+    public List<Map<String, Object>> listSources() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SourceTimer timer : sourcesSnapshot()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", timer.name);
+            entry.put("rate", timer.definition.rate());
+            entry.put("levels", timer.definition.levels());
+            entry.put("payloadSize", timer.definition.payloadSize());
+            entry.put("emitted", timer.emitted);
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private List<SourceTimer> sourcesSnapshot() {
+        synchronized (this) {
+            if (driver == null) {
+                return List.of();
+            }
+        }
+        CompletableFuture<List<SourceTimer>> snapshot = new CompletableFuture<>();
+        commands.add(() -> snapshot.complete(new ArrayList<>(sources.values())));
+        try {
+            return snapshot.get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (ExecutionException | TimeoutException e) {
+            return List.of();
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("sources", sourceCount.get());
+        status.put("fires", fires.sum());
+        status.put("lines", lines.sum());
+        status.put("running", running);
+        return status;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (driver != null) {
+            driver.interrupt();
+        }
+    }
+
+    private synchronized void ensureStarted() {
+        if (driver != null) {
+            return;
+        }
+        startNanos = System.nanoTime();
+        wheel = new HierarchicalTimerWheel(0);
+        running = true;
+        driver = new Thread(this::drive, "loggen-sources");
+        driver.setDaemon(true);
+        driver.start();
+    }
+
+    private void drive() {
+        while (running) {
+            Runnable command;
+            while ((command = commands.poll()) != null) {
+                command.run();
+            }
+
+            long nowTick = (System.nanoTime() - startNanos) / TICK_NANOS;
+            wheel.advance(nowTick, node -> fire((SourceTimer) node, nowTick));
+
+            long nextTickNanos = startNanos + (nowTick + 1) * TICK_NANOS;
+            LockSupport.parkNanos(nextTickNanos - System.nanoTime());
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Emit every line that became due for this source and put it back on the wheel
+     */
+    private void fire(SourceTimer timer, long nowTick) {
+        fires.increment();
+        double maxBacklog = Math.max(1, timer.definition.rate() * MAX_CATCH_UP_SECONDS);
+        if ((nowTick - timer.nextDueMillis) / timer.periodMillis > maxBacklog) {
+            timer.nextDueMillis = nowTick;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (timer.nextDueMillis <= nowTick) {
+            timer.nextDueMillis += timer.periodMillis;
+            int level = timer.levelMix.next(random);
+            if (!logGen.emit(timer.name, timer.levelMix.name(level), timer.levelMix.level(level), timer.body,
+                    timer.bodyLength)) {
+                // Stopped or max count reached: skip ahead instead of piling up a backlog
+                timer.nextDueMillis = nowTick + timer.periodMillis;
+                break;
+            }
+            timer.emitted++;
+            lines.increment();
+        }
+        wheel.schedule(timer, (long) Math.ceil(timer.nextDueMillis));
+    }
+
+    private static final class SourceTimer extends HierarchicalTimerWheel.Node {
+        private final String name;
+        private final SourceDefinition definition;
+        private final LevelMix levelMix;
+        private final byte[] body;
+        private final int bodyLength;
+        private final double periodMillis;
+        private double nextDueMillis;
+        private volatile long emitted;
+
+        private SourceTimer(String name, SourceDefinition definition, LevelMix levelMix, byte[] body, int bodyLength) {
+            this.name = name;
+            this.definition = definition;
+            this.levelMix = levelMix;
+            this.body = body;
+            this.bodyLength = bodyLength;
+            this.periodMillis = 1000.0 / definition.rate();
+        }
+    }
+}
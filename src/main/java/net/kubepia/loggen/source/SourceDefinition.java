@@ -0,0 +1,30 @@
+package net.kubepia.loggen.source;
+
+/**
+ * One simulated log source, as read from loggen.sources.file or posted to /log/sources.
+ * @param name source field value; with count > 1 the sources are named name-0 .. name-(count-1)
+ * @param rate lines per second for each source
+ * @param levels level mix such as "INFO:80,WARN:15,ERROR:5"
+ * @param template message template repeated up to payloadSize
+ * @param payloadSize message size in bytes
+ * @param count number of identical sources to create from this definition
+ */
+public record SourceDefinition(String name, double rate, String levels, String template, Integer payloadSize,
+                               Integer count) {
+
+    public SourceDefinition {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Source name is required");
+        }
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Source rate must be positive: " + name);
+        }
+        levels = levels == null || levels.isBlank() ? "INFO" : levels;
+        template = template == null ? "hello world" : template;
+        payloadSize = payloadSize == null ? 64 : payloadSize;
+        count = count == null ? 1 : count;
+        if (payloadSize < 0 || count < 1) {
+            throw new IllegalArgumentException("Invalid payloadSize or count for source " + name);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package net.kubepia.loggen.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Extracts the pod, sequence id and timestamp from a generated line without decoding it to a String.
+ * Works on text, logfmt and JSON output alike by locating the {@code podIdWithId} and {@code timestamp}
+ * keys, so lines that went through a collector and picked up a prefix or an escaped JSON envelope
+ * still parse. The pod is everything before the last '-' of podIdWithId, the id everything after it.
+ * Timestamps are ISO local date-times in the given zone (optionally with Z or an offset), or epoch
+ * millis, micros or nanos when the value is all digits. Not thread-safe; each reader owns one.
+ */
+final class LineParser {
+
+    private static final byte[] POD_ID_WITH_ID = "podIdWithId".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIMESTAMP = "timestamp".getBytes(StandardCharsets.US_ASCII);
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final ZoneId zone;
+    private final byte[] cachedMinute = new byte[16];
+    private long cachedMinuteEpochSecond = Long.MIN_VALUE;
+    private long cachedZoneOffset;
+
+    // Result of the last successful parse
+    private byte[] line;
+    private int podStart;
+    private int podLength;
+    private long id;
+    private long epochNanos;
+
+    LineParser(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * @return false when the line carries no podIdWithId, e.g. framework log output in the same file
+     */
+    boolean parse(byte[] buf, int from, int to) {
+        int value = valueOf(buf, from, to, POD_ID_WITH_ID);
+        if (value < 0) {
+            return false;
+        }
+        int end = value;
+        while (end < to && !isTerminator(buf[end])) {
+            end++;
+        }
+        int dash = end - 1;
+        while (dash > value && buf[dash] != '-') {
+            dash--;
+        }
+        if (dash <= value || dash == end - 1) {
+            return false;
+        }
+        long parsedId = 0;
+        for (int i = dash + 1; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            parsedId = parsedId * 10 + digit;
+        }
+
+        line = buf;
+        podStart = value;
+        podLength = dash - value;
+        id = parsedId;
+        int timestamp = valueOf(buf, end, to, TIMESTAMP);
+        epochNanos = timestamp < 0 ? NO_TIMESTAMP : parseTimestamp(buf, timestamp, to);
+        return true;
+    }
+
+    /**
+     * Position of the value after {@code key} followed by '=' or ':', skipping quotes and escapes
+     * @return -1 when the key does not occur as a field name
+     */
+    private static int valueOf(byte[] buf, int from, int to, byte[] key) {
+        int last = to - key.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (buf[i] != key[0]) {
+                continue;
+            }
+            for (int k = 1; k < key.length; k++) {
+                if (buf[i + k] != key[k]) {
+                    continue outer;
+                }
+            }
+            // A field name starts the line or follows a separator; "@timestamp" of an envelope does not match
+            if (i > from && !isSeparator(buf[i - 1])) {
+                continue;
+            }
+            int p = i + key.length;
+            while (p < to && (buf[p] == '"' || buf[p] == '\\')) {
+                p++;
+            }
+            if (p >= to || (buf[p] != '=' && buf[p] != ':')) {
+                continue;
+            }
+            p++;
+            while (p < to && (buf[p] == '"' || buf[p] == '\\' || buf[p] == ' ')) {
+                p++;
+            }
+            return p;
+        }
+        return -1;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == ',' || b == '"' || b == '{' || b == '\\' || b == '\t';
+    }
+
+    private static boolean isTerminator(byte b) {
+        return b == ',' || b == ' ' || b == '"' || b == '\\' || b == '}' || b == '\r' || b == '\n' || b == '\t';
+    }
+
+    private long parseTimestamp(byte[] buf, int from, int to) {
+        int end = from;
+        while (end < to && buf[end] >= '0' && buf[end] <= '9') {
+            end++;
+        }
+        if (end > from && (end == to || isTerminator(buf[end]))) {
+            return epochDigits(buf, from, end);
+        }
+        // yyyy-MM-ddTHH:mm[:ss[.fraction]][Z|+HH:MM]
+        if (to - from < 16 || buf[from + 4] != '-' || buf[from + 10] != 'T') {
+            return NO_TIMESTAMP;
+        }
+        long localMinute = localMinute(buf, from);
+        if (localMinute == NO_TIMESTAMP) {
+            return NO_TIMESTAMP;
+        }
+        int p = from + 16;
+        long seconds = 0;
+        long nanos = 0;
+        if (p + 2 < to && buf[p] == ':') {
+            seconds = (buf[p + 1] - '0') * 10 + (buf[p + 2] - '0');
+            p += 3;
+            if (p < to && buf[p] == '.') {
+                p++;
+                int digits = 0;
+                while (p < to && buf[p] >= '0' && buf[p] <= '9') {
+                    if (digits < 9) {
+                        nanos = nanos * 10 + (buf[p] - '0');
+                        digits++;
+                    }
+                    p++;
+                }
+                for (; digits < 9; digits++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        long epochSecond = localMinute + seconds;
+        if (p < to && buf[p] == 'Z') {
+            epochSecond += cachedZoneOffset;
+        } else if (p + 5 < to && (buf[p] == '+' || buf[p] == '-') && buf[p + 3] == ':') {
+            int offset = ((buf[p + 1] - '0') * 10 + (buf[p + 2] - '0')) * 3600
+                    + ((buf[p + 4] - '0') * 10 + (buf[p + 5] - '0')) * 60;
+            epochSecond += cachedZoneOffset - (buf[p] == '-' ? -offset : offset);
+        }
+        return epochSecond * 1_000_000_000L + nanos;
+    }
+
+    /**
+     * Epoch second of the "yyyy-MM-ddTHH:mm" prefix in the configured zone, cached per minute
+     * since consecutive lines almost always share it
+     */
+    private long localMinute(byte[] buf, int from) {
+        boolean same = cachedMinuteEpochSecond != Long.MIN_VALUE;
+        for (int i = 0; same && i < 16; i++) {
+            same = cachedMinute[i] == buf[from + i];
+        }
+        if (same) {
+            return cachedMinuteEpochSecond;
+        }
+        try {
+            LocalDateTime minute = LocalDateTime.of(number(buf, from, 4), number(buf, from + 5, 2),
+                    number(buf, from + 8, 2), number(buf, from + 11, 2), number(buf, from + 14, 2));
+            ZoneOffset offset = zone.getRules().getOffset(minute);
+            System.arraycopy(buf, from, cachedMinute, 0, 16);
+            cachedMinuteEpochSecond = minute.toEpochSecond(offset);
+            // Explicit Z or offset suffixes replace the zone's offset
+            cachedZoneOffset = offset.getTotalSeconds();
+            return cachedMinuteEpochSecond;
+        } catch (RuntimeException e) {
+            return NO_TIMESTAMP;
+        }
+    }
+
+    private static int number(byte[] buf, int from, int length) {
+        int value = 0;
+        for (int i = from; i < from + length; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a digit at " + i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Epoch value with the unit guessed from its length: 13 digits millis, 16 micros, 19 nanos
+     */
+    private static long epochDigits(byte[] buf, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (buf[i] - '0');
+        }
+        int digits = to - from;
+        if (digits <= 10) {
+            return value * 1_000_000_000L;
+        }
+        if (digits <= 13) {
+            return value * 1_000_000L;
+        }
+        if (digits <= 16) {
+            return value * 1000L;
+        }
+        return value;
+    }
+
+    boolean samePod(byte[] pod) {
+        if (pod == null || pod.length != podLength) {
+            return false;
+        }
+        for (int i = 0; i < podLength; i++) {
+            if (pod[i] != line[podStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    byte[] podBytes() {
+        return Arrays.copyOfRange(line, podStart, podStart + podLength);
+    }
+
+    String pod() {
+        return new String(line, podStart, podLength, StandardCharsets.UTF_8);
+    }
+
+    long id() {
+        return id;
+    }
+
+    /**
+     * @return the line's timestamp as epoch nanoseconds, or {@link #NO_TIMESTAMP}
+     */
+    long epochNanos() {
+        return epochNanos;
+    }
+}
@@ -0,0 +1,141 @@
+package net.kubepia.loggen.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of longs stored as sorted, non-adjacent [start, end] runs in two parallel arrays.
+ * Sequence ids that arrive mostly in order collapse into a handful of runs, so memory tracks the
+ * number of gaps rather than the number of ids; in-order adds only extend the last run.
+ * Not thread-safe.
+ */
+final class RangeSet {
+
+    private long[] starts = new long[16];
+    private long[] ends = new long[16];
+    private int size;
+    private long cardinality;
+
+    /**
+     * @return false when the value was already present
+     */
+    boolean add(long value) {
+        if (size == 0) {
+            insert(0, value);
+            return true;
+        }
+        // Fast path: next id in sequence or beyond the last run
+        int last = size - 1;
+        if (value == ends[last] + 1) {
+            ends[last] = value;
+            cardinality++;
+            return true;
+        }
+        if (value > ends[last]) {
+            insert(size, value);
+            return true;
+        }
+        if (value >= starts[last]) {
+            return false;
+        }
+
+        int floor = floor(value);
+        if (floor >= 0 && value <= ends[floor]) {
+            return false;
+        }
+        boolean joinsLeft = floor >= 0 && ends[floor] + 1 == value;
+        boolean joinsRight = floor + 1 < size && starts[floor + 1] - 1 == value;
+        if (joinsLeft && joinsRight) {
+            ends[floor] = ends[floor + 1];
+            remove(floor + 1);
+        } else if (joinsLeft) {
+            ends[floor] = value;
+        } else if (joinsRight) {
+            starts[floor + 1] = value;
+        } else {
+            insert(floor + 1, value);
+            return true;
+        }
+        cardinality++;
+        return true;
+    }
+
+    boolean contains(long value) {
+        int floor = floor(value);
+        return floor >= 0 && value <= ends[floor];
+    }
+
+    /**
+     * @return index of the last run starting at or before value, or -1
+     */
+    private int floor(long value) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private void insert(int index, long value) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        starts[index] = value;
+        ends[index] = value;
+        size++;
+        cardinality++;
+    }
+
+    private void remove(int index) {
+        System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+        System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+        size--;
+    }
+
+    long cardinality() {
+        return cardinality;
+    }
+
+    int runCount() {
+        return size;
+    }
+
+    long min() {
+        return size == 0 ? 0 : starts[0];
+    }
+
+    long max() {
+        return size == 0 ? 0 : ends[size - 1];
+    }
+
+    /**
+     * @return ids missing between min and max
+     */
+    long missing() {
+        return size == 0 ? 0 : max() - min() + 1 - cardinality;
+    }
+
+    /**
+     * @param limit maximum number of gaps returned
+     * @return missing ranges between min and max as "first-last"
+     */
+    List<String> gaps(int limit) {
+        List<String> gaps = new ArrayList<>();
+        for (int i = 1; i < size && gaps.size() < limit; i++) {
+            long first = ends[i - 1] + 1;
+            long lastMissing = starts[i] - 1;
+            gaps.add(first == lastMissing ? Long.toString(first) : first + "-" + lastMissing);
+        }
+        return gaps;
+    }
+}
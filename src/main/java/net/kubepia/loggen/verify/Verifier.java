@@ -0,0 +1,394 @@
+package net.kubepia.loggen.verify;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks generated lines after they went through the pipeline under test: per pod it records which
+ * sequence ids arrived in a {@link RangeSet}, so memory grows with the number of gaps rather than the
+ * number of lines, and reports loss (holes between the lowest and highest id seen), duplicates,
+ * reordering and end-to-end latency from the timestamp embedded in each line.
+ * Input comes from POST /verify/lines, a file given by loggen.verify.file (followed like tail -F)
+ * or standard input with loggen.verify.stdin=true.
+ * With loggen.verify.group-by=none all pods share one id space, which matches cluster mode.
+ */
+@Component
+public class Verifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(Verifier.class);
+    private static final int READ_CHUNK = 1 << 20;
+    private static final int REPORTED_GAPS = 10;
+    private static final String ALL_PODS = "*";
+
+    @Value("${loggen.verify.file:}")
+    private String file;
+
+    @Value("${loggen.verify.follow:true}")
+    private boolean follow;
+
+    @Value("${loggen.verify.stdin:false}")
+    private boolean stdin;
+
+    @Value("${loggen.verify.group-by:pod}")
+    private String groupBy;
+
+    @Value("${loggen.verify.zone:}")
+    private String zone;
+
+    private final Map<String, PodStream> streams = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final List<Thread> readers = new CopyOnWriteArrayList<>();
+    private volatile long firstLineNanos;
+    private volatile long lastLineNanos;
+    private volatile boolean running = true;
+    private volatile int generation;
+    private ZoneId zoneId = ZoneId.systemDefault();
+    private boolean groupByPod = true;
+
+    @PostConstruct
+    public void init() {
+        if (!zone.isBlank()) {
+            zoneId = ZoneId.of(zone);
+        }
+        groupByPod = !"none".equalsIgnoreCase(groupBy);
+        if (!file.isBlank()) {
+            startReader("loggen-verify-file", () -> tail(Path.of(file)));
+        }
+        if (stdin) {
+            startReader("loggen-verify-stdin", () -> {
+                try {
+                    ingest(System.in);
+                } catch (IOException e) {
+                    logger.warn("Verifier stopped reading standard input: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread reader : readers) {
+            reader.interrupt();
+        }
+    }
+
+    private void startReader(String name, Runnable task) {
+        Thread reader = new Thread(task, name);
+        reader.setDaemon(true);
+        readers.add(reader);
+        reader.start();
+    }
+
+    /**
+     * Read newline-separated lines until end of stream
+     * @return number of lines that carried a sequence id
+     */
+    public long ingest(InputStream in) throws IOException {
+        Session session = new Session();
+        byte[] chunk = new byte[READ_CHUNK];
+        int read;
+        while ((read = in.readNBytes(chunk, 0, chunk.length)) > 0) {
+            session.feed(chunk, 0, read, System.currentTimeMillis());
+        }
+        session.finish(System.currentTimeMillis());
+        return session.accepted;
+    }
+
+    /**
+     * Follow a file like tail -F: keep reading at end of file and start over when it is truncated or replaced
+     */
+    private void tail(Path path) {
+        logger.info("Verifying lines from {} (follow={})", path, follow);
+        ByteBuffer chunk = ByteBuffer.allocate(READ_CHUNK);
+        while (running) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                Object fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+                Session session = new Session();
+                while (running) {
+                    chunk.clear();
+                    int read = channel.read(chunk);
+                    if (read > 0) {
+                        session.feed(chunk.array(), 0, read, System.currentTimeMillis());
+                        continue;
+                    }
+                    if (!follow) {
+                        session.finish(System.currentTimeMillis());
+                        logger.info("Verifier reached end of {}", path);
+                        return;
+                    }
+                    if (rotated(path, channel, fileKey)) {
+                        session.finish(System.currentTimeMillis());
+                        break;
+                    }
+                    Thread.sleep(100);
+                }
+            } catch (NoSuchFileException e) {
+                if (!sleepBeforeRetry()) {
+                    return;
+                }
+            } catch (IOException e) {
+                logger.warn("Verifier cannot read {}: {}", path, e.getMessage());
+                if (!sleepBeforeRetry()) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static boolean rotated(Path path, FileChannel channel, Object fileKey) throws IOException {
+        try {
+            Object currentKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            return Files.size(path) < channel.position() || (fileKey != null && !fileKey.equals(currentKey));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private boolean sleepBeforeRetry() {
+        try {
+            Thread.sleep(1000);
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Forget everything seen so far, e.g. before a new test run
+     */
+    public synchronized void reset() {
+        generation++;
+        streams.clear();
+        lines.reset();
+        skipped.reset();
+        bytes.reset();
+        latency.reset();
+        firstLineNanos = 0;
+        lastLineNanos = 0;
+    }
+
+    /**
+     * Loss, duplication, reordering and latency summary, overall and per pod
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        long received = lines.sum();
+        long unique = 0;
+        long duplicates = 0;
+        long missing = 0;
+        long reordered = 0;
+        Map<String, Object> pods = new TreeMap<>();
+        for (PodStream stream : streams.values()) {
+            Map<String, Object> pod = stream.toMap();
+            unique += (Long) pod.get("unique");
+            duplicates += (Long) pod.get("duplicates");
+            missing += (Long) pod.get("missing");
+            reordered += (Long) pod.get("reordered");
+            pods.put(stream.name, pod);
+        }
+        report.put("lines", received);
+        report.put("unique", unique);
+        report.put("missing", missing);
+        report.put("duplicates", duplicates);
+        report.put("reordered", reordered);
+        report.put("skippedLines", skipped.sum());
+        report.put("bytes", bytes.sum());
+        report.put("lossRatio", unique + missing == 0 ? 0.0 : (double) missing / (unique + missing));
+        long elapsedNanos = lastLineNanos - firstLineNanos;
+        report.put("linesPerSecond", elapsedNanos <= 0 ? 0 : Math.round(received * 1e9 / elapsedNanos));
+        report.put("latencyMs", latencyReport());
+        report.put("groupBy", groupByPod ? "pod" : "none");
+        report.put("pods", pods);
+        return report;
+    }
+
+    private Map<String, Object> latencyReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("count", latency.count());
+        report.put("p50", latency.percentile(0.5) / 1000.0);
+        report.put("p90", latency.percentile(0.9) / 1000.0);
+        report.put("p99", latency.percentile(0.99) / 1000.0);
+        report.put("p999", latency.percentile(0.999) / 1000.0);
+        report.put("max", latency.max() / 1000.0);
+        report.put("negative", latency.negativeCount());
+        return report;
+    }
+
+    private PodStream stream(String name) {
+        return streams.computeIfAbsent(name, PodStream::new);
+    }
+
+    /**
+     * Per-input reading state: splits chunks into lines, carrying a partial line over to the next chunk.
+     * Not thread-safe; every input owns one.
+     */
+    final class Session {
+        private final LineParser parser = new LineParser(zoneId);
+        private byte[] partial = new byte[1 << 16];
+        private int partialLength;
+        private byte[] lastPod;
+        private PodStream lastStream;
+        private int lastGeneration = generation;
+        private long accepted;
+
+        /**
+         * @param receivedMillis wall-clock time the chunk arrived, used for all its lines
+         */
+        void feed(byte[] buf, int off, int len, long receivedMillis) {
+            bytes.add(len);
+            int end = off + len;
+            int start = off;
+            for (int i = off; i < end; i++) {
+                if (buf[i] != '\n') {
+                    continue;
+                }
+                if (partialLength > 0) {
+                    appendPartial(buf, start, i - start);
+                    accept(partial, 0, partialLength, receivedMillis);
+                    partialLength = 0;
+                } else {
+                    accept(buf, start, i, receivedMillis);
+                }
+                start = i + 1;
+            }
+            if (start < end) {
+                appendPartial(buf, start, end - start);
+            }
+        }
+
+        void finish(long receivedMillis) {
+            if (partialLength > 0) {
+                accept(partial, 0, partialLength, receivedMillis);
+                partialLength = 0;
+            }
+        }
+
+        private void appendPartial(byte[] buf, int from, int length) {
+            if (partialLength + length > partial.length) {
+                partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + length));
+            }
+            System.arraycopy(buf, from, partial, partialLength, length);
+            partialLength += length;
+        }
+
+        private void accept(byte[] buf, int from, int to, long receivedMillis) {
+            if (to > from && buf[to - 1] == '\r') {
+                to--;
+            }
+            if (to <= from) {
+                return;
+            }
+            if (!parser.parse(buf, from, to)) {
+                skipped.increment();
+                return;
+            }
+            long now = System.nanoTime();
+            if (firstLineNanos == 0) {
+                firstLineNanos = now;
+            }
+            lastLineNanos = now;
+            lines.increment();
+            accepted++;
+
+            // Consecutive lines nearly always come from the same pod; skip the map lookup then
+            if (lastGeneration != generation) {
+                lastGeneration = generation;
+                lastPod = null;
+                lastStream = null;
+            }
+            PodStream stream;
+            if (!groupByPod) {
+                stream = lastStream != null ? lastStream : (lastStream = stream(ALL_PODS));
+            } else if (parser.samePod(lastPod)) {
+                stream = lastStream;
+            } else {
+                lastPod = parser.podBytes();
+                stream = lastStream = stream(parser.pod());
+            }
+            stream.add(parser.id());
+
+            long epochNanos = parser.epochNanos();
+            if (epochNanos != LineParser.NO_TIMESTAMP) {
+                latency.record(receivedMillis * 1000 - epochNanos / 1000);
+            }
+        }
+    }
+
+    /**
+     * Ids seen for one pod (or for everything when not grouping)
+     */
+    private static final class PodStream {
+        private final String name;
+        private final RangeSet ids = new RangeSet();
+        private long received;
+        private long duplicates;
+        private long reordered;
+        private long maxReorderDistance;
+        private long highest = Long.MIN_VALUE;
+
+        private PodStream(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(long id) {
+            received++;
+            if (!ids.add(id)) {
+                duplicates++;
+                return;
+            }
+            if (id < highest) {
+                // Arrived after a higher id: late, not lost
+                reordered++;
+                maxReorderDistance = Math.max(maxReorderDistance, highest - id);
+            } else {
+                highest = id;
+            }
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("received", received);
+            map.put("unique", ids.cardinality());
+            map.put("minId", ids.min());
+            map.put("maxId", ids.max());
+            map.put("missing", ids.missing());
+            map.put("duplicates", duplicates);
+            map.put("reordered", reordered);
+            map.put("maxReorderDistance", maxReorderDistance);
+            map.put("ranges", ids.runCount());
+            map.put("gaps", ids.gaps(REPORTED_GAPS));
+            return map;
+        }
+    }
+}
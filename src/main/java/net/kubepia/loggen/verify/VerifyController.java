@@ -0,0 +1,67 @@
+package net.kubepia.loggen.verify;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/verify")
+@CrossOrigin(origins = "*")
+public class VerifyController {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerifyController.class);
+
+    @Autowired
+    private Verifier verifier;
+
+    /**
+     * POST /verify/lines - Push received lines, newline separated, in any of the generator's formats.
+     * The body is streamed, so a collector can forward large batches; gzip Content-Encoding is accepted.
+     * @return number of lines that carried a sequence id
+     */
+    @PostMapping("/lines")
+    public ResponseEntity<Map<String, Object>> pushLines(HttpServletRequest request) throws IOException {
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+            body = new GZIPInputStream(body, 64 * 1024);
+        }
+        long accepted = verifier.ingest(body);
+        Map<String, Object> response = new HashMap<>();
+        response.put("accepted", accepted);
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /verify/report - Loss, duplicates, reordering and latency percentiles so far
+     */
+    @GetMapping("/report")
+    public ResponseEntity<Map<String, Object>> getReport() {
+        Map<String, Object> response = verifier.getReport();
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /verify/reset - Forget all received ids before a new run
+     */
+    @PostMapping("/reset")
+    public ResponseEntity<Map<String, Object>> reset() {
+        logger.info("POST /verify/reset endpoint called");
+        verifier.reset();
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Verifier reset");
+        response.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,44 @@
+package net.kubepia.loggen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GenerationConfigTests {
+
+	private final GenerationConfig initial = new GenerationConfig(0, 1024, "fixed", 1, 0, 1.0, "", 1,
+			"hello world", "INFO", 1000, "");
+
+	@Test
+	void updateChangesOnlyTheGivenFields() {
+		GenerationConfig next = initial.apply(new GenerationConfig.Update(50_000.0, null, null, null, null, null,
+				null, null, null, "INFO:90,ERROR:10", 5000L, null));
+
+		assertThat(next.rate()).isEqualTo(50_000.0);
+		assertThat(next.maxCount()).isEqualTo(5000);
+		assertThat(next.toMap()).containsEntry("levels", "INFO:90,ERROR:10").containsEntry("dataSize", 1024);
+		// Payload settings did not change, so the rendered pool is shared
+		assertThat(next.payloadPool()).isSameAs(initial.payloadPool());
+	}
+
+	@Test
+	void payloadChangeRebuildsThePool() {
+		GenerationConfig next = initial.apply(new GenerationConfig.Update(null, 16, null, null, null, null, null,
+				null, null, null, null, null));
+
+		assertThat(next.payloadPool()).isNotSameAs(initial.payloadPool());
+		assertThat(next.payloadPool().distribution().maxSize()).isEqualTo(16);
+		assertThat(next.levelMix()).isSameAs(initial.levelMix());
+	}
+
+	@Test
+	void invalidUpdateIsRejected() {
+		assertThatThrownBy(() -> initial.apply(new GenerationConfig.Update(-1.0, null, null, null, null, null, null,
+				null, null, null, null, null))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> initial.apply(new GenerationConfig.Update(null, null, null, null, null, null, null,
+				null, null, "LOUD", null, null))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> initial.apply(new GenerationConfig.Update(null, null, "uniform", 100, 10, null, null,
+				null, null, null, null, null))).isInstanceOf(IllegalArgumentException.class);
+	}
+}
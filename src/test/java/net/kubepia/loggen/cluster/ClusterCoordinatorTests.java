@@ -0,0 +1,210 @@
+package net.kubepia.loggen.cluster;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClusterCoordinatorTests {
+
+	private static final long MAX_COUNT = 200_003;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void podsSharingALocalCoordinatorEmitEveryIdExactlyOnce() throws Exception {
+		LocalCoordinator coordinator = new LocalCoordinator(60_000);
+		List<ClusterIdAllocator> pods = List.of(new ClusterIdAllocator(coordinator, "pod-a", 1000),
+				new ClusterIdAllocator(coordinator, "pod-b", 1000), new ClusterIdAllocator(coordinator, "pod-c", 1000));
+
+		assertExactlyOnce(drain(pods, 2));
+		assertThat(pods.get(0).isExhausted(MAX_COUNT)).isTrue();
+	}
+
+	@Test
+	void podsSharingALeaseFileEmitEveryIdExactlyOnce() throws Exception {
+		String file = tempDir.resolve("cluster.json").toString();
+		ObjectMapper objectMapper = new ObjectMapper();
+		// Separate coordinator instances, as two pods would have
+		List<ClusterIdAllocator> pods = List.of(
+				new ClusterIdAllocator(new FileLeaseCoordinator(file, 60_000, objectMapper), "pod-a", 5000),
+				new ClusterIdAllocator(new FileLeaseCoordinator(file, 60_000, objectMapper), "pod-b", 5000));
+
+		assertExactlyOnce(drain(pods, 2));
+	}
+
+	@Test
+	void leaseFileThatLostItsStateIsNotStartedOver() throws Exception {
+		Path file = tempDir.resolve("cluster.json");
+		FileLeaseCoordinator coordinator = new FileLeaseCoordinator(file.toString(), 60_000, new ObjectMapper());
+		assertThat(coordinator.claim("pod-a", MAX_COUNT, 1000)).isEqualTo(new IdBlock(1, 1000));
+
+		Files.write(file, new byte[0]);
+		assertThatThrownBy(() -> coordinator.claim("pod-a", MAX_COUNT, 1000))
+				.isInstanceOf(IOException.class).hasMessageContaining("empty");
+		Files.writeString(file, "{\"nextId\":");
+		assertThatThrownBy(() -> coordinator.claim("pod-a", MAX_COUNT, 1000))
+				.isInstanceOf(IOException.class).hasMessageContaining("unreadable");
+
+		// Deleting the file is the way to start over
+		Files.delete(file);
+		assertThat(coordinator.claim("pod-a", MAX_COUNT, 1000)).isEqualTo(new IdBlock(1, 1000));
+	}
+
+	@Test
+	void leavingPodHandsItsUnusedIdsToTheOthers() throws Exception {
+		LocalCoordinator coordinator = new LocalCoordinator(60_000);
+		ClusterIdAllocator leaving = new ClusterIdAllocator(coordinator, "pod-a", 1000);
+		ClusterIdAllocator staying = new ClusterIdAllocator(coordinator, "pod-b", 1000);
+
+		BitSet seen = new BitSet();
+		for (int i = 0; i < 10; i++) {
+			seen.set((int) leaving.next(MAX_COUNT));
+		}
+		leaving.close();
+		assertThat(leaving.next(MAX_COUNT)).isEqualTo(-1);
+
+		long id;
+		while ((id = staying.next(MAX_COUNT)) > 0) {
+			assertThat(seen.get((int) id)).as("duplicate id %d", id).isFalse();
+			seen.set((int) id);
+		}
+		assertThat(seen.cardinality()).isEqualTo(MAX_COUNT);
+	}
+
+	@Test
+	void membershipExpiresAndRaisingTheLimitResumes() throws Exception {
+		LocalCoordinator coordinator = new LocalCoordinator(50);
+		coordinator.heartbeat(new MemberReport("pod-a", 0, 0, 0, 0));
+		assertThat(coordinator.heartbeat(new MemberReport("pod-b", 0, 0, 0, 0)).members()).hasSize(2);
+		Thread.sleep(100);
+		ClusterView view = coordinator.heartbeat(new MemberReport("pod-b", 10, 5, 5, 0));
+		assertThat(view.members()).extracting(MemberReport::memberId).containsExactly("pod-b");
+
+		ClusterIdAllocator pod = new ClusterIdAllocator(coordinator, "pod-b", 100);
+		while (pod.next(250) > 0) {
+			// use up the first limit
+		}
+		assertThat(pod.isExhausted(250)).isTrue();
+		assertThat(pod.isExhausted(300)).isFalse();
+		assertThat(pod.next(300)).isEqualTo(251);
+	}
+
+	@Test
+	void loweringTheLimitMidBlockGivesTheRestBack() throws Exception {
+		LocalCoordinator coordinator = new LocalCoordinator(60_000);
+		ClusterIdAllocator podA = new ClusterIdAllocator(coordinator, "pod-a", 1000);
+		ClusterIdAllocator podB = new ClusterIdAllocator(coordinator, "pod-b", 1000);
+		BitSet seen = new BitSet();
+		long id;
+		while ((id = podA.next(500)) > 0) {
+			seen.set((int) id);
+		}
+		assertThat(seen.cardinality()).isEqualTo(500);
+		assertThat(podB.isExhausted(500)).isTrue();
+
+		// 501..1000 went back to the coordinator, so the other pod emits them once the limit is raised
+		assertThat(podB.next(2000)).isEqualTo(501);
+		seen.set(501);
+		for (ClusterIdAllocator pod : List.of(podA, podB)) {
+			while ((id = pod.next(2000)) > 0) {
+				assertThat(seen.get((int) id)).as("duplicate id %d", id).isFalse();
+				seen.set((int) id);
+			}
+		}
+		assertThat(seen.cardinality()).isEqualTo(2000);
+	}
+
+	@Test
+	void leaderErrorsAreFailuresSoGivenBackIdsStayLocal() throws Exception {
+		LocalCoordinator leader = new LocalCoordinator(60_000);
+		ObjectMapper objectMapper = new ObjectMapper();
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/cluster/claim", exchange -> {
+			String query = exchange.getRequestURI().getQuery();
+			long maxCount = Long.parseLong(query.replaceAll(".*maxCount=(\\d+).*", "$1"));
+			byte[] body = objectMapper.writeValueAsBytes(leader.claim("pod-a", maxCount, 1000));
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.createContext("/cluster/give-back", exchange -> {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		server.createContext("/cluster/reset", exchange -> {
+			exchange.sendResponseHeaders(500, -1);
+			exchange.close();
+		});
+		server.start();
+		try {
+			HttpCoordinator coordinator = new HttpCoordinator(
+					"http://127.0.0.1:" + server.getAddress().getPort(), objectMapper);
+			assertThatThrownBy(coordinator::reset).isInstanceOf(IOException.class).hasMessageContaining("500");
+			assertThatThrownBy(() -> coordinator.giveBack("pod-a", new IdBlock(1, 10)))
+					.isInstanceOf(IOException.class).hasMessageContaining("404");
+
+			ClusterIdAllocator pod = new ClusterIdAllocator(coordinator, "pod-a", 1000);
+			while (pod.next(500) > 0) {
+				// use up the lowered limit; giving 501..1000 back fails
+			}
+			// The ids were kept rather than lost, so raising the limit continues with them
+			assertThat(pod.next(2000)).isEqualTo(501);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	private static List<long[]> drain(List<ClusterIdAllocator> pods, int threadsPerPod) throws InterruptedException {
+		List<long[]> results = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (ClusterIdAllocator pod : pods) {
+			for (int t = 0; t < threadsPerPod; t++) {
+				long[] ids = new long[(int) MAX_COUNT];
+				int[] count = new int[1];
+				results.add(ids);
+				Thread thread = new Thread(() -> {
+					long id;
+					while ((id = pod.next(MAX_COUNT)) > 0) {
+						ids[count[0]++] = id;
+					}
+				});
+				threads.add(thread);
+				thread.start();
+			}
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return results;
+	}
+
+	private static void assertExactlyOnce(List<long[]> results) {
+		BitSet seen = new BitSet();
+		for (long[] ids : results) {
+			for (long id : ids) {
+				if (id == 0) {
+					break;
+				}
+				assertThat(seen.get((int) id)).as("duplicate id %d", id).isFalse();
+				seen.set((int) id);
+			}
+		}
+		assertThat(seen.cardinality()).isEqualTo(MAX_COUNT);
+		assertThat(seen.nextSetBit(0)).isEqualTo(1);
+		assertThat(seen.length() - 1).isEqualTo(MAX_COUNT);
+	}
+}
@@ -0,0 +1,81 @@
+package net.kubepia.loggen.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = { "loggen.profile.sample-interval-ms=60000", "loggen.warmup.max-millis=200" })
+@AutoConfigureMockMvc
+class ProfileControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ProfileSampler sampler;
+
+	@Test
+	void unchangedSnapshotAnswersConditionalGetWithNotModified() throws Exception {
+		String eTag = mockMvc.perform(get("/api/profile/"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.appliedProperties").exists())
+				.andExpect(jsonPath("$.timestamp").exists())
+				.andReturn().getResponse().getHeader("ETag");
+		assertThat(eTag).isNotBlank();
+
+		mockMvc.perform(get("/api/profile/").header("If-None-Match", eTag))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/api/profile/").header("If-None-Match", "\"other\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", eTag));
+	}
+
+	@Test
+	void probesAnswerNotModifiedAcrossSamples() throws Exception {
+		for (String path : new String[] {"/liveness", "/readiness"}) {
+			// Start from a settled heap so only the live readings move between the two samples
+			System.gc();
+			sampler.sample();
+			String eTag = mockMvc.perform(get("/api/profile" + path))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getHeader("ETag");
+			// uptime and heap usage move between samples, the probe state does not
+			Thread.sleep(1100);
+			sampler.sample();
+
+			mockMvc.perform(get("/api/profile" + path).header("If-None-Match", eTag))
+					.andExpect(status().isNotModified());
+		}
+	}
+
+	@Test
+	void probesKeepTheirStatusCodes() throws Exception {
+		mockMvc.perform(get("/api/profile/liveness"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("UP"))
+				.andExpect(jsonPath("$._httpStatus").doesNotExist());
+		// Readiness follows warm-up, which has finished once the context is ready; no fixed startup delay
+		mockMvc.perform(get("/api/profile/readiness"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.ready").value(true))
+				.andExpect(jsonPath("$.details.warmUp.state").value("DONE"));
+	}
+
+	@Test
+	void everyViewIsServedFromTheSnapshot() throws Exception {
+		for (String path : new String[] {"/info", "/jvm", "/health", "/metrics", "/summary"}) {
+			mockMvc.perform(get("/api/profile" + path))
+					.andExpect(status().isOk())
+					.andExpect(header().exists("ETag"))
+					.andExpect(jsonPath("$.timestamp").exists());
+		}
+	}
+}
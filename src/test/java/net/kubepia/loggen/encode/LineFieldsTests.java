@@ -0,0 +1,95 @@
+package net.kubepia.loggen.encode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.kubepia.loggen.payload.ContentSpec;
+import net.kubepia.loggen.payload.Dictionary;
+import net.kubepia.loggen.payload.Entropy;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LineFieldsTests {
+
+	private final Dictionary dictionary = Dictionary.build(5, 50);
+
+	@Test
+	void cardinalityBoundsTheDistinctValues() {
+		LineFields fields = LineFields.parse("userId:seq:1000,path:path:300,ip:ip:20,traceId:uuid", dictionary);
+		ContentSpec content = new ContentSpec(Entropy.TEMPLATE, 50, 0, 11);
+		Set<String> users = new HashSet<>();
+		Set<String> paths = new HashSet<>();
+		Set<String> ips = new HashSet<>();
+		Set<String> traces = new HashSet<>();
+		LineBuffer out = new LineBuffer();
+		for (long id = 1; id <= 50_000; id++) {
+			long seed = content.lineSeed(id);
+			users.add(value(fields, 0, seed, out));
+			paths.add(value(fields, 1, seed, out));
+			ips.add(value(fields, 2, seed, out));
+			traces.add(value(fields, 3, seed, out));
+		}
+		assertThat(users).hasSize(1000);
+		assertThat(paths).hasSize(300).allMatch(path -> path.matches("(/[a-z]+)+"));
+		assertThat(ips).hasSize(20).allMatch(ip -> ip.matches("10\\.\\d+\\.\\d+\\.\\d+"));
+		assertThat(traces).hasSize(50_000)
+				.allMatch(trace -> trace.matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"));
+	}
+
+	@Test
+	void skewMakesPopularValuesRepeat() {
+		LineFields fields = LineFields.parse("user:seq:100000:1.2,flat:seq:100000", dictionary);
+		Map<String, Integer> skewed = new HashMap<>();
+		Map<String, Integer> flat = new HashMap<>();
+		LineBuffer out = new LineBuffer();
+		for (long seed = 0; seed < 100_000; seed++) {
+			skewed.merge(value(fields, 0, seed, out), 1, Integer::sum);
+			flat.merge(value(fields, 1, seed, out), 1, Integer::sum);
+		}
+		assertThat(skewed.get("1")).isGreaterThan(10_000);
+		assertThat(skewed.size()).isLessThan(flat.size() / 2);
+		assertThat(flat.values().stream().mapToInt(Integer::intValue).max().orElseThrow()).isLessThan(20);
+	}
+
+	@Test
+	void everyFormatWritesTheFieldsAfterStatus() throws Exception {
+		LineFields fields = LineFields.parse("tenant:word:5,requestId:hex", dictionary);
+		LogLine line = new LogLine().id(7).podId("pod").message("hi").level("INFO").source("test")
+				.timestamp(0, 0).status("auto-generated").fields(fields, 99);
+		LineBuffer out = new LineBuffer();
+		String tenant = value(fields, 0, 99, out);
+		String requestId = value(fields, 1, 99, out);
+		assertThat(requestId).matches("[0-9a-f]{32}");
+
+		new TextLineEncoder().encode(line, out);
+		assertThat(out.toString()).contains("status=auto-generated, tenant=" + tenant + ", requestId=" + requestId + ",");
+		new LogfmtLineEncoder().encode(line, out);
+		assertThat(out.toString()).contains(" tenant=" + tenant + " requestId=" + requestId + " ");
+		new JsonLineEncoder().encode(line, out);
+		JsonNode json = new ObjectMapper().readTree(out.toString());
+		assertThat(json.get("tenant").asText()).isEqualTo(tenant);
+		assertThat(json.get("requestId").asText()).isEqualTo(requestId);
+	}
+
+	@Test
+	void rejectsInvalidSpecs() {
+		assertThatThrownBy(() -> LineFields.parse("user", dictionary)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LineFields.parse("user:color", dictionary)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LineFields.parse("a b:seq", dictionary)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LineFields.parse("a:seq,a:hex", dictionary)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LineFields.parse("ip:ip:20000000", dictionary)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(LineFields.parse(" ", dictionary).isEmpty()).isTrue();
+	}
+
+	private static String value(LineFields fields, int index, long seed, LineBuffer out) {
+		out.reset();
+		fields.appendValue(index, seed, out);
+		return out.toString();
+	}
+}
@@ -0,0 +1,64 @@
+package net.kubepia.loggen.encode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineFormatTests {
+
+	private static final String TRICKY = "say \"hi\"\\ to 한글\n\ttab \u0001 😀";
+
+	@Test
+	void jsonIsValidAndEscaped() throws Exception {
+		LineBuffer buffer = new LineBuffer();
+		LineFormat.JSON.newEncoder().encode(line(TRICKY, "pod\"1"), buffer);
+
+		JsonNode node = new ObjectMapper().readTree(buffer.toString());
+		assertThat(node.get("logid").asText()).hasSize(36);
+		assertThat(node.get("id").asLong()).isEqualTo(7);
+		assertThat(node.get("podId").asText()).isEqualTo("pod\"1");
+		assertThat(node.get("podIdWithId").asText()).isEqualTo("pod\"1-7");
+		assertThat(node.get("message").asText()).isEqualTo(TRICKY);
+		assertThat(node.get("level").asText()).isEqualTo("WARN");
+		assertThat(node.get("timestamp").asText()).startsWith("20");
+		assertThat(node.get("dataSize").asLong()).isEqualTo(TRICKY.length());
+		assertThat(node.get("remainingLogs").asLong()).isEqualTo(93);
+	}
+
+	@Test
+	void logfmtQuotesOnlyWhenNeeded() {
+		LineBuffer buffer = new LineBuffer();
+		LineFormat.LOGFMT.newEncoder().encode(line("a=b \"c\"", "pod-1"), buffer);
+
+		String encoded = buffer.toString();
+		assertThat(encoded).startsWith("logid=");
+		assertThat(encoded).contains(" id=7 podId=pod-1 podIdWithId=pod-1-7 message=\"a=b \\\"c\\\"\" level=WARN ");
+		assertThat(encoded).doesNotContain("\n");
+	}
+
+	@Test
+	void logfmtQuotesPodIdWithIdAsOneValue() {
+		LineBuffer buffer = new LineBuffer();
+		LineFormat.LOGFMT.newEncoder().encode(line("hello", "pod x=\"1\""), buffer);
+
+		assertThat(buffer.toString()).contains(" podId=\"pod x=\\\"1\\\"\" podIdWithId=\"pod x=\\\"1\\\"-7\" message=hello ");
+	}
+
+	@Test
+	void parsesFormatNames() {
+		assertThat(LineFormat.parse("json")).isEqualTo(LineFormat.JSON);
+		assertThat(LineFormat.parse(" Logfmt ")).isEqualTo(LineFormat.LOGFMT);
+		assertThat(LineFormat.parse("TEXT").newEncoder()).isInstanceOf(TextLineEncoder.class);
+	}
+
+	private static LogLine line(String message, String podId) {
+		Instant now = Instant.now();
+		return new LogLine().id(7).podId(podId).message(message).level("WARN").source("scheduler")
+				.timestamp(now.getEpochSecond(), now.getNano()).status("auto-generated")
+				.dataSize(message.length()).maxLogCount(100).remainingLogs(93);
+	}
+}
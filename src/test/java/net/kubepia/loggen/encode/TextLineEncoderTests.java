@@ -0,0 +1,76 @@
+package net.kubepia.loggen.encode;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextLineEncoderTests {
+
+	@Test
+	void matchesLegacyFormat() {
+		Instant now = Instant.parse("2025-07-20T07:12:41.420513Z");
+		LogLine line = new LogLine().id(42).podId("loggen-abc").message("hello world").level("INFO")
+				.source("scheduler").timestamp(now.getEpochSecond(), now.getNano()).status("auto-generated")
+				.dataSize(11).maxLogCount(1000).remainingLogs(958);
+		LineBuffer buffer = new LineBuffer();
+		new TextLineEncoder().encode(line, buffer);
+
+		String expected = String.format(
+				"] TestLog: id=%s, podId=%s, podIdWithId=%s, message=%s, level=%s, source=%s, timestamp=%s, status=%s, dataSize=%s, maxLogCount=%s, remainingLogs=%s",
+				42, "loggen-abc", "loggen-abc-42", "hello world", "INFO", "scheduler",
+				LocalDateTime.ofInstant(now, ZoneId.systemDefault()), "auto-generated", 11, 1000, 958);
+		String encoded = buffer.toString();
+		assertThat(encoded).matches("\\[logid:[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}\\].*");
+		assertThat(encoded.substring(encoded.indexOf(']'))).isEqualTo(expected);
+	}
+
+	@Test
+	void timestampMatchesLocalDateTimeToString() {
+		TextLineEncoder encoder = new TextLineEncoder();
+		LineBuffer buffer = new LineBuffer();
+		LogLine line = new LogLine().podId("p").message("m").level("INFO").source("s").status("x");
+		long base = Instant.parse("2025-01-01T00:00:00Z").getEpochSecond();
+		int[] nanos = {0, 1_000_000, 120_000_000, 123_456_000, 123_456_789, 5};
+		for (int second = 0; second < 3; second++) {
+			for (int nano : nanos) {
+				encoder.encode(line.timestamp(base + second, nano), buffer);
+				String expected = LocalDateTime.ofInstant(Instant.ofEpochSecond(base + second, nano), ZoneId.systemDefault()).toString();
+				assertThat(buffer.toString()).contains("timestamp=" + expected + ", status=");
+			}
+		}
+	}
+
+	@Test
+	void encodingIsAllocationFree() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		TextLineEncoder encoder = new TextLineEncoder();
+		LineBuffer buffer = new LineBuffer();
+		LogLine line = new LogLine().podId("loggen-abc").message("hello world hello world").level("INFO")
+				.source("scheduler").status("auto-generated").dataSize(23).maxLogCount(Long.MAX_VALUE);
+
+		// Warm up so the JIT compiles the encoder and the timestamp cache is populated
+		encodeLines(encoder, buffer, line, 200_000);
+
+		long threadId = Thread.currentThread().getId();
+		int lines = 100_000;
+		long before = threads.getThreadAllocatedBytes(threadId);
+		encodeLines(encoder, buffer, line, lines);
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		// A String.format based line allocates well over 1 KB; allow a little slack for timestamp cache refreshes
+		assertThat(allocated / lines).isLessThan(16);
+	}
+
+	private static void encodeLines(TextLineEncoder encoder, LineBuffer buffer, LogLine line, int count) {
+		long epochSecond = 1_750_000_000L;
+		for (int i = 0; i < count; i++) {
+			line.id(i).remainingLogs(count - i).timestamp(epochSecond, i * 1_000);
+			encoder.encode(line, buffer);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package net.kubepia.loggen.encode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimestampFormatTests {
+
+	@Test
+	void everyFormatRoundTripsToTheSameInstant() {
+		TimestampWriter isoLocal = TimestampFormat.ISO_LOCAL.newWriter();
+		TimestampWriter rfc3339 = TimestampFormat.RFC3339.newWriter();
+		TimestampWriter millis = TimestampFormat.EPOCH_MILLIS.newWriter();
+		TimestampWriter nanos = TimestampFormat.EPOCH_NANOS.newWriter();
+		Instant start = Instant.parse("2026-10-18T10:59:59.999999999Z");
+		int[] fractions = { 0, 1, 120_000_000, 829_201_217, 999_999_999 };
+
+		// Several lines within a second and across second and minute boundaries exercise the caches
+		for (int second = 0; second < 3; second++) {
+			for (int nano : fractions) {
+				Instant time = Instant.ofEpochSecond(start.getEpochSecond() + second, nano);
+
+				assertThat(render(isoLocal, time))
+						.isEqualTo(LocalDateTime.ofInstant(time, ZoneId.systemDefault()).toString());
+				assertThat(OffsetDateTime.parse(render(rfc3339, time)).toInstant()).isEqualTo(time);
+				assertThat(render(rfc3339, time)).matches("\\d{4}-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.\\d{9}(Z|[+-]\\d\\d:\\d\\d)");
+				assertThat(Long.parseLong(render(millis, time))).isEqualTo(time.toEpochMilli());
+				assertThat(Long.parseLong(render(nanos, time)))
+						.isEqualTo(time.getEpochSecond() * 1_000_000_000L + time.getNano());
+			}
+		}
+	}
+
+	@Test
+	void jsonWritesNumericTimestampsUnquoted() throws Exception {
+		Instant now = Instant.now();
+		LogLine line = new LogLine().id(7).podId("pod").message("m").level("INFO").source("s")
+				.timestamp(now.getEpochSecond(), now.getNano()).status("auto-generated");
+
+		LineBuffer buffer = new LineBuffer();
+		LineFormat.JSON.newEncoder(TimestampFormat.EPOCH_NANOS).encode(line, buffer);
+		JsonNode node = new ObjectMapper().readTree(buffer.toString());
+		assertThat(node.get("timestamp").isNumber()).isTrue();
+		assertThat(node.get("timestamp").asLong()).isEqualTo(now.getEpochSecond() * 1_000_000_000L + now.getNano());
+
+		LineFormat.JSON.newEncoder(TimestampFormat.RFC3339).encode(line, buffer);
+		node = new ObjectMapper().readTree(buffer.toString());
+		assertThat(OffsetDateTime.parse(node.get("timestamp").asText()).toInstant()).isEqualTo(now);
+	}
+
+	@Test
+	void parsesFormatNames() {
+		assertThat(TimestampFormat.parse("epoch-millis")).isEqualTo(TimestampFormat.EPOCH_MILLIS);
+		assertThat(TimestampFormat.parse(" RFC3339 ")).isEqualTo(TimestampFormat.RFC3339);
+		assertThat(TimestampFormat.parse("iso_local")).isEqualTo(TimestampFormat.ISO_LOCAL);
+		assertThatThrownBy(() -> TimestampFormat.parse("unix")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static String render(TimestampWriter writer, Instant time) {
+		LineBuffer buffer = new LineBuffer();
+		writer.write(time.getEpochSecond(), time.getNano(), buffer);
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,95 @@
+package net.kubepia.loggen.engine;
+
+import net.kubepia.loggen.metrics.SinkFeedback;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveRateTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	/**
+	 * Sink that writes capacity lines per second; above that its queue fills, then producers stall
+	 */
+	private static final class SimulatedSink {
+		private double capacity;
+		private long nanos;
+		private long lines;
+		private long stalls;
+		private double queued;
+
+		private SimulatedSink(double capacity) {
+			this.capacity = capacity;
+		}
+
+		SinkFeedback.Reading second(double rate) {
+			nanos += SECOND;
+			// The queue holds one second of capacity; producers wait once it is full
+			double accepted = Math.min(rate, 2 * capacity - queued);
+			queued = Math.max(0, queued + accepted - capacity);
+			if (accepted < rate) {
+				stalls++;
+			}
+			lines += (long) accepted;
+			return new SinkFeedback.Reading(nanos, lines, queued / capacity, 0, stalls, 0, 0, 0, 0, 0);
+		}
+	}
+
+	private static void run(AdaptiveRate adaptive, SimulatedSink sink, int seconds) {
+		for (int i = 0; i < seconds; i++) {
+			adaptive.update(sink.second(adaptive.rateAt(0)), 1.0);
+		}
+	}
+
+	@Test
+	void convergesBelowTheSinkCapacityAndHolds() {
+		AdaptiveRate adaptive = (AdaptiveRate) LoadProfile.parse("adaptive:start=1000");
+		SimulatedSink sink = new SimulatedSink(73_000);
+		run(adaptive, sink, 300);
+
+		assertThat(adaptive.getPhase()).isEqualTo(AdaptiveRate.Phase.HOLDING);
+		double sustained = adaptive.getSustainableRate();
+		assertThat(sustained).isBetween(73_000 * 0.85, 73_000.0);
+		assertThat(adaptive.rateAt(0)).isCloseTo(sustained, within(0.001));
+
+		// Holding stays put while the sink keeps up
+		run(adaptive, sink, 30);
+		assertThat(adaptive.rateAt(0)).isCloseTo(sustained, within(0.001));
+		assertThat(adaptive.toMap().get("limitedBy").toString()).startsWith("backlog");
+	}
+
+	@Test
+	void probesAgainWhenTheSinkSlowsDown() {
+		AdaptiveRate adaptive = (AdaptiveRate) LoadProfile.parse("adaptive:start=1000,cycles=3");
+		SimulatedSink sink = new SimulatedSink(50_000);
+		run(adaptive, sink, 300);
+		assertThat(adaptive.getPhase()).isEqualTo(AdaptiveRate.Phase.HOLDING);
+
+		sink.capacity = 20_000;
+		run(adaptive, sink, 300);
+		assertThat(adaptive.getPhase()).isEqualTo(AdaptiveRate.Phase.HOLDING);
+		assertThat(adaptive.getSustainableRate()).isLessThanOrEqualTo(20_000);
+	}
+
+	@Test
+	void holdsAtTheConfiguredMaximum() {
+		AdaptiveRate adaptive = (AdaptiveRate) LoadProfile.parse("adaptive:start=1000,max=5000,cycles=2");
+		run(adaptive, new SimulatedSink(1_000_000), 10);
+
+		assertThat(adaptive.getPhase()).isEqualTo(AdaptiveRate.Phase.HOLDING);
+		assertThat(adaptive.getSustainableRate()).isCloseTo(5000, within(0.001));
+		assertThat(adaptive.toMap()).containsEntry("limitedBy", "max");
+	}
+
+	@Test
+	void rejectsInvalidArguments() {
+		assertThat(LoadProfile.parse("adaptive")).isInstanceOf(AdaptiveRate.class);
+		assertThatThrownBy(() -> LoadProfile.parse("adaptive:decrease=1.5"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LoadProfile.parse("adaptive:backlog=0")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LoadProfile.parse("adaptive:start=0")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,66 @@
+package net.kubepia.loggen.engine;
+
+import net.kubepia.loggen.GenerationConfig;
+import net.kubepia.loggen.LogGen;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest(properties = { "loggen.rate.lines-per-second=20000", "loggen.rate.workers=4",
+		"loggen.max.count=1000000000", "loggen.sink.type=direct", "loggen.sink.direct.path=/dev/null",
+		"loggen.warmup.max-millis=200" })
+@DirtiesContext
+class GenerationEngineTests {
+
+	@Autowired
+	private GenerationEngine engine;
+
+	@Autowired
+	private LogGen logGen;
+
+	@Test
+	void workersHoldTheConfiguredRateAndReconfigureRetiresThem() throws Exception {
+		assertThat(workerThreads()).hasSize(4);
+		Thread.sleep(500);
+		assertThat(measureRate()).isCloseTo(20_000, within(2_000.0));
+
+		// Rate 0 hands back to the scheduled tick; the current workers finish their batch and end
+		List<Thread> retired = workerThreads();
+		setRate(0.0);
+		for (Thread worker : retired) {
+			worker.join(2000);
+			assertThat(worker.isAlive()).as(worker.getName()).isFalse();
+		}
+		assertThat(engine.getStatus()).containsEntry("mode", "scheduled").containsEntry("running", false);
+
+		setRate(5000.0);
+		assertThat(workerThreads()).hasSize(4).doesNotContainAnyElementsOf(retired);
+		Thread.sleep(500);
+		assertThat(measureRate()).isCloseTo(5_000, within(500.0));
+	}
+
+	private void setRate(double rate) {
+		logGen.updateConfig(new GenerationConfig.Update(rate, null, null, null, null, null, null, null, null, null,
+				null, null));
+		engine.reconfigure();
+	}
+
+	private double measureRate() throws InterruptedException {
+		long before = logGen.getEmittedCount();
+		long start = System.nanoTime();
+		Thread.sleep(2000);
+		return (logGen.getEmittedCount() - before) * 1_000_000_000.0 / (System.nanoTime() - start);
+	}
+
+	private static List<Thread> workerThreads() {
+		return Thread.getAllStackTraces().keySet().stream()
+				.filter(thread -> thread.getName().startsWith("loggen-worker-") && thread.isAlive())
+				.toList();
+	}
+}
@@ -0,0 +1,70 @@
+package net.kubepia.loggen.engine;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class LoadProfileTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void rampStepAndSpikeFollowTheirShape() {
+		LoadProfile ramp = LoadProfile.parse("ramp:from=10000,to=110000,duration=10s");
+		assertThat(ramp.rateAt(0)).isCloseTo(10_000, within(0.001));
+		assertThat(ramp.rateAt(5 * SECOND)).isCloseTo(60_000, within(0.001));
+		assertThat(ramp.rateAt(60 * SECOND)).isCloseTo(110_000, within(0.001));
+
+		LoadProfile step = LoadProfile.parse("step:rates=10000|100000|500000,step=2m");
+		assertThat(step.rateAt(119 * SECOND)).isCloseTo(10_000, within(0.001));
+		assertThat(step.rateAt(120 * SECOND)).isCloseTo(100_000, within(0.001));
+		assertThat(step.rateAt(3600 * SECOND)).isCloseTo(500_000, within(0.001));
+
+		LoadProfile spike = LoadProfile.parse("spike:base=1000,peak=200000,every=1m,length=5s");
+		assertThat(spike.rateAt(61 * SECOND)).isCloseTo(200_000, within(0.001));
+		assertThat(spike.rateAt(66 * SECOND)).isCloseTo(1_000, within(0.001));
+	}
+
+	@Test
+	void sineAveragesToItsMean() {
+		LoadProfile sine = LoadProfile.parse("sine:mean=50000,amplitude=40000,period=24h");
+		long period = 24 * 3600 * SECOND;
+		assertThat(sine.rateAt(period / 4)).isCloseTo(90_000, within(0.001));
+		assertThat(sine.rateAt(3 * period / 4)).isCloseTo(10_000, within(0.001));
+
+		double sum = 0;
+		int samples = 1000;
+		for (int i = 0; i < samples; i++) {
+			sum += sine.rateAt(period * i / samples);
+		}
+		assertThat(sum / samples).isCloseTo(50_000, within(1.0));
+	}
+
+	@Test
+	void replayPlaysPerSecondCountsAtSpeed() throws Exception {
+		String csv = "timestamp,count\n2025-01-01T00:00:00,100\n2025-01-01T00:00:01,300\n# gap\n2025-01-01T00:00:02,200\n";
+		LoadProfile.Replay replay = LoadProfile.Replay.read(new StringReader(csv), 2, 10, true);
+
+		assertThat(replay.counts()).hasSize(3);
+		// At 2x speed each recorded second lasts half a second and its lines come twice as fast
+		assertThat(replay.rateAt(0)).isCloseTo(100 * 2 * 10, within(0.001));
+		assertThat(replay.rateAt(SECOND / 2)).isCloseTo(300 * 2 * 10, within(0.001));
+		assertThat(replay.rateAt(3 * SECOND / 2)).isCloseTo(100 * 2 * 10, within(0.001));
+
+		LoadProfile.Replay once = LoadProfile.Replay.read(new StringReader("5\n7\n"), 1, 1, false);
+		assertThat(once.rateAt(100 * SECOND)).isCloseTo(7, within(0.001));
+	}
+
+	@Test
+	void invalidSpecsAreRejected() {
+		assertThatThrownBy(() -> LoadProfile.parse("zigzag:rate=1")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LoadProfile.parse("ramp:from=1,to=2"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LoadProfile.parse("constant:rate=-5"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
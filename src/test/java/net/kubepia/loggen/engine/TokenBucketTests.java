@@ -0,0 +1,68 @@
+package net.kubepia.loggen.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TokenBucketTests {
+
+	@Test
+	void refillPacesPermitsToTheRate() {
+		TokenBucket bucket = new TokenBucket();
+		long start = System.nanoTime();
+		long permits = 0;
+		while (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1)) {
+			permits += bucket.acquire(2000, 16);
+		}
+		assertThat((double) permits).isCloseTo(2000, within(200.0));
+	}
+
+	@Test
+	void idleTimeBuildsUpAtMostOneBurst() throws Exception {
+		TokenBucket bucket = new TokenBucket();
+		Thread.sleep(500);
+		// 50 ms worth of tokens, however long the bucket was idle
+		assertThat(bucket.acquire(10_000, 10_000)).isEqualTo(500);
+
+		Thread.sleep(500);
+		assertThat(bucket.acquire(10_000, 100)).isEqualTo(100);
+		// The rest of the burst, plus whatever refilled in between
+		assertThat(bucket.acquire(10_000, 10_000)).isBetween(400, 420);
+	}
+
+	@Test
+	void resetDropsTheBurst() throws Exception {
+		TokenBucket bucket = new TokenBucket();
+		Thread.sleep(100);
+		bucket.reset();
+		assertThat(bucket.acquire(10_000, 10_000)).isLessThan(50);
+	}
+
+	@Test
+	void zeroRateParksForOneCapAndGrantsNothing() {
+		TokenBucket bucket = new TokenBucket();
+		long start = System.nanoTime();
+		assertThat(bucket.acquire(0, 10)).isZero();
+		assertThat(System.nanoTime() - start).isBetween(TimeUnit.MILLISECONDS.toNanos(90),
+				TimeUnit.MILLISECONDS.toNanos(1000));
+	}
+
+	@Test
+	void slowRateWaitsInCappedParksSoInterruptsEndTheWait() throws Exception {
+		TokenBucket bucket = new TokenBucket();
+		AtomicInteger granted = new AtomicInteger(-1);
+		// One token every 100 s
+		Thread worker = Thread.ofPlatform().start(() -> granted.set(bucket.acquire(0.01, 1)));
+		Thread.sleep(250);
+		assertThat(worker.isAlive()).isTrue();
+
+		worker.interrupt();
+		worker.join(1000);
+		assertThat(worker.isAlive()).isFalse();
+		assertThat(granted.get()).isZero();
+	}
+}
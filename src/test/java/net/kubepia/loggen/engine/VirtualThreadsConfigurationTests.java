@@ -0,0 +1,33 @@
+package net.kubepia.loggen.engine;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadsConfigurationTests {
+
+	private final ApplicationContextRunner runner = new ApplicationContextRunner()
+			.withUserConfiguration(VirtualThreadsConfiguration.class);
+
+	@Test
+	void virtualThreadingStartsWhenTheContextWasBuiltForIt() {
+		runner.withPropertyValues("loggen.threading=virtual", "spring.threads.virtual.enabled=true")
+				.run(context -> assertThat(context).hasNotFailed()
+						.hasSingleBean(VirtualThreadsConfiguration.VirtualThreadsBuild.class));
+	}
+
+	@Test
+	void virtualThreadingFailsOnAContextBuiltForPlatformThreads() {
+		// Like an AOT build processed without spring.threads.virtual.enabled
+		runner.withPropertyValues("loggen.threading=virtual")
+				.run(context -> assertThat(context).hasFailed().getFailure()
+						.rootCause().hasMessageContaining("LOGGEN_THREADING=virtual"));
+	}
+
+	@Test
+	void platformThreadingNeedsNothing() {
+		runner.run(context -> assertThat(context).hasNotFailed()
+				.doesNotHaveBean(VirtualThreadsConfiguration.VirtualThreadsBuild.class));
+	}
+}
@@ -0,0 +1,106 @@
+package net.kubepia.loggen.id;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CheckpointIdAllocatorTests {
+
+	@TempDir
+	Path dir;
+
+	private static void claim(IdAllocator allocator, int count, long expectedFirst) {
+		for (int i = 0; i < count; i++) {
+			assertThat(allocator.next(Long.MAX_VALUE)).isEqualTo(expectedFirst + i);
+		}
+	}
+
+	@Test
+	void crashResumesAfterTheLastLeaseAndCloseResumesExactly() throws Exception {
+		Path file = dir.resolve("seq/pod-0.seq");
+		CheckpointIdAllocator first = CheckpointIdAllocator.open(file, 100);
+		claim(first, 250, 1);
+
+		// No close: the process died with ids 251..300 leased but unused
+		CheckpointIdAllocator afterCrash = CheckpointIdAllocator.open(file, 100);
+		assertThat(afterCrash.getResumedFrom()).isEqualTo(301);
+		assertThat(afterCrash.isResumedClean()).isFalse();
+		claim(afterCrash, 10, 301);
+		afterCrash.close();
+		assertThat(afterCrash.next(Long.MAX_VALUE)).isEqualTo(-1);
+
+		CheckpointIdAllocator afterClose = CheckpointIdAllocator.open(file, 100);
+		assertThat(afterClose.getResumedFrom()).isEqualTo(311);
+		assertThat(afterClose.isResumedClean()).isTrue();
+
+		afterClose.reset();
+		claim(afterClose, 5, 1);
+		afterClose.close();
+		assertThat(CheckpointIdAllocator.open(file, 100).getResumedFrom()).isEqualTo(6);
+	}
+
+	@Test
+	void leasesStopAtMaxCount() throws Exception {
+		Path file = dir.resolve("pod-0.seq");
+		CheckpointIdAllocator allocator = CheckpointIdAllocator.open(file, 100_000);
+		for (int i = 1; i <= 1000; i++) {
+			assertThat(allocator.next(1000)).isEqualTo(i);
+		}
+		assertThat(allocator.next(1000)).isEqualTo(-1);
+		assertThat(allocator.isExhausted(1000)).isTrue();
+
+		// A finished run stays finished after a crash, and continues when the limit is raised
+		CheckpointIdAllocator restarted = CheckpointIdAllocator.open(file, 100_000);
+		assertThat(restarted.isExhausted(1000)).isTrue();
+		assertThat(restarted.next(2000)).isEqualTo(1001);
+	}
+
+	@Test
+	void tornWriteFallsBackToThePreviousSlot() throws Exception {
+		Path file = dir.resolve("pod-0.seq");
+		CheckpointIdAllocator allocator = CheckpointIdAllocator.open(file, 100);
+		claim(allocator, 150, 1);
+
+		// Corrupt the most recent slot (lease up to 200): the one before it leased up to 100
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer slots = ByteBuffer.allocate(64);
+			channel.read(slots, 0);
+			int latest = slots.getLong(8) > slots.getLong(40) ? 8 : 40;
+			channel.write(ByteBuffer.allocate(8).putLong(0, 12345), latest + 8);
+		}
+		CheckpointIdAllocator restarted = CheckpointIdAllocator.open(file, 100);
+		assertThat(restarted.getResumedFrom()).isEqualTo(101);
+	}
+
+	@Test
+	void concurrentProducersGetUniqueIdsAcrossLeases() throws Exception {
+		CheckpointIdAllocator allocator = CheckpointIdAllocator.open(dir.resolve("pod-0.seq"), 1000);
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				long id;
+				while ((id = allocator.next(100_000)) > 0) {
+					ids.add(id);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(ids).hasSize(100_000);
+		assertThat(allocator.peek()).isEqualTo(100_001);
+	}
+}
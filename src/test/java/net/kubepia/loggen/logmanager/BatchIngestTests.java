@@ -0,0 +1,90 @@
+package net.kubepia.loggen.logmanager;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import net.kubepia.loggen.encode.LineBuffer;
+import net.kubepia.loggen.encode.LineFormat;
+import net.kubepia.loggen.sink.LogSink;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchIngestTests {
+
+	private final List<String> written = new ArrayList<>();
+	private final List<Level> levels = new ArrayList<>();
+	private int flushes;
+	private final AtomicLong ids = new AtomicLong(100);
+
+	private final LogSink sink = new LogSink() {
+		@Override
+		public void write(Level level, LineBuffer line) {
+			levels.add(level);
+			written.add(line.toString());
+		}
+
+		@Override
+		public void flush() {
+			flushes++;
+		}
+
+		@Override
+		public String name() {
+			return "test";
+		}
+	};
+
+	@Test
+	void ingestsNdjson() throws IOException {
+		BatchIngest ingest = ingest("""
+				{"message":"first","level":"WARN","source":"app"}
+				{"level":"INFO"}
+				{"message":"second","extra":{"nested":[1,2]}}
+				""");
+
+		assertThat(ingest.getAccepted()).isEqualTo(2);
+		assertThat(ingest.getRejected()).isEqualTo(1);
+		assertThat(ingest.getFirstId()).isEqualTo(101);
+		assertThat(ingest.getLastId()).isEqualTo(102);
+		assertThat(levels).containsExactly(Level.WARN, Level.INFO);
+		assertThat(written.get(0)).contains("\"message\":\"first\"", "\"source\":\"app\"", "\"status\":\"created\"");
+		assertThat(written.get(1)).contains("\"message\":\"second\"", "\"source\":\"unknown\"");
+		assertThat(flushes).isEqualTo(1);
+	}
+
+	@Test
+	void ingestsJsonArray() throws IOException {
+		BatchIngest ingest = ingest("[{\"message\":\"a\"}, 42, {\"message\":\"b\"}]");
+
+		assertThat(ingest.getAccepted()).isEqualTo(2);
+		assertThat(ingest.getRejected()).isEqualTo(1);
+	}
+
+	@Test
+	void keepsEntriesBeforeSyntaxError() {
+		BatchIngest ingest = new BatchIngest(new JsonFactory(), sink, sink::write, LineFormat.JSON.newEncoder(), ids::incrementAndGet, "pod");
+		assertThatThrownBy(() -> ingest.ingest(body("{\"message\":\"ok\"}\n{\"message\":")))
+				.isInstanceOf(IOException.class);
+
+		assertThat(ingest.getAccepted()).isEqualTo(1);
+		assertThat(flushes).isEqualTo(1);
+	}
+
+	private BatchIngest ingest(String body) throws IOException {
+		BatchIngest ingest = new BatchIngest(new JsonFactory(), sink, sink::write, LineFormat.JSON.newEncoder(), ids::incrementAndGet, "pod");
+		ingest.ingest(body(body));
+		return ingest;
+	}
+
+	private static ByteArrayInputStream body(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,59 @@
+package net.kubepia.loggen.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.kubepia.loggen.sink.Slf4jSink;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenerationMetricsTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void linesAreCountedPerLevelWithTheirBytes() {
+		GenerationMetrics metrics = bind(64);
+		metrics.recordLine(Level.INFO, 99);
+		metrics.recordLine(Level.INFO, 9);
+		metrics.recordLine(Level.ERROR, 49);
+
+		assertThat(registry.get("loggen.lines").tag("level", "info").functionCounter().count()).isEqualTo(2);
+		assertThat(registry.get("loggen.lines").tag("level", "error").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("loggen.lines").tag("level", "debug").functionCounter().count()).isZero();
+		// Each line counts its separator too
+		assertThat(registry.get("loggen.bytes").functionCounter().count()).isEqualTo(160);
+		assertThat(metrics.getLines()).isEqualTo(3);
+	}
+
+	@Test
+	void sampledTimersRecordOneLineInN() {
+		GenerationMetrics metrics = bind(64);
+		assertThat(metrics.shouldTime(128)).isTrue();
+		assertThat(metrics.shouldTime(129)).isFalse();
+		metrics.recordTiming(1000, 2000);
+
+		assertThat(registry.get("loggen.line.encode").timer().count()).isEqualTo(1);
+		assertThat(registry.get("loggen.line.write").timer().count()).isEqualTo(1);
+		assertThat(metrics.getWriteNanos()).isEqualTo(2000);
+	}
+
+	@Test
+	void zeroSampleRateRegistersNoTimers() {
+		GenerationMetrics metrics = bind(0);
+
+		assertThat(registry.find("loggen.line.encode").timer()).isNull();
+		assertThat(registry.find("loggen.line.write").timer()).isNull();
+		assertThat(metrics.shouldTime(0)).isFalse();
+		assertThat(registry.find("loggen.lines").functionCounters()).hasSize(Level.values().length);
+	}
+
+	private GenerationMetrics bind(int timingSampleRate) {
+		GenerationMetrics metrics = new GenerationMetrics();
+		ReflectionTestUtils.setField(metrics, "timingSampleRate", timingSampleRate);
+		ReflectionTestUtils.setField(metrics, "logSink", new Slf4jSink());
+		metrics.bindTo(registry);
+		return metrics;
+	}
+}
@@ -0,0 +1,91 @@
+package net.kubepia.loggen.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuntimeHealthTests {
+
+	private static final long MB = 1024 * 1024;
+
+	private RuntimeHealth health;
+
+	@BeforeEach
+	void setUp() {
+		health = new RuntimeHealth();
+		ReflectionTestUtils.setField(health, "windowSeconds", 60);
+		ReflectionTestUtils.setField(health, "livenessOldGenPercent", 90.0);
+		ReflectionTestUtils.setField(health, "readinessOldGenPercent", 80.0);
+		ReflectionTestUtils.setField(health, "livenessPausePercent", 50.0);
+		ReflectionTestUtils.setField(health, "readinessPausePercent", 20.0);
+		ReflectionTestUtils.setField(health, "readinessBacklogPercent", 90.0);
+		health.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		health.close();
+	}
+
+	@Test
+	void youngGarbageDoesNotFailTheProbes() {
+		// A full young generation is collected every time; the old generation stays small afterwards
+		for (int i = 0; i < 50; i++) {
+			health.recordCollection("G1 Young Generation", 0, afterGc("G1 Old Gen", 100, 1000), System.nanoTime());
+		}
+		RuntimeHealth.Assessment assessment = health.assess();
+
+		assertThat(assessment.oldGenAfterGcPercent()).isEqualTo(10.0);
+		assertThat(assessment.collections()).isEqualTo(50);
+		assertThat(health.livenessFailure(assessment)).isNull();
+		assertThat(health.readinessFailure(assessment)).isNull();
+	}
+
+	@Test
+	void oldGenerationMustStayFullAcrossTheWindow() {
+		health.recordCollection("Copy", 1, afterGc("Tenured Gen", 950, 1000), System.nanoTime());
+		RuntimeHealth.Assessment full = health.assess();
+		assertThat(health.livenessFailure(full)).contains("Old generation");
+		assertThat(health.readinessFailure(full)).contains("Old generation");
+
+		// A collection in the window that brought the old generation down means the heap can still recover
+		health.recordCollection("MarkSweepCompact", 1, afterGc("Tenured Gen", 400, 1000), System.nanoTime());
+		health.recordCollection("Copy", 1, afterGc("Tenured Gen", 950, 1000), System.nanoTime());
+		RuntimeHealth.Assessment recovered = health.assess();
+		assertThat(recovered.oldGenAfterGcPercent()).isEqualTo(40.0);
+		assertThat(health.livenessFailure(recovered)).isNull();
+		assertThat(health.readinessFailure(recovered)).isNull();
+	}
+
+	@Test
+	void pauseShareCountsStopTheWorldCollectionsOnly() {
+		long start = (long) ReflectionTestUtils.getField(health, "startNanos");
+		long second = 1_000_000_000L;
+		health.recordCollection("G1 Concurrent GC", 5000, afterGc("G1 Old Gen", 100, 1000), start + second);
+		assertThat(health.assess(start + 2 * second).gcPausePercent()).isZero();
+
+		health.recordCollection("G1 Young Generation", 600, afterGc("G1 Old Gen", 100, 1000), start + second);
+		RuntimeHealth.Assessment slow = health.assess(start + 2 * second);
+		assertThat(slow.gcPausePercent()).isEqualTo(30.0);
+		assertThat(health.livenessFailure(slow)).isNull();
+		assertThat(health.readinessFailure(slow)).contains("GC pauses");
+
+		health.recordCollection("G1 Old Generation", 600, afterGc("G1 Old Gen", 100, 1000), start + second);
+		assertThat(health.livenessFailure(health.assess(start + 2 * second))).contains("GC pauses");
+		assertThat(health.assess(start + 2 * second).pauseMillis()).isEqualTo(1200);
+
+		// Pauses older than the window no longer count
+		assertThat(health.assess(start + 70 * second).gcPausePercent()).isZero();
+	}
+
+	private static Map<String, MemoryUsage> afterGc(String oldPool, long usedMb, long maxMb) {
+		return Map.of(oldPool, new MemoryUsage(0, usedMb * MB, usedMb * MB, maxMb * MB),
+				"Metaspace", new MemoryUsage(0, 900 * MB, 900 * MB, 1000 * MB));
+	}
+}
@@ -0,0 +1,106 @@
+package net.kubepia.loggen.payload;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentSpecTests {
+
+	private static final int SIZE = 256 * 1024;
+
+	@Test
+	void entropyOrdersCompressionRatio() {
+		SizeDistribution sizes = new SizeDistribution.FixedSize(4096);
+		double template = ratio(PayloadPool.build("hello world", new SizeDistribution.FixedSize(SIZE), 1).nextBody(new SplitMix64(1)));
+		double words = ratio(corpus(Entropy.WORDS, sizes));
+		double alnum = ratio(corpus(Entropy.ALNUM, sizes));
+		double random = ratio(corpus(Entropy.RANDOM, sizes));
+
+		assertThat(template).isGreaterThan(100);
+		assertThat(words).isBetween(2.0, 6.0);
+		assertThat(alnum).isBetween(1.2, words);
+		assertThat(random).isBetween(1.0, alnum);
+	}
+
+	@Test
+	void sameSeedGivesSameContent() {
+		SizeDistribution sizes = new SizeDistribution.FixedSize(100);
+		byte[] first = corpus(Entropy.WORDS, sizes);
+		assertThat(corpus(Entropy.WORDS, sizes)).isEqualTo(first);
+		assertThat(PayloadPool.build("", sizes, 1, new ContentSpec(Entropy.WORDS, 5000, SIZE, 43))
+				.nextBody(new SplitMix64(1))).isNotEqualTo(first);
+
+		SplitMix64 a = new SplitMix64(0);
+		SplitMix64 b = new SplitMix64(0);
+		ContentSpec content = new ContentSpec(Entropy.WORDS, 100, 0, 42);
+		a.reseed(content.lineSeed(12345));
+		b.reseed(content.lineSeed(12345));
+		assertThat(a.nextLong()).isEqualTo(b.nextLong());
+		assertThat(content.lineSeed(12345)).isNotEqualTo(content.lineSeed(12346));
+	}
+
+	@Test
+	void corpusLinesAreSlicesAtRandomOffsets() {
+		PayloadPool pool = PayloadPool.build("", new SizeDistribution.FixedSize(1000), 8,
+				new ContentSpec(Entropy.ALNUM, 100, 10_000, 7));
+		assertThat(pool.isCorpus()).isTrue();
+		assertThat(pool.variantCount()).isEqualTo(1);
+
+		SplitMix64 random = new SplitMix64(3);
+		byte[] body = pool.nextBody(random);
+		assertThat(body).hasSize(10_000);
+		int distinct = 0;
+		int previous = -1;
+		for (int i = 0; i < 100; i++) {
+			int offset = pool.nextOffset(random, body, 1000);
+			assertThat(offset).isBetween(0, 9_000);
+			assertThat(PayloadPool.lengthFor(body, offset, 1000)).isEqualTo(1000);
+			distinct += offset != previous ? 1 : 0;
+			previous = offset;
+		}
+		assertThat(distinct).isGreaterThan(90);
+
+		// The corpus always holds at least two of the largest lines
+		PayloadPool small = PayloadPool.build("", new SizeDistribution.FixedSize(50_000), 1,
+				new ContentSpec(Entropy.RANDOM, 10, 1000, 7));
+		assertThat(small.nextBody(random)).hasSize(100_000);
+	}
+
+	@Test
+	void dictionaryWordsAreDistinctAndFrequentOnesShort() {
+		Dictionary dictionary = Dictionary.build(1, 20_000);
+		Set<String> words = new HashSet<>();
+		for (int rank = 0; rank < dictionary.size(); rank++) {
+			assertThat(words.add(new String(dictionary.word(rank)))).isTrue();
+		}
+		assertThat(dictionary.word(0).length).isLessThan(dictionary.word(19_999).length);
+
+		int top = 0;
+		SplitMix64 random = new SplitMix64(9);
+		for (int i = 0; i < 10_000; i++) {
+			top += dictionary.nextRank(random) < 10 ? 1 : 0;
+		}
+		assertThat(top).as("Zipf puts a quarter of all draws on the ten most frequent words").isGreaterThan(2_000);
+	}
+
+	private static byte[] corpus(Entropy entropy, SizeDistribution sizes) {
+		return PayloadPool.build("", sizes, 1, new ContentSpec(entropy, 5000, SIZE, 42)).nextBody(new SplitMix64(1));
+	}
+
+	private static double ratio(byte[] data) {
+		Deflater deflater = new Deflater();
+		deflater.setInput(data);
+		deflater.finish();
+		byte[] out = new byte[data.length + 1024];
+		int compressed = 0;
+		while (!deflater.finished()) {
+			compressed += deflater.deflate(out);
+		}
+		deflater.end();
+		return (double) data.length / compressed;
+	}
+}
@@ -0,0 +1,58 @@
+package net.kubepia.loggen.payload;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadPoolTests {
+
+	@Test
+	void fixedPoolMatchesRepeatedTemplate() {
+		PayloadPool pool = PayloadPool.build("hello world", new SizeDistribution.FixedSize(30), 1);
+		SplittableRandom random = new SplittableRandom(1);
+		byte[] body = pool.nextBody(random);
+		int length = PayloadPool.lengthFor(body, pool.nextSize(random));
+
+		assertThat(new String(body, 0, length, StandardCharsets.UTF_8)).isEqualTo("hello world hello world hello ");
+	}
+
+	@Test
+	void distributionsStayWithinBounds() {
+		SplittableRandom random = new SplittableRandom(7);
+		SizeDistribution uniform = SizeDistribution.create("uniform", 0, 10, 20, 1.0, null);
+		SizeDistribution zipf = SizeDistribution.create("zipf", 0, 1, 1024 * 1024, 1.2, null);
+		SizeDistribution histogram = SizeDistribution.create("histogram", 0, 0, 0, 1.0, "100:1, 2000:3");
+
+		int small = 0;
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(uniform.nextSize(random)).isBetween(10, 20);
+			int size = zipf.nextSize(random);
+			assertThat(size).isBetween(1, 1024 * 1024);
+			if (size < 1024) {
+				small++;
+			}
+			assertThat(histogram.nextSize(random)).isIn(100, 2000);
+		}
+		assertThat(small).as("zipf favours small payloads").isGreaterThan(5_000);
+		assertThat(zipf.maxSize()).isEqualTo(1024 * 1024);
+		assertThat(histogram.maxSize()).isEqualTo(2000);
+	}
+
+	@Test
+	void neverSplitsMultiByteCharacters() {
+		byte[] body = "가나다라".getBytes(StandardCharsets.UTF_8);
+		assertThat(PayloadPool.lengthFor(body, 4)).isEqualTo(3);
+		assertThat(PayloadPool.lengthFor(body, 6)).isEqualTo(6);
+		assertThat(PayloadPool.lengthFor(body, 100)).isEqualTo(body.length);
+	}
+
+	@Test
+	void rejectsUnknownDistribution() {
+		assertThatThrownBy(() -> SizeDistribution.create("normal", 1, 1, 1, 1.0, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,77 @@
+package net.kubepia.loggen.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayFileTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void everyLineBelongsToExactlyOneChunk() throws IOException {
+		StringBuilder content = new StringBuilder();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			String line = "line-" + i + "-" + "x".repeat(i % 37);
+			expected.add(line);
+			content.append(line).append(i % 5 == 0 ? "\r\n" : "\n");
+		}
+		content.append("last-without-newline");
+		expected.add("last-without-newline");
+		Path file = dir.resolve("recorded.log");
+		Files.writeString(file, content, StandardCharsets.UTF_8);
+
+		for (int chunkSize : new int[] { 7, 64, 1000, 1 << 20 }) {
+			try (ReplayFile replay = ReplayFile.open(file, chunkSize, 4096)) {
+				List<String> lines = new ArrayList<>();
+				// Visit chunks out of order, as concurrent workers would
+				for (long chunk = replay.chunkCount() - 1; chunk >= 0; chunk--) {
+					List<String> chunkLines = new ArrayList<>();
+					replay.forEachLine(chunk, (buffer, start, end) -> chunkLines.add(string(buffer, start, end)));
+					lines.addAll(0, chunkLines);
+				}
+				assertThat(lines).as("chunk size %d", chunkSize).containsExactlyElementsOf(expected);
+			}
+		}
+	}
+
+	@Test
+	void cutsOverLongLinesAndSkipsTheirRest() throws IOException {
+		Path file = dir.resolve("long.log");
+		Files.writeString(file, "short\n" + "y".repeat(100) + "\nafter\n", StandardCharsets.UTF_8);
+
+		try (ReplayFile replay = ReplayFile.open(file, 1 << 16, 10)) {
+			List<String> lines = new ArrayList<>();
+			replay.forEachLine(0, (buffer, start, end) -> lines.add(string(buffer, start, end)));
+			assertThat(lines).containsExactly("short", "y".repeat(10), "after");
+		}
+	}
+
+	@Test
+	void findsNewlinesAtEveryPositionOfAWord() {
+		for (int position = 0; position < 20; position++) {
+			byte[] bytes = "a".repeat(20).getBytes(StandardCharsets.US_ASCII);
+			bytes[position] = '\n';
+			ByteBuffer buffer = ByteBuffer.wrap(bytes).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+			assertThat(ReplayFile.indexOfNewline(buffer, 0, bytes.length)).isEqualTo(position);
+			assertThat(ReplayFile.indexOfNewline(buffer, position + 1, bytes.length)).isEqualTo(-1);
+		}
+	}
+
+	private static String string(ByteBuffer buffer, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
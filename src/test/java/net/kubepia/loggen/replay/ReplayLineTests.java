@@ -0,0 +1,70 @@
+package net.kubepia.loggen.replay;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayLineTests {
+
+	// 2026-10-18T10:30:17.123456789Z
+	private static final long NOW_SECOND = Instant.parse("2026-10-18T10:30:17Z").getEpochSecond();
+	private static final int NOW_NANO = 123_456_789;
+
+	@Test
+	void rewritesTimestampInItsOwnLayoutAndAppendsPodIdWithId() {
+		ReplayLine line = new ReplayLine(ZoneOffset.ofHours(9), "replay");
+
+		assertThat(rewrite(line, "2024-05-01 12:00:00,250 WARN [main] o.e.Service - slow request", 7))
+				.isEqualTo("2026-10-18 19:30:17,123 WARN [main] o.e.Service - slow request podIdWithId=replay-7");
+		assertThat(line.level()).isEqualTo(Level.WARN);
+		assertThat(line.epochNanos())
+				.isEqualTo(Instant.parse("2024-05-01T12:00:00.250Z").getEpochSecond() * 1_000_000_000L + 250_000_000);
+
+		assertThat(rewrite(line, "ts=2024-05-01T12:00:00.5+02:00 level=error msg=\"boom\"", 8))
+				.isEqualTo("ts=2026-10-18T12:30:17.1+02:00 level=error msg=\"boom\" podIdWithId=replay-8");
+		assertThat(line.level()).isEqualTo(Level.ERROR);
+		assertThat(line.epochNanos()).isEqualTo(Instant.parse("2024-05-01T10:00:00.5Z").toEpochMilli() * 1_000_000L);
+	}
+
+	@Test
+	void insertsIntoJsonAndReplacesAnExistingPodIdWithId() {
+		ReplayLine line = new ReplayLine(ZoneOffset.UTC, "replay");
+
+		assertThat(rewrite(line, "{\"@timestamp\":\"2024-05-01T12:00:00.000000Z\",\"level\":\"debug\",\"msg\":\"x\"}", 1))
+				.isEqualTo("{\"@timestamp\":\"2026-10-18T10:30:17.123456Z\",\"level\":\"debug\",\"msg\":\"x\","
+						+ "\"podIdWithId\":\"replay-1\"}");
+		assertThat(line.level()).isEqualTo(Level.DEBUG);
+
+		assertThat(rewrite(line, "{\"podIdWithId\":\"loggen-abc-41\",\"timestamp\":1714564800123,\"level\":\"INFO\"}", 2))
+				.isEqualTo("{\"podIdWithId\":\"replay-2\",\"timestamp\":" + (NOW_SECOND * 1000 + 123) + ",\"level\":\"INFO\"}");
+		assertThat(line.epochNanos()).isEqualTo(1714564800123L * 1_000_000L);
+
+		assertThat(rewrite(line, "no time here, just text", 3)).isEqualTo("no time here, just text podIdWithId=replay-3");
+		assertThat(line.epochNanos()).isEqualTo(ReplayLine.NO_TIMESTAMP);
+		assertThat(line.level()).isEqualTo(Level.INFO);
+	}
+
+	@Test
+	void epochDayMatchesLocalDate() {
+		for (LocalDate date = LocalDate.of(1899, 12, 25); date.getYear() < 2101; date = date.plusDays(17)) {
+			assertThat(ReplayLine.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()))
+					.isEqualTo(date.toEpochDay());
+		}
+	}
+
+	private static String rewrite(ReplayLine line, String recorded, long id) {
+		ByteBuffer buffer = ByteBuffer.wrap(recorded.getBytes(StandardCharsets.UTF_8));
+		line.parse(buffer, 0, buffer.limit());
+		LineBuffer out = new LineBuffer();
+		line.rewrite(NOW_SECOND, NOW_NANO, id, out);
+		return out.toString();
+	}
+}
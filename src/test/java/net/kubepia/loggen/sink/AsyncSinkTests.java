@@ -0,0 +1,180 @@
+package net.kubepia.loggen.sink;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.kubepia.loggen.encode.LineBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.slf4j.event.Level;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncSinkTests {
+
+	@Test
+	void blockPolicyDeliversEveryLineInProducerOrder() throws Exception {
+		ConcurrentHashMap<String, Long> lastSeen = new ConcurrentHashMap<>();
+		AtomicLong received = new AtomicLong();
+		AtomicLong outOfOrder = new AtomicLong();
+		LogSink collector = new TestSink((level, line) -> {
+			String[] parts = line.toString().split(":");
+			long value = Long.parseLong(parts[1]);
+			Long previous = lastSeen.put(parts[0], value);
+			if (previous != null && previous + 1 != value) {
+				outOfOrder.incrementAndGet();
+			}
+			received.incrementAndGet();
+		});
+
+		AsyncSink sink = new AsyncSink(collector, 64, 2, AsyncSink.OverflowPolicy.BLOCK, 1, 16);
+		int producers = 4;
+		int perProducer = 50_000;
+		runProducers(sink, producers, perProducer);
+		sink.close();
+
+		assertThat(received.get()).isEqualTo((long) producers * perProducer);
+		assertThat(outOfOrder.get()).isZero();
+		assertThat(sink.getDropped()).isZero();
+	}
+
+	@Test
+	void dropPolicyCountsWhatDoesNotFit() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicLong received = new AtomicLong();
+		LogSink stalled = new TestSink((level, line) -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			received.incrementAndGet();
+		});
+
+		AsyncSink sink = new AsyncSink(stalled, 16, 1, AsyncSink.OverflowPolicy.DROP, 1, 16);
+		runProducers(sink, 1, 1000);
+		assertThat(sink.getQueueDepth()).isLessThanOrEqualTo(16);
+		release.countDown();
+		sink.close();
+
+		assertThat(received.get() + sink.getDropped()).isEqualTo(1000);
+		assertThat(sink.getDropped()).isGreaterThan(0);
+	}
+
+	@Test
+	void delegateFailureLosesOnlyThatLine() throws Exception {
+		AtomicLong received = new AtomicLong();
+		AtomicLong calls = new AtomicLong();
+		LogSink failingOnce = new TestSink((level, line) -> {
+			if (calls.incrementAndGet() == 10) {
+				throw new IllegalStateException("cannot map segment");
+			}
+			received.incrementAndGet();
+		});
+
+		// A small ring: more lines than slots must still get through after the failure
+		AsyncSink sink = new AsyncSink(failingOnce, 16, 1, AsyncSink.OverflowPolicy.BLOCK, 1, 8);
+		runProducers(sink, 1, 1000);
+		sink.close();
+
+		assertThat(received.get()).isEqualTo(999);
+		assertThat(sink.getDropped()).isEqualTo(1);
+		assertThat(sink.getStatus()).containsEntry("failed", 1L).containsEntry("written", 999L);
+	}
+
+	@Test
+	void persistentDelegateFailureIsLoggedOnce() throws Exception {
+		LogSink failing = new TestSink((level, line) -> {
+			throw new IllegalStateException("no space left on device");
+		});
+		Logger logger = (Logger) LoggerFactory.getLogger(AsyncSink.class);
+		ListAppender<ILoggingEvent> events = new ListAppender<>();
+		events.start();
+		logger.addAppender(events);
+		try {
+			AsyncSink sink = new AsyncSink(failing, 16, 1, AsyncSink.OverflowPolicy.BLOCK, 1, 8);
+			runProducers(sink, 1, 1000);
+			sink.close();
+
+			assertThat(sink.getStatus()).containsEntry("failed", 1000L);
+			assertThat(events.list).hasSize(1);
+		} finally {
+			logger.detachAppender(events);
+		}
+	}
+
+	@Test
+	@Timeout(10)
+	void failingFlushDoesNotStopTheWriter() throws Exception {
+		AtomicLong received = new AtomicLong();
+		AtomicLong flushes = new AtomicLong();
+		LogSink flushFails = new LogSink() {
+			@Override
+			public void write(Level level, LineBuffer line) {
+				received.incrementAndGet();
+			}
+
+			@Override
+			public void flush() {
+				if (flushes.incrementAndGet() <= 3) {
+					throw new IllegalStateException("flush failed");
+				}
+			}
+
+			@Override
+			public String name() {
+				return "test";
+			}
+		};
+
+		// Producers block on the small ring for good if the writer thread died after a flush
+		AsyncSink sink = new AsyncSink(flushFails, 16, 1, AsyncSink.OverflowPolicy.BLOCK, 1, 8);
+		for (int round = 0; round < 5; round++) {
+			runProducers(sink, 1, 200);
+			Thread.sleep(20);
+		}
+		sink.close();
+
+		assertThat(received.get()).isEqualTo(1000);
+	}
+
+	private static void runProducers(LogSink sink, int producers, int perProducer) throws InterruptedException {
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			String name = "p" + p;
+			Thread thread = new Thread(() -> {
+				LineBuffer buffer = new LineBuffer();
+				for (int i = 0; i < perProducer; i++) {
+					buffer.reset();
+					buffer.append(name).append(':').append(i);
+					sink.write(Level.INFO, buffer);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	private record TestSink(MpscRingBuffer.LineConsumer consumer) implements LogSink {
+
+		@Override
+		public void write(Level level, LineBuffer line) {
+			consumer.accept(level, line);
+		}
+
+		@Override
+		public String name() {
+			return "test";
+		}
+	}
+}
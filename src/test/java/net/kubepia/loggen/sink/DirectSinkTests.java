@@ -0,0 +1,125 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DirectSinkTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void linesFromSeveralThreadsArriveWhole() throws Exception {
+		Path file = dir.resolve("direct.log");
+		DirectSink sink = new DirectSink(file.toString(), 4096, 60_000);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			String name = "t" + t;
+			threads.add(Thread.ofPlatform().start(() -> {
+				LineBuffer line = new LineBuffer();
+				for (int i = 0; i < 1000; i++) {
+					line.reset();
+					line.append(name).append(':').append(i);
+					sink.write(Level.INFO, line);
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		sink.close();
+
+		List<String> lines = Files.readAllLines(file);
+		assertThat(lines).hasSize(4000).allMatch(line -> line.matches("t[0-3]:\\d+"));
+		assertThat(sink.getWriteErrors()).isZero();
+	}
+
+	@Test
+	void linesLargerThanTheBufferStayWholeNextToOtherThreads() throws Exception {
+		Path file = dir.resolve("direct.log");
+		DirectSink sink = new DirectSink(file.toString(), 4096, 1);
+		String large = "x".repeat(10_000);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			String name = "t" + t;
+			threads.add(Thread.ofPlatform().start(() -> {
+				LineBuffer line = new LineBuffer();
+				for (int i = 0; i < 200; i++) {
+					line.reset();
+					line.append(name).append(':').append(i % 2 == 0 ? large : "small");
+					sink.write(Level.INFO, line);
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		sink.close();
+
+		List<String> lines = Files.readAllLines(file);
+		assertThat(lines).hasSize(800).allMatch(line -> line.matches("t[0-3]:(small|x{10000})"));
+	}
+
+	@Test
+	void flushWritesAPartiallyFilledBuffer() throws Exception {
+		Path file = dir.resolve("direct.log");
+		DirectSink sink = new DirectSink(file.toString(), 4096, 60_000);
+		sink.write(Level.INFO, new LineBuffer().append("first"));
+		assertThat(Files.size(file)).isZero();
+
+		sink.flush();
+		assertThat(Files.readAllLines(file)).containsExactly("first");
+		sink.close();
+	}
+
+	@Test
+	void virtualThreadsShareABoundedSetOfBuffers() throws Exception {
+		Path file = dir.resolve("direct.log");
+		DirectSink sink = new DirectSink(file.toString(), 4096, 60_000);
+		int writers = 5000;
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < writers; t++) {
+			String name = "t" + t;
+			threads.add(Thread.ofVirtual().start(() -> {
+				LineBuffer line = new LineBuffer();
+				for (int i = 0; i < 10; i++) {
+					line.reset();
+					line.append(name).append(':').append(i);
+					sink.write(Level.INFO, line);
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		sink.close();
+
+		assertThat((int) sink.getStatus().get("threadBuffers"))
+				.isLessThanOrEqualTo(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+		assertThat(Files.readAllLines(file)).hasSize(writers * 10);
+	}
+
+	@Test
+	void bufferOfAnEndedPlatformThreadIsFlushedAndReleased() throws Exception {
+		Path file = dir.resolve("direct.log");
+		DirectSink sink = new DirectSink(file.toString(), 4096, 60_000);
+		Thread writer = new Thread(() -> sink.write(Level.INFO, new LineBuffer().append("last words")));
+		writer.start();
+		writer.join();
+		assertThat(sink.getStatus()).containsEntry("threadBuffers", 1);
+
+		sink.flush();
+		assertThat(sink.getStatus()).containsEntry("threadBuffers", 0);
+		assertThat(Files.readAllLines(file)).containsExactly("last words");
+		sink.close();
+	}
+}
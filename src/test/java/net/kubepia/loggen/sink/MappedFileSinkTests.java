@@ -0,0 +1,120 @@
+package net.kubepia.loggen.sink;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedFileSinkTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void renameRotationKeepsEveryLine() throws Exception {
+		Path file = dir.resolve("loggen.log");
+		MappedFileSink sink = new MappedFileSink(file.toString(), 4096, 2_000, 0,
+				MappedFileSink.RotationStyle.RENAME, 10, MappedFileSink.FsyncPolicy.ROTATE, 1000);
+		writeLines(sink, 1000);
+		sink.close();
+
+		assertThat(sink.getRotations()).isGreaterThan(0);
+		assertThat(readAll(file)).containsExactlyElementsOf(expectedLines(1000));
+		assertThat(Files.size(file)).isLessThanOrEqualTo(2_000);
+	}
+
+	@Test
+	void copyTruncateRotationKeepsFileInPlace() throws Exception {
+		Path file = dir.resolve("loggen.log");
+		MappedFileSink sink = new MappedFileSink(file.toString(), 4096, 2_000, 0,
+				MappedFileSink.RotationStyle.COPYTRUNCATE, 10, MappedFileSink.FsyncPolicy.NONE, 1000);
+		writeLines(sink, 1000);
+		sink.close();
+
+		assertThat(readAll(file)).containsExactlyElementsOf(expectedLines(1000));
+		assertThat(Files.readString(file)).doesNotContain("\0");
+	}
+
+	@Test
+	void reopeningAfterACrashCutsThePaddedTail() throws Exception {
+		Path file = dir.resolve("loggen.log");
+		// A run killed mid-segment: two lines, a torn third one, then more zero padding than one read chunk
+		byte[] padding = new byte[100_000];
+		Files.write(file, "line-0\nline-1\nline-".getBytes());
+		Files.write(file, padding, StandardOpenOption.APPEND);
+
+		MappedFileSink sink = new MappedFileSink(file.toString(), 4096, 0, 0,
+				MappedFileSink.RotationStyle.RENAME, 10, MappedFileSink.FsyncPolicy.NONE, 1000);
+		LineBuffer buffer = new LineBuffer();
+		buffer.append("line-2");
+		sink.write(Level.INFO, buffer);
+		sink.close();
+
+		assertThat(Files.readString(file)).isEqualTo("line-0\nline-1\nline-2\n");
+	}
+
+	@Test
+	void reopeningACleanFileAppendsAfterItsLastByte() throws Exception {
+		Path file = dir.resolve("loggen.log");
+		Files.write(file, "no trailing newline".getBytes());
+		MappedFileSink sink = new MappedFileSink(file.toString(), 4096, 0, 0,
+				MappedFileSink.RotationStyle.RENAME, 10, MappedFileSink.FsyncPolicy.NONE, 1000);
+		sink.close();
+
+		assertThat(Files.readString(file)).isEqualTo("no trailing newline");
+	}
+
+	@Test
+	void failedRotationDropsLinesInsteadOfThrowing() throws Exception {
+		Path file = dir.resolve("loggen.log");
+		// A non-empty directory where the rotated file goes cannot be replaced
+		Files.createDirectories(dir.resolve("loggen.log.1").resolve("blocked"));
+		MappedFileSink sink = new MappedFileSink(file.toString(), 4096, 2_000, 0,
+				MappedFileSink.RotationStyle.RENAME, 1, MappedFileSink.FsyncPolicy.NONE, 1000);
+		writeLines(sink, 1000);
+		sink.close();
+
+		assertThat(sink.getWriteErrors()).isGreaterThan(0);
+		assertThat(sink.getStatus()).containsEntry("writeErrors", sink.getWriteErrors());
+	}
+
+	private static void writeLines(LogSink sink, int count) {
+		LineBuffer buffer = new LineBuffer();
+		for (int i = 0; i < count; i++) {
+			buffer.reset();
+			buffer.append("line-").append(i);
+			sink.write(Level.INFO, buffer);
+		}
+	}
+
+	private static List<String> expectedLines(int count) {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			lines.add("line-" + i);
+		}
+		return lines;
+	}
+
+	/**
+	 * Oldest rotated file first, current file last
+	 */
+	private List<String> readAll(Path file) throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int i = 10; i >= 1; i--) {
+			Path rotated = file.resolveSibling(file.getFileName() + "." + i);
+			if (Files.exists(rotated)) {
+				lines.addAll(Files.readAllLines(rotated));
+			}
+		}
+		lines.addAll(Files.readAllLines(file));
+		return lines;
+	}
+}
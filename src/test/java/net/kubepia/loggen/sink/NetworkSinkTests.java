@@ -0,0 +1,185 @@
+package net.kubepia.loggen.sink;
+
+import com.sun.net.httpserver.HttpServer;
+import net.kubepia.loggen.encode.LineBuffer;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NetworkSinkTests {
+
+	@Test
+	void tcpDeliversEveryLineInOrder() throws Exception {
+		List<String> received = new CopyOnWriteArrayList<>();
+		try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			Thread acceptor = new Thread(() -> {
+				try (Socket socket = server.accept();
+						BufferedReader reader = new BufferedReader(
+								new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						received.add(line);
+					}
+				} catch (IOException e) {
+					// test ends
+				}
+			});
+			acceptor.start();
+
+			NetworkSink sink = sink("tcp://127.0.0.1:" + server.getLocalPort(), 1, "none", "lines");
+			for (int i = 1; i <= 5000; i++) {
+				sink.write(Level.INFO, line("line-" + i));
+			}
+			sink.close();
+			acceptor.join(5000);
+
+			assertThat(sink.getLinesSent()).isEqualTo(5000);
+			assertThat(received).hasSize(5000);
+			assertThat(received.get(0)).isEqualTo("line-1");
+			assertThat(received.get(4999)).isEqualTo("line-5000");
+		}
+	}
+
+	@Test
+	void httpPipelinesGzipBatchesAndRetriesServerErrors() throws Exception {
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger requests = new AtomicInteger();
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/ingest", exchange -> {
+			byte[] body;
+			try (InputStream in = exchange.getRequestBody()) {
+				body = in.readAllBytes();
+			}
+			// The first request is rejected once and must come back
+			if (requests.incrementAndGet() == 1) {
+				exchange.sendResponseHeaders(503, -1);
+				exchange.close();
+				return;
+			}
+			assertThat(exchange.getRequestHeaders().getFirst("Content-Encoding")).isEqualTo("gzip");
+			try (InputStream in = new GZIPInputStream(new java.io.ByteArrayInputStream(body))) {
+				for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+					received.add(line);
+				}
+			}
+			byte[] response = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, response.length);
+			exchange.getResponseBody().write(response);
+			exchange.close();
+		});
+		server.start();
+		try {
+			NetworkSink sink = sink("http://127.0.0.1:" + server.getAddress().getPort() + "/ingest", 2, "gzip", "lines");
+			for (int i = 1; i <= 20000; i++) {
+				sink.write(Level.INFO, line("{\"id\":" + i + ",\"message\":\"hello world\"}"));
+			}
+			sink.close();
+
+			assertThat(sink.getLinesFailed()).isZero();
+			assertThat(sink.getLinesSent()).isEqualTo(20000);
+			assertThat(sink.getStatus()).containsEntry("httpErrors", 1L).containsEntry("retries", 1L);
+			assertThat(received).hasSize(20000).doesNotHaveDuplicates();
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void syslogOverUdpSendsOneRfc5424MessagePerDatagram() throws Exception {
+		try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+			socket.setSoTimeout(5000);
+			NetworkSink sink = sink("syslog+udp://127.0.0.1:" + socket.getLocalPort(), 1, "none", "lines");
+			sink.write(Level.WARN, line("first"));
+			sink.write(Level.INFO, line("second line"));
+			sink.close();
+
+			List<String> messages = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				DatagramPacket packet = new DatagramPacket(new byte[2048], 2048);
+				socket.receive(packet);
+				messages.add(new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8));
+			}
+			assertThat(messages.get(0)).matches("<12>1 \\d{4}-\\d\\d-\\d\\dT\\S+ test-pod loggen - - - first");
+			assertThat(messages.get(1)).matches("<14>1 \\S+ test-pod loggen - - - second line");
+		}
+	}
+
+	@Test
+	void virtualThreadProducersShareABoundedSetOfBatches() throws Exception {
+		AtomicInteger received = new AtomicInteger();
+		try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			Thread acceptor = new Thread(() -> {
+				try (Socket socket = server.accept();
+						BufferedReader reader = new BufferedReader(
+								new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+					while (reader.readLine() != null) {
+						received.incrementAndGet();
+					}
+				} catch (IOException e) {
+					// test ends
+				}
+			});
+			acceptor.start();
+
+			NetworkSink sink = sink("tcp://127.0.0.1:" + server.getLocalPort(), 1, "none", "lines");
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < 2000; t++) {
+				threads.add(Thread.ofVirtual().start(() -> sink.write(Level.INFO, line("tenant line"))));
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			assertThat((int) sink.getStatus().get("producerSlots"))
+					.isLessThanOrEqualTo(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+			sink.close();
+			acceptor.join(5000);
+
+			assertThat(received.get()).isEqualTo(2000);
+		}
+	}
+
+	@Test
+	void readsPipelinedResponsesWithLengthAndChunkedBodies() throws IOException {
+		List<Integer> statuses = new ArrayList<>();
+		HttpResponseReader reader = new HttpResponseReader();
+		String responses = "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello"
+				+ "HTTP/1.1 100 Continue\r\n\r\n"
+				+ "HTTP/1.1 429 Too Many Requests\r\nTransfer-Encoding: chunked\r\n\r\n4;x=y\r\nslow\r\n0\r\n\r\n"
+				+ "HTTP/1.1 204 No Content\r\n\r\n";
+		byte[] bytes = responses.getBytes(StandardCharsets.US_ASCII);
+		// Feed in small pieces, as reads from a socket arrive
+		for (int off = 0; off < bytes.length; off += 7) {
+			reader.feed(ByteBuffer.wrap(bytes, off, Math.min(7, bytes.length - off)), (status, close) -> statuses.add(status));
+		}
+		assertThat(statuses).containsExactly(200, 429, 204);
+	}
+
+	private static NetworkSink sink(String url, int connections, String compression, String format) throws IOException {
+		return new NetworkSink(NetworkEndpoint.parse(url), new NetworkSink.Options(16 * 1024, 8, connections, 4,
+				compression, format, "test-pod", 50, 100, 3));
+	}
+
+	private static LineBuffer line(String text) {
+		return new LineBuffer().append(text);
+	}
+}
@@ -0,0 +1,72 @@
+package net.kubepia.loggen.source;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimerWheelTests {
+
+	static class TestTimer extends HierarchicalTimerWheel.Node {
+		long firedAt = -1;
+	}
+
+	@Test
+	void timersFireExactlyAtTheirDeadlineOnEveryLevel() {
+		HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(5);
+		long[] deadlines = { 6, 63, 64, 69, 4095, 4096, 4160, 300_000, 16_777_300, 20_000_000 };
+		List<TestTimer> timers = new ArrayList<>();
+		for (long deadline : deadlines) {
+			TestTimer timer = new TestTimer();
+			wheel.schedule(timer, deadline);
+			timers.add(timer);
+		}
+		assertThat(wheel.size()).isEqualTo(deadlines.length);
+
+		// Advance in uneven steps so cascades happen in the middle of a batch
+		while (wheel.currentTick() < 20_000_000) {
+			long to = Math.min(20_000_000, wheel.currentTick() + 997);
+			wheel.advance(to, node -> ((TestTimer) node).firedAt = wheel.currentTick());
+		}
+
+		for (int i = 0; i < deadlines.length; i++) {
+			assertThat(timers.get(i).firedAt).as("deadline %d", deadlines[i]).isEqualTo(deadlines[i]);
+		}
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void cancelledTimersDoNotFireAndRescheduleMovesTheDeadline() {
+		HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(0);
+		TestTimer cancelled = new TestTimer();
+		TestTimer moved = new TestTimer();
+		wheel.schedule(cancelled, 100);
+		wheel.schedule(moved, 100);
+		wheel.cancel(cancelled);
+		wheel.schedule(moved, 5000);
+
+		wheel.advance(10_000, node -> ((TestTimer) node).firedAt = wheel.currentTick());
+
+		assertThat(cancelled.firedAt).isEqualTo(-1);
+		assertThat(cancelled.isScheduled()).isFalse();
+		assertThat(moved.firedAt).isEqualTo(5000);
+	}
+
+	@Test
+	void expiredCallbackCanRescheduleThePeriodicTimer() {
+		HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(0);
+		TestTimer periodic = new TestTimer();
+		int[] fired = { 0 };
+		wheel.schedule(periodic, 10);
+
+		wheel.advance(1000, node -> {
+			fired[0]++;
+			wheel.schedule(node, wheel.currentTick() + 10);
+		});
+
+		assertThat(fired[0]).isEqualTo(100);
+		assertThat(wheel.size()).isEqualTo(1);
+	}
+}
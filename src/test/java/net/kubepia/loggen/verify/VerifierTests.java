@@ -0,0 +1,148 @@
+package net.kubepia.loggen.verify;
+
+import net.kubepia.loggen.encode.LineBuffer;
+import net.kubepia.loggen.encode.LineFormat;
+import net.kubepia.loggen.encode.LogLine;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifierTests {
+
+	@Test
+	void rangeSetMergesRunsAndListsGaps() {
+		RangeSet ids = new RangeSet();
+		for (long id : new long[] { 1, 2, 3, 7, 8, 5, 10, 4 }) {
+			assertThat(ids.add(id)).isTrue();
+		}
+		assertThat(ids.add(8)).isFalse();
+		assertThat(ids.add(2)).isFalse();
+
+		assertThat(ids.cardinality()).isEqualTo(8);
+		assertThat(ids.runCount()).isEqualTo(3);
+		assertThat(ids.missing()).isEqualTo(2);
+		assertThat(ids.gaps(10)).containsExactly("6", "9");
+		assertThat(ids.contains(5)).isTrue();
+		assertThat(ids.contains(6)).isFalse();
+
+		assertThat(ids.add(6)).isTrue();
+		assertThat(ids.add(9)).isTrue();
+		assertThat(ids.runCount()).isEqualTo(1);
+		assertThat(ids.missing()).isZero();
+	}
+
+	@Test
+	void reportsLossDuplicatesAndReorderingInEveryFormat() throws IOException {
+		for (LineFormat format : LineFormat.values()) {
+			Verifier verifier = verifier("pod");
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			out.write("Started LoggenApplication in 1.2 seconds\n".getBytes(StandardCharsets.UTF_8));
+			for (long id = 1; id <= 100; id++) {
+				if (id == 10 || (id >= 50 && id <= 52) || id == 5) {
+					continue;
+				}
+				write(out, format, "loggen-7d9f-x", id, Instant.now());
+				if (id == 20) {
+					write(out, format, "loggen-7d9f-x", 20, Instant.now());
+				}
+				if (id == 30) {
+					write(out, format, "loggen-7d9f-x", 5, Instant.now());
+				}
+			}
+			write(out, format, "other", 1, Instant.now());
+
+			assertThat(verifier.ingest(new ByteArrayInputStream(out.toByteArray()))).isEqualTo(98);
+
+			Map<String, Object> report = verifier.getReport();
+			assertThat(report).containsEntry("lines", 98L).containsEntry("unique", 97L)
+					.containsEntry("missing", 4L).containsEntry("duplicates", 1L)
+					.containsEntry("reordered", 1L).containsEntry("skippedLines", 1L);
+			@SuppressWarnings("unchecked")
+			Map<String, Object> pod = (Map<String, Object>) ((Map<String, Object>) report.get("pods")).get("loggen-7d9f-x");
+			assertThat(pod).as(format.name()).containsEntry("maxId", 100L).containsEntry("maxReorderDistance", 25L);
+			assertThat(pod.get("gaps")).asList().containsExactly("10", "50-52");
+		}
+	}
+
+	@Test
+	void measuresLatencyFromEmbeddedTimestamp() throws IOException {
+		Verifier verifier = verifier("none");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Instant twoSecondsAgo = Instant.now().minusSeconds(2);
+		for (long id = 1; id <= 50; id++) {
+			write(out, LineFormat.JSON, "pod-" + (id % 2), id, twoSecondsAgo);
+		}
+		long epochMillis = twoSecondsAgo.toEpochMilli();
+		out.write(("logid=x id=51 podIdWithId=pod-1-51 timestamp=" + epochMillis + " status=relayed\n")
+				.getBytes(StandardCharsets.UTF_8));
+		verifier.ingest(new ByteArrayInputStream(out.toByteArray()));
+
+		Map<String, Object> report = verifier.getReport();
+		assertThat(report).containsEntry("unique", 51L).containsEntry("missing", 0L);
+		@SuppressWarnings("unchecked")
+		Map<String, Object> latency = (Map<String, Object>) report.get("latencyMs");
+		assertThat(latency).containsEntry("count", 51L);
+		assertThat((Double) latency.get("p50")).isBetween(1900.0, 2600.0);
+		assertThat((Double) latency.get("p99")).isBetween(1900.0, 2600.0);
+	}
+
+	@Test
+	void joinsLinesSplitAcrossChunks() {
+		Verifier verifier = verifier("pod");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (long id = 1; id <= 20; id++) {
+			write(out, LineFormat.TEXT, "pod-a", id, Instant.now());
+		}
+		byte[] bytes = out.toByteArray();
+
+		Verifier.Session session = verifier.new Session();
+		for (int off = 0; off < bytes.length; off += 37) {
+			session.feed(bytes, off, Math.min(37, bytes.length - off), System.currentTimeMillis());
+		}
+		session.finish(System.currentTimeMillis());
+
+		assertThat(verifier.getReport()).containsEntry("unique", 20L).containsEntry("missing", 0L)
+				.containsEntry("skippedLines", 0L);
+	}
+
+	@Test
+	void logfmtPodIdThatNeedsQuotingStaysWhole() throws IOException {
+		Verifier verifier = verifier("pod");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (long id = 1; id <= 3; id++) {
+			write(out, LineFormat.LOGFMT, "zone=a", id, Instant.now());
+		}
+
+		assertThat(verifier.ingest(new ByteArrayInputStream(out.toByteArray()))).isEqualTo(3);
+		@SuppressWarnings("unchecked")
+		Map<String, Object> pods = (Map<String, Object>) verifier.getReport().get("pods");
+		assertThat(pods).containsOnlyKeys("zone=a");
+	}
+
+	private static Verifier verifier(String groupBy) {
+		Verifier verifier = new Verifier();
+		ReflectionTestUtils.setField(verifier, "file", "");
+		ReflectionTestUtils.setField(verifier, "zone", "");
+		ReflectionTestUtils.setField(verifier, "groupBy", groupBy);
+		verifier.init();
+		return verifier;
+	}
+
+	private static void write(ByteArrayOutputStream out, LineFormat format, String podId, long id, Instant time) {
+		LineBuffer buffer = new LineBuffer();
+		LogLine line = new LogLine().id(id).podId(podId).message("hello world").level("INFO").source("scheduler")
+				.timestamp(time.getEpochSecond(), time.getNano()).status("auto-generated")
+				.dataSize(11).maxLogCount(1000).remainingLogs(1000 - id);
+		format.newEncoder().encode(line, buffer);
+		out.writeBytes(buffer.toString().getBytes(StandardCharsets.UTF_8));
+		out.write('\n');
+	}
+}